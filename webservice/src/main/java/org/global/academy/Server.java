@@ -5,14 +5,22 @@ import static spark.Spark.*;
 import com.google.gson.Gson;
 import org.global.academy.config.AppConfig;
 import org.global.academy.controller.AuthController;
+import org.global.academy.controller.MetricsController;
 import org.global.academy.controller.PortfolioController;
 import org.global.academy.controller.StockController;
+import org.global.academy.controller.StreamController;
+import org.global.academy.market.PriceRefreshScheduler;
+import org.global.academy.market.SimulatedMarketDataProvider;
+import org.global.academy.market.TwelveDataProvider;
+import org.global.academy.persistence.DurabilityMode;
 import org.global.academy.repository.PortfolioRepository;
 import org.global.academy.repository.StockRepository;
 import org.global.academy.repository.UserRepository;
 import org.global.academy.service.PortfolioService;
 import org.global.academy.service.StockService;
 import org.global.academy.service.UserService;
+import org.global.academy.stream.PriceUpdateHub;
+import org.global.academy.valuation.ValuationEngine;
 
 import java.io.IOException;
 import java.io.InputStream;
@@ -65,23 +73,85 @@ public class Server {
         Path dataDir = resolveDataDirectory();
 
         // Initialize Repositories
+        DurabilityMode durability = DurabilityMode.parse(AppConfig.PERSISTENCE_DURABILITY);
+        System.out.println("Saving trades and users with durability " + durability + ".");
         UserRepository userRepository = new UserRepository(
                 gson,
-                dataDir.resolve("users.json"));
+                dataDir.resolve("users.json"),
+                durability);
 
         PortfolioRepository portfolioRepository = new PortfolioRepository(
                 gson,
-                dataDir.resolve("holdings.json"));
+                dataDir.resolve("holdings.json"),
+                dataDir.resolve("portfolios"),
+                dataDir.resolve("trades.wal"),
+                AppConfig.LEDGER_COMPACT_EVENTS,
+                durability,
+                AppConfig.PORTFOLIO_CACHE_MAX_BYTES);
+
+        // Choose the market data provider (live API or local simulation)
+        StockRepository stockRepository;
+        if ("simulated".equalsIgnoreCase(AppConfig.MARKET_DATA_PROVIDER)) {
+            System.out.println("Using simulated market data provider.");
+            SimulatedMarketDataProvider provider = new SimulatedMarketDataProvider(
+                    AppConfig.SIMULATED_REPLAY_FILE == null ? null : Paths.get(AppConfig.SIMULATED_REPLAY_FILE),
+                    AppConfig.SIMULATED_LATENCY_MILLIS,
+                    AppConfig.SIMULATED_CATALOG_SIZE,
+                    AppConfig.SIMULATED_SEED);
+            stockRepository = new StockRepository(
+                    dataDir.resolve("stocks-simulated.json"),
+                    dataDir.resolve("stock-catalog-simulated.dat"),
+                    dataDir.resolve("price-history-simulated.dat"),
+                    provider,
+                    provider);
+        } else {
+            TwelveDataProvider provider = new TwelveDataProvider();
+            stockRepository = new StockRepository(
+                    dataDir.resolve("stocks.json"),
+                    dataDir.resolve("stock-catalog.dat"),
+                    dataDir.resolve("price-history.dat"),
+                    provider,
+                    provider);
+        }
 
-        StockRepository stockRepository = new StockRepository(
-                gson,
-                dataDir.resolve("stocks.json"));
+        // Value loaded portfolios at current prices, updated on every tick
+        ValuationEngine valuationEngine = new ValuationEngine(
+                stockRepository::getLastKnownPrice,
+                AppConfig.VALUATION_TASK_PORTFOLIOS);
+        portfolioRepository.addEvictionListener(valuationEngine::removePortfolio);
+        portfolioRepository.startScan();
+        stockRepository.addPriceListener(valuationEngine);
+        valuationEngine.start(AppConfig.VALUATION_REVALUE_INTERVAL_SECONDS);
+
+        // Keep prices of held symbols fresh in the background
+        PriceRefreshScheduler priceRefreshScheduler = new PriceRefreshScheduler(
+                portfolioRepository::getHeldSymbols,
+                stockRepository::refreshPrices,
+                AppConfig.PRICE_REFRESH_INTERVAL_SECONDS,
+                AppConfig.PRICE_REFRESH_BATCH_SIZE);
+        priceRefreshScheduler.start();
+
+        // Push new prices to open dashboard streams
+        PriceUpdateHub priceUpdateHub = new PriceUpdateHub(AppConfig.PRICE_STREAM_HEARTBEAT_SECONDS);
+        stockRepository.addPriceListener(priceUpdateHub);
+        valuationEngine.addChangeListener(priceUpdateHub::portfolioChanged);
+
+        // Flush recorded prices to disk on shutdown
+        StockRepository repositoryToClose = stockRepository;
+        Runtime.getRuntime().addShutdownHook(new Thread(repositoryToClose::close, "price-history-close"));
+
+        // Write the changed portfolios and close the trade log on shutdown
+        Runtime.getRuntime().addShutdownHook(new Thread(portfolioRepository::close, "trade-ledger-close"));
+
+        // Save users still queued on shutdown
+        Runtime.getRuntime().addShutdownHook(new Thread(userRepository::close, "user-store-close"));
 
         // Initialize Services
         UserService userService = new UserService(userRepository);
         PortfolioService portfolioService = new PortfolioService(
                 portfolioRepository,
-                stockRepository);
+                stockRepository,
+                valuationEngine);
         StockService stockService = new StockService(stockRepository);
 
         // Initialize Controllers
@@ -98,6 +168,18 @@ public class Server {
                 stockService,
                 gson);
 
+        StreamController streamController = new StreamController(
+                portfolioService,
+                priceUpdateHub,
+                gson);
+
+        MetricsController metricsController = new MetricsController(
+                stockService,
+                portfolioService,
+                priceUpdateHub,
+                valuationEngine,
+                gson);
+
         // === SECURITY FILTERS ===
         before("/welcome", (req, res) -> checkLogin(req, res));
         before("/welcome.html", (req, res) -> checkLogin(req, res));
@@ -121,6 +203,8 @@ public class Server {
         authController.registerRoutes();
         portfolioController.registerRoutes();
         stockController.registerRoutes();
+        streamController.registerRoutes();
+        metricsController.registerRoutes();
 
         System.out.println("🚀 Portfolio Management Server started on port " +
                 AppConfig.SERVER_PORT);
@@ -198,9 +282,14 @@ public class Server {
      * directory cannot be found, falls back to using the current working directory.
      * 
      * The data directory is used to store:
-     * - users.json (user accounts)
-     * - holdings.json (portfolio data)
+     * - users.json.N (user account snapshots; users.json before the first)
+     * - portfolios/USER/portfolio.json.N (each user's portfolio)
+     * - portfolios.checkpoint.N (the trade the portfolio files are up to date with)
+     * - holdings.json.N (all portfolios in one file; only read once, to
+     *   create the per-user files)
+     * - trades.wal.N (trade log since the previous checkpoint)
      * - stocks.json (cached stock list)
+     * - price-history.dat (recorded price ticks)
      * 
      * @return Path object pointing to the data directory
      */
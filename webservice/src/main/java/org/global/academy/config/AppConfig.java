@@ -24,6 +24,69 @@ public class AppConfig {
     /** Base URL for Twelve Data API endpoints */
     public static final String TWELVE_DATA_BASE_URL = "https://api.twelvedata.com";
 
+    /** Maximum time to establish a connection to the market data API */
+    public static final long HTTP_CONNECT_TIMEOUT_MILLIS = 3 * 1000;
+
+    /** Maximum time to wait for a price response from the market data API */
+    public static final long HTTP_REQUEST_TIMEOUT_MILLIS = 5 * 1000;
+
+    /** Maximum time to wait for the (large) stock list response */
+    public static final long CATALOG_REQUEST_TIMEOUT_MILLIS = 30 * 1000;
+
+    /**
+     * How long price requests are collected before being sent upstream as one
+     * combined call
+     */
+    public static final long PRICE_BATCH_WINDOW_MILLIS = 5;
+
+    /** Maximum number of symbols in one upstream /price call */
+    public static final int PRICE_BATCH_MAX_SYMBOLS = 120;
+
+    /**
+     * Twelve Data API credits available per minute; each symbol in a /price
+     * call costs one credit (override with -Dmarket.credits.per.minute)
+     */
+    public static final int UPSTREAM_CREDITS_PER_MINUTE = Integer.getInteger("market.credits.per.minute", 8);
+
+    /** Number of recent market data calls the circuit breaker looks at */
+    public static final int CIRCUIT_BREAKER_WINDOW = 20;
+
+    /** Minimum number of recent calls before the circuit breaker can open */
+    public static final int CIRCUIT_BREAKER_MIN_CALLS = 5;
+
+    /** Share of failed or slow recent calls that opens the circuit breaker */
+    public static final double CIRCUIT_BREAKER_FAILURE_RATE = 0.5;
+
+    /** Market data calls slower than this count as failures */
+    public static final long CIRCUIT_BREAKER_SLOW_CALL_MILLIS = 2 * 1000;
+
+    /** How long the circuit breaker stays open before probing upstream */
+    public static final long CIRCUIT_BREAKER_OPEN_MILLIS = 30 * 1000;
+
+    /** Symbol used for the circuit breaker health probe */
+    public static final String CIRCUIT_BREAKER_PROBE_SYMBOL = "AAPL";
+
+    /**
+     * Market data provider to use: "twelvedata" for the live API or "simulated"
+     * for the local replay/random-walk provider (override with -Dmarket.provider)
+     */
+    public static final String MARKET_DATA_PROVIDER = System.getProperty("market.provider", "twelvedata");
+
+    /**
+     * Optional file of recorded "SYMBOL,price" lines replayed by the simulated
+     * provider (set with -Dmarket.replay.file)
+     */
+    public static final String SIMULATED_REPLAY_FILE = System.getProperty("market.replay.file");
+
+    /** Latency added to every simulated provider call (-Dmarket.latency.ms) */
+    public static final long SIMULATED_LATENCY_MILLIS = Long.getLong("market.latency.ms", 150);
+
+    /** Number of synthetic stocks in the simulated catalog (-Dmarket.catalog.size) */
+    public static final int SIMULATED_CATALOG_SIZE = Integer.getInteger("market.catalog.size", 5000);
+
+    /** Seed of the simulated random walk, so runs are repeatable (-Dmarket.seed) */
+    public static final long SIMULATED_SEED = Long.getLong("market.seed", 42);
+
     // === SESSION CONFIGURATION ===
     /** Session attribute key used to track user login status */
     public static final String LOGGED_IN_KEY = "isLoggedIn";
@@ -39,8 +102,131 @@ public class AppConfig {
     public static final String STATIC_FILES_LOCATION = "/public";
 
     // === CACHE CONFIGURATION ===
-    /** Maximum age of stock cache in seconds (24 hours) */
-    public static final long STOCK_CACHE_MAX_AGE_SECONDS = 24 * 60 * 60;
+    /** Maximum age of stock cache in seconds (24 hours, -Dcatalog.max.age.seconds) */
+    public static final long STOCK_CACHE_MAX_AGE_SECONDS = Long.getLong("catalog.max.age.seconds", 24 * 60 * 60);
+
+    /**
+     * How often the background refresher checks whether the stock list is
+     * older than {@link #STOCK_CACHE_MAX_AGE_SECONDS} (-Dcatalog.refresh.check.seconds)
+     */
+    public static final long CATALOG_REFRESH_CHECK_SECONDS = Long.getLong("catalog.refresh.check.seconds", 60 * 60);
+
+    /**
+     * Share of the stock list that may sit in the delta segment (added,
+     * removed and renamed stocks) before the catalog is compacted into a
+     * single rebuilt index
+     */
+    public static final double CATALOG_MAX_DELTA_RATIO = 0.10;
+
+    /** Maximum number of stock search results (best matches first) */
+    public static final int SEARCH_RESULT_LIMIT = 20;
+
+    /** How long a fetched price is served without revalidation (1 minute) */
+    public static final long PRICE_CACHE_TTL_MILLIS = 60 * 1000;
+
+    /**
+     * How long an expired price may still be served while it is revalidated in
+     * the background (5 minutes)
+     */
+    public static final long PRICE_CACHE_STALE_WINDOW_MILLIS = 5 * 60 * 1000;
+
+    /** Maximum time a request waits for a price fetch started by another request */
+    public static final long PRICE_CACHE_LOAD_TIMEOUT_MILLIS = 5 * 1000;
+
+    /**
+     * How often prices of held symbols are refreshed in the background
+     * (override with -Dprice.refresh.seconds)
+     */
+    public static final long PRICE_REFRESH_INTERVAL_SECONDS = Long.getLong("price.refresh.seconds", 60);
+
+    /** Maximum number of symbols per batched background price request */
+    public static final int PRICE_REFRESH_BATCH_SIZE = 50;
+
+    /** Maximum number of distinct symbols kept in the in-memory tick store */
+    public static final int TICK_STORE_MAX_SYMBOLS = Integer.getInteger("tickstore.max.symbols", 4096);
+
+    /**
+     * Recent ticks kept per symbol; with 16 bytes per tick the default budget
+     * is 4096 x 256 x 16 bytes = 16 MB of off-heap memory
+     */
+    public static final int TICK_STORE_TICKS_PER_SYMBOL = Integer.getInteger("tickstore.ticks.per.symbol", 256);
+
+    /** Rows per column block in the memory-mapped price history file (20 bytes per row) */
+    public static final int PRICE_HISTORY_BLOCK_ROWS = 8192;
+
+    /**
+     * Blocks kept in a new price history file before the oldest is reused;
+     * the default keeps 1024 x 8192 rows in 160 MB
+     * (override with -Dprice.history.max.blocks)
+     */
+    public static final int PRICE_HISTORY_MAX_BLOCKS = Integer.getInteger("price.history.max.blocks", 1024);
+
+    /** Time range of a price history request without a "from" parameter (24 hours) */
+    public static final long PRICE_HISTORY_DEFAULT_RANGE_MILLIS = 24 * 60 * 60 * 1000L;
+
+    /** Number of chart points returned when a history request has no "points" parameter */
+    public static final int PRICE_HISTORY_DEFAULT_POINTS = 200;
+
+    /** Largest number of chart points a history request may ask for */
+    public static final int PRICE_HISTORY_MAX_POINTS = 2000;
+
+    /** OHLC buckets aggregated per requested point before LTTB downsampling */
+    public static final int PRICE_HISTORY_BUCKETS_PER_POINT = 4;
+
+    /** Interval between keep-alive comments on idle price streams */
+    public static final long PRICE_STREAM_HEARTBEAT_SECONDS = 15;
+
+    /** Unsent bytes a price stream may queue for a client that is not reading before it is closed */
+    public static final int PRICE_STREAM_MAX_PENDING_BYTES = 64 * 1024;
+
+    // === PERSISTENCE ===
+    /**
+     * When saved trades and users are forced to disk: "fsync-each-commit",
+     * "fsync-interval" or "async" (override with -Dpersistence.durability)
+     */
+    public static final String PERSISTENCE_DURABILITY = System.getProperty("persistence.durability",
+            "fsync-each-commit");
+
+    /**
+     * Time between fsyncs in the "fsync-interval" durability mode
+     * (override with -Dpersistence.sync.interval.ms)
+     */
+    public static final long PERSISTENCE_SYNC_INTERVAL_MILLIS = Long.getLong("persistence.sync.interval.ms", 200);
+
+    /** Maximum number of queued changes written together in one group commit */
+    public static final int PERSISTENCE_MAX_BATCH = 512;
+
+    // === TRADING ===
+    /** Longest stock symbol accepted in a trade request */
+    public static final int MAX_SYMBOL_LENGTH = 16;
+
+    // === TRADE LEDGER ===
+    /**
+     * Number of logged trades after which the changed portfolio files are
+     * rewritten and the trade log compacted
+     * (override with -Dledger.compact.events)
+     */
+    public static final int LEDGER_COMPACT_EVENTS = Integer.getInteger("ledger.compact.events", 1000);
+
+    // === PORTFOLIO CACHE ===
+    /**
+     * Estimated memory the portfolios loaded from disk may use before the
+     * least recently used ones are dropped
+     * (override with -Dportfolio.cache.max.bytes)
+     */
+    public static final long PORTFOLIO_CACHE_MAX_BYTES = Long.getLong("portfolio.cache.max.bytes",
+            64L * 1024 * 1024);
+
+    // === VALUATION ===
+    /**
+     * How often every portfolio is revalued from scratch, which clears the
+     * rounding drift of per-tick updates
+     * (override with -Dvaluation.revalue.seconds)
+     */
+    public static final long VALUATION_REVALUE_INTERVAL_SECONDS = Long.getLong("valuation.revalue.seconds", 300);
+
+    /** Number of portfolios a fork-join revaluation task values itself instead of splitting */
+    public static final int VALUATION_TASK_PORTFOLIOS = 64;
 
     // === DEFAULT STOCK PRICES ===
     /**
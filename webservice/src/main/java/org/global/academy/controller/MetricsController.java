@@ -0,0 +1,81 @@
+package org.global.academy.controller;
+
+import com.google.gson.Gson;
+import org.global.academy.service.PortfolioService;
+import org.global.academy.service.StockService;
+import org.global.academy.stream.PriceUpdateHub;
+import org.global.academy.valuation.ValuationEngine;
+import spark.Request;
+import spark.Response;
+
+import java.util.Map;
+
+import static spark.Spark.*;
+
+/**
+ * Controller for monitoring endpoints.
+ * 
+ * Exposes internal counters (such as price cache hits and misses)
+ * so the behaviour of the server can be observed under load.
+ * 
+ * @author Project Group 5
+ * @version 1.0
+ */
+public class MetricsController {
+
+    private final StockService stockService;
+    private final PortfolioService portfolioService;
+    private final PriceUpdateHub priceUpdateHub;
+    private final ValuationEngine valuationEngine;
+    private final Gson gson;
+
+    /**
+     * Constructs a new MetricsController.
+     * 
+     * @param stockService     the stock service providing market data statistics
+     * @param portfolioService the portfolio service providing trade log statistics
+     * @param priceUpdateHub   the hub serving the live price streams
+     * @param valuationEngine  the engine valuing all portfolios
+     * @param gson             the Gson instance for JSON serialization
+     */
+    public MetricsController(StockService stockService, PortfolioService portfolioService,
+            PriceUpdateHub priceUpdateHub, ValuationEngine valuationEngine, Gson gson) {
+        this.stockService = stockService;
+        this.portfolioService = portfolioService;
+        this.priceUpdateHub = priceUpdateHub;
+        this.valuationEngine = valuationEngine;
+        this.gson = gson;
+    }
+
+    /**
+     * Registers all metrics routes.
+     */
+    public void registerRoutes() {
+        get("/api/metrics", this::handleGetMetrics);
+    }
+
+    /**
+     * Handles metrics requests.
+     * 
+     * @param req the request object
+     * @param res the response object
+     * @return JSON response with the current counters
+     */
+    private Object handleGetMetrics(Request req, Response res) {
+        try {
+            Map<String, Object> metrics = stockService.getMarketDataStats();
+            metrics.put("priceStream", priceUpdateHub.getStats());
+            metrics.put("valuation", valuationEngine.getStats());
+            metrics.put("ledger", portfolioService.getLedgerStats());
+            metrics.put("portfolioCache", portfolioService.getPortfolioCacheStats());
+
+            res.type("application/json");
+            return gson.toJson(metrics);
+        } catch (Exception e) {
+            res.status(500);
+            res.type("application/json");
+            return gson.toJson(Map.of(
+                    "error", "Error reading metrics: " + e.getMessage()));
+        }
+    }
+}
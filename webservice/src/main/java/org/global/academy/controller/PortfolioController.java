@@ -3,7 +3,12 @@ package org.global.academy.controller;
 import com.google.gson.Gson;
 import org.global.academy.config.AppConfig;
 import org.global.academy.dto.request.BuyStockRequest;
+import org.global.academy.dto.request.SellStockRequest;
 import org.global.academy.dto.response.ErrorResponse;
+import org.global.academy.dto.response.ExposureView;
+import org.global.academy.dto.response.PortfolioView;
+import org.global.academy.dto.response.SellStockResponse;
+import org.global.academy.model.Sale;
 import org.global.academy.service.PortfolioService;
 import spark.Request;
 import spark.Response;
@@ -15,7 +20,8 @@ import static spark.Spark.*;
 /**
  * Controller for portfolio-related endpoints.
  * 
- * Handles portfolio viewing and stock purchase operations.
+ * Handles portfolio viewing, stock purchase and sale operations, and the
+ * firm-wide exposure across all portfolios.
  * Requires user authentication for all operations.
  * 
  * @author Project Group 5
@@ -43,6 +49,8 @@ public class PortfolioController {
     public void registerRoutes() {
         get("/api/portfolio", this::handleGetPortfolio);
         post("/api/buy-stock", this::handleBuyStock);
+        post("/api/sell-stock", this::handleSellStock);
+        get("/api/exposure", this::handleGetExposure);
     }
 
     /**
@@ -61,7 +69,7 @@ public class PortfolioController {
 
         try {
             String username = req.session().attribute(AppConfig.USERNAME_KEY);
-            Map<String, Object> portfolioData = portfolioService.getPortfolioData(username);
+            PortfolioView portfolioData = portfolioService.getPortfolioData(username);
 
             res.type("application/json");
             return gson.toJson(portfolioData);
@@ -72,6 +80,33 @@ public class PortfolioController {
         }
     }
 
+    /**
+     * Handles firm-wide exposure requests: shares, market value and cost
+     * basis per symbol summed over all portfolios.
+     * 
+     * @param req the request object
+     * @param res the response object
+     * @return JSON response with the exposure
+     */
+    private Object handleGetExposure(Request req, Response res) {
+        if (!isLoggedIn(req)) {
+            res.status(401);
+            res.type("application/json");
+            return gson.toJson(new ErrorResponse("Not logged in"));
+        }
+
+        try {
+            ExposureView exposure = portfolioService.getExposure();
+
+            res.type("application/json");
+            return gson.toJson(exposure);
+        } catch (Exception e) {
+            res.status(500);
+            res.type("application/json");
+            return gson.toJson(new ErrorResponse("Error fetching exposure: " + e.getMessage()));
+        }
+    }
+
     /**
      * Handles stock purchase requests.
      * 
@@ -96,6 +131,10 @@ public class PortfolioController {
             return gson.toJson(Map.of(
                     "success", success,
                     "message", "Stock purchased successfully"));
+        } catch (IllegalArgumentException e) {
+            res.status(400);
+            res.type("application/json");
+            return gson.toJson(new ErrorResponse(e.getMessage()));
         } catch (Exception e) {
             res.status(500);
             res.type("application/json");
@@ -103,6 +142,45 @@ public class PortfolioController {
         }
     }
 
+    /**
+     * Handles stock sale requests.
+     * 
+     * The request body is {"symbol", "quantity", "method"}, where method is
+     * FIFO, LIFO or AVERAGE_COST. Without a method the position's default is
+     * used: FIFO, or AVERAGE_COST once the position has been sold at average
+     * cost. The response carries the
+     * proceeds, cost basis and realized gain of the sale.
+     * 
+     * @param req the request object
+     * @param res the response object
+     * @return JSON response with the sale result
+     */
+    private Object handleSellStock(Request req, Response res) {
+        if (!isLoggedIn(req)) {
+            res.status(401);
+            res.type("application/json");
+            return gson.toJson(new ErrorResponse("Not logged in"));
+        }
+
+        try {
+            SellStockRequest sellRequest = gson.fromJson(req.body(), SellStockRequest.class);
+            String username = req.session().attribute(AppConfig.USERNAME_KEY);
+
+            Sale sale = portfolioService.sellStock(username, sellRequest);
+
+            res.type("application/json");
+            return gson.toJson(new SellStockResponse(sale));
+        } catch (IllegalArgumentException e) {
+            res.status(400);
+            res.type("application/json");
+            return gson.toJson(new ErrorResponse(e.getMessage()));
+        } catch (Exception e) {
+            res.status(500);
+            res.type("application/json");
+            return gson.toJson(new ErrorResponse("Error selling stock: " + e.getMessage()));
+        }
+    }
+
     /**
      * Checks if the current request has an authenticated session.
      * 
@@ -1,20 +1,25 @@
 package org.global.academy.controller;
 
 import com.google.gson.Gson;
+import org.global.academy.config.AppConfig;
+import org.global.academy.dto.response.PriceBar;
 import org.global.academy.service.StockService;
 import spark.Request;
 import spark.Response;
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 import static spark.Spark.*;
 
 /**
  * Controller for stock-related endpoints.
  * 
- * Handles stock search and price lookup operations.
- * Provides public access to stock information.
+ * Handles stock search, price lookup and price history operations.
+ * Search and history are public; price lookups spend the upstream API
+ * budget and need a logged-in session.
  * 
  * @author Project Group 5
  * @version 1.0
@@ -40,11 +45,16 @@ public class StockController {
      */
     public void registerRoutes() {
         get("/api/stocks", this::handleSearchStocks);
+        get("/api/stocks/:symbol/history", this::handleGetHistory);
+        get("/api/prices", this::handleGetPrices);
     }
 
     /**
      * Handles stock search requests.
      * 
+     * The response carries a catalogReady flag that is false while the
+     * stock master list is still loading and results may be incomplete.
+     * 
      * @param req the request object
      * @param res the response object
      * @return JSON response with stock search results
@@ -55,7 +65,9 @@ public class StockController {
             List<Map<String, Object>> stocks = stockService.searchStocks(query);
 
             res.type("application/json");
-            return gson.toJson(Map.of("stocks", stocks));
+            return gson.toJson(Map.of(
+                    "stocks", stocks,
+                    "catalogReady", stockService.isCatalogReady()));
         } catch (Exception e) {
             res.status(500);
             res.type("application/json");
@@ -63,4 +75,93 @@ public class StockController {
                     "error", "Error searching stocks: " + e.getMessage()));
         }
     }
+
+    /**
+     * Handles batched price requests (GET /api/prices?symbols=AAPL,MSFT).
+     * 
+     * Used by the buy page to fill in prices of search results after the
+     * results are shown. Fetching a missing price spends upstream API
+     * credits, so only logged-in users are served, only for stocks in the
+     * master list, and at most {@link AppConfig#SEARCH_RESULT_LIMIT}
+     * symbols (one page of search results) per request.
+     * 
+     * @param req the request object
+     * @param res the response object
+     * @return JSON response with a map of symbols to prices
+     */
+    private Object handleGetPrices(Request req, Response res) {
+        res.type("application/json");
+        if (!isLoggedIn(req)) {
+            res.status(401);
+            return gson.toJson(Map.of("error", "Not logged in"));
+        }
+
+        try {
+            String param = req.queryParams("symbols");
+            if (param == null || param.isBlank()) {
+                res.status(400);
+                return gson.toJson(Map.of("error", "symbols is required"));
+            }
+
+            List<String> symbols = Arrays.stream(param.split(","))
+                    .map(String::trim)
+                    .filter(s -> !s.isEmpty())
+                    .map(String::toUpperCase)
+                    .distinct()
+                    .limit(AppConfig.SEARCH_RESULT_LIMIT)
+                    .collect(Collectors.toList());
+
+            return gson.toJson(Map.of("prices", stockService.getSearchResultPrices(symbols)));
+        } catch (Exception e) {
+            res.status(500);
+            return gson.toJson(Map.of(
+                    "error", "Error fetching prices: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Handles price history requests.
+     * 
+     * Query parameters (all optional): from and to in epoch milliseconds,
+     * points as the maximum number of bars.
+     * 
+     * @param req the request object
+     * @param res the response object
+     * @return JSON response with the OHLC bars of the symbol
+     */
+    private Object handleGetHistory(Request req, Response res) {
+        res.type("application/json");
+        try {
+            String symbol = req.params(":symbol");
+            Long from = req.queryParams("from") == null ? null : Long.parseLong(req.queryParams("from"));
+            Long to = req.queryParams("to") == null ? null : Long.parseLong(req.queryParams("to"));
+            Integer points = req.queryParams("points") == null ? null
+                    : Integer.parseInt(req.queryParams("points"));
+
+            List<PriceBar> bars = stockService.getPriceHistory(symbol, from, to, points);
+
+            return gson.toJson(Map.of(
+                    "symbol", symbol.toUpperCase(),
+                    "bars", bars));
+        } catch (NumberFormatException e) {
+            res.status(400);
+            return gson.toJson(Map.of(
+                    "error", "from, to and points must be numbers"));
+        } catch (Exception e) {
+            res.status(500);
+            return gson.toJson(Map.of(
+                    "error", "Error loading price history: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Checks if the current request has an authenticated session.
+     * 
+     * @param req the request object
+     * @return true if user is logged in, false otherwise
+     */
+    private boolean isLoggedIn(Request req) {
+        Boolean loggedIn = req.session(false) == null ? null : req.session().attribute(AppConfig.LOGGED_IN_KEY);
+        return loggedIn != null && loggedIn;
+    }
 }
@@ -0,0 +1,125 @@
+package org.global.academy.controller;
+
+import com.google.gson.Gson;
+import org.global.academy.config.AppConfig;
+import org.global.academy.dto.response.ErrorResponse;
+import org.global.academy.dto.response.PortfolioView;
+import org.global.academy.service.PortfolioService;
+import org.global.academy.stream.PortfolioStream;
+import org.global.academy.stream.PriceUpdateHub;
+import spark.Request;
+import spark.Response;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import java.util.function.Supplier;
+
+import static spark.Spark.*;
+
+/**
+ * Controller for streaming endpoints.
+ *
+ * Serves live portfolio updates as Server-Sent Events. Streams use servlet
+ * async mode, so an open stream does not hold a server thread; updates
+ * are queued by the {@link PriceUpdateHub} dispatch thread and written
+ * without blocking it.
+ *
+ * @author Project Group 5
+ * @version 1.0
+ */
+public class StreamController {
+
+    private final PortfolioService portfolioService;
+    private final PriceUpdateHub priceUpdateHub;
+    private final Gson gson;
+
+    /**
+     * Constructs a new StreamController.
+     *
+     * @param portfolioService the portfolio service for the portfolio
+     *                         snapshots
+     * @param priceUpdateHub   the hub that delivers new prices and
+     *                         portfolio changes
+     * @param gson             the Gson instance for JSON serialization
+     */
+    public StreamController(PortfolioService portfolioService, PriceUpdateHub priceUpdateHub, Gson gson) {
+        this.portfolioService = portfolioService;
+        this.priceUpdateHub = priceUpdateHub;
+        this.gson = gson;
+    }
+
+    /**
+     * Registers all streaming routes.
+     */
+    public void registerRoutes() {
+        get("/api/stream/portfolio", this::handlePortfolioStream);
+    }
+
+    /**
+     * Opens a portfolio event stream for the logged-in user.
+     *
+     * @param req the request object
+     * @param res the response object
+     * @return an empty body (events are written asynchronously), or a JSON
+     *         error
+     */
+    private Object handlePortfolioStream(Request req, Response res) {
+        if (!isLoggedIn(req)) {
+            res.status(401);
+            res.type("application/json");
+            return gson.toJson(new ErrorResponse("Not logged in"));
+        }
+
+        try {
+            String username = req.session().attribute(AppConfig.USERNAME_KEY);
+            Supplier<PortfolioView> portfolioSource = () -> portfolioService.getPortfolioData(username);
+            PortfolioView portfolioData = portfolioSource.get();
+
+            res.type("text/event-stream");
+            res.header("Cache-Control", "no-cache");
+
+            AsyncContext context = req.raw().startAsync();
+            context.setTimeout(0);
+            PortfolioStream stream = new PortfolioStream(context, gson, portfolioData, portfolioSource,
+                    AppConfig.PRICE_STREAM_MAX_PENDING_BYTES);
+            context.addListener(new AsyncListener() {
+                @Override
+                public void onComplete(AsyncEvent event) {
+                    priceUpdateHub.unsubscribe(stream);
+                }
+
+                @Override
+                public void onTimeout(AsyncEvent event) {
+                    priceUpdateHub.unsubscribe(stream);
+                }
+
+                @Override
+                public void onError(AsyncEvent event) {
+                    priceUpdateHub.unsubscribe(stream);
+                }
+
+                @Override
+                public void onStartAsync(AsyncEvent event) {
+                }
+            });
+            priceUpdateHub.subscribe(stream, username, stream.getSymbols());
+            return "";
+        } catch (Exception e) {
+            res.status(500);
+            res.type("application/json");
+            return gson.toJson(new ErrorResponse("Error opening portfolio stream: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Checks if the current request has an authenticated session.
+     *
+     * @param req the request object
+     * @return true if user is logged in, false otherwise
+     */
+    private boolean isLoggedIn(Request req) {
+        Boolean loggedIn = req.session(false) == null ? null : req.session().attribute(AppConfig.LOGGED_IN_KEY);
+        return loggedIn != null && loggedIn;
+    }
+}
@@ -10,13 +10,13 @@ package org.global.academy.dto.request;
  * @version 1.0
  */
 public class BuyStockRequest {
-    /** The company name of the stock to purchase */
+    /** The company name shown by the client (the master list name is recorded) */
     public String name;
 
     /** The stock symbol to purchase */
     public String symbol;
 
-    /** The price per share at time of purchase */
+    /** The price per share shown by the client (the server's current price is paid) */
     public double price;
 
     /** The number of shares to purchase */
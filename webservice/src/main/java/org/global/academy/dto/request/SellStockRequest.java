@@ -0,0 +1,24 @@
+package org.global.academy.dto.request;
+
+/**
+ * Data Transfer Object for stock sale requests.
+ *
+ * Represents the data sent from the client when selling stocks.
+ * Deserialized from JSON request body.
+ *
+ * @author Project Group 5
+ * @version 1.0
+ */
+public class SellStockRequest {
+    /** The stock symbol to sell */
+    public String symbol;
+
+    /** The number of shares to sell */
+    public int quantity;
+
+    /**
+     * The lot relief method: "FIFO", "LIFO" or "AVERAGE_COST"; if missing,
+     * the position's default (FIFO, or AVERAGE_COST once elected)
+     */
+    public String method;
+}
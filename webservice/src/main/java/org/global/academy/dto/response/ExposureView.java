@@ -0,0 +1,30 @@
+package org.global.academy.dto.response;
+
+import java.util.List;
+
+/**
+ * Data Transfer Object representing the firm-wide exposure across all
+ * portfolios, as returned by GET /api/exposure.
+ *
+ * @author Project Group 5
+ * @version 1.0
+ */
+public class ExposureView {
+    /** Number of portfolios with at least one position */
+    public int portfolios;
+
+    /** Sum of the market values of all symbols */
+    public double totalMarketValue;
+
+    /** Sum of the cost bases of all symbols */
+    public double totalCostBasis;
+
+    /** Total market value minus total cost basis */
+    public double totalUnrealizedGain;
+
+    /** Exposure per symbol, largest market value first */
+    public List<SymbolExposure> symbols;
+
+    /** False while stored portfolios are still being counted after startup */
+    public boolean complete;
+}
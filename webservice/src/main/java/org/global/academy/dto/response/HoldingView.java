@@ -0,0 +1,43 @@
+package org.global.academy.dto.response;
+
+/**
+ * Data Transfer Object representing one holding of a portfolio, valued at
+ * the current price.
+ *
+ * @author Project Group 5
+ * @version 1.0
+ */
+public class HoldingView {
+    /** The stock trading symbol (e.g., "AAPL") */
+    public String symbol;
+
+    /** The company name */
+    public String name;
+
+    /** Number of shares held */
+    public int quantity;
+
+    /** Last known price per share when the position was stored */
+    public double price;
+
+    /** Average price paid per share */
+    public double purchasePrice;
+
+    /** Last known price times quantity */
+    public double totalPrice;
+
+    /** Price paid for all shares held */
+    public double totalPurchasePrice;
+
+    /** Current market price per share */
+    public double currentPrice;
+
+    /** Current price times quantity */
+    public double currentValue;
+
+    /** Unrealized gain (current value minus price paid) */
+    public double gain;
+
+    /** Whether the current price is not fresh */
+    public boolean stale;
+}
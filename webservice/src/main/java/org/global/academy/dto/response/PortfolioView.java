@@ -0,0 +1,45 @@
+package org.global.academy.dto.response;
+
+import java.util.List;
+
+/**
+ * Data Transfer Object representing a user's portfolio valued at current
+ * prices, as returned by GET /api/portfolio.
+ *
+ * @author Project Group 5
+ * @version 1.0
+ */
+public class PortfolioView {
+    /** The owner of the portfolio */
+    public String username;
+
+    /** The holdings, one per stock symbol */
+    public List<HoldingView> holdings;
+
+    /** Sum of the current values of all holdings */
+    public double totalValue;
+
+    /** Sum of the gains of all holdings */
+    public double totalGain;
+
+    /** Whether any holding has a price that is not fresh */
+    public boolean stale;
+
+    /**
+     * Constructs a new PortfolioView.
+     *
+     * @param username   the owner of the portfolio
+     * @param holdings   the holdings
+     * @param totalValue sum of the current values
+     * @param totalGain  sum of the gains
+     * @param stale      whether any price is not fresh
+     */
+    public PortfolioView(String username, List<HoldingView> holdings, double totalValue, double totalGain,
+            boolean stale) {
+        this.username = username;
+        this.holdings = holdings;
+        this.totalValue = totalValue;
+        this.totalGain = totalGain;
+        this.stale = stale;
+    }
+}
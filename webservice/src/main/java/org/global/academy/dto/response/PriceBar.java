@@ -0,0 +1,46 @@
+package org.global.academy.dto.response;
+
+/**
+ * Data Transfer Object representing one OHLC bar of a price chart.
+ *
+ * @author Project Group 5
+ * @version 1.0
+ */
+public class PriceBar {
+    /** Start of the bar in epoch milliseconds */
+    public long time;
+
+    /** First price in the bar */
+    public double open;
+
+    /** Highest price in the bar */
+    public double high;
+
+    /** Lowest price in the bar */
+    public double low;
+
+    /** Last price in the bar */
+    public double close;
+
+    /** Number of raw price ticks aggregated into the bar */
+    public int ticks;
+
+    /**
+     * Constructs a new PriceBar.
+     *
+     * @param time  start of the bar in epoch milliseconds
+     * @param open  first price
+     * @param high  highest price
+     * @param low   lowest price
+     * @param close last price
+     * @param ticks number of ticks in the bar
+     */
+    public PriceBar(long time, double open, double high, double low, double close, int ticks) {
+        this.time = time;
+        this.open = open;
+        this.high = high;
+        this.low = low;
+        this.close = close;
+        this.ticks = ticks;
+    }
+}
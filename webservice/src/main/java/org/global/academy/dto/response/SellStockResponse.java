@@ -0,0 +1,56 @@
+package org.global.academy.dto.response;
+
+import org.global.academy.model.Sale;
+
+/**
+ * Data Transfer Object for the result of a stock sale, including the
+ * realized gain.
+ *
+ * @author Project Group 5
+ * @version 1.0
+ */
+public class SellStockResponse {
+    /** Whether the sale went through */
+    public boolean success;
+
+    /** A message for the user */
+    public String message;
+
+    /** The stock symbol sold */
+    public String symbol;
+
+    /** The number of shares sold */
+    public int quantity;
+
+    /** The price received per share */
+    public double price;
+
+    /** The amount received (price times quantity) */
+    public double proceeds;
+
+    /** The price paid for the shares sold */
+    public double costBasis;
+
+    /** Proceeds minus cost basis (negative for a loss) */
+    public double realizedGain;
+
+    /** The lot relief method used */
+    public String method;
+
+    /**
+     * Constructs a new SellStockResponse from a completed sale.
+     *
+     * @param sale the sale
+     */
+    public SellStockResponse(Sale sale) {
+        this.success = true;
+        this.message = "Stock sold successfully";
+        this.symbol = sale.symbol();
+        this.quantity = sale.quantity();
+        this.price = sale.price();
+        this.proceeds = sale.proceeds();
+        this.costBasis = sale.costBasis();
+        this.realizedGain = sale.realizedGain();
+        this.method = sale.method().name();
+    }
+}
@@ -4,7 +4,7 @@ package org.global.academy.dto.response;
  * Data Transfer Object representing basic stock reference information.
  * 
  * Used for storing and searching the master list of available stocks
- * from NASDAQ. Contains only the essential identifying information
+ * on US exchanges. Contains only the essential identifying information
  * (symbol and company name) without pricing data.
  * 
  * @author Project Group 5
@@ -0,0 +1,31 @@
+package org.global.academy.dto.response;
+
+/**
+ * Data Transfer Object representing the firm-wide position in one stock,
+ * summed over all portfolios.
+ *
+ * @author Project Group 5
+ * @version 1.0
+ */
+public class SymbolExposure {
+    /** The stock trading symbol (e.g., "AAPL") */
+    public String symbol;
+
+    /** Number of portfolios holding the stock */
+    public int holders;
+
+    /** Number of shares held across all portfolios */
+    public long quantity;
+
+    /** Current price per share */
+    public double price;
+
+    /** Current price times quantity */
+    public double marketValue;
+
+    /** Price paid for all shares held */
+    public double costBasis;
+
+    /** Market value minus cost basis */
+    public double unrealizedGain;
+}
@@ -0,0 +1,146 @@
+package org.global.academy.ledger;
+
+import org.global.academy.model.LotReliefMethod;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UTFDataFormatException;
+
+/**
+ * One change to a user's holdings, as recorded in the {@link TradeLedger}.
+ *
+ * Events are created without a sequence number; the ledger assigns one
+ * when the event is appended.
+ *
+ * @param sequence        position in the ledger (1 for the first event ever)
+ * @param type            what kind of change this is
+ * @param timestampMillis when the change happened (the purchase time of
+ *                        bought shares)
+ * @param username        the owner of the portfolio
+ * @param symbol          the stock symbol
+ * @param companyName     the company name ("" if not known)
+ * @param quantity        the number of shares (negative for an adjustment
+ *                        that removes shares)
+ * @param price           the price per share
+ * @param method          the lot relief method of a sale, or null
+ *
+ * @author Project Group 5
+ * @version 1.0
+ */
+public record TradeEvent(long sequence, Type type, long timestampMillis, String username, String symbol,
+        String companyName, int quantity, double price, LotReliefMethod method) {
+
+    /** Kinds of changes to a portfolio */
+    public enum Type {
+
+        /** Shares bought; adds a lot at the price */
+        BUY,
+
+        /** Shares sold; relieves lots with the relief method */
+        SELL,
+
+        /**
+         * Correction outside of trading: a positive quantity adds a lot at
+         * the price, a negative one removes shares oldest first
+         */
+        ADJUST
+    }
+
+    /**
+     * Creates a purchase event.
+     *
+     * @param username    the buyer
+     * @param symbol      the stock symbol
+     * @param companyName the company name
+     * @param quantity    the number of shares bought
+     * @param price       the price paid per share
+     * @return the event (not yet sequenced)
+     */
+    public static TradeEvent buy(String username, String symbol, String companyName, int quantity, double price) {
+        return new TradeEvent(0, Type.BUY, System.currentTimeMillis(), username, symbol, companyName,
+                quantity, price, null);
+    }
+
+    /**
+     * Creates a sale event.
+     *
+     * @param username the seller
+     * @param symbol   the stock symbol
+     * @param quantity the number of shares sold
+     * @param price    the price received per share
+     * @param method   the lot relief method
+     * @return the event (not yet sequenced)
+     */
+    public static TradeEvent sell(String username, String symbol, int quantity, double price,
+            LotReliefMethod method) {
+        return new TradeEvent(0, Type.SELL, System.currentTimeMillis(), username, symbol, "",
+                quantity, price, method);
+    }
+
+    /**
+     * Creates a copy of this event with a sequence number.
+     *
+     * @param newSequence the sequence number
+     * @return the sequenced event
+     */
+    TradeEvent withSequence(long newSequence) {
+        return new TradeEvent(newSequence, type, timestampMillis, username, symbol, companyName,
+                quantity, price, method);
+    }
+
+    /**
+     * Encodes this event as a ledger record payload.
+     *
+     * @return the encoded bytes
+     * @throws IllegalArgumentException if a text field is too long to encode
+     */
+    byte[] encode() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeLong(sequence);
+            out.writeByte(type.ordinal());
+            out.writeLong(timestampMillis);
+            out.writeUTF(username);
+            out.writeUTF(symbol);
+            out.writeUTF(companyName == null ? "" : companyName);
+            out.writeInt(quantity);
+            out.writeDouble(price);
+            out.writeByte(method == null ? -1 : method.ordinal());
+        } catch (UTFDataFormatException e) {
+            throw new IllegalArgumentException("Trade event text is too long to record", e);
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot encode trade event", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Decodes a ledger record payload.
+     *
+     * @param payload the encoded bytes
+     * @return the event
+     * @throws IOException if the payload is not a valid event
+     */
+    static TradeEvent decode(byte[] payload) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+            long sequence = in.readLong();
+            int type = in.readByte();
+            long timestampMillis = in.readLong();
+            String username = in.readUTF();
+            String symbol = in.readUTF();
+            String companyName = in.readUTF();
+            int quantity = in.readInt();
+            double price = in.readDouble();
+            int method = in.readByte();
+
+            if (type < 0 || type >= Type.values().length || method >= LotReliefMethod.values().length) {
+                throw new IOException("Unknown trade event type " + type + " or method " + method);
+            }
+            return new TradeEvent(sequence, Type.values()[type], timestampMillis, username, symbol, companyName,
+                    quantity, price, method < 0 ? null : LotReliefMethod.values()[method]);
+        }
+    }
+}
@@ -0,0 +1,452 @@
+package org.global.academy.ledger;
+
+import org.global.academy.persistence.BatchSink;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only write-ahead log of {@link TradeEvent}s.
+ *
+ * Every change to a portfolio is given a sequence number by
+ * {@link #sequence(TradeEvent)} in the order it is applied in memory, and
+ * is then appended here by a group-commit writer (this class is its
+ * {@link BatchSink}), so recording a trade costs a share of one small
+ * sequential write no matter how many users or positions there are. The
+ * full holdings are only written by periodic snapshots; after a restart
+ * the latest snapshot is loaded and the events after it are replayed.
+ *
+ * The log is a series of segment files next to the given path, named
+ * "path.1", "path.2", ... Only the newest segment is written to.
+ * {@link #seal()} starts a new segment when a snapshot is taken,
+ * {@link #markSnapshot(long)} records that the snapshot is safely on disk,
+ * and {@link #discardThrough(long)} deletes segments no snapshot that
+ * may still be loaded needs (compaction).
+ *
+ * <pre>
+ * segment: magic(int) version(int) segmentNumber(long) record*
+ * record:  length(int) crc32(int) payload[length]
+ * </pre>
+ *
+ * A record whose length or CRC32 does not check out at the end of the
+ * newest segment is a write that was cut off by a crash; it is dropped
+ * and the segment truncated. A bad record anywhere else means the log is
+ * damaged, and opening it fails rather than silently losing trades.
+ *
+ * @author Project Group 5
+ * @version 1.0
+ */
+public class TradeLedger implements BatchSink<TradeEvent>, Closeable {
+
+    private static final int MAGIC = 0x544C4F47; // "TLOG"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 16;
+    private static final int RECORD_HEADER_BYTES = 8;
+    private static final int MAX_RECORD_BYTES = 64 * 1024;
+
+    /** One segment file of the log */
+    private static final class Segment {
+        final long number;
+        final Path path;
+        long lastSequence;
+        long bytes;
+
+        Segment(long number, Path path) {
+            this.number = number;
+            this.path = path;
+        }
+    }
+
+    private final Path path;
+    private final List<Segment> segments = new ArrayList<>();
+    private FileChannel channel;
+    private final AtomicLong lastSequence = new AtomicLong();
+    private volatile long compactedThrough;
+    private long appends;
+
+    /**
+     * Opens (or creates) the log and replays the events a snapshot does
+     * not contain yet.
+     *
+     * @param path             the base path of the segment files
+     * @param snapshotSequence the sequence number of the last event in the
+     *                         snapshot that was loaded (0 if none)
+     * @param replayFrom       events after this sequence number are replayed;
+     *                         at most snapshotSequence, lower to also replay
+     *                         into an older snapshot that parts of the data
+     *                         may have been loaded from
+     * @param replay           receives every later event, in order
+     * @throws IOException if the log cannot be read or is damaged
+     */
+    public TradeLedger(Path path, long snapshotSequence, long replayFrom, Consumer<TradeEvent> replay)
+            throws IOException {
+        this.path = path;
+        this.lastSequence.set(replayFrom);
+        this.compactedThrough = snapshotSequence;
+
+        List<Segment> found = findSegments();
+        for (int i = 0; i < found.size(); i++) {
+            Segment segment = found.get(i);
+            readSegment(segment, i == found.size() - 1, replayFrom, replay);
+            segments.add(segment);
+        }
+        // New events must not reuse a sequence number the snapshot already holds
+        lastSequence.accumulateAndGet(snapshotSequence, Math::max);
+
+        if (segments.isEmpty()) {
+            openNewSegment(1);
+        } else {
+            Segment active = segments.get(segments.size() - 1);
+            channel = FileChannel.open(active.path, StandardOpenOption.WRITE);
+            channel.position(active.bytes);
+        }
+    }
+
+    /**
+     * Lists the existing segment files in number order.
+     *
+     * @return the segments
+     * @throws IOException if the directory cannot be listed
+     */
+    private List<Segment> findSegments() throws IOException {
+        Path dir = path.toAbsolutePath().getParent();
+        String prefix = path.getFileName() + ".";
+        List<Segment> found = new ArrayList<>();
+        if (!Files.isDirectory(dir)) {
+            return found;
+        }
+
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                String name = file.getFileName().toString();
+                String suffix = name.startsWith(prefix) ? name.substring(prefix.length()) : "";
+                if (!suffix.isEmpty() && suffix.chars().allMatch(Character::isDigit)) {
+                    found.add(new Segment(Long.parseLong(suffix), file));
+                }
+            }
+        }
+        found.sort(Comparator.comparingLong(segment -> segment.number));
+        return found;
+    }
+
+    /**
+     * Validates one segment and replays its events.
+     *
+     * @param segment          the segment
+     * @param newest           whether this is the segment being written to
+     * @param snapshotSequence events up to this sequence are skipped
+     * @param replay           receives the later events
+     * @throws IOException if the segment cannot be read or is damaged
+     */
+    private void readSegment(Segment segment, boolean newest, long snapshotSequence,
+            Consumer<TradeEvent> replay) throws IOException {
+        ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(segment.path));
+
+        if (data.remaining() < HEADER_BYTES && newest) {
+            // Crashed while creating the segment
+            writeHeader(segment);
+            segment.bytes = HEADER_BYTES;
+            segment.lastSequence = lastSequence.get();
+            return;
+        }
+        if (data.remaining() < HEADER_BYTES || data.getInt(0) != MAGIC || data.getInt(4) != VERSION) {
+            throw new IOException("Not a trade log segment (version " + VERSION + "): " + segment.path);
+        }
+
+        CRC32 crc = new CRC32();
+        int offset = HEADER_BYTES;
+        int replayed = 0;
+        while (offset < data.limit()) {
+            TradeEvent event = readRecord(data, offset, crc);
+            if (event == null || (event.sequence() <= lastSequence.get() && event.sequence() > snapshotSequence)) {
+                if (!newest) {
+                    throw new IOException("Damaged trade log segment " + segment.path + " at offset " + offset);
+                }
+                System.err.println("⚠️ Dropping incomplete trade log record at offset " + offset
+                        + " of " + segment.path.getFileName());
+                try (FileChannel truncate = FileChannel.open(segment.path, StandardOpenOption.WRITE)) {
+                    truncate.truncate(offset);
+                    truncate.force(true);
+                }
+                break;
+            }
+
+            if (event.sequence() > snapshotSequence) {
+                replay.accept(event);
+                replayed++;
+            }
+            lastSequence.accumulateAndGet(event.sequence(), Math::max);
+            offset += RECORD_HEADER_BYTES + data.getInt(offset);
+        }
+
+        segment.bytes = offset;
+        segment.lastSequence = lastSequence.get();
+        if (replayed > 0) {
+            System.out.println("Replayed " + replayed + " trade event(s) from " + segment.path.getFileName());
+        }
+    }
+
+    /**
+     * Reads and checks one record.
+     *
+     * @param data   the segment contents
+     * @param offset the record offset
+     * @param crc    a CRC32 instance to reuse
+     * @return the event, or null if the record is incomplete or corrupt
+     */
+    private static TradeEvent readRecord(ByteBuffer data, int offset, CRC32 crc) {
+        if (data.limit() - offset < RECORD_HEADER_BYTES) {
+            return null;
+        }
+        int length = data.getInt(offset);
+        int expectedCrc = data.getInt(offset + 4);
+        if (length <= 0 || length > MAX_RECORD_BYTES || data.limit() - offset - RECORD_HEADER_BYTES < length) {
+            return null;
+        }
+
+        byte[] payload = new byte[length];
+        data.get(offset + RECORD_HEADER_BYTES, payload);
+        crc.reset();
+        crc.update(payload);
+        if ((int) crc.getValue() != expectedCrc) {
+            return null;
+        }
+
+        try {
+            return TradeEvent.decode(payload);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Creates a new empty segment and makes it the one written to.
+     *
+     * @param number the segment number
+     * @throws IOException if the file cannot be created
+     */
+    private void openNewSegment(long number) throws IOException {
+        Segment segment = new Segment(number, path.resolveSibling(path.getFileName() + "." + number));
+        Files.createDirectories(segment.path.toAbsolutePath().getParent());
+        channel = FileChannel.open(segment.path,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        channel.write(header(number));
+        channel.force(true);
+        segment.bytes = HEADER_BYTES;
+        segment.lastSequence = lastSequence.get();
+        segments.add(segment);
+    }
+
+    /**
+     * Rewrites the header of a segment file that was left without one.
+     *
+     * @param segment the segment
+     * @throws IOException if the file cannot be written
+     */
+    private void writeHeader(Segment segment) throws IOException {
+        try (FileChannel file = FileChannel.open(segment.path, StandardOpenOption.WRITE)) {
+            file.truncate(0);
+            file.write(header(segment.number));
+            file.force(true);
+        }
+    }
+
+    /**
+     * Builds a segment header.
+     *
+     * @param number the segment number
+     * @return the header bytes, ready to write
+     */
+    private static ByteBuffer header(long number) {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        header.putInt(MAGIC).putInt(VERSION).putLong(number).flip();
+        return header;
+    }
+
+    /**
+     * Checks that an event fits in one log record. Called before the event
+     * is applied and sequenced, so an event that could not be read back
+     * fails on its own instead of failing its whole batch, or being taken
+     * for a torn write and dropped with every later event after a restart.
+     *
+     * @param event the event
+     * @throws IllegalArgumentException if the event is too large to log
+     */
+    public static void checkRecordSize(TradeEvent event) {
+        int length = event.encode().length;
+        if (length > MAX_RECORD_BYTES) {
+            throw new IllegalArgumentException("Trade is too large to record (" + length + " bytes, at most "
+                    + MAX_RECORD_BYTES + ")");
+        }
+    }
+
+    /**
+     * Gives an event the next sequence number. Called in the order events
+     * are applied; does not wait for writes in progress.
+     *
+     * @param event the event (its sequence number is ignored)
+     * @return the event with its sequence number
+     */
+    public TradeEvent sequence(TradeEvent event) {
+        return event.withSequence(lastSequence.incrementAndGet());
+    }
+
+    /**
+     * Appends a batch of sequenced events to the active segment in one
+     * write, without forcing it to disk.
+     *
+     * If the write fails, the partial records are cut off again so later
+     * records stay readable.
+     *
+     * @param batch the events, in sequence order
+     * @throws IOException if the events cannot be written
+     */
+    @Override
+    public synchronized void write(List<TradeEvent> batch) throws IOException {
+        List<byte[]> payloads = new ArrayList<>(batch.size());
+        int size = 0;
+        for (TradeEvent event : batch) {
+            byte[] payload = event.encode();
+            payloads.add(payload);
+            size += RECORD_HEADER_BYTES + payload.length;
+        }
+
+        CRC32 crc = new CRC32();
+        ByteBuffer records = ByteBuffer.allocate(size);
+        for (byte[] payload : payloads) {
+            crc.reset();
+            crc.update(payload);
+            records.putInt(payload.length).putInt((int) crc.getValue()).put(payload);
+        }
+        records.flip();
+
+        Segment active = segments.get(segments.size() - 1);
+        try {
+            while (records.hasRemaining()) {
+                channel.write(records);
+            }
+        } catch (IOException e) {
+            channel.truncate(active.bytes);
+            channel.position(active.bytes);
+            throw e;
+        }
+
+        active.bytes += size;
+        active.lastSequence = batch.get(batch.size() - 1).sequence();
+        appends += batch.size();
+    }
+
+    /**
+     * Forces the appended events to disk.
+     *
+     * @throws IOException if the segment cannot be forced
+     */
+    @Override
+    public synchronized void sync() throws IOException {
+        channel.force(false);
+    }
+
+    /**
+     * Closes the segment being written and starts a new one. Called when a
+     * snapshot is taken, after every sequenced event has been written: the
+     * snapshot holds everything up to the returned sequence number, so the
+     * sealed segments can be discarded once it is on disk.
+     *
+     * @return the sequence number of the last event in the sealed segments
+     * @throws IOException if the new segment cannot be created
+     */
+    public synchronized long seal() throws IOException {
+        channel.force(true);
+        channel.close();
+        openNewSegment(segments.get(segments.size() - 1).number + 1);
+        return lastSequence.get();
+    }
+
+    /**
+     * Records that a snapshot holding everything up to a sequence number
+     * is on disk, so those events no longer count as uncompacted.
+     *
+     * @param sequence the sequence number the snapshot holds everything up to
+     */
+    public synchronized void markSnapshot(long sequence) {
+        compactedThrough = Math.max(compactedThrough, sequence);
+    }
+
+    /**
+     * Deletes the sealed segments whose events are all covered by a
+     * snapshot.
+     *
+     * @param sequence the sequence number of the oldest snapshot that may
+     *                 still be loaded
+     * @throws IOException if a segment cannot be deleted
+     */
+    public synchronized void discardThrough(long sequence) throws IOException {
+        while (segments.size() > 1 && segments.get(0).lastSequence <= sequence) {
+            Files.deleteIfExists(segments.remove(0).path);
+        }
+    }
+
+    /**
+     * Gets the sequence number of the newest event.
+     *
+     * @return the last sequence number (0 if the log has never been written)
+     */
+    public long getLastSequence() {
+        return lastSequence.get();
+    }
+
+    /**
+     * Gets the number of events that are not yet in a snapshot on disk.
+     *
+     * @return events since the last compaction
+     */
+    public long getUncompactedEvents() {
+        return lastSequence.get() - compactedThrough;
+    }
+
+    /**
+     * Gets the log figures for monitoring.
+     *
+     * @return map with segment, byte and event counts
+     */
+    public synchronized Map<String, Object> getStats() {
+        long bytes = 0;
+        for (Segment segment : segments) {
+            bytes += segment.bytes;
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("segments", segments.size());
+        stats.put("bytes", bytes);
+        stats.put("lastSequence", lastSequence.get());
+        stats.put("uncompactedEvents", lastSequence.get() - compactedThrough);
+        stats.put("appends", appends);
+        return stats;
+    }
+
+    /**
+     * Forces the log to disk and closes it.
+     *
+     * @throws IOException if closing fails
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel.isOpen()) {
+            channel.force(true);
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package org.global.academy.market;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Circuit breaker for the market data dependency.
+ *
+ * The breaker records the outcome of the most recent calls in a fixed-size
+ * window. A call counts as bad when it fails or takes longer than the slow
+ * call threshold. States:
+ *
+ * - CLOSED: calls go through; when the share of bad calls in the window
+ *   reaches the threshold the breaker opens
+ * - OPEN: calls are rejected immediately so callers serve cached prices;
+ *   after the open duration a single background probe is sent
+ * - HALF_OPEN: the probe is in flight; a successful probe closes the
+ *   breaker, a failed one opens it again
+ *
+ * Requests never act as the probe, so no user request waits on an
+ * upstream that is known to be unhealthy.
+ *
+ * @author Project Group 5
+ * @version 1.0
+ */
+public class CircuitBreaker {
+
+    /** The states of the breaker */
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final int windowSize;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final long slowCallMillis;
+    private final long openMillis;
+    private final Supplier<Boolean> probe;
+    private final ScheduledExecutorService prober;
+
+    private State state = State.CLOSED;
+    private final boolean[] badCalls;
+    private int windowPosition;
+    private int recordedCalls;
+    private int badCallCount;
+
+    private final LongAdder rejectedCalls = new LongAdder();
+    private final LongAdder timesOpened = new LongAdder();
+
+    /**
+     * Constructs a new CircuitBreaker.
+     *
+     * @param windowSize           number of recent calls considered
+     * @param minimumCalls         calls needed in the window before it can open
+     * @param failureRateThreshold share of bad calls (0-1) that opens the breaker
+     * @param slowCallMillis       calls slower than this count as bad
+     * @param openMillis           how long the breaker stays open before probing
+     * @param probe                health check run in the background while
+     *                             half-open; returns true when upstream is healthy
+     */
+    public CircuitBreaker(int windowSize, int minimumCalls, double failureRateThreshold,
+            long slowCallMillis, long openMillis, Supplier<Boolean> probe) {
+        this.windowSize = windowSize;
+        this.minimumCalls = minimumCalls;
+        this.failureRateThreshold = failureRateThreshold;
+        this.slowCallMillis = slowCallMillis;
+        this.openMillis = openMillis;
+        this.probe = probe;
+        this.badCalls = new boolean[windowSize];
+        this.prober = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "circuit-breaker-probe");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Checks whether a call may go upstream.
+     *
+     * @return true if the breaker is closed
+     */
+    public synchronized boolean allowRequest() {
+        if (state == State.CLOSED) {
+            return true;
+        }
+        rejectedCalls.increment();
+        return false;
+    }
+
+    /**
+     * Records the outcome of a call that was allowed through.
+     *
+     * @param success       whether the call succeeded
+     * @param latencyMillis how long the call took
+     */
+    public synchronized void record(boolean success, long latencyMillis) {
+        if (state != State.CLOSED) {
+            return;
+        }
+
+        boolean bad = !success || latencyMillis > slowCallMillis;
+        if (recordedCalls == windowSize && badCalls[windowPosition]) {
+            badCallCount--;
+        }
+        badCalls[windowPosition] = bad;
+        if (bad) {
+            badCallCount++;
+        }
+        windowPosition = (windowPosition + 1) % windowSize;
+        recordedCalls = Math.min(recordedCalls + 1, windowSize);
+
+        if (recordedCalls >= minimumCalls &&
+                badCallCount >= failureRateThreshold * recordedCalls) {
+            open();
+        }
+    }
+
+    /**
+     * Opens the breaker and schedules the background probe.
+     */
+    private void open() {
+        state = State.OPEN;
+        timesOpened.increment();
+        System.err.println("⚠️ Market data circuit breaker opened; serving cached prices.");
+        prober.schedule(this::runProbe, openMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Runs the half-open probe and closes or re-opens the breaker.
+     */
+    private void runProbe() {
+        synchronized (this) {
+            state = State.HALF_OPEN;
+        }
+
+        boolean healthy;
+        try {
+            healthy = probe.get();
+        } catch (Exception e) {
+            healthy = false;
+        }
+
+        synchronized (this) {
+            if (healthy) {
+                state = State.CLOSED;
+                recordedCalls = 0;
+                badCallCount = 0;
+                windowPosition = 0;
+                System.out.println("Market data circuit breaker closed.");
+            } else {
+                state = State.OPEN;
+                prober.schedule(this::runProbe, openMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    /**
+     * Gets the current state of the breaker.
+     *
+     * @return the state
+     */
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * Gets the breaker figures for monitoring.
+     *
+     * @return map with state, window contents and counters
+     */
+    public synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("state", state.name());
+        stats.put("recentCalls", recordedCalls);
+        stats.put("recentBadCalls", badCallCount);
+        stats.put("rejectedCalls", rejectedCalls.sum());
+        stats.put("timesOpened", timesOpened.sum());
+        return stats;
+    }
+}
@@ -0,0 +1,70 @@
+package org.global.academy.market;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Price provider decorator that reports every call to a {@link CircuitBreaker}
+ * and refuses calls while the breaker is not closed.
+ * 
+ * @author Project Group 5
+ * @version 1.0
+ */
+public class CircuitBreakingPriceProvider implements PriceProvider {
+
+    private final PriceProvider delegate;
+    private final CircuitBreaker circuitBreaker;
+
+    /**
+     * Constructs a new CircuitBreakingPriceProvider.
+     * 
+     * @param delegate       the provider that makes the actual calls
+     * @param circuitBreaker the breaker guarding the provider
+     */
+    public CircuitBreakingPriceProvider(PriceProvider delegate, CircuitBreaker circuitBreaker) {
+        this.delegate = delegate;
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    /**
+     * Fetches prices through the breaker, blocking until they arrive.
+     * 
+     * @param symbols non-empty list of stock symbols
+     * @return map of symbols to prices
+     * @throws IOException if the breaker is open or the call failed
+     */
+    @Override
+    public Map<String, Double> fetchPrices(List<String> symbols) throws IOException {
+        try {
+            return fetchPricesAsync(symbols).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Request interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IOException(e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    /**
+     * Fetches prices through the breaker and records the outcome and latency.
+     * 
+     * @param symbols non-empty list of stock symbols
+     * @return future completed with the prices, or exceptionally if the
+     *         breaker is open or the call failed
+     */
+    @Override
+    public CompletableFuture<Map<String, Double>> fetchPricesAsync(List<String> symbols) {
+        if (circuitBreaker.getState() != CircuitBreaker.State.CLOSED) {
+            return CompletableFuture.failedFuture(new IOException("Market data circuit breaker is open"));
+        }
+
+        long start = System.nanoTime();
+        return delegate.fetchPricesAsync(symbols)
+                .whenComplete((prices, error) -> circuitBreaker.record(
+                        error == null,
+                        (System.nanoTime() - start) / 1_000_000));
+    }
+}
@@ -0,0 +1,202 @@
+package org.global.academy.market;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import org.global.academy.dto.response.StockReference;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Streaming readers and writers for market data JSON.
+ *
+ * Responses are read token by token with Gson's {@link JsonReader} and
+ * turned straight into the final structures, so no response String or
+ * JsonObject tree is built in between. This matters for the stock list,
+ * which is several megabytes for the full US listing.
+ *
+ * @author Project Group 5
+ * @version 1.0
+ */
+public final class MarketDataJson {
+
+    private MarketDataJson() {
+    }
+
+    /**
+     * Reads a Twelve Data /price response.
+     *
+     * A single symbol returns {"price": "..."}; several symbols return an
+     * object keyed by symbol, where each value has its own "price" (or its
+     * own error). A top-level "code" other than 200 is an API error.
+     *
+     * @param body    the response body (closed when done)
+     * @param symbols the requested symbols
+     * @return map of symbols to prices
+     * @throws IOException on malformed JSON or an API error
+     */
+    public static Map<String, Double> readPrices(InputStream body, List<String> symbols) throws IOException {
+        Map<String, Double> results = new HashMap<>();
+        Set<String> wanted = new HashSet<>(symbols);
+        int code = 200;
+        String message = null;
+
+        try (JsonReader reader = new JsonReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                if (name.equals("price") && symbols.size() == 1) {
+                    // nextDouble also accepts numbers encoded as strings ("190.50")
+                    results.put(symbols.get(0), reader.nextDouble());
+                } else if (name.equals("code") && reader.peek() == JsonToken.NUMBER) {
+                    code = reader.nextInt();
+                } else if (name.equals("message") && reader.peek() == JsonToken.STRING) {
+                    message = reader.nextString();
+                } else if (wanted.contains(name) && reader.peek() == JsonToken.BEGIN_OBJECT) {
+                    Double price = readNestedPrice(reader);
+                    if (price != null) {
+                        results.put(name, price);
+                    }
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+        }
+
+        if (code != 200) {
+            throw new IOException("API Error: " + message);
+        }
+        return results;
+    }
+
+    /**
+     * Reads a Twelve Data /stocks response ({"data": [{"symbol", "name", ...}]}).
+     *
+     * @param body the response body (closed when done)
+     * @return list of stock references
+     * @throws IOException on malformed JSON or a response without data
+     */
+    public static List<StockReference> readCatalog(InputStream body) throws IOException {
+        try (JsonReader reader = new JsonReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            List<StockReference> stocks = null;
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if (reader.nextName().equals("data") && reader.peek() == JsonToken.BEGIN_ARRAY) {
+                    stocks = readStockArray(reader);
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+
+            if (stocks == null) {
+                throw new IOException("Response has no data");
+            }
+            return stocks;
+        }
+    }
+
+    /**
+     * Reads a cached stock list file (a JSON array of {"symbol", "name"}).
+     *
+     * @param in the reader (closed when done)
+     * @return list of stock references
+     * @throws IOException on malformed JSON
+     */
+    public static List<StockReference> readStockList(Reader in) throws IOException {
+        try (JsonReader reader = new JsonReader(in)) {
+            if (reader.peek() == JsonToken.NULL) {
+                return new ArrayList<>();
+            }
+            return readStockArray(reader);
+        }
+    }
+
+    /**
+     * Writes a stock list as a JSON array of {"symbol", "name"}.
+     *
+     * @param out    the writer (closed when done)
+     * @param stocks the stocks to write
+     * @throws IOException if writing fails
+     */
+    public static void writeStockList(Writer out, List<StockReference> stocks) throws IOException {
+        try (JsonWriter writer = new JsonWriter(out)) {
+            writer.beginArray();
+            for (StockReference stock : stocks) {
+                writer.beginObject();
+                writer.name("symbol").value(stock.symbol);
+                writer.name("name").value(stock.name);
+                writer.endObject();
+            }
+            writer.endArray();
+        }
+    }
+
+    /**
+     * Reads an array of stock objects, keeping only symbol and name.
+     *
+     * Entries without a symbol are skipped.
+     *
+     * @param reader reader positioned at the start of the array
+     * @return list of stock references
+     * @throws IOException on malformed JSON
+     */
+    private static List<StockReference> readStockArray(JsonReader reader) throws IOException {
+        List<StockReference> stocks = new ArrayList<>();
+        reader.beginArray();
+        while (reader.hasNext()) {
+            String symbol = null;
+            String name = "";
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String field = reader.nextName();
+                if (field.equals("symbol") && reader.peek() == JsonToken.STRING) {
+                    symbol = reader.nextString();
+                } else if (field.equals("name") && reader.peek() == JsonToken.STRING) {
+                    name = reader.nextString();
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+            if (symbol != null) {
+                stocks.add(new StockReference(symbol, name));
+            }
+        }
+        reader.endArray();
+        return stocks;
+    }
+
+    /**
+     * Reads the "price" field of a per-symbol object, skipping everything else.
+     *
+     * @param reader reader positioned at the start of the object
+     * @return the price, or null if the object has none (e.g. a symbol error)
+     * @throws IOException on malformed JSON
+     */
+    private static Double readNestedPrice(JsonReader reader) throws IOException {
+        Double price = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (reader.nextName().equals("price")) {
+                price = reader.nextDouble();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return price;
+    }
+}
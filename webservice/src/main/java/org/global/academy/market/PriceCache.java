@@ -0,0 +1,326 @@
+package org.global.academy.market;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+
+/**
+ * Shared in-memory cache of stock prices.
+ *
+ * Every symbol has a freshness TTL (a default one, optionally overridden per
+ * symbol) and a longer stale window:
+ *
+ * - Fresh entries are returned directly (cache hit)
+ * - Stale entries are returned immediately and revalidated in the background
+ * - Missing or expired entries are loaded from upstream (cache miss)
+ *
+ * Loads are single-flight: when several requests ask for the same symbol at
+ * the same time, only one upstream fetch is made and all callers share its
+ * result.
+ *
+ * @author Project Group 5
+ * @version 1.0
+ */
+public class PriceCache {
+
+    /** A cached price together with the time it was fetched */
+    private record Entry(double price, long fetchedAtMillis) {
+    }
+
+    private final BiFunction<List<String>, RequestPriority, Map<String, Double>> loader;
+    private final long defaultTtlMillis;
+    private final long staleWindowMillis;
+    private final long loadTimeoutMillis;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<String, Long> ttlOverrides = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<Double>> inFlight = new ConcurrentHashMap<>();
+    private final ExecutorService revalidationExecutor;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder staleHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder coalescedLoads = new LongAdder();
+    private final LongAdder upstreamLoads = new LongAdder();
+
+    /**
+     * Constructs a new PriceCache.
+     *
+     * @param loader             fetches live prices for a batch of symbols at
+     *                           a priority; symbols missing from the returned
+     *                           map are treated as unavailable
+     * @param defaultTtlMillis   how long a price is considered fresh
+     * @param staleWindowMillis  how long after expiry a price may still be
+     *                           served while it is revalidated
+     * @param loadTimeoutMillis  maximum time to wait for a shared in-flight load
+     */
+    public PriceCache(BiFunction<List<String>, RequestPriority, Map<String, Double>> loader,
+            long defaultTtlMillis,
+            long staleWindowMillis,
+            long loadTimeoutMillis) {
+        this.loader = loader;
+        this.defaultTtlMillis = defaultTtlMillis;
+        this.staleWindowMillis = staleWindowMillis;
+        this.loadTimeoutMillis = loadTimeoutMillis;
+        this.revalidationExecutor = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "price-cache-revalidate");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Overrides the freshness TTL for a single symbol.
+     *
+     * @param symbol    the stock symbol
+     * @param ttlMillis the freshness TTL in milliseconds
+     */
+    public void setTtl(String symbol, long ttlMillis) {
+        ttlOverrides.put(symbol, ttlMillis);
+    }
+
+    /**
+     * Gets prices for the given symbols, loading missing ones from upstream.
+     *
+     * Symbols that could not be loaded are left out of the returned map so
+     * the caller can apply its own fallback.
+     *
+     * @param symbols  the stock symbols
+     * @param priority the priority of any upstream fetch this causes
+     * @return map of symbols to prices
+     */
+    public Map<String, Double> getPrices(List<String> symbols, RequestPriority priority) {
+        Map<String, Double> results = new HashMap<>();
+        List<String> toLoad = new ArrayList<>();
+        List<String> toRevalidate = new ArrayList<>();
+        long now = System.currentTimeMillis();
+
+        for (String symbol : symbols) {
+            Entry entry = entries.get(symbol);
+            if (entry != null) {
+                long age = now - entry.fetchedAtMillis();
+                long ttl = ttlFor(symbol);
+                if (age < ttl) {
+                    hits.increment();
+                    results.put(symbol, entry.price());
+                    continue;
+                }
+                if (age < ttl + staleWindowMillis) {
+                    staleHits.increment();
+                    results.put(symbol, entry.price());
+                    toRevalidate.add(symbol);
+                    continue;
+                }
+            }
+            misses.increment();
+            toLoad.add(symbol);
+        }
+
+        if (!toRevalidate.isEmpty()) {
+            revalidationExecutor.execute(() -> load(toRevalidate, priority));
+        }
+
+        if (!toLoad.isEmpty()) {
+            Map<String, CompletableFuture<Double>> pending = load(toLoad, priority);
+            for (Map.Entry<String, CompletableFuture<Double>> e : pending.entrySet()) {
+                Double price = await(e.getValue());
+                if (price != null) {
+                    results.put(e.getKey(), price);
+                }
+            }
+        }
+
+        return results;
+    }
+
+    /**
+     * Gets prices for the given symbols without ever blocking on upstream.
+     *
+     * Cached prices are returned regardless of age. Symbols that are missing
+     * or no longer fresh are loaded in the background so a later call sees
+     * the new value.
+     *
+     * @param symbols  the stock symbols
+     * @param priority the priority of the background loads this causes
+     * @return map of symbols to cached prices (missing symbols are left out)
+     */
+    public Map<String, Double> getCachedPrices(List<String> symbols, RequestPriority priority) {
+        Map<String, Double> results = new HashMap<>();
+        List<String> toLoad = new ArrayList<>();
+        long now = System.currentTimeMillis();
+
+        for (String symbol : symbols) {
+            Entry entry = entries.get(symbol);
+            if (entry == null) {
+                misses.increment();
+                toLoad.add(symbol);
+                continue;
+            }
+            if (now - entry.fetchedAtMillis() < ttlFor(symbol)) {
+                hits.increment();
+            } else {
+                staleHits.increment();
+                toLoad.add(symbol);
+            }
+            results.put(symbol, entry.price());
+        }
+
+        if (!toLoad.isEmpty()) {
+            revalidationExecutor.execute(() -> load(toLoad, priority));
+        }
+
+        return results;
+    }
+
+    /**
+     * Reloads the given symbols from upstream regardless of their freshness.
+     *
+     * Used by the background refresh scheduler. Symbols already being loaded
+     * by another request are joined rather than fetched twice.
+     *
+     * @param symbols  the symbols to refresh
+     * @param priority the priority of the upstream fetch
+     */
+    public void refresh(List<String> symbols, RequestPriority priority) {
+        for (CompletableFuture<Double> future : load(symbols, priority).values()) {
+            await(future);
+        }
+    }
+
+    /**
+     * Checks whether a symbol has a cached price that is still within its TTL.
+     *
+     * @param symbol the stock symbol
+     * @return true if the cached price is fresh
+     */
+    public boolean isFresh(String symbol) {
+        Entry entry = entries.get(symbol);
+        return entry != null && System.currentTimeMillis() - entry.fetchedAtMillis() < ttlFor(symbol);
+    }
+
+    /**
+     * Stores a price that was obtained outside of the cache loader.
+     *
+     * @param symbol the stock symbol
+     * @param price  the price
+     */
+    public void put(String symbol, double price) {
+        put(symbol, price, System.currentTimeMillis());
+    }
+
+    /**
+     * Stores a price that was fetched at a known earlier time, e.g. one
+     * restored from disk after a restart.
+     *
+     * @param symbol          the stock symbol
+     * @param price           the price
+     * @param fetchedAtMillis when the price was fetched
+     */
+    public void put(String symbol, double price, long fetchedAtMillis) {
+        entries.put(symbol, new Entry(price, fetchedAtMillis));
+    }
+
+    /**
+     * Loads the given symbols, joining any fetch that is already in flight.
+     *
+     * Symbols this call is responsible for are fetched in a single upstream
+     * request on the calling thread.
+     *
+     * @param symbols  the symbols to load
+     * @param priority the priority of the upstream fetch
+     * @return futures for every requested symbol
+     */
+    private Map<String, CompletableFuture<Double>> load(List<String> symbols, RequestPriority priority) {
+        Map<String, CompletableFuture<Double>> pending = new LinkedHashMap<>();
+        Map<String, CompletableFuture<Double>> owned = new LinkedHashMap<>();
+
+        for (String symbol : symbols) {
+            CompletableFuture<Double> mine = new CompletableFuture<>();
+            CompletableFuture<Double> existing = inFlight.putIfAbsent(symbol, mine);
+            if (existing != null) {
+                coalescedLoads.increment();
+                pending.put(symbol, existing);
+            } else {
+                owned.put(symbol, mine);
+                pending.put(symbol, mine);
+            }
+        }
+
+        if (owned.isEmpty()) {
+            return pending;
+        }
+
+        Map<String, Double> fetched = Map.of();
+        try {
+            upstreamLoads.increment();
+            fetched = loader.apply(new ArrayList<>(owned.keySet()), priority);
+        } catch (Exception e) {
+            System.err.println("Error loading prices into cache: " + e.getMessage());
+        } finally {
+            long now = System.currentTimeMillis();
+            for (Map.Entry<String, CompletableFuture<Double>> e : owned.entrySet()) {
+                Double price = fetched.get(e.getKey());
+                if (price != null) {
+                    entries.put(e.getKey(), new Entry(price, now));
+                }
+                inFlight.remove(e.getKey(), e.getValue());
+                e.getValue().complete(price);
+            }
+        }
+
+        return pending;
+    }
+
+    /**
+     * Waits for a shared load to finish, bounded by the load timeout.
+     *
+     * @param future the in-flight load
+     * @return the loaded price, or null if unavailable
+     */
+    private Double await(CompletableFuture<Double> future) {
+        try {
+            return future.get(loadTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * Gets the freshness TTL that applies to a symbol.
+     *
+     * @param symbol the stock symbol
+     * @return the TTL in milliseconds
+     */
+    private long ttlFor(String symbol) {
+        return ttlOverrides.getOrDefault(symbol, defaultTtlMillis);
+    }
+
+    /**
+     * Gets the cache counters for monitoring.
+     *
+     * @return map of counter names to values
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("entries", entries.size());
+        stats.put("hits", hits.sum());
+        stats.put("staleHits", staleHits.sum());
+        stats.put("misses", misses.sum());
+        stats.put("coalescedLoads", coalescedLoads.sum());
+        stats.put("upstreamLoads", upstreamLoads.sum());
+        stats.put("inFlight", inFlight.size());
+        return stats;
+    }
+}
@@ -0,0 +1,23 @@
+package org.global.academy.market;
+
+/**
+ * Receives every new price recorded by the stock repository.
+ *
+ * Called on the thread that fetched the price, so implementations must
+ * return quickly and hand any real work to their own threads.
+ *
+ * @author Project Group 5
+ * @version 1.0
+ */
+@FunctionalInterface
+public interface PriceListener {
+
+    /**
+     * Called when a new price has been recorded.
+     *
+     * @param symbol      the stock symbol
+     * @param epochMillis the time of the price
+     * @param price       the price
+     */
+    void onPrice(String symbol, long epochMillis, double price);
+}
@@ -0,0 +1,47 @@
+package org.global.academy.market;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Source of live stock prices.
+ * 
+ * Implementations fetch the latest price for a batch of symbols from a
+ * market data service (or a local simulation of one).
+ * 
+ * @author Project Group 5
+ * @version 1.0
+ */
+public interface PriceProvider {
+
+    /**
+     * Fetches the latest prices for the given symbols.
+     * 
+     * @param symbols non-empty list of stock symbols
+     * @return map of symbols to prices; symbols without a price are left out
+     * @throws IOException if the prices could not be fetched
+     */
+    Map<String, Double> fetchPrices(List<String> symbols) throws IOException;
+
+    /**
+     * Fetches the latest prices without blocking the calling thread.
+     * 
+     * The default implementation runs {@link #fetchPrices(List)} on the
+     * common pool; providers with a non-blocking transport should override it.
+     * 
+     * @param symbols non-empty list of stock symbols
+     * @return future completed with the prices, or exceptionally on failure
+     */
+    default CompletableFuture<Map<String, Double>> fetchPricesAsync(List<String> symbols) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return fetchPrices(symbols);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+}
@@ -0,0 +1,84 @@
+package org.global.academy.market;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Background scheduler that keeps prices of held symbols up to date.
+ * 
+ * On every run it collects the union of all symbols currently held in any
+ * portfolio and refreshes them in batched multi-symbol calls, so that
+ * dashboard requests can be answered from memory without waiting on the
+ * network.
+ * 
+ * @author Project Group 5
+ * @version 1.0
+ */
+public class PriceRefreshScheduler {
+
+    private final Supplier<Set<String>> heldSymbols;
+    private final Consumer<List<String>> refresher;
+    private final long intervalSeconds;
+    private final int batchSize;
+    private final ScheduledExecutorService executor;
+
+    /**
+     * Constructs a new PriceRefreshScheduler.
+     * 
+     * @param heldSymbols     supplies the symbols that should be kept fresh
+     * @param refresher       refreshes one batch of symbols from upstream
+     * @param intervalSeconds how often the held symbols are refreshed
+     * @param batchSize       maximum number of symbols per upstream call
+     */
+    public PriceRefreshScheduler(Supplier<Set<String>> heldSymbols,
+            Consumer<List<String>> refresher,
+            long intervalSeconds,
+            int batchSize) {
+        this.heldSymbols = heldSymbols;
+        this.refresher = refresher;
+        this.intervalSeconds = intervalSeconds;
+        this.batchSize = batchSize;
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "price-refresh");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Starts refreshing immediately and then at the configured interval.
+     */
+    public void start() {
+        executor.scheduleWithFixedDelay(this::refreshAll, 0, intervalSeconds, TimeUnit.SECONDS);
+        System.out.println("Price refresh scheduled every " + intervalSeconds + " seconds.");
+    }
+
+    /**
+     * Stops the scheduler.
+     */
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Refreshes every held symbol in batches.
+     * 
+     * Exceptions are caught so a failing run does not cancel later runs.
+     */
+    private void refreshAll() {
+        try {
+            List<String> symbols = new ArrayList<>(heldSymbols.get());
+            for (int i = 0; i < symbols.size(); i += batchSize) {
+                refresher.accept(symbols.subList(i, Math.min(i + batchSize, symbols.size())));
+            }
+        } catch (Exception e) {
+            System.err.println("Error refreshing prices: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package org.global.academy.market;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Micro-batching layer in front of a {@link PriceProvider}.
+ *
+ * Price requests that arrive within a short window are merged into one
+ * comma-joined upstream call (split only when the batch exceeds the
+ * provider's symbol limit). When the response arrives, every caller is
+ * given the prices for the symbols it asked for.
+ *
+ * Every combined call is charged against the {@link UpstreamBudget} (one
+ * credit per symbol). When credits run short, symbols wanted by higher
+ * priority callers are sent first; the rest are left out of the results
+ * so callers serve them from cache.
+ *
+ * @author Project Group 5
+ * @version 1.0
+ */
+public class PriceRequestBatcher {
+
+    /** A caller waiting for the prices of its symbols */
+    private record Waiter(List<String> symbols, CompletableFuture<Map<String, Double>> future) {
+    }
+
+    private final PriceProvider provider;
+    private final UpstreamBudget budget;
+    private final long windowMillis;
+    private final int maxSymbolsPerCall;
+    private final ScheduledExecutorService timer;
+
+    private final Object lock = new Object();
+    private Map<String, RequestPriority> pendingSymbols = new HashMap<>();
+    private List<Waiter> pendingWaiters = new ArrayList<>();
+    private boolean flushScheduled;
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder upstreamCalls = new LongAdder();
+    private final LongAdder symbolsOverBudget = new LongAdder();
+
+    /**
+     * Constructs a new PriceRequestBatcher.
+     *
+     * @param provider          the provider used for the combined calls
+     * @param budget            the API credit budget charged for every call
+     * @param windowMillis      how long requests are collected before sending
+     * @param maxSymbolsPerCall maximum number of symbols per upstream call
+     */
+    public PriceRequestBatcher(PriceProvider provider, UpstreamBudget budget,
+            long windowMillis, int maxSymbolsPerCall) {
+        this.provider = provider;
+        this.budget = budget;
+        this.windowMillis = windowMillis;
+        this.maxSymbolsPerCall = maxSymbolsPerCall;
+        this.timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "price-batcher");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Queues a request for the given symbols.
+     *
+     * @param symbols  non-empty list of stock symbols
+     * @param priority the priority class of the caller
+     * @return future completed with the prices of the requested symbols
+     *         (symbols without a price or over budget are left out), or
+     *         exceptionally if the upstream call failed
+     */
+    public CompletableFuture<Map<String, Double>> submit(List<String> symbols, RequestPriority priority) {
+        CompletableFuture<Map<String, Double>> future = new CompletableFuture<>();
+        requests.increment();
+
+        boolean flushNow = false;
+        synchronized (lock) {
+            for (String symbol : symbols) {
+                pendingSymbols.merge(symbol, priority, (a, b) -> a.compareTo(b) <= 0 ? a : b);
+            }
+            pendingWaiters.add(new Waiter(symbols, future));
+
+            if (pendingSymbols.size() >= maxSymbolsPerCall) {
+                flushNow = true;
+            } else if (!flushScheduled) {
+                flushScheduled = true;
+                timer.schedule(this::flush, windowMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        if (flushNow) {
+            flush();
+        }
+        return future;
+    }
+
+    /**
+     * Sends everything collected so far upstream and fans the results out.
+     */
+    private void flush() {
+        Map<String, RequestPriority> symbols;
+        List<Waiter> waiters;
+        synchronized (lock) {
+            if (pendingWaiters.isEmpty()) {
+                flushScheduled = false;
+                return;
+            }
+            symbols = pendingSymbols;
+            waiters = pendingWaiters;
+            pendingSymbols = new HashMap<>();
+            pendingWaiters = new ArrayList<>();
+            flushScheduled = false;
+        }
+
+        List<String> all = withinBudget(symbols);
+        List<CompletableFuture<Map<String, Double>>> calls = new ArrayList<>();
+        for (int i = 0; i < all.size(); i += maxSymbolsPerCall) {
+            upstreamCalls.increment();
+            calls.add(provider.fetchPricesAsync(all.subList(i, Math.min(i + maxSymbolsPerCall, all.size()))));
+        }
+
+        CompletableFuture.allOf(calls.toArray(new CompletableFuture<?>[0]))
+                .whenComplete((ignored, error) -> {
+                    Map<String, Double> prices = new HashMap<>();
+                    Throwable failure = null;
+                    for (CompletableFuture<Map<String, Double>> call : calls) {
+                        if (call.isCompletedExceptionally()) {
+                            failure = call.handle((r, e) -> e).join();
+                        } else {
+                            prices.putAll(call.join());
+                        }
+                    }
+
+                    for (Waiter waiter : waiters) {
+                        Map<String, Double> result = new HashMap<>();
+                        for (String symbol : waiter.symbols()) {
+                            Double price = prices.get(symbol);
+                            if (price != null) {
+                                result.put(symbol, price);
+                            }
+                        }
+                        if (result.isEmpty() && failure != null) {
+                            waiter.future().completeExceptionally(failure);
+                        } else {
+                            waiter.future().complete(result);
+                        }
+                    }
+                });
+    }
+
+    /**
+     * Charges the budget for the collected symbols, highest priority first.
+     *
+     * @param symbols the collected symbols with the best priority asking for
+     *                each of them
+     * @return the symbols that may be sent upstream
+     */
+    private List<String> withinBudget(Map<String, RequestPriority> symbols) {
+        List<String> ordered = new ArrayList<>(symbols.keySet());
+        ordered.sort(Comparator.comparing(symbols::get));
+
+        List<String> allowed = new ArrayList<>();
+        int start = 0;
+        while (start < ordered.size()) {
+            RequestPriority priority = symbols.get(ordered.get(start));
+            int end = start;
+            while (end < ordered.size() && symbols.get(ordered.get(end)) == priority) {
+                end++;
+            }
+            int granted = budget.tryAcquire(end - start, priority);
+            allowed.addAll(ordered.subList(start, start + granted));
+            symbolsOverBudget.add(end - start - granted);
+            start = end;
+        }
+        return allowed;
+    }
+
+    /**
+     * Gets the batching counters for monitoring.
+     *
+     * @return map with the number of requests, upstream calls and symbols
+     *         dropped for lack of budget
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("requests", requests.sum());
+        stats.put("upstreamCalls", upstreamCalls.sum());
+        stats.put("symbolsOverBudget", symbolsOverBudget.sum());
+        return stats;
+    }
+}
@@ -0,0 +1,22 @@
+package org.global.academy.market;
+
+/**
+ * Priority classes for calls to the market data API.
+ * 
+ * When the API credit budget runs low, higher priority classes are served
+ * first. Declaration order is priority order (highest first).
+ * 
+ * @author Project Group 5
+ * @version 1.0
+ */
+public enum RequestPriority {
+
+    /** A user is waiting for the result (e.g. opening the dashboard) */
+    INTERACTIVE,
+
+    /** Scheduled refresh of held symbols and the stock list */
+    BACKGROUND,
+
+    /** Nice-to-have prices, such as prices shown next to search results */
+    ENRICHMENT
+}
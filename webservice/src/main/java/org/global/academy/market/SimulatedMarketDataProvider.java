@@ -0,0 +1,217 @@
+package org.global.academy.market;
+
+import org.global.academy.config.AppConfig;
+import org.global.academy.dto.response.StockReference;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deterministic local market data provider for offline testing.
+ *
+ * Prices come from one of two sources:
+ *
+ * - A recorded replay file with one "SYMBOL,price" line per tick; each
+ *   fetch returns the next recorded price for that symbol (looping at the end)
+ * - A seeded random walk for symbols that are not in the replay file
+ *
+ * Every call sleeps for a configurable latency to imitate a network round
+ * trip, so the whole stack can be benchmarked at realistic throughput
+ * without calling the live API or using up quota.
+ *
+ * @author Project Group 5
+ * @version 1.0
+ */
+public class SimulatedMarketDataProvider implements PriceProvider, SymbolCatalogProvider {
+
+    /** Largest relative price move per random walk step (0.5%) */
+    private static final double MAX_STEP = 0.005;
+
+    private final long latencyMillis;
+    private final int catalogSize;
+    private final Random random;
+    private final Map<String, List<Double>> recordedPrices = new HashMap<>();
+    private final Map<String, Integer> replayPositions = new HashMap<>();
+    private final Map<String, Double> walkPrices = new HashMap<>();
+
+    /**
+     * Constructs a new SimulatedMarketDataProvider.
+     *
+     * @param replayFile    optional file of recorded "SYMBOL,price" lines (may be
+     *                      null)
+     * @param latencyMillis simulated latency added to every call
+     * @param catalogSize   number of synthetic stocks added to the catalog
+     * @param seed          seed for the random walk
+     */
+    public SimulatedMarketDataProvider(Path replayFile, long latencyMillis, int catalogSize, long seed) {
+        this.latencyMillis = latencyMillis;
+        this.catalogSize = catalogSize;
+        this.random = new Random(seed);
+        if (replayFile != null) {
+            loadReplayFile(replayFile);
+        }
+    }
+
+    /**
+     * Loads recorded prices from the replay file.
+     *
+     * Blank lines, lines starting with '#' and malformed lines are skipped.
+     *
+     * @param replayFile the replay file
+     */
+    private void loadReplayFile(Path replayFile) {
+        try {
+            int count = 0;
+            for (String line : Files.readAllLines(replayFile)) {
+                String trimmed = line.trim();
+                if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+                    continue;
+                }
+                String[] parts = trimmed.split(",");
+                if (parts.length < 2) {
+                    continue;
+                }
+                try {
+                    double price = Double.parseDouble(parts[parts.length - 1].trim());
+                    recordedPrices.computeIfAbsent(parts[parts.length - 2].trim(), k -> new ArrayList<>())
+                            .add(price);
+                    count++;
+                } catch (NumberFormatException ignored) {
+                    // Skip header or malformed line
+                }
+            }
+            System.out.println("Loaded " + count + " recorded prices for " +
+                    recordedPrices.size() + " symbols from " + replayFile);
+        } catch (IOException e) {
+            System.err.println("Error loading replay file: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the next simulated price for every symbol.
+     *
+     * @param symbols non-empty list of stock symbols
+     * @return map of symbols to prices (every symbol gets a price)
+     * @throws IOException if the simulated latency is interrupted
+     */
+    @Override
+    public Map<String, Double> fetchPrices(List<String> symbols) throws IOException {
+        simulateLatency();
+        return nextPrices(symbols);
+    }
+
+    /**
+     * Returns the next simulated price for every symbol after the simulated
+     * latency, without holding a thread while waiting.
+     *
+     * @param symbols non-empty list of stock symbols
+     * @return future completed with the prices
+     */
+    @Override
+    public CompletableFuture<Map<String, Double>> fetchPricesAsync(List<String> symbols) {
+        return CompletableFuture.supplyAsync(() -> nextPrices(symbols),
+                CompletableFuture.delayedExecutor(Math.max(0, latencyMillis), TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * Advances the simulation for every symbol.
+     *
+     * @param symbols the stock symbols
+     * @return map of symbols to their next prices
+     */
+    private synchronized Map<String, Double> nextPrices(List<String> symbols) {
+        Map<String, Double> results = new HashMap<>();
+        for (String symbol : symbols) {
+            results.put(symbol, nextPrice(symbol));
+        }
+        return results;
+    }
+
+    /**
+     * Returns the default stocks plus a fixed number of synthetic ones.
+     *
+     * @return list of stock references
+     * @throws IOException if the simulated latency is interrupted
+     */
+    @Override
+    public List<StockReference> fetchCatalog() throws IOException {
+        simulateLatency();
+
+        List<StockReference> catalog = new ArrayList<>();
+        for (String symbol : AppConfig.getDefaultStockPrices().keySet()) {
+            catalog.add(new StockReference(symbol, symbol + " Simulated Inc."));
+        }
+        for (String symbol : recordedPrices.keySet()) {
+            if (!AppConfig.getDefaultStockPrices().containsKey(symbol)) {
+                catalog.add(new StockReference(symbol, symbol + " Simulated Inc."));
+            }
+        }
+        for (int i = 1; i <= catalogSize; i++) {
+            catalog.add(new StockReference(String.format("SIM%04d", i), "Simulated Company " + i));
+        }
+        return catalog;
+    }
+
+    /**
+     * Gets the next price for a symbol from the replay data or random walk.
+     *
+     * @param symbol the stock symbol
+     * @return the next price
+     */
+    private double nextPrice(String symbol) {
+        List<Double> recorded = recordedPrices.get(symbol);
+        if (recorded != null) {
+            int position = replayPositions.getOrDefault(symbol, 0);
+            replayPositions.put(symbol, (position + 1) % recorded.size());
+            return recorded.get(position);
+        }
+
+        double previous = walkPrices.computeIfAbsent(symbol, this::startingPrice);
+        double next = previous * (1 + (random.nextDouble() * 2 - 1) * MAX_STEP);
+        next = Math.round(next * 100.0) / 100.0;
+        walkPrices.put(symbol, next);
+        return next;
+    }
+
+    /**
+     * Picks a starting price for the random walk of a symbol.
+     *
+     * Uses the configured default price when there is one, otherwise a
+     * price between 10 and 500 derived from the symbol.
+     *
+     * @param symbol the stock symbol
+     * @return the starting price
+     */
+    private double startingPrice(String symbol) {
+        double defaultPrice = AppConfig.getDefaultPrice(symbol);
+        if (defaultPrice > 0) {
+            return defaultPrice;
+        }
+        return 10 + Math.floorMod(symbol.hashCode(), 49000) / 100.0;
+    }
+
+    /**
+     * Sleeps for the configured latency.
+     *
+     * @throws IOException if interrupted
+     */
+    private void simulateLatency() throws IOException {
+        if (latencyMillis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(latencyMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Simulated request interrupted", e);
+        }
+    }
+}
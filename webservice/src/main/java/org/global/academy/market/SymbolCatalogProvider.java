@@ -0,0 +1,23 @@
+package org.global.academy.market;
+
+import org.global.academy.dto.response.StockReference;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Source of the master list of tradable stocks.
+ * 
+ * @author Project Group 5
+ * @version 1.0
+ */
+public interface SymbolCatalogProvider {
+
+    /**
+     * Fetches the full list of available stocks.
+     * 
+     * @return list of stock references (symbol and company name)
+     * @throws IOException if the list could not be fetched
+     */
+    List<StockReference> fetchCatalog() throws IOException;
+}
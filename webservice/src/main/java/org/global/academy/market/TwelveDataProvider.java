@@ -0,0 +1,159 @@
+package org.global.academy.market;
+
+import org.global.academy.config.AppConfig;
+import org.global.academy.dto.response.StockReference;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Market data provider backed by the Twelve Data REST API.
+ * 
+ * Uses the /price endpoint for live prices and the /stocks endpoint
+ * for the list of US common stocks. A single HttpClient is shared by all calls so
+ * connections are reused, and every request has explicit timeouts.
+ * Responses are parsed as a stream (see {@link MarketDataJson}) rather
+ * than read into a String and a JSON tree first.
+ * 
+ * @author Project Group 5
+ * @version 1.0
+ */
+public class TwelveDataProvider implements PriceProvider, SymbolCatalogProvider {
+
+    private final HttpClient client;
+
+    /**
+     * Constructs a new TwelveDataProvider.
+     */
+    public TwelveDataProvider() {
+        this.client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(AppConfig.HTTP_CONNECT_TIMEOUT_MILLIS))
+                .build();
+    }
+
+    /**
+     * Fetches live prices from the Twelve Data /price endpoint.
+     * 
+     * @param symbols non-empty list of stock symbols
+     * @return map of symbols to prices
+     * @throws IOException on HTTP or API errors
+     */
+    @Override
+    public Map<String, Double> fetchPrices(List<String> symbols) throws IOException {
+        try {
+            return fetchPricesAsync(symbols).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Request interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IOException(e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    /**
+     * Fetches live prices from the Twelve Data /price endpoint asynchronously.
+     * 
+     * @param symbols non-empty list of stock symbols
+     * @return future completed with the prices, or exceptionally on HTTP or
+     *         API errors
+     */
+    @Override
+    public CompletableFuture<Map<String, Double>> fetchPricesAsync(List<String> symbols) {
+        String url = AppConfig.TWELVE_DATA_BASE_URL + "/price?symbol=" +
+                String.join(",", symbols) + "&apikey=" + AppConfig.TWELVE_DATA_API_KEY;
+
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(url))
+                .timeout(Duration.ofMillis(AppConfig.HTTP_REQUEST_TIMEOUT_MILLIS))
+                .GET()
+                .build();
+
+        return client.sendAsync(request, HttpResponse.BodyHandlers.ofInputStream())
+                .thenApply(response -> {
+                    try {
+                        return parsePrices(response, symbols);
+                    } catch (IOException e) {
+                        throw new CompletionException(e);
+                    }
+                });
+    }
+
+    /**
+     * Parses a /price response.
+     * 
+     * @param response the HTTP response with a streamed body
+     * @param symbols  the requested symbols
+     * @return map of symbols to prices
+     * @throws IOException on HTTP or API errors
+     */
+    private Map<String, Double> parsePrices(HttpResponse<InputStream> response, List<String> symbols)
+            throws IOException {
+        if (response.statusCode() != 200) {
+            response.body().close();
+            throw new IOException("HTTP Error " + response.statusCode());
+        }
+        return MarketDataJson.readPrices(response.body(), symbols);
+    }
+
+    /**
+     * Fetches the common stock list of all US exchanges from the Twelve Data
+     * /stocks endpoint.
+     * 
+     * A symbol listed on several exchanges is returned once.
+     * 
+     * @return list of stock references
+     * @throws IOException on HTTP errors or an unexpected response
+     */
+    @Override
+    public List<StockReference> fetchCatalog() throws IOException {
+        String url = AppConfig.TWELVE_DATA_BASE_URL +
+                "/stocks?country=United%20States&type=Common%20Stock";
+
+        HttpResponse<InputStream> response = get(url, AppConfig.CATALOG_REQUEST_TIMEOUT_MILLIS);
+        if (response.statusCode() != 200) {
+            response.body().close();
+            throw new IOException("API Status: " + response.statusCode());
+        }
+
+        Map<String, StockReference> bySymbol = new LinkedHashMap<>();
+        for (StockReference stock : MarketDataJson.readCatalog(response.body())) {
+            bySymbol.putIfAbsent(stock.symbol, stock);
+        }
+        return new ArrayList<>(bySymbol.values());
+    }
+
+    /**
+     * Performs a blocking HTTP GET request on the shared client.
+     * 
+     * @param url           the full request URL
+     * @param timeoutMillis the request timeout
+     * @return the HTTP response with a streamed body
+     * @throws IOException if the request fails, times out or is interrupted
+     */
+    private HttpResponse<InputStream> get(String url, long timeoutMillis) throws IOException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(url))
+                .timeout(Duration.ofMillis(timeoutMillis))
+                .GET()
+                .build();
+
+        try {
+            return client.send(request, HttpResponse.BodyHandlers.ofInputStream());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Request interrupted", e);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package org.global.academy.market;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Token bucket that keeps calls to the market data API within its
+ * per-minute credit limit.
+ * 
+ * The bucket holds up to one minute of credits and refills continuously.
+ * Lower priority classes may only spend credits while enough remain for
+ * the classes above them:
+ * 
+ * - INTERACTIVE may use the whole bucket
+ * - BACKGROUND must leave a quarter of the bucket
+ * - ENRICHMENT must leave half of the bucket
+ * 
+ * Grants may be partial, so a caller asking for more credits than are
+ * available gets as many as can be spared and serves the rest from cache.
+ * 
+ * @author Project Group 5
+ * @version 1.0
+ */
+public class UpstreamBudget {
+
+    private final double capacity;
+    private final double refillPerMilli;
+    private double tokens;
+    private long lastRefillMillis;
+
+    private final Map<RequestPriority, LongAdder> granted = new EnumMap<>(RequestPriority.class);
+    private final Map<RequestPriority, LongAdder> denied = new EnumMap<>(RequestPriority.class);
+
+    /**
+     * Constructs a new UpstreamBudget with a full bucket.
+     * 
+     * @param creditsPerMinute the API credit limit per minute
+     */
+    public UpstreamBudget(int creditsPerMinute) {
+        this.capacity = creditsPerMinute;
+        this.refillPerMilli = creditsPerMinute / 60_000.0;
+        this.tokens = creditsPerMinute;
+        this.lastRefillMillis = System.currentTimeMillis();
+        for (RequestPriority priority : RequestPriority.values()) {
+            granted.put(priority, new LongAdder());
+            denied.put(priority, new LongAdder());
+        }
+    }
+
+    /**
+     * Takes up to the requested number of credits without waiting.
+     * 
+     * @param credits  the number of credits wanted
+     * @param priority the priority class of the call
+     * @return the number of credits granted (between 0 and credits)
+     */
+    public synchronized int tryAcquire(int credits, RequestPriority priority) {
+        refill();
+        int spendable = (int) Math.floor(tokens - reserveFor(priority));
+        int grant = Math.max(0, Math.min(credits, spendable));
+        tokens -= grant;
+
+        granted.get(priority).add(grant);
+        denied.get(priority).add(credits - grant);
+        return grant;
+    }
+
+    /**
+     * Gets the number of credits a priority class must leave in the bucket.
+     * 
+     * @param priority the priority class
+     * @return the reserved number of credits
+     */
+    private double reserveFor(RequestPriority priority) {
+        switch (priority) {
+            case INTERACTIVE:
+                return 0;
+            case BACKGROUND:
+                return capacity / 4;
+            default:
+                return capacity / 2;
+        }
+    }
+
+    /**
+     * Adds the credits earned since the last refill, capped at capacity.
+     */
+    private void refill() {
+        long now = System.currentTimeMillis();
+        tokens = Math.min(capacity, tokens + (now - lastRefillMillis) * refillPerMilli);
+        lastRefillMillis = now;
+    }
+
+    /**
+     * Gets the current budget usage for monitoring.
+     * 
+     * @return map with capacity, available credits, and granted/denied
+     *         credits per priority class
+     */
+    public synchronized Map<String, Object> getStats() {
+        refill();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("creditsPerMinute", (int) capacity);
+        stats.put("available", Math.floor(tokens * 100) / 100);
+        stats.put("utilization", Math.round((1 - tokens / capacity) * 100) / 100.0);
+        for (RequestPriority priority : RequestPriority.values()) {
+            String name = priority.name().toLowerCase();
+            stats.put(name + "Granted", granted.get(priority).sum());
+            stats.put(name + "Denied", denied.get(priority).sum());
+        }
+        return stats;
+    }
+}
@@ -0,0 +1,93 @@
+package org.global.academy.model;
+
+/**
+ * Represents a tax lot: shares of one stock bought together at one price.
+ *
+ * Lots are immutable. Selling part of a lot replaces it with a smaller lot
+ * that keeps the original cost and purchase time.
+ *
+ * @author Project Group 5
+ * @version 1.0
+ */
+public class Lot {
+
+    /** The number of shares in this lot */
+    private final int quantity;
+
+    /** The price paid per share */
+    private final double costPerShare;
+
+    /** When the shares were bought (epoch milliseconds) */
+    private final long acquiredAtMillis;
+
+    /**
+     * Constructs a new Lot.
+     *
+     * @param quantity         the number of shares (must be positive)
+     * @param costPerShare     the price paid per share
+     * @param acquiredAtMillis when the shares were bought
+     */
+    public Lot(int quantity, double costPerShare, long acquiredAtMillis) {
+        this.quantity = quantity;
+        this.costPerShare = costPerShare;
+        this.acquiredAtMillis = acquiredAtMillis;
+    }
+
+    /**
+     * Gets the number of shares in this lot.
+     *
+     * @return the share count
+     */
+    public int getQuantity() {
+        return quantity;
+    }
+
+    /**
+     * Gets the price paid per share.
+     *
+     * @return the cost per share
+     */
+    public double getCostPerShare() {
+        return costPerShare;
+    }
+
+    /**
+     * Gets the total price paid for this lot.
+     *
+     * @return quantity times cost per share
+     */
+    public double getTotalCost() {
+        return quantity * costPerShare;
+    }
+
+    /**
+     * Gets when the shares were bought.
+     *
+     * @return epoch milliseconds
+     */
+    public long getAcquiredAtMillis() {
+        return acquiredAtMillis;
+    }
+
+    /**
+     * Creates a lot with the same cost and purchase time but fewer shares.
+     *
+     * @param remaining the number of shares left (less than the quantity)
+     * @return the reduced lot
+     */
+    public Lot withQuantity(int remaining) {
+        return new Lot(remaining, costPerShare, acquiredAtMillis);
+    }
+
+    /**
+     * Returns a string representation of this lot.
+     *
+     * The format is: "quantity @ cost"
+     *
+     * @return a formatted string showing the share count and cost
+     */
+    @Override
+    public String toString() {
+        return quantity + " @ " + costPerShare;
+    }
+}
@@ -0,0 +1,24 @@
+package org.global.academy.model;
+
+/**
+ * Ways of choosing which tax lots a sale takes shares from, which decides
+ * the cost basis and so the realized gain of the sale.
+ *
+ * @author Project Group 5
+ * @version 1.0
+ */
+public enum LotReliefMethod {
+
+    /** First in, first out: the oldest lots are sold first */
+    FIFO,
+
+    /** Last in, first out: the newest lots are sold first */
+    LIFO,
+
+    /**
+     * Average cost: every share sold costs the average price of the
+     * position, and the shares left keep that average. Once used, later
+     * sales of the position must use it too.
+     */
+    AVERAGE_COST
+}
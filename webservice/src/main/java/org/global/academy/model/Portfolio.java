@@ -1,10 +1,11 @@
 package org.global.academy.model;
 
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.HashMap;
+import java.util.Set;
 
 /**
  * Represents a user's stock portfolio in the portfolio management system.
@@ -12,12 +13,16 @@ import java.util.HashMap;
  * This class manages a collection of stock holdings, allowing users to:
  * 
  * Add stocks to their portfolio (buy)
- * - Remove stocks from their portfolio (sell - future implementation)
+ * - Remove stocks from their portfolio (sell, with FIFO, LIFO or average
+ *   cost lot relief)
  * - Calculate total portfolio value
- * - View aggregated holdings by stock symbol
+ * - View per-symbol summaries (quantity and cost basis)
  * 
- * Each stock is stored individually to maintain purchase history and enable
- * accurate profit/loss tracking.
+ * Holdings are kept as one {@link Position} per stock symbol, each with the
+ * tax lots (quantity, cost, purchase time) it was bought in. This keeps the
+ * purchase history for profit/loss tracking while memory and every
+ * operation scale with the number of positions and lots rather than the
+ * number of shares.
  * 
  * 
  * @author Project Team 5
@@ -26,162 +31,220 @@ import java.util.HashMap;
 public class Portfolio {
 
     /**
-     * List of all stock holdings in this portfolio.
-     * Each stock instance represents one share, allowing for detailed tracking
-     * of individual purchases at different prices.
+     * Positions in this portfolio, keyed by stock symbol, in the order
+     * they were first bought.
      */
-    private List<Stock> holdings;
+    private final Map<String, Position> positions;
 
     /**
      * Constructs a new empty Portfolio.
-     * Initializes the holdings list to store future stock purchases.
+     * Initializes the position map to store future stock purchases.
      */
     public Portfolio() {
-        this.holdings = new ArrayList<>();
+        this.positions = new LinkedHashMap<>();
     }
 
     /**
      * Adds a specified quantity of a stock to this portfolio.
      * 
-     * This method simulates purchasing stocks by adding the same stock
-     * instance multiple times (once per share). A confirmation message
-     * is printed to the console upon successful purchase.
+     * This method simulates purchasing stocks by adding one lot at the
+     * stock's purchase price to the position of its symbol. A confirmation
+     * message is printed to the console upon successful purchase.
      * 
-     * @param stockToAdd the stock to add to the portfolio
-     * @param quantity   the number of shares to purchase (must be positive)
+     * @param stockToAdd       the stock to add to the portfolio
+     * @param quantity         the number of shares to purchase (must be positive)
+     * @param acquiredAtMillis when the shares were bought
      */
-    public void addStock(Stock stockToAdd, int quantity) {
-        for (int i = 0; i < quantity; i++) {
-            this.holdings.add(stockToAdd);
-        }
+    public synchronized void addStock(Stock stockToAdd, int quantity, long acquiredAtMillis) {
+        Position position = positions.computeIfAbsent(stockToAdd.getSymbol(),
+                symbol -> new Position(symbol, stockToAdd.getCompanyName()));
+        position.addLot(new Lot(quantity, stockToAdd.getPurchasePrice(), acquiredAtMillis));
+        position.setLastPrice(stockToAdd.getPrice());
         System.out.printf("✅ Purchased %d share(s) of %s.%n", quantity, stockToAdd.getSymbol());
     }
 
+    /**
+     * Adds a position loaded from storage, replacing any position for the
+     * same symbol.
+     * 
+     * @param position the position to add (owned by this portfolio from now on)
+     */
+    public synchronized void restorePosition(Position position) {
+        if (!position.isEmpty()) {
+            positions.put(position.getSymbol(), position);
+        }
+    }
+
     /**
      * Removes a specified quantity of a stock from this portfolio.
      * 
-     * This method simulates selling stocks. It first verifies that the user
-     * owns enough shares before proceeding with the sale. If insufficient
-     * shares are available, an error message is displayed and no stocks are
-     * removed.
+     * This method sells stocks. It first verifies that the user owns enough
+     * shares before proceeding with the sale. If insufficient shares are
+     * available, an error message is displayed and no stocks are removed.
+     * The lot relief method decides which lots the shares come from, and
+     * so the cost basis and realized gain of the sale.
      * 
      * @param tickerSymbol the stock symbol to sell (e.g., "AAPL")
+     * @param quantity     the number of shares to sell (must be positive)
+     * @param price        the price received per share
+     * @param method       the lot relief method, or null for the position's
+     *                     default (see {@link Position#getDefaultReliefMethod()})
+     * @return the sale with its cost basis
+     * @throws IllegalArgumentException if the quantity is not positive or
+     *                                  more than the shares owned, or the
+     *                                  method conflicts with an average cost
+     *                                  election
+     */
+    public synchronized Sale removeStock(String tickerSymbol, int quantity, double price,
+            LotReliefMethod method) {
+        checkSale(tickerSymbol, quantity, method);
+
+        Position position = positions.get(tickerSymbol);
+        if (method == null) {
+            method = position.getDefaultReliefMethod();
+        }
+        double costBasis = position.removeShares(quantity, method);
+        if (position.isEmpty()) {
+            positions.remove(tickerSymbol);
+        }
+        System.out.printf("🔻 Sold %d share(s) of %s.%n", quantity, tickerSymbol);
+        return new Sale(tickerSymbol, quantity, price, costBasis, method);
+    }
+
+    /**
+     * Checks that a sale is possible without changing anything.
+     * 
+     * @param tickerSymbol the stock symbol to sell
      * @param quantity     the number of shares to sell
+     * @param method       the lot relief method, or null for the position's
+     *                     default
+     * @throws IllegalArgumentException if the quantity is not positive or
+     *                                  more than the shares owned, or the
+     *                                  method conflicts with an average cost
+     *                                  election
      */
-    public void removeStock(String tickerSymbol, int quantity) {
-        long ownedCount = this.holdings.stream()
-                .filter(s -> s.getSymbol().equals(tickerSymbol))
-                .count();
+    public synchronized void checkSale(String tickerSymbol, int quantity, LotReliefMethod method) {
+        Position position = positions.get(tickerSymbol);
+        int ownedCount = position == null ? 0 : position.getQuantity();
 
-        if (quantity > ownedCount) {
-            System.out.printf("⚠️ Error: Cannot sell %d share(s) of %s. You only own %d.%n",
+        if (quantity <= 0 || quantity > ownedCount) {
+            String message = String.format("Cannot sell %d share(s) of %s. You only own %d.",
                     quantity, tickerSymbol, ownedCount);
-            return;
+            System.out.println("⚠️ Error: " + message);
+            throw new IllegalArgumentException(message);
         }
-
-        int removedCount = 0;
-        Iterator<Stock> iterator = this.holdings.iterator();
-        while (iterator.hasNext() && removedCount < quantity) {
-            Stock currentStock = iterator.next();
-            if (currentStock.getSymbol().equals(tickerSymbol)) {
-                iterator.remove();
-                removedCount++;
-            }
+        if (method != null) {
+            position.checkReliefMethod(method);
         }
-        System.out.printf("🔻 Sold %d share(s) of %s.%n", quantity, tickerSymbol);
     }
 
     /**
      * Calculates the total current value of this portfolio.
      * 
-     * The value is computed by summing the current market price of all
-     * stocks held in the portfolio.
+     * The value is computed by summing the last known price of every
+     * position times its share count.
      * 
-     * @return the total portfolio value based on current stock prices
+     * @return the total portfolio value based on last known stock prices
      */
-    public double getValue() {
+    public synchronized double getValue() {
         double totalValue = 0.0;
-        for (Stock stock : this.holdings) {
-            totalValue += stock.getPrice();
+        for (Position position : this.positions.values()) {
+            totalValue += position.getLastPrice() * position.getQuantity();
         }
         return totalValue;
     }
 
     /**
-     * Gets a copy of all stock holdings in this portfolio.
+     * Gets a copy of all positions in this portfolio.
+     * 
+     * Returns copies to prevent external modification of the internal
+     * positions.
+     * 
+     * @return a list containing a copy of every position
+     */
+    public synchronized List<Position> getPositions() {
+        List<Position> copies = new ArrayList<>(positions.size());
+        for (Position position : positions.values()) {
+            copies.add(new Position(position));
+        }
+        return copies;
+    }
+
+    /**
+     * Gets the figures of the position for one stock symbol.
+     * 
+     * @param symbol the stock symbol
+     * @return the position summary, or null if the stock is not held
+     */
+    public synchronized PositionSummary getSummary(String symbol) {
+        Position position = positions.get(symbol);
+        return position == null ? null : position.summary();
+    }
+
+    /**
+     * Checks whether this portfolio holds no positions.
      * 
-     * Returns a new ArrayList to prevent external modification of the
-     * internal holdings list.
+     * @return true if nothing is held
+     */
+    public synchronized boolean isEmpty() {
+        return positions.isEmpty();
+    }
+
+    /**
+     * Gets the number of open lots across all positions, which is what the
+     * memory used by this portfolio mostly depends on.
      * 
-     * @return a list containing all stocks in this portfolio
+     * @return the lot count
      */
-    public List<Stock> getHoldings() {
-        return new ArrayList<>(this.holdings);
+    public synchronized int getLotCount() {
+        int count = 0;
+        for (Position position : positions.values()) {
+            count += position.getLotCount();
+        }
+        return count;
     }
 
     /**
-     * Gets aggregated holdings grouped by stock symbol.
+     * Gets the distinct stock symbols held in this portfolio.
      * 
-     * This method consolidates multiple shares of the same stock into a single
-     * entry, providing:
+     * @return a set of stock symbols
+     */
+    public synchronized Set<String> getSymbols() {
+        return new LinkedHashSet<>(positions.keySet());
+    }
+
+    /**
+     * Gets the figures of every position, one per stock symbol.
      * 
-     * - Company name and symbol
-     * - Total quantity of shares
-     * - Average price per share
-     * - Purchase price information
-     * - Total current value and purchase value
+     * Each position keeps its share count and cost basis up to date on
+     * every buy and sell, so this does not aggregate individual lots.
      * 
      * For displaying portfolio summaries and calculating profit/loss per stock.
      * 
-     * @return a map where keys are stock symbols and values are maps containing
-     *         aggregated data (name, symbol, quantity, price, purchasePrice,
-     *         totalPrice, totalPurchasePrice)
+     * @return list of position summaries, in the order the stocks were
+     *         first bought
      */
-    public Map<String, Map<String, Object>> getAggregatedHoldings() {
-        Map<String, Map<String, Object>> aggregated = new HashMap<>();
-
-        for (Stock stock : this.holdings) {
-            String symbol = stock.getSymbol();
-
-            if (aggregated.containsKey(symbol)) {
-                Map<String, Object> data = aggregated.get(symbol);
-                int quantity = (Integer) data.get("quantity");
-                double totalCurrentPrice = (Double) data.get("totalPrice");
-                double totalPurchasePrice = (Double) data.get("totalPurchasePrice");
-
-                data.put("quantity", quantity + 1);
-                data.put("totalPrice", totalCurrentPrice + stock.getPrice());
-                data.put("totalPurchasePrice", totalPurchasePrice + stock.getPurchasePrice());
-            } else {
-                Map<String, Object> data = new HashMap<>();
-                data.put("name", stock.getCompanyName());
-                data.put("symbol", symbol);
-                data.put("quantity", 1);
-                data.put("price", stock.getPrice());
-                data.put("purchasePrice", stock.getPurchasePrice());
-                data.put("totalPrice", stock.getPrice());
-                data.put("totalPurchasePrice", stock.getPurchasePrice());
-
-                aggregated.put(symbol, data);
-            }
+    public synchronized List<PositionSummary> getSummaries() {
+        List<PositionSummary> summaries = new ArrayList<>(positions.size());
+        for (Position position : positions.values()) {
+            summaries.add(position.summary());
         }
-
-        return aggregated;
+        return summaries;
     }
 
     /**
      * Returns a string representation of this portfolio.
      * 
      * If the portfolio is empty, returns a message indicating so.
-     * Otherwise, returns a description including all holdings.
+     * Otherwise, returns a description including all positions.
      * 
      * @return a string describing the portfolio contents
      */
     @Override
-    public String toString() {
-        if (this.holdings.isEmpty()) {
+    public synchronized String toString() {
+        if (this.positions.isEmpty()) {
             return "Portfolio is empty.";
         }
-        return "Portfolio containing: " + this.holdings.toString();
+        return "Portfolio containing: " + this.positions.values();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,296 @@
+package org.global.academy.model;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Represents everything a portfolio holds of one stock.
+ *
+ * Shares are kept as tax lots in purchase order, and the share count and
+ * total cost are updated with every change, so reading them does not walk
+ * the lots. Memory and every operation scale with the number of purchases,
+ * not the number of shares.
+ *
+ * Average cost is an election for the whole position: after the first
+ * sale at average cost, the total cost is a pooled basis that no longer
+ * equals the sum of the lot costs, so later sales must use average cost
+ * too. The lots keep their original costs as purchase history.
+ *
+ * A position is not thread-safe; {@link Portfolio} guards its positions.
+ *
+ * @author Project Group 5
+ * @version 1.0
+ */
+public class Position {
+
+    /** The trading symbol of the stock */
+    private final String symbol;
+
+    /** The company name of the stock */
+    private String companyName;
+
+    /** The price of the most recent purchase, used when no market price is known */
+    private double lastPrice;
+
+    /** The open lots, oldest first (sales may take from either end) */
+    private final Deque<Lot> lots;
+
+    /** The number of shares across all lots */
+    private int quantity;
+
+    /** The cost basis of all shares held (pooled once average cost is elected) */
+    private double totalCost;
+
+    /** Whether shares of this position were sold at average cost */
+    private boolean averageCostElected;
+
+    /**
+     * Constructs a new empty Position.
+     *
+     * @param symbol      the trading symbol
+     * @param companyName the company name
+     */
+    public Position(String symbol, String companyName) {
+        this.symbol = symbol;
+        this.companyName = companyName;
+        this.lots = new ArrayDeque<>();
+    }
+
+    /**
+     * Constructs a copy of a position.
+     *
+     * @param other the position to copy
+     */
+    public Position(Position other) {
+        this.symbol = other.symbol;
+        this.companyName = other.companyName;
+        this.lastPrice = other.lastPrice;
+        this.lots = new ArrayDeque<>(other.lots);
+        this.quantity = other.quantity;
+        this.totalCost = other.totalCost;
+        this.averageCostElected = other.averageCostElected;
+    }
+
+    /**
+     * Adds a lot (a purchase) to this position.
+     *
+     * @param lot the lot to add
+     */
+    public void addLot(Lot lot) {
+        lots.addLast(lot);
+        quantity += lot.getQuantity();
+        totalCost += lot.getTotalCost();
+        lastPrice = lot.getCostPerShare();
+    }
+
+    /**
+     * Restores the pooled cost basis of a position that elected average
+     * cost, after its lots were added.
+     *
+     * @param totalCost the pooled cost basis of the shares held
+     */
+    public void restoreAverageCostBasis(double totalCost) {
+        this.totalCost = totalCost;
+        this.averageCostElected = true;
+    }
+
+    /**
+     * Checks that shares can be removed with a relief method.
+     *
+     * @param method the lot relief method
+     * @throws IllegalArgumentException if the position elected average cost
+     *                                  and the method is another one
+     */
+    public void checkReliefMethod(LotReliefMethod method) {
+        if (averageCostElected && method != LotReliefMethod.AVERAGE_COST) {
+            throw new IllegalArgumentException("Shares of " + symbol
+                    + " were sold at average cost before; later sales must use " + LotReliefMethod.AVERAGE_COST);
+        }
+    }
+
+    /**
+     * Gets the relief method used when the caller does not choose one.
+     *
+     * @return AVERAGE_COST once elected, otherwise FIFO
+     */
+    public LotReliefMethod getDefaultReliefMethod() {
+        return averageCostElected ? LotReliefMethod.AVERAGE_COST : LotReliefMethod.FIFO;
+    }
+
+    /**
+     * Removes shares, taking them from the lots the relief method chooses.
+     *
+     * FIFO and LIFO take shares from one end of the lot list and only touch
+     * the lots they take from; a partly sold lot is replaced by a smaller
+     * one. Average cost takes the shares from the oldest lots in the same
+     * way but relieves the average cost per share from the pooled basis,
+     * and elects average cost for the rest of the position's life.
+     *
+     * @param shares the number of shares to remove (at most the quantity)
+     * @param method the lot relief method
+     * @return the cost basis of the removed shares
+     * @throws IllegalArgumentException if the method is not allowed after
+     *                                  an average cost election
+     */
+    public double removeShares(int shares, LotReliefMethod method) {
+        checkReliefMethod(method);
+        double averageCost = getAverageCost();
+        boolean newestFirst = method == LotReliefMethod.LIFO;
+
+        double removedCost = 0.0;
+        int remaining = shares;
+        while (remaining > 0 && !lots.isEmpty()) {
+            Lot lot = newestFirst ? lots.pollLast() : lots.pollFirst();
+            int taken = Math.min(remaining, lot.getQuantity());
+            if (taken < lot.getQuantity()) {
+                Lot rest = lot.withQuantity(lot.getQuantity() - taken);
+                if (newestFirst) {
+                    lots.addLast(rest);
+                } else {
+                    lots.addFirst(rest);
+                }
+            }
+            removedCost += taken * lot.getCostPerShare();
+            remaining -= taken;
+        }
+        quantity -= shares - remaining;
+
+        if (method == LotReliefMethod.AVERAGE_COST) {
+            removedCost = averageCost * (shares - remaining);
+            averageCostElected = true;
+        }
+        totalCost = lots.isEmpty() ? 0.0 : totalCost - removedCost;
+        return removedCost;
+    }
+
+    /**
+     * Gets the trading symbol.
+     *
+     * @return the stock symbol
+     */
+    public String getSymbol() {
+        return symbol;
+    }
+
+    /**
+     * Gets the company name.
+     *
+     * @return the company name
+     */
+    public String getCompanyName() {
+        return companyName;
+    }
+
+    /**
+     * Sets the company name (for example after the company was renamed).
+     *
+     * @param companyName the new company name
+     */
+    public void setCompanyName(String companyName) {
+        this.companyName = companyName;
+    }
+
+    /**
+     * Gets the price of the most recent purchase.
+     *
+     * @return the last purchase price
+     */
+    public double getLastPrice() {
+        return lastPrice;
+    }
+
+    /**
+     * Sets the price used when no market price is known.
+     *
+     * @param lastPrice the price
+     */
+    public void setLastPrice(double lastPrice) {
+        this.lastPrice = lastPrice;
+    }
+
+    /**
+     * Gets the number of shares held.
+     *
+     * @return the share count across all lots
+     */
+    public int getQuantity() {
+        return quantity;
+    }
+
+    /**
+     * Gets the price paid for all shares held.
+     *
+     * @return the total cost across all lots
+     */
+    public double getTotalCost() {
+        return totalCost;
+    }
+
+    /**
+     * Gets the average price paid per share.
+     *
+     * @return total cost divided by quantity, or 0.0 if nothing is held
+     */
+    public double getAverageCost() {
+        return quantity == 0 ? 0.0 : totalCost / quantity;
+    }
+
+    /**
+     * Checks whether this position elected average cost.
+     *
+     * @return true once shares were sold at average cost
+     */
+    public boolean isAverageCostElected() {
+        return averageCostElected;
+    }
+
+    /**
+     * Gets the running figures of this position without copying its lots.
+     *
+     * @return the position summary
+     */
+    public PositionSummary summary() {
+        return new PositionSummary(symbol, companyName, quantity, totalCost, lastPrice);
+    }
+
+    /**
+     * Gets the open lots, oldest first.
+     *
+     * @return a copy of the lots
+     */
+    public List<Lot> getLots() {
+        return new ArrayList<>(lots);
+    }
+
+    /**
+     * Gets the number of open lots without copying them.
+     *
+     * @return the lot count
+     */
+    public int getLotCount() {
+        return lots.size();
+    }
+
+    /**
+     * Checks whether this position holds no shares.
+     *
+     * @return true if there are no lots left
+     */
+    public boolean isEmpty() {
+        return lots.isEmpty();
+    }
+
+    /**
+     * Returns a string representation of this position.
+     *
+     * The format is: "SYMBOL x quantity [lots]"
+     *
+     * @return a formatted string showing the symbol, quantity and lots
+     */
+    @Override
+    public String toString() {
+        return symbol + " x " + quantity + " " + lots;
+    }
+}
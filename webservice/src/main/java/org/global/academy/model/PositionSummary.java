@@ -0,0 +1,29 @@
+package org.global.academy.model;
+
+/**
+ * Read-only figures of one position: what is held and what it cost.
+ *
+ * A summary is taken from the running totals a {@link Position} keeps, so
+ * making one does not walk or copy the lots.
+ *
+ * @param symbol      the trading symbol
+ * @param companyName the company name
+ * @param quantity    the number of shares held
+ * @param totalCost   the price paid for all shares held
+ * @param lastPrice   the last known price, used when no market price is known
+ *
+ * @author Project Group 5
+ * @version 1.0
+ */
+public record PositionSummary(String symbol, String companyName, int quantity, double totalCost,
+        double lastPrice) {
+
+    /**
+     * Gets the average price paid per share.
+     *
+     * @return total cost divided by quantity, or 0.0 if nothing is held
+     */
+    public double averageCost() {
+        return quantity == 0 ? 0.0 : totalCost / quantity;
+    }
+}
@@ -0,0 +1,35 @@
+package org.global.academy.model;
+
+/**
+ * The outcome of selling shares of one position.
+ *
+ * @param symbol    the trading symbol
+ * @param quantity  the number of shares sold
+ * @param price     the price received per share
+ * @param costBasis the price paid for the shares sold, as chosen by the
+ *                  lot relief method
+ * @param method    the lot relief method used
+ *
+ * @author Project Group 5
+ * @version 1.0
+ */
+public record Sale(String symbol, int quantity, double price, double costBasis, LotReliefMethod method) {
+
+    /**
+     * Gets the amount received for the shares sold.
+     *
+     * @return price times quantity
+     */
+    public double proceeds() {
+        return price * quantity;
+    }
+
+    /**
+     * Gets the realized gain (negative for a loss).
+     *
+     * @return proceeds minus cost basis
+     */
+    public double realizedGain() {
+        return proceeds() - costBasis;
+    }
+}
@@ -0,0 +1,16 @@
+package org.global.academy.model;
+
+/**
+ * Firm-wide figures of one stock symbol, summed over every portfolio that
+ * holds it.
+ *
+ * @param symbol    the trading symbol
+ * @param holders   the number of portfolios holding the symbol
+ * @param quantity  the number of shares held across those portfolios
+ * @param costBasis the price paid for all those shares
+ *
+ * @author Project Group 5
+ * @version 1.0
+ */
+public record SymbolHoldings(String symbol, int holders, long quantity, double costBasis) {
+}
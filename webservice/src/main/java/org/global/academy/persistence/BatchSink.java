@@ -0,0 +1,33 @@
+package org.global.academy.persistence;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Destination of the batches written by a {@link GroupCommitWriter}.
+ *
+ * Both methods are only ever called from the writer's own thread.
+ *
+ * @param <T> the type of the items written
+ *
+ * @author Project Group 5
+ * @version 1.0
+ */
+public interface BatchSink<T> {
+
+    /**
+     * Writes a batch of items, in submission order. The data does not have
+     * to be on disk yet when this returns.
+     *
+     * @param batch the items (never empty)
+     * @throws IOException if the batch cannot be written
+     */
+    void write(List<T> batch) throws IOException;
+
+    /**
+     * Forces everything written so far to disk.
+     *
+     * @throws IOException if the data cannot be forced
+     */
+    void sync() throws IOException;
+}
@@ -0,0 +1,48 @@
+package org.global.academy.persistence;
+
+import java.util.Locale;
+
+/**
+ * When the data written by a {@link GroupCommitWriter} is forced to disk,
+ * and so how much a crash (of the machine, not only the process) can lose.
+ *
+ * @author Project Group 5
+ * @version 1.0
+ */
+public enum DurabilityMode {
+
+    /**
+     * Every commit is forced to disk before its callers are told it is
+     * done; nothing acknowledged is lost
+     */
+    FSYNC_EACH_COMMIT,
+
+    /**
+     * Commits are acknowledged once written and forced to disk together
+     * at a fixed interval; a crash loses at most one interval
+     */
+    FSYNC_INTERVAL,
+
+    /**
+     * Commits are acknowledged once written and left to the operating
+     * system to flush (forced only on close); fastest, least safe
+     */
+    ASYNC;
+
+    /**
+     * Parses a mode name, ignoring case and accepting dashes for
+     * underscores ("fsync-interval").
+     *
+     * @param name the mode name
+     * @return the mode
+     * @throws IllegalArgumentException if the name is not a mode
+     */
+    public static DurabilityMode parse(String name) {
+        try {
+            return valueOf(name.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown durability mode: " + name
+                    + " (use fsync-each-commit, fsync-interval or async)");
+        }
+    }
+}
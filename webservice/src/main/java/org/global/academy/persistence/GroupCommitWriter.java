@@ -0,0 +1,270 @@
+package org.global.academy.persistence;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Write-behind persistence with group commit.
+ *
+ * Request threads submit items and get a future back instead of writing
+ * to disk themselves. A single writer thread takes everything that queued
+ * up while it was busy with the previous commit and hands it to the
+ * {@link BatchSink} as one batch, so a burst of concurrent writes costs
+ * one write (and one fsync) instead of one each.
+ *
+ * The {@link DurabilityMode} decides when a batch is forced to disk and
+ * so when its futures complete: after the fsync (FSYNC_EACH_COMMIT), or
+ * as soon as it is written (FSYNC_INTERVAL, which forces the writes every
+ * {@code syncIntervalMillis}, and ASYNC). {@link #flush()} always waits
+ * for an fsync, whatever the mode.
+ *
+ * Futures are completed on the writer thread, so code chained onto them
+ * must not block.
+ *
+ * @param <T> the type of the items written
+ *
+ * @author Project Group 5
+ * @version 1.0
+ */
+public class GroupCommitWriter<T> implements Closeable {
+
+    /** A submitted item, or a flush request when the item is null */
+    private record Entry<T>(T item, CompletableFuture<Void> future) {
+    }
+
+    private final String name;
+    private final BatchSink<T> sink;
+    private final DurabilityMode mode;
+    private final long syncIntervalNanos;
+    private final int maxBatch;
+    private final BlockingQueue<Entry<T>> queue = new LinkedBlockingQueue<>();
+    private final Thread thread;
+    private boolean closed;
+
+    // Only used by the writer thread
+    private boolean unsynced;
+    private long lastSyncNanos = System.nanoTime();
+
+    private final LongAdder items = new LongAdder();
+    private final LongAdder commits = new LongAdder();
+    private final LongAdder syncs = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private volatile int largestBatch;
+
+    /**
+     * Constructs a new GroupCommitWriter and starts its writer thread.
+     *
+     * @param name               name of the writer thread, also used in
+     *                           error messages
+     * @param sink               where the batches are written
+     * @param mode               when writes are forced to disk
+     * @param syncIntervalMillis time between fsyncs in FSYNC_INTERVAL mode
+     * @param maxBatch           maximum number of items in one batch
+     */
+    public GroupCommitWriter(String name, BatchSink<T> sink, DurabilityMode mode,
+            long syncIntervalMillis, int maxBatch) {
+        this.name = name;
+        this.sink = sink;
+        this.mode = mode;
+        this.syncIntervalNanos = TimeUnit.MILLISECONDS.toNanos(syncIntervalMillis);
+        this.maxBatch = maxBatch;
+        this.thread = new Thread(this::run, name);
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Queues an item for the next commit.
+     *
+     * @param item the item
+     * @return future completed when the item is committed (see the
+     *         durability mode), or exceptionally with an
+     *         {@link UncheckedIOException} if it could not be written
+     */
+    public CompletableFuture<Void> submit(T item) {
+        return enqueue(item);
+    }
+
+    /**
+     * Waits for everything submitted so far to be written and forced to
+     * disk.
+     *
+     * @return future completed once the earlier items are on disk
+     */
+    public CompletableFuture<Void> flush() {
+        return enqueue(null);
+    }
+
+    /**
+     * Adds an entry to the queue unless the writer is closed.
+     *
+     * @param item the item, or null for a flush request
+     * @return the future of the entry
+     */
+    private synchronized CompletableFuture<Void> enqueue(T item) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        if (closed) {
+            future.completeExceptionally(new IllegalStateException(name + " is closed"));
+            return future;
+        }
+        queue.add(new Entry<>(item, future));
+        return future;
+    }
+
+    /**
+     * Writer thread: commits whatever has queued up, one batch at a time,
+     * and forces interval writes when they are due.
+     */
+    private void run() {
+        List<Entry<T>> entries = new ArrayList<>();
+        while (true) {
+            Entry<T> first;
+            try {
+                first = unsynced && mode == DurabilityMode.FSYNC_INTERVAL
+                        ? queue.poll(syncIntervalNanos - (System.nanoTime() - lastSyncNanos), TimeUnit.NANOSECONDS)
+                        : queue.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+
+            if (first != null) {
+                entries.add(first);
+                queue.drainTo(entries, maxBatch - 1);
+                commit(entries);
+                entries.clear();
+            } else {
+                syncQuietly();
+            }
+
+            synchronized (this) {
+                if (closed && queue.isEmpty()) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes one batch, forces it if the mode (or a flush request) asks
+     * for it, and completes the futures of its entries.
+     *
+     * @param entries the queued entries, in submission order
+     */
+    private void commit(List<Entry<T>> entries) {
+        List<T> batch = new ArrayList<>(entries.size());
+        boolean flushRequested = false;
+        for (Entry<T> entry : entries) {
+            if (entry.item() != null) {
+                batch.add(entry.item());
+            } else {
+                flushRequested = true;
+            }
+        }
+
+        try {
+            if (!batch.isEmpty()) {
+                sink.write(batch);
+                unsynced = true;
+                commits.increment();
+                items.add(batch.size());
+                largestBatch = Math.max(largestBatch, batch.size());
+            }
+            if (unsynced && (flushRequested || mode == DurabilityMode.FSYNC_EACH_COMMIT
+                    || (mode == DurabilityMode.FSYNC_INTERVAL
+                            && System.nanoTime() - lastSyncNanos >= syncIntervalNanos))) {
+                sync();
+            }
+        } catch (IOException | RuntimeException e) {
+            failures.increment();
+            System.err.println("⚠️ " + name + " could not commit " + batch.size() + " item(s): " + e.getMessage());
+            UncheckedIOException error = new UncheckedIOException("Could not save changes",
+                    e instanceof IOException io ? io : new IOException(e));
+            for (Entry<T> entry : entries) {
+                entry.future().completeExceptionally(error);
+            }
+            return;
+        }
+
+        for (Entry<T> entry : entries) {
+            entry.future().complete(null);
+        }
+    }
+
+    /**
+     * Forces the written batches to disk.
+     *
+     * @throws IOException if the sink cannot force them
+     */
+    private void sync() throws IOException {
+        sink.sync();
+        unsynced = false;
+        lastSyncNanos = System.nanoTime();
+        syncs.increment();
+    }
+
+    /**
+     * Forces the written batches to disk for an interval that passed
+     * without new items, reporting rather than throwing a failure.
+     */
+    private void syncQuietly() {
+        try {
+            sync();
+        } catch (IOException e) {
+            failures.increment();
+            lastSyncNanos = System.nanoTime(); // retry after another interval
+            System.err.println("⚠️ " + name + " could not sync: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Gets the writer figures for monitoring.
+     *
+     * @return map with the durability mode, queue length and commit,
+     *         item, sync and failure counts
+     */
+    public Map<String, Object> getStats() {
+        long commitCount = commits.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("durability", mode.name());
+        stats.put("pending", queue.size());
+        stats.put("commits", commitCount);
+        stats.put("items", items.sum());
+        stats.put("averageBatch", commitCount == 0 ? 0.0 : (double) items.sum() / commitCount);
+        stats.put("largestBatch", largestBatch);
+        stats.put("syncs", syncs.sum());
+        stats.put("failures", failures.sum());
+        return stats;
+    }
+
+    /**
+     * Commits and forces everything submitted so far, then stops the
+     * writer thread. Later submissions fail.
+     */
+    @Override
+    public void close() {
+        CompletableFuture<Void> flushed;
+        synchronized (this) {
+            // The writer thread sees closed once it has committed this flush
+            flushed = flush();
+            closed = true;
+        }
+        try {
+            flushed.join();
+            thread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (RuntimeException e) {
+            System.err.println("⚠️ " + name + " could not flush on close: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,303 @@
+package org.global.academy.persistence;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Crash-safe snapshots of a whole data file, kept as numbered generations.
+ *
+ * Each snapshot is written to a temporary file, forced to disk and then
+ * renamed to "path.N" in one step, so a crash can never leave a half
+ * written file under a generation name, and the live data is never
+ * truncated. Every generation starts with a header line holding its
+ * generation number, length and CRC32:
+ *
+ * <pre>
+ * SNAPSHOT generation length crc32(hex)
+ * content...
+ * </pre>
+ *
+ * On startup {@link #readLatest()} returns the newest generation whose
+ * length and checksum check out. Before the first generation is written,
+ * the file at the plain path (written before generations were introduced)
+ * is read instead. If generations exist but none of them is valid,
+ * reading fails: starting empty or from the legacy file would let the
+ * next write replace data that may still be recovered by hand.
+ *
+ * After a write only the new generation and the one before it are kept,
+ * so a damaged newest generation always has a valid one to fall back to.
+ *
+ * A write may also leave forcing to a later {@link #sync()}, for callers
+ * whose durability mode does not force every write. Until then the
+ * newest forced generation is kept as well, since the unforced ones may
+ * not survive a crash of the machine.
+ *
+ * @author Project Group 5
+ * @version 1.0
+ */
+public class SnapshotStore {
+
+    private static final String HEADER = "SNAPSHOT";
+
+    /**
+     * A snapshot read back from disk.
+     *
+     * @param generation the generation number (0 for the legacy file)
+     * @param content    the snapshot content
+     */
+    public record Snapshot(long generation, String content) {
+    }
+
+    private final Path path;
+    private long lastGeneration;
+    private long validGeneration;
+    private long syncedGeneration;
+
+    /**
+     * Constructs a new SnapshotStore.
+     *
+     * @param path the path of the legacy file; generations are stored next
+     *             to it as "path.1", "path.2", ...
+     */
+    public SnapshotStore(Path path) {
+        this.path = path;
+    }
+
+    /**
+     * Reads the newest valid snapshot, skipping damaged generations.
+     *
+     * @return the snapshot, or null if there is none (nor a legacy file)
+     * @throws IOException if the directory or the legacy file cannot be
+     *                     read, or if every generation is damaged
+     */
+    public synchronized Snapshot readLatest() throws IOException {
+        List<Long> generations = findGenerations();
+        if (!generations.isEmpty()) {
+            lastGeneration = generations.get(0);
+        }
+
+        for (long generation : generations) {
+            Path file = generationPath(generation);
+            String content = readGeneration(file, generation);
+            if (content != null) {
+                validGeneration = generation;
+                syncedGeneration = generation;
+                return new Snapshot(generation, content);
+            }
+            System.err.println("⚠️ Skipping damaged snapshot " + file.getFileName());
+        }
+
+        if (!generations.isEmpty()) {
+            throw new IOException("No valid snapshot generation of " + path.getFileName()
+                    + " (" + generations.size() + " damaged)");
+        }
+        if (Files.exists(path)) {
+            return new Snapshot(0, Files.readString(path));
+        }
+        return null;
+    }
+
+    /**
+     * Writes a new generation, forces it to disk and removes the older
+     * ones, except the previous valid generation.
+     *
+     * @param content the snapshot content
+     * @return the generation number written
+     * @throws IOException if the snapshot cannot be written (the existing
+     *                     generations are then unchanged)
+     */
+    public synchronized long write(String content) throws IOException {
+        return write(content, true);
+    }
+
+    /**
+     * Writes a new generation and removes the older ones, except the
+     * previous valid generation and, if the new one is not forced, the
+     * newest forced generation.
+     *
+     * @param content the snapshot content
+     * @param force   whether to force the generation to disk now rather
+     *                than with the next {@link #sync()}
+     * @return the generation number written
+     * @throws IOException if the snapshot cannot be written (the existing
+     *                     generations are then unchanged)
+     */
+    public synchronized long write(String content, boolean force) throws IOException {
+        List<Long> existing = findGenerations();
+        long generation = Math.max(lastGeneration, existing.isEmpty() ? 0 : existing.get(0)) + 1;
+        byte[] body = content.getBytes(StandardCharsets.UTF_8);
+        CRC32 crc = new CRC32();
+        crc.update(body);
+        byte[] header = String.format("%s %d %d %08x%n", HEADER, generation, body.length, crc.getValue())
+                .getBytes(StandardCharsets.UTF_8);
+
+        Path target = generationPath(generation);
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        try (FileChannel file = FileChannel.open(temp,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer data = ByteBuffer.allocate(header.length + body.length).put(header).put(body).flip();
+            while (data.hasRemaining()) {
+                file.write(data);
+            }
+            if (force) {
+                file.force(true);
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+
+        // A store that has not read its file keeps the newest generation on disk
+        long previous = validGeneration > 0 || existing.isEmpty() ? validGeneration : existing.get(0);
+        lastGeneration = generation;
+        validGeneration = generation;
+        if (force) {
+            syncDirectory();
+            syncedGeneration = generation;
+        }
+        for (long old : existing) {
+            if (old != previous && (force || old != syncedGeneration)) {
+                Files.deleteIfExists(generationPath(old));
+            }
+        }
+        return generation;
+    }
+
+    /**
+     * Forces the newest generation to disk if it was written without, and
+     * removes the older ones except the one before it.
+     *
+     * @throws IOException if the generation cannot be forced
+     */
+    public synchronized void sync() throws IOException {
+        if (validGeneration == 0 || validGeneration == syncedGeneration) {
+            return;
+        }
+        try (FileChannel file = FileChannel.open(generationPath(validGeneration), StandardOpenOption.WRITE)) {
+            file.force(true);
+        }
+        syncDirectory();
+        syncedGeneration = validGeneration;
+
+        List<Long> existing = findGenerations();
+        for (int i = 2; i < existing.size(); i++) {
+            Files.deleteIfExists(generationPath(existing.get(i)));
+        }
+    }
+
+    /**
+     * Gets the number of the newest generation written or loaded.
+     *
+     * @return the generation number (0 if there is none)
+     */
+    public synchronized long getGeneration() {
+        return validGeneration;
+    }
+
+    /**
+     * Gets the number of the newest generation on disk when the store was
+     * last read or written, valid or not. After {@link #readLatest()} it is
+     * greater than the generation read if a damaged one was skipped.
+     *
+     * @return the generation number (0 if there is none)
+     */
+    public synchronized long getNewestGeneration() {
+        return lastGeneration;
+    }
+
+    /**
+     * Reads one generation and checks its header, length and checksum.
+     *
+     * @param file       the generation file
+     * @param generation the generation number from the file name
+     * @return the content, or null if the file is damaged
+     * @throws IOException if the file cannot be read
+     */
+    private static String readGeneration(Path file, long generation) throws IOException {
+        byte[] data = Files.readAllBytes(file);
+        int newline = 0;
+        while (newline < data.length && data[newline] != '\n') {
+            newline++;
+        }
+        if (newline == data.length) {
+            return null;
+        }
+
+        String[] header = new String(data, 0, newline, StandardCharsets.UTF_8).trim().split(" ");
+        try {
+            if (header.length != 4 || !HEADER.equals(header[0]) || Long.parseLong(header[1]) != generation
+                    || Integer.parseInt(header[2]) != data.length - newline - 1) {
+                return null;
+            }
+            CRC32 crc = new CRC32();
+            crc.update(data, newline + 1, data.length - newline - 1);
+            if (crc.getValue() != Long.parseLong(header[3], 16)) {
+                return null;
+            }
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        return new String(data, newline + 1, data.length - newline - 1, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Lists the generation numbers on disk, newest first.
+     *
+     * @return the generation numbers
+     * @throws IOException if the directory cannot be listed
+     */
+    private List<Long> findGenerations() throws IOException {
+        Path dir = path.toAbsolutePath().getParent();
+        String prefix = path.getFileName() + ".";
+        List<Long> found = new ArrayList<>();
+        if (!Files.isDirectory(dir)) {
+            return found;
+        }
+
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                String name = file.getFileName().toString();
+                String suffix = name.startsWith(prefix) ? name.substring(prefix.length()) : "";
+                if (!suffix.isEmpty() && suffix.length() < 19 && suffix.chars().allMatch(Character::isDigit)) {
+                    found.add(Long.parseLong(suffix));
+                }
+            }
+        }
+        found.sort(Comparator.reverseOrder());
+        return found;
+    }
+
+    /**
+     * Gets the file of a generation.
+     *
+     * @param generation the generation number
+     * @return the path "path.generation"
+     */
+    private Path generationPath(long generation) {
+        return path.resolveSibling(path.getFileName() + "." + generation);
+    }
+
+    /**
+     * Forces the directory entry of a rename to disk. Not every platform
+     * can open a directory; there the rename is left to the file system.
+     */
+    private void syncDirectory() {
+        try (FileChannel dir = FileChannel.open(path.toAbsolutePath().getParent(), StandardOpenOption.READ)) {
+            dir.force(true);
+        } catch (IOException e) {
+            // Directories cannot be opened on this platform
+        }
+    }
+}
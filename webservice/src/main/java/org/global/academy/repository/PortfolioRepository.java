@@ -1,142 +1,743 @@
 package org.global.academy.repository;
 
 import com.google.gson.Gson;
-import com.google.gson.JsonArray;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonObject;
+import org.global.academy.config.AppConfig;
+import org.global.academy.ledger.TradeEvent;
+import org.global.academy.ledger.TradeLedger;
+import org.global.academy.model.LotReliefMethod;
 import org.global.academy.model.Portfolio;
+import org.global.academy.model.PositionSummary;
+import org.global.academy.model.Sale;
 import org.global.academy.model.Stock;
+import org.global.academy.model.SymbolHoldings;
+import org.global.academy.persistence.DurabilityMode;
+import org.global.academy.persistence.GroupCommitWriter;
 
 import java.io.IOException;
-import java.nio.file.Files;
+import java.io.UncheckedIOException;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
 
 /**
  * Repository class for Portfolio data persistence.
- * 
- * Handles loading and saving portfolio data to/from JSON files.
+ *
  * Manages user portfolios with their stock holdings.
- * 
+ *
+ * Portfolios are stored per user by a {@link PortfolioShardStore} and
+ * loaded on first access, so startup time and memory do not grow with
+ * the number of users. Loaded portfolios are kept up to a memory budget
+ * (estimated from their lots); beyond it the least recently used ones are
+ * dropped. A portfolio with trades that are not yet in its file is never
+ * dropped: a checkpoint writes it back first.
+ *
+ * Every buy and sell is applied in memory and handed to a
+ * {@link GroupCommitWriter}, which appends the trades of concurrent
+ * requests to the {@link TradeLedger} together (one small sequential
+ * write, and one fsync if the durability mode asks for it). Callers get a
+ * future that completes when their trade is committed. Once enough trades
+ * have accumulated (on a background thread, and on shutdown), a checkpoint
+ * writes the files of the portfolios that changed. The log segments are
+ * kept back to the previous checkpoint, and on startup the trades logged
+ * since then are replayed into the portfolios they belong to; a portfolio
+ * skips the trades its file already contains. So a portfolio whose newest
+ * file is damaged can still be restored from the file before it, as long
+ * as that file is no older than the previous checkpoint. If it is older,
+ * loading the portfolio fails rather than serving it without its latest
+ * trades.
+ *
+ * Firm-wide figures per symbol (holders, shares and cost basis) are kept
+ * as compact aggregates: a background scan counts every stored portfolio
+ * once, and every trade after that adjusts them, so they cover all users
+ * without keeping their portfolios in memory.
+ *
  * @author Project Group 5
  * @version 1.0
  */
 public class PortfolioRepository {
 
-    private final Gson gson;
-    private final Path holdingsFilePath;
-    private final Map<String, Portfolio> userPortfolios;
+    /** Estimated memory of a loaded portfolio apart from its lots, in bytes */
+    private static final long PORTFOLIO_BYTES = 512;
+
+    /** Estimated memory of one lot with its share of the position, in bytes */
+    private static final long LOT_BYTES = 96;
+
+    /** A loaded portfolio; the fields are guarded by the resident map */
+    private static final class Resident {
+        final Portfolio portfolio;
+        long sequence;
+        boolean dirty;
+        long version;
+        long sizeBytes;
+
+        Resident(Portfolio portfolio, long sequence) {
+            this.portfolio = portfolio;
+            this.sequence = sequence;
+            this.sizeBytes = estimateBytes(portfolio);
+        }
+    }
+
+    /** Firm-wide figures of one symbol, guarded by the trade lock */
+    private static final class SymbolTotals {
+        int holders;
+        long quantity;
+        double costBasis;
+    }
+
+    /** A changed portfolio copied for writing back */
+    private record WriteBack(String username, Resident entry, long version, String content) {
+    }
+
+    private final PortfolioShardStore shards;
+    private final long maxResidentBytes;
+    private final LinkedHashMap<String, Resident> resident = new LinkedHashMap<>(16, 0.75f, true);
+    private long residentBytes;
+    private long evictionCount;
+    private final List<Consumer<String>> evictionListeners = new CopyOnWriteArrayList<>();
+
+    private final TradeLedger ledger;
+    private final GroupCommitWriter<TradeEvent> writer;
+    private final int compactEvents;
+    private final Object tradeLock = new Object();
+    private final ExecutorService compactor;
+    private final AtomicBoolean compactionScheduled = new AtomicBoolean();
+    private volatile long checkpointSequence;
+    private final long replayFrom;
+    private volatile boolean started;
+
+    // Guarded by the trade lock; counted is dropped once the scan is done
+    private final Map<String, SymbolTotals> totalsBySymbol = new HashMap<>();
+    private int portfoliosWithPositions;
+    private Set<String> counted = new HashSet<>();
+    private volatile boolean scanComplete;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder writeBacks = new LongAdder();
 
     /**
      * Constructs a new PortfolioRepository.
-     * 
+     *
+     * On the first start with per-user files, the holdings file is split
+     * into them.
+     *
      * @param gson             the Gson instance for JSON
      *                         serialization/deserialization
-     * @param holdingsFilePath the file path where portfolio data is stored
+     * @param holdingsFilePath the holdings file with every user's portfolio,
+     *                         read once if there are no per-user files yet
+     * @param portfoliosDir    the directory of the per-user portfolio files
+     * @param ledgerPath       the base path of the trade log segments
+     * @param compactEvents    number of logged trades after which a
+     *                         checkpoint is written
+     * @param durability       when logged trades are forced to disk
+     * @param maxResidentBytes estimated memory loaded portfolios may use
+     * @throws IllegalStateException if the stored portfolios or the trade
+     *                               log cannot be opened
      */
-    public PortfolioRepository(Gson gson, Path holdingsFilePath) {
-        this.gson = gson;
-        this.holdingsFilePath = holdingsFilePath;
-        this.userPortfolios = new HashMap<>();
-        loadAllHoldings();
+    public PortfolioRepository(Gson gson, Path holdingsFilePath, Path portfoliosDir, Path ledgerPath,
+            int compactEvents, DurabilityMode durability, long maxResidentBytes) {
+        this.shards = new PortfolioShardStore(gson, portfoliosDir);
+        this.maxResidentBytes = maxResidentBytes;
+        this.compactEvents = compactEvents;
+        this.compactor = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "ledger-compact");
+            t.setDaemon(true);
+            return t;
+        });
+
+        try {
+            PortfolioShardStore.Checkpoint checkpoint = shards.readCheckpoint();
+            if (checkpoint == null) {
+                shards.importHoldingsFile(holdingsFilePath);
+                checkpoint = shards.readCheckpoint();
+            }
+            checkpointSequence = checkpoint.sequence();
+            replayFrom = checkpoint.previous();
+            this.ledger = new TradeLedger(ledgerPath, checkpoint.sequence(), replayFrom, this::replay);
+        } catch (IOException | RuntimeException e) {
+            throw new IllegalStateException("Cannot open portfolio storage: " + e.getMessage(), e);
+        }
+        this.writer = new GroupCommitWriter<>("trade-log-writer", ledger, durability,
+                AppConfig.PERSISTENCE_SYNC_INTERVAL_MILLIS, AppConfig.PERSISTENCE_MAX_BATCH);
+        this.started = true;
     }
 
     /**
-     * Loads all user portfolio holdings from the JSON file.
-     * 
-     * Reads the holdings.json file and reconstructs each user's portfolio
-     * with their stock holdings. If the file doesn't exist, this method
-     * does nothing (starting with empty portfolios).
+     * Starts counting the stored portfolios into the per-symbol aggregates
+     * on a background thread.
      */
-    private void loadAllHoldings() {
-        if (!Files.exists(holdingsFilePath)) {
-            return;
-        }
+    public void startScan() {
+        Thread thread = new Thread(this::scan, "portfolio-scan");
+        thread.setDaemon(true);
+        thread.start();
+    }
 
+    /**
+     * Reads every stored portfolio once and adds the ones no trade has
+     * counted yet to the per-symbol aggregates.
+     *
+     * A portfolio is counted exactly once, whichever comes first: the scan
+     * or a trade. A portfolio no trade has touched is unchanged since its
+     * file was written, so the file read here is its current state.
+     */
+    private void scan() {
+        long start = System.currentTimeMillis();
         try {
-            String content = Files.readString(holdingsFilePath);
-            JsonObject root = gson.fromJson(content, JsonObject.class);
+            int scanned = shards.scan(shard -> {
+                synchronized (tradeLock) {
+                    if (counted.add(shard.username())) {
+                        addPortfolio(shard.portfolio().getSummaries());
+                    }
+                }
+            });
 
-            if (root != null && root.has("holdings")) {
-                JsonObject holdingsObj = root.getAsJsonObject("holdings");
+            synchronized (tradeLock) {
+                counted = null;
+                scanComplete = true;
+            }
+            System.out.println("Counted " + scanned + " stored portfolio(s) in "
+                    + (System.currentTimeMillis() - start) + " ms.");
+        } catch (IOException e) {
+            System.err.println("Error scanning portfolios: " + e.getMessage());
+        }
+    }
 
-                for (String username : holdingsObj.keySet()) {
-                    Portfolio portfolio = new Portfolio();
-                    JsonArray holdings = holdingsObj.getAsJsonArray(username);
+    /**
+     * Records a purchase: adds the shares to the portfolio and logs it.
+     *
+     * @param username the buyer
+     * @param stock    the stock bought, with its purchase price
+     * @param quantity the number of shares bought
+     * @return future completed when the trade is committed, or
+     *         exceptionally if it could not be saved
+     * @throws IllegalArgumentException if the trade is too large to record
+     */
+    public CompletableFuture<Void> recordPurchase(String username, Stock stock, int quantity) {
+        TradeEvent event = TradeEvent.buy(username, stock.getSymbol(), stock.getCompanyName(),
+                quantity, stock.getPurchasePrice());
+        return record(event).thenApply(sale -> null);
+    }
 
-                    for (JsonElement element : holdings) {
-                        JsonObject holding = element.getAsJsonObject();
+    /**
+     * Records a sale: checks it, relieves the lots and logs it.
+     *
+     * @param username the seller
+     * @param symbol   the stock symbol
+     * @param quantity the number of shares sold
+     * @param price    the price received per share
+     * @param method   the lot relief method
+     * @return future completed with the sale and its cost basis when the
+     *         trade is committed, or exceptionally if it could not be saved
+     * @throws IllegalArgumentException if the user does not own enough shares,
+     *                                  or the trade is too large to record
+     */
+    public CompletableFuture<Sale> recordSale(String username, String symbol, int quantity, double price,
+            LotReliefMethod method) {
+        return record(TradeEvent.sell(username, symbol, quantity, price, method));
+    }
 
-                        Stock stock = new Stock(
-                                holding.get("name").getAsString(),
-                                holding.get("symbol").getAsString(),
-                                "US",
-                                holding.get("price").getAsDouble());
+    /**
+     * Applies an event and submits it to the trade log, both in sequence
+     * order, and schedules a checkpoint when enough events have been logged.
+     *
+     * If the event cannot be logged, it is already part of the portfolio in
+     * memory, so it is saved with a checkpoint instead.
+     *
+     * @param event the event
+     * @return future completed with the sale if the event is a sale
+     *         (otherwise null) when the event is committed
+     * @throws IllegalArgumentException if the event is too large to log
+     */
+    private CompletableFuture<Sale> record(TradeEvent event) {
+        TradeLedger.checkRecordSize(event);
 
-                        if (holding.has("purchasePrice")) {
-                            stock.setPurchasePrice(holding.get("purchasePrice").getAsDouble());
-                        }
+        Sale sale;
+        CompletableFuture<Void> committed;
+        synchronized (tradeLock) {
+            Resident entry = acquire(event.username());
+            if (event.type() == TradeEvent.Type.SELL) {
+                // Only log sales that can be applied
+                entry.portfolio.checkSale(event.symbol(), event.quantity(), event.method());
+            }
+            TradeEvent sequenced = ledger.sequence(event);
+            sale = apply(entry, sequenced);
+            committed = writer.submit(sequenced);
+        }
 
-                        int quantity = holding.get("quantity").getAsInt();
-                        portfolio.addStock(stock, quantity);
+        if (ledger.getUncompactedEvents() >= compactEvents) {
+            scheduleCheckpoint();
+        }
+        return committed
+                .exceptionallyCompose(error -> CompletableFuture.runAsync(() -> {
+                    if (!checkpoint()) {
+                        throw new IllegalStateException("Could not save trade", error);
                     }
+                }, compactor))
+                .thenApply(ignored -> sale);
+    }
 
-                    userPortfolios.put(username, portfolio);
-                }
+    /**
+     * Writes a checkpoint on the background thread unless one is already
+     * waiting to start. A request made while a checkpoint is running queues
+     * one more, since that one may have been sealed before the change. After
+     * {@link #close()} has started, the final checkpoint covers it.
+     */
+    private void scheduleCheckpoint() {
+        if (compactionScheduled.compareAndSet(false, true)) {
+            try {
+                compactor.execute(() -> {
+                    compactionScheduled.set(false);
+                    checkpoint();
+                });
+            } catch (RejectedExecutionException e) {
+                compactionScheduled.set(false);
             }
-        } catch (IOException e) {
-            System.err.println("Error loading holdings: " + e.getMessage());
         }
     }
 
     /**
-     * Saves all user portfolio holdings to the JSON file.
-     * 
-     * Persists the current state of all user portfolios to holdings.json.
-     * This method should be called whenever a user buys or sells stocks.
+     * Applies a logged event replayed on startup, unless the portfolio file
+     * already contains it (it was written at or after the checkpoint that
+     * followed the event). An event that can no longer be applied stops the
+     * startup, since the next checkpoint would otherwise compact it out of
+     * the log for good.
+     *
+     * @param event the event
+     * @throws IllegalStateException if the event cannot be applied
      */
-    public void saveAllHoldings() {
+    private void replay(TradeEvent event) {
         try {
-            JsonObject root = new JsonObject();
-            JsonObject holdingsObj = new JsonObject();
+            synchronized (tradeLock) {
+                if (event.sequence() > load(event.username()).sequence) {
+                    apply(acquire(event.username()), event);
+                }
+            }
+        } catch (RuntimeException e) {
+            throw new IllegalStateException("Cannot replay trade event " + event.sequence()
+                    + " of " + event.username() + ": " + e.getMessage(), e);
+        }
+    }
 
-            for (Map.Entry<String, Portfolio> entry : userPortfolios.entrySet()) {
-                JsonArray arr = new JsonArray();
+    /**
+     * Gets a user's loaded portfolio for a change: marks it changed, so it
+     * is not dropped before it is written back, and counts it into the
+     * aggregates if the scan has not yet. Called with the trade lock held.
+     *
+     * @param username the username
+     * @return the loaded portfolio
+     */
+    private Resident acquire(String username) {
+        while (true) {
+            Resident entry = load(username);
+            synchronized (resident) {
+                if (resident.get(username) != entry) {
+                    continue; // dropped again before it could be marked
+                }
+                entry.dirty = true;
+                entry.version++;
+            }
+            if (counted != null && counted.add(username)) {
+                addPortfolio(entry.portfolio.getSummaries());
+            }
+            return entry;
+        }
+    }
+
+    /**
+     * Applies a logged event to a loaded portfolio and adjusts the
+     * aggregates. Called with the trade lock held.
+     *
+     * @param entry the loaded portfolio of the event's user
+     * @param event the event
+     * @return the sale if the event is a sale, otherwise null
+     */
+    private Sale apply(Resident entry, TradeEvent event) {
+        Portfolio portfolio = entry.portfolio;
+        boolean heldBefore = !portfolio.isEmpty();
+        PositionSummary before = portfolio.getSummary(event.symbol());
+
+        Sale sale = null;
+        if (event.type() == TradeEvent.Type.SELL) {
+            sale = portfolio.removeStock(event.symbol(), event.quantity(), event.price(), event.method());
+        } else if (event.quantity() > 0) {
+            Stock stock = new Stock(event.companyName(), event.symbol(), "US", event.price());
+            portfolio.addStock(stock, event.quantity(), event.timestampMillis());
+        } else if (event.quantity() < 0) {
+            portfolio.removeStock(event.symbol(), -event.quantity(), event.price(), null);
+        }
 
-                for (Map<String, Object> data : entry.getValue().getAggregatedHoldings().values()) {
-                    JsonObject holdingObj = gson.toJsonTree(data).getAsJsonObject();
-                    arr.add(holdingObj);
+        PositionSummary after = portfolio.getSummary(event.symbol());
+        if (before != null) {
+            addTotals(before, -1);
+        }
+        if (after != null) {
+            addTotals(after, 1);
+        }
+        portfoliosWithPositions += (portfolio.isEmpty() ? 0 : 1) - (heldBefore ? 1 : 0);
+
+        synchronized (resident) {
+            entry.sequence = event.sequence();
+            residentBytes -= entry.sizeBytes;
+            entry.sizeBytes = estimateBytes(portfolio);
+            residentBytes += entry.sizeBytes;
+        }
+        return sale;
+    }
+
+    /**
+     * Adds a whole portfolio to the aggregates. Called with the trade lock
+     * held.
+     *
+     * @param positions the positions of the portfolio
+     */
+    private void addPortfolio(List<PositionSummary> positions) {
+        for (PositionSummary position : positions) {
+            addTotals(position, 1);
+        }
+        if (!positions.isEmpty()) {
+            portfoliosWithPositions++;
+        }
+    }
+
+    /**
+     * Adds a position to (or removes it from) the per-symbol aggregates.
+     * Called with the trade lock held.
+     *
+     * @param position the position
+     * @param sign     1 to add, -1 to remove
+     */
+    private void addTotals(PositionSummary position, int sign) {
+        SymbolTotals totals = totalsBySymbol.computeIfAbsent(position.symbol(), symbol -> new SymbolTotals());
+        totals.holders += sign;
+        totals.quantity += (long) sign * position.quantity();
+        totals.costBasis += sign * position.totalCost();
+        if (totals.holders == 0) {
+            totalsBySymbol.remove(position.symbol());
+        }
+    }
+
+    /**
+     * Loads a user's portfolio if it is not in memory, and drops the least
+     * recently used unchanged portfolios while over the memory budget.
+     *
+     * @param username the username
+     * @return the loaded portfolio
+     * @throws UncheckedIOException if the portfolio file cannot be read
+     */
+    private Resident load(String username) {
+        while (true) {
+            long evictionsBefore;
+            synchronized (resident) {
+                Resident entry = resident.get(username);
+                if (entry != null) {
+                    hits.increment();
+                    return entry;
                 }
+                evictionsBefore = evictionCount;
+            }
 
-                holdingsObj.add(entry.getKey(), arr);
+            PortfolioShardStore.Shard shard;
+            try {
+                shard = shards.read(username);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not load portfolio of " + username, e);
+            }
+            if (shard.olderGeneration()) {
+                if (shard.sequence() < replayFrom) {
+                    // The trades since that file may already be compacted out of the log
+                    throw new UncheckedIOException("Could not load portfolio of " + username,
+                            new IOException("The newest portfolio file of " + username
+                                    + " is damaged and the one before it (trade " + shard.sequence()
+                                    + ") is older than the trade log, which starts after trade "
+                                    + replayFrom));
+                }
+                System.err.println("⚠️ The newest portfolio file of " + username
+                        + " is damaged; using the one before it and the trade log");
+            }
+
+            Resident entry;
+            List<String> evicted;
+            synchronized (resident) {
+                entry = resident.get(username);
+                if (entry != null) {
+                    return entry;
+                }
+                if (evictionCount != evictionsBefore) {
+                    continue; // the file may have been rewritten while it was read
+                }
+                entry = new Resident(shard.portfolio(), shard.sequence());
+                resident.put(username, entry);
+                residentBytes += entry.sizeBytes;
+                loads.increment();
+                evicted = evictIfNeeded();
+            }
+            notifyEvicted(evicted);
+            return entry;
+        }
+    }
+
+    /**
+     * Drops least recently used portfolios while over the memory budget,
+     * never the most recently used one. Changed portfolios are skipped and
+     * a checkpoint is scheduled to write them back, after which they can
+     * be dropped too. Called with the resident map locked.
+     *
+     * @return the usernames of the dropped portfolios
+     */
+    private List<String> evictIfNeeded() {
+        List<String> evicted = new ArrayList<>();
+        boolean changedSkipped = false;
+        int candidates = resident.size() - 1;
+        Iterator<Map.Entry<String, Resident>> it = resident.entrySet().iterator();
+
+        while (residentBytes > maxResidentBytes && candidates-- > 0) {
+            Map.Entry<String, Resident> eldest = it.next();
+            if (eldest.getValue().dirty) {
+                changedSkipped = true;
+                continue;
+            }
+            it.remove();
+            residentBytes -= eldest.getValue().sizeBytes;
+            evicted.add(eldest.getKey());
+            evictionCount++;
+            evictions.increment();
+        }
+
+        if (changedSkipped && started) {
+            scheduleCheckpoint();
+        }
+        return evicted;
+    }
+
+    /**
+     * Tells the eviction listeners which portfolios were dropped.
+     *
+     * @param usernames the usernames
+     */
+    private void notifyEvicted(List<String> usernames) {
+        for (String username : usernames) {
+            for (Consumer<String> listener : evictionListeners) {
+                listener.accept(username);
+            }
+        }
+    }
+
+    /**
+     * Estimates the memory a loaded portfolio uses.
+     *
+     * @param portfolio the portfolio
+     * @return the estimate in bytes
+     */
+    private static long estimateBytes(Portfolio portfolio) {
+        return PORTFOLIO_BYTES + LOT_BYTES * portfolio.getLotCount();
+    }
+
+    /**
+     * Writes the files of all changed portfolios and a checkpoint, and
+     * compacts the trade log.
+     *
+     * The trade log is flushed and sealed and the changed portfolios are
+     * copied while no trade can run, so every file holds exactly the trades
+     * up to the sealed sequence number. The files are then written without
+     * blocking trades, and only after the checkpoint is safely on disk are
+     * the log segments older than the previous checkpoint deleted.
+     * Portfolios written back can be dropped from memory again.
+     *
+     * @return true if the checkpoint was written
+     */
+    public synchronized boolean checkpoint() {
+        List<WriteBack> changed = new ArrayList<>();
+        long sequence;
+        try {
+            synchronized (tradeLock) {
+                try {
+                    writer.flush().join();
+                } catch (CompletionException e) {
+                    // Already reported by the writer; the trades are in this checkpoint
+                }
+                sequence = ledger.seal();
+
+                List<Map.Entry<String, Resident>> dirty = new ArrayList<>();
+                synchronized (resident) {
+                    for (Map.Entry<String, Resident> entry : resident.entrySet()) {
+                        if (entry.getValue().dirty) {
+                            dirty.add(entry);
+                        }
+                    }
+                }
+                for (Map.Entry<String, Resident> entry : dirty) {
+                    Resident value = entry.getValue();
+                    changed.add(new WriteBack(entry.getKey(), value, value.version,
+                            shards.encode(entry.getKey(), value.portfolio, value.sequence)));
+                }
+            }
+
+            for (WriteBack writeBack : changed) {
+                shards.write(writeBack.username(), writeBack.content());
+                writeBacks.increment();
+                synchronized (resident) {
+                    if (writeBack.entry().version == writeBack.version()) {
+                        writeBack.entry().dirty = false;
+                    }
+                }
             }
 
-            root.add("holdings", holdingsObj);
-            Files.writeString(holdingsFilePath, gson.toJson(root));
+            shards.writeCheckpoint(sequence, checkpointSequence);
+            ledger.markSnapshot(sequence);
+
+            // Keep the trades after the previous checkpoint, the fallback if this one is damaged
+            ledger.discardThrough(checkpointSequence);
+            checkpointSequence = sequence;
         } catch (IOException e) {
-            System.err.println("Error saving holdings: " + e.getMessage());
+            System.err.println("Error saving portfolios: " + e.getMessage());
+            return false;
+        }
+
+        List<String> evicted;
+        synchronized (resident) {
+            evicted = evictIfNeeded();
         }
+        notifyEvicted(evicted);
+        return true;
     }
 
     /**
-     * Gets the portfolio for a specific user.
-     * Creates a new empty portfolio if one doesn't exist.
-     * 
+     * Gets the portfolio for a specific user, loading it if it is not in
+     * memory. A user without stored holdings gets a new empty portfolio.
+     *
      * @param username the username
      * @return the user's portfolio
+     * @throws UncheckedIOException if the portfolio file cannot be read
      */
     public Portfolio getPortfolio(String username) {
-        return userPortfolios.computeIfAbsent(username, k -> new Portfolio());
+        return load(username).portfolio;
     }
 
     /**
-     * Checks if a user has a portfolio.
-     * 
-     * @param username the username
-     * @return true if portfolio exists, false otherwise
+     * Registers a listener told the username of every portfolio dropped
+     * from memory.
+     *
+     * @param listener the listener
      */
-    public boolean hasPortfolio(String username) {
-        return userPortfolios.containsKey(username);
+    public void addEvictionListener(Consumer<String> listener) {
+        evictionListeners.add(listener);
+    }
+
+    /**
+     * Gets the firm-wide figures of every held symbol.
+     *
+     * @return one entry per symbol held in any portfolio counted so far
+     */
+    public List<SymbolHoldings> getSymbolHoldings() {
+        synchronized (tradeLock) {
+            List<SymbolHoldings> holdings = new ArrayList<>(totalsBySymbol.size());
+            for (Map.Entry<String, SymbolTotals> entry : totalsBySymbol.entrySet()) {
+                SymbolTotals totals = entry.getValue();
+                holdings.add(new SymbolHoldings(entry.getKey(), totals.holders, totals.quantity, totals.costBasis));
+            }
+            return holdings;
+        }
+    }
+
+    /**
+     * Gets the union of all symbols held in any portfolio.
+     *
+     * @return a set of stock symbols
+     */
+    public Set<String> getHeldSymbols() {
+        synchronized (tradeLock) {
+            return new HashSet<>(totalsBySymbol.keySet());
+        }
+    }
+
+    /**
+     * Gets the number of portfolios with at least one position.
+     *
+     * @return the portfolio count
+     */
+    public int getPortfoliosWithPositions() {
+        synchronized (tradeLock) {
+            return portfoliosWithPositions;
+        }
+    }
+
+    /**
+     * Checks whether every stored portfolio has been counted into the
+     * aggregates.
+     *
+     * @return true once the startup scan is done
+     */
+    public boolean isScanComplete() {
+        return scanComplete;
+    }
+
+    /**
+     * Gets the trade log figures for monitoring.
+     *
+     * @return map with the log figures and the sequence number of the
+     *         last checkpoint
+     */
+    public Map<String, Object> getLedgerStats() {
+        Map<String, Object> stats = ledger.getStats();
+        stats.put("checkpointSequence", checkpointSequence);
+        stats.put("writer", writer.getStats());
+        return stats;
+    }
+
+    /**
+     * Gets the figures of the loaded portfolios for monitoring.
+     *
+     * @return map with the number and estimated memory of loaded
+     *         portfolios, the budget, and the hit, load, eviction and
+     *         write-back counts
+     */
+    public Map<String, Object> getCacheStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        synchronized (resident) {
+            int dirty = 0;
+            for (Resident entry : resident.values()) {
+                dirty += entry.dirty ? 1 : 0;
+            }
+            stats.put("resident", resident.size());
+            stats.put("changed", dirty);
+            stats.put("estimatedBytes", residentBytes);
+        }
+        stats.put("maxBytes", maxResidentBytes);
+        stats.put("hits", hits.sum());
+        stats.put("loads", loads.sum());
+        stats.put("evictions", evictions.sum());
+        stats.put("writeBacks", writeBacks.sum());
+        stats.put("scanComplete", scanComplete);
+        return stats;
+    }
+
+    /**
+     * Writes a final checkpoint and closes the trade log.
+     */
+    public void close() {
+        compactor.shutdown();
+        checkpoint();
+        writer.close();
+        try {
+            ledger.close();
+        } catch (IOException e) {
+            System.err.println("Error closing trade log: " + e.getMessage());
+        }
     }
 }
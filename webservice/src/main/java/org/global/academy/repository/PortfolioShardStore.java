@@ -0,0 +1,394 @@
+package org.global.academy.repository;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import org.global.academy.model.Lot;
+import org.global.academy.model.Portfolio;
+import org.global.academy.model.Position;
+import org.global.academy.persistence.SnapshotStore;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Stores every user's portfolio in a file of its own, so a portfolio can
+ * be loaded and saved without touching anyone else's.
+ *
+ * Each user has a directory under the store directory (the username with
+ * everything but lowercase letters, digits, '-' and '_' escaped as %XX, so
+ * names that differ only in case do not share a directory on file systems
+ * that ignore case) holding
+ * checksummed generations of "portfolio.json", written by a
+ * {@link SnapshotStore}:
+ * {"version":2,"username":u,"sequence":n,"positions":[{symbol,name,price,lots:[{quantity,cost,timestamp}]}]}
+ * A position that elected average cost also holds its pooled
+ * "averageCostBasis", since its lot costs no longer add up to it.
+ *
+ * The sequence is that of the last trade the file contains. Next to the
+ * store directory, "portfolios.checkpoint" (named after the store
+ * directory) records the trade sequence number every file is known to be
+ * up to date with, and the one of the checkpoint before:
+ * {"sequence":n,"previous":p}.
+ *
+ * @author Project Group 5
+ * @version 1.0
+ */
+public class PortfolioShardStore {
+
+    /** Version of the portfolio file format written by this class (lots per position) */
+    private static final int FORMAT_VERSION = 2;
+
+    private static final String SHARD_FILE = "portfolio.json";
+
+    /**
+     * One user's portfolio as read from disk.
+     *
+     * @param username        the owner
+     * @param portfolio       the portfolio (empty if the user has no file yet)
+     * @param sequence        the sequence number of the last trade it contains
+     * @param olderGeneration true if the newest file generation is damaged and
+     *                        an older one was read, which may miss trades
+     */
+    public record Shard(String username, Portfolio portfolio, long sequence, boolean olderGeneration) {
+    }
+
+    /**
+     * The checkpoint every portfolio file is up to date with.
+     *
+     * @param sequence the trade sequence number of the checkpoint
+     * @param previous the sequence number of the checkpoint before it; the
+     *                 trade log is kept back to there
+     */
+    public record Checkpoint(long sequence, long previous) {
+    }
+
+    private final Gson gson;
+    private final Path directory;
+    private final SnapshotStore checkpoints;
+
+    /**
+     * Constructs a new PortfolioShardStore.
+     *
+     * @param gson      the Gson instance for JSON serialization/deserialization
+     * @param directory the directory holding one subdirectory per user
+     */
+    public PortfolioShardStore(Gson gson, Path directory) {
+        this.gson = gson;
+        this.directory = directory;
+        this.checkpoints = new SnapshotStore(directory.resolveSibling(directory.getFileName() + ".checkpoint"));
+    }
+
+    /**
+     * Reads a user's portfolio.
+     *
+     * @param username the username
+     * @return the shard; an empty portfolio at sequence 0 if the user has
+     *         no file yet
+     * @throws IOException if the file exists but no generation of it can
+     *                     be read
+     */
+    public Shard read(String username) throws IOException {
+        Shard shard = read(new SnapshotStore(shardPath(username)), username);
+        if (!shard.username().equals(username)) {
+            throw new IOException("The portfolio file of " + username + " belongs to " + shard.username());
+        }
+        return shard;
+    }
+
+    /**
+     * Reads the newest valid generation of a portfolio file.
+     *
+     * @param store    the snapshot store of the file
+     * @param username the owner, for a file that does not exist yet
+     * @return the shard
+     * @throws IOException if the file exists but cannot be read
+     */
+    private Shard read(SnapshotStore store, String username) throws IOException {
+        SnapshotStore.Snapshot snapshot = store.readLatest();
+        if (snapshot == null) {
+            return new Shard(username, new Portfolio(), 0, false);
+        }
+        return decode(snapshot.content(), snapshot.generation() < store.getNewestGeneration());
+    }
+
+    /**
+     * Converts a portfolio to its file content. Call while the portfolio
+     * cannot change, so content and sequence match.
+     *
+     * @param username  the owner
+     * @param portfolio the portfolio
+     * @param sequence  the sequence number of the last trade it contains
+     * @return the JSON content
+     */
+    public String encode(String username, Portfolio portfolio, long sequence) {
+        JsonArray positions = new JsonArray();
+        for (Position position : portfolio.getPositions()) {
+            positions.add(writePosition(position));
+        }
+
+        JsonObject root = new JsonObject();
+        root.addProperty("version", FORMAT_VERSION);
+        root.addProperty("username", username);
+        root.addProperty("sequence", sequence);
+        root.add("positions", positions);
+        return gson.toJson(root);
+    }
+
+    /**
+     * Writes a new generation of a user's portfolio file, replacing the
+     * previous one in one step.
+     *
+     * @param username the owner
+     * @param content  the content from {@link #encode}
+     * @throws IOException if the file cannot be written (the previous one
+     *                     is then unchanged)
+     */
+    public void write(String username, String content) throws IOException {
+        Path path = shardPath(username);
+        Files.createDirectories(path.getParent());
+        new SnapshotStore(path).write(content);
+    }
+
+    /**
+     * Reads every stored portfolio, one at a time.
+     *
+     * @param consumer receives each shard; only one is in memory at a time
+     * @return the number of portfolios read
+     * @throws IOException if the directory cannot be listed
+     */
+    public int scan(Consumer<Shard> consumer) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return 0;
+        }
+
+        int count = 0;
+        try (Stream<Path> users = Files.list(directory)) {
+            for (Path userDir : (Iterable<Path>) users::iterator) {
+                try {
+                    Shard shard = read(new SnapshotStore(userDir.resolve(SHARD_FILE)), null);
+                    if (shard.username() != null) {
+                        consumer.accept(shard);
+                        count++;
+                    }
+                } catch (IOException | RuntimeException e) {
+                    System.err.println("Error reading portfolio " + userDir.getFileName() + ": " + e.getMessage());
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Reads the checkpoint.
+     *
+     * If the newest checkpoint generation is damaged, the older one is
+     * returned with its own sequence as the previous one: the trade log
+     * was only compacted up to that checkpoint.
+     *
+     * @return the checkpoint, or null if none was ever written
+     * @throws IOException if the checkpoint cannot be read
+     */
+    public Checkpoint readCheckpoint() throws IOException {
+        SnapshotStore.Snapshot snapshot = checkpoints.readLatest();
+        if (snapshot == null) {
+            return null;
+        }
+        JsonObject root = gson.fromJson(snapshot.content(), JsonObject.class);
+        long sequence = root.get("sequence").getAsLong();
+        boolean newest = snapshot.generation() == checkpoints.getNewestGeneration();
+        long previous = newest && root.has("previous") ? root.get("previous").getAsLong() : sequence;
+        return new Checkpoint(sequence, Math.min(previous, sequence));
+    }
+
+    /**
+     * Records that every file is up to date with the given sequence number.
+     *
+     * @param sequence the trade sequence number
+     * @param previous the sequence number of the checkpoint before
+     * @throws IOException if the checkpoint cannot be written
+     */
+    public void writeCheckpoint(long sequence, long previous) throws IOException {
+        JsonObject root = new JsonObject();
+        root.addProperty("sequence", sequence);
+        root.addProperty("previous", previous);
+        checkpoints.write(gson.toJson(root));
+    }
+
+    /**
+     * Splits a holdings file with every user's portfolio (the format used
+     * before portfolios were stored per user) into portfolio files, and
+     * writes a checkpoint at its sequence number. The holdings file is left
+     * unchanged.
+     *
+     * Files written before lots were introduced (no "version" field) hold
+     * one aggregated entry per stock. Each entry becomes a single lot at its
+     * average purchase price, dated with the file's modification time.
+     *
+     * @param holdingsFilePath the path of the holdings file; its newest
+     *                         valid snapshot generation is read
+     * @return the number of portfolios imported (0 if there is no file)
+     * @throws IOException if the file cannot be read or a portfolio file
+     *                     cannot be written
+     */
+    public int importHoldingsFile(Path holdingsFilePath) throws IOException {
+        SnapshotStore.Snapshot snapshot = new SnapshotStore(holdingsFilePath).readLatest();
+        JsonObject root = snapshot == null ? null : gson.fromJson(snapshot.content(), JsonObject.class);
+        if (root == null || !root.has("holdings")) {
+            writeCheckpoint(0, 0);
+            return 0;
+        }
+
+        int version = root.has("version") ? root.get("version").getAsInt() : 1;
+        long sequence = root.has("sequence") ? root.get("sequence").getAsLong() : 0;
+        long fileTimeMillis = snapshot.generation() == 0
+                ? Files.getLastModifiedTime(holdingsFilePath).toMillis()
+                : System.currentTimeMillis();
+        JsonObject holdingsObj = root.getAsJsonObject("holdings");
+
+        for (String username : holdingsObj.keySet()) {
+            Portfolio portfolio = new Portfolio();
+            for (JsonElement element : holdingsObj.getAsJsonArray(username)) {
+                JsonObject holding = element.getAsJsonObject();
+                portfolio.restorePosition(version >= FORMAT_VERSION
+                        ? readPosition(holding)
+                        : migratePosition(holding, fileTimeMillis));
+            }
+            write(username, encode(username, portfolio, sequence));
+        }
+
+        writeCheckpoint(sequence, sequence);
+        System.out.println("📦 Split holdings of " + holdingsObj.size() + " user(s) into per-user files"
+                + (version < FORMAT_VERSION ? " in lot format" : "")
+                + " (" + holdingsFilePath.getFileName() + " is left as it was)");
+        return holdingsObj.size();
+    }
+
+    /**
+     * Parses the content of a portfolio file.
+     *
+     * @param content         the JSON content
+     * @param olderGeneration whether a newer, damaged generation was skipped
+     * @return the shard
+     */
+    private Shard decode(String content, boolean olderGeneration) {
+        JsonObject root = gson.fromJson(content, JsonObject.class);
+        Portfolio portfolio = new Portfolio();
+        for (JsonElement element : root.getAsJsonArray("positions")) {
+            portfolio.restorePosition(readPosition(element.getAsJsonObject()));
+        }
+        return new Shard(root.get("username").getAsString(), portfolio, root.get("sequence").getAsLong(),
+                olderGeneration);
+    }
+
+    /**
+     * Reads a position in the current format: symbol, name, last price, a
+     * list of lots and, after an average cost election, the pooled basis.
+     *
+     * @param holding the JSON object of one position
+     * @return the position
+     */
+    private Position readPosition(JsonObject holding) {
+        Position position = new Position(
+                holding.get("symbol").getAsString(),
+                holding.get("name").getAsString());
+
+        for (JsonElement element : holding.getAsJsonArray("lots")) {
+            JsonObject lot = element.getAsJsonObject();
+            position.addLot(new Lot(
+                    lot.get("quantity").getAsInt(),
+                    lot.get("cost").getAsDouble(),
+                    lot.get("timestamp").getAsLong()));
+        }
+
+        if (holding.has("averageCostBasis")) {
+            position.restoreAverageCostBasis(holding.get("averageCostBasis").getAsDouble());
+        }
+        position.setLastPrice(holding.get("price").getAsDouble());
+        return position;
+    }
+
+    /**
+     * Converts an aggregated holding from the old format into a position
+     * with a single lot.
+     *
+     * The lot cost is the average purchase price (total purchase price over
+     * quantity), falling back to the purchase price and then the price for
+     * files that did not record it.
+     *
+     * @param holding        the JSON object of one aggregated holding
+     * @param fileTimeMillis the time to use as the purchase time
+     * @return the position
+     */
+    private Position migratePosition(JsonObject holding, long fileTimeMillis) {
+        int quantity = holding.get("quantity").getAsInt();
+        double price = holding.get("price").getAsDouble();
+
+        double cost = price;
+        if (holding.has("totalPurchasePrice") && quantity > 0) {
+            cost = holding.get("totalPurchasePrice").getAsDouble() / quantity;
+        } else if (holding.has("purchasePrice")) {
+            cost = holding.get("purchasePrice").getAsDouble();
+        }
+
+        Position position = new Position(
+                holding.get("symbol").getAsString(),
+                holding.get("name").getAsString());
+        if (quantity > 0) {
+            position.addLot(new Lot(quantity, cost, fileTimeMillis));
+        }
+        position.setLastPrice(price);
+        return position;
+    }
+
+    /**
+     * Converts a position to its JSON form.
+     *
+     * @param position the position
+     * @return JSON object with symbol, name, price and lots
+     */
+    private JsonObject writePosition(Position position) {
+        JsonObject holdingObj = new JsonObject();
+        holdingObj.addProperty("symbol", position.getSymbol());
+        holdingObj.addProperty("name", position.getCompanyName());
+        holdingObj.addProperty("price", position.getLastPrice());
+
+        JsonArray lots = new JsonArray();
+        for (Lot lot : position.getLots()) {
+            JsonObject lotObj = new JsonObject();
+            lotObj.addProperty("quantity", lot.getQuantity());
+            lotObj.addProperty("cost", lot.getCostPerShare());
+            lotObj.addProperty("timestamp", lot.getAcquiredAtMillis());
+            lots.add(lotObj);
+        }
+        holdingObj.add("lots", lots);
+        if (position.isAverageCostElected()) {
+            holdingObj.addProperty("averageCostBasis", position.getTotalCost());
+        }
+        return holdingObj;
+    }
+
+    /**
+     * Gets the path of a user's portfolio file.
+     *
+     * @param username the username
+     * @return the path
+     */
+    private Path shardPath(String username) {
+        StringBuilder name = new StringBuilder();
+        for (byte b : username.getBytes(StandardCharsets.UTF_8)) {
+            char c = (char) (b & 0xff);
+            if ((c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || c == '-' || c == '_') {
+                name.append(c);
+            } else {
+                name.append('%').append(String.format("%02X", b & 0xff));
+            }
+        }
+        return directory.resolve(name.toString()).resolve(SHARD_FILE);
+    }
+}
@@ -1,222 +1,433 @@
 package org.global.academy.repository;
 
-import com.google.gson.Gson;
-import com.google.gson.JsonArray;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonObject;
-import com.google.gson.reflect.TypeToken;
 import org.global.academy.config.AppConfig;
+import org.global.academy.dto.response.PriceBar;
 import org.global.academy.dto.response.StockReference;
+import org.global.academy.market.CircuitBreaker;
+import org.global.academy.market.CircuitBreakingPriceProvider;
+import org.global.academy.market.MarketDataJson;
+import org.global.academy.market.PriceCache;
+import org.global.academy.market.PriceListener;
+import org.global.academy.market.PriceProvider;
+import org.global.academy.market.PriceRequestBatcher;
+import org.global.academy.market.RequestPriority;
+import org.global.academy.market.SymbolCatalogProvider;
+import org.global.academy.market.UpstreamBudget;
+import org.global.academy.search.CatalogDiff;
+import org.global.academy.search.CatalogSnapshotFile;
+import org.global.academy.search.StockCatalog;
+import org.global.academy.store.OhlcAggregator;
+import org.global.academy.store.PriceBarDownsampler;
+import org.global.academy.store.PriceHistoryFile;
+import org.global.academy.store.SymbolTable;
+import org.global.academy.store.TickStore;
 
 import java.io.IOException;
-import java.lang.reflect.Type;
-import java.net.URI;
-import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.time.Duration;
-import java.time.Instant;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 /**
  * Repository class for Stock data management.
  * 
- * Handles stock reference data caching, price fetching from external API,
- * and fallback price management. Implements smart caching to minimize
+ * Handles stock reference data caching, price fetching through a pluggable
+ * market data provider, and fallback price management. Implements smart caching to minimize
  * API calls while keeping data reasonably current.
  * 
+ * The stock master list is loaded on a background thread, so constructing
+ * the repository never waits on the network. Until the list is loaded,
+ * search runs over the built-in default symbols (degraded mode); the
+ * previous local snapshot, and later a fresh download, then replace it
+ * atomically. The same thread re-downloads the list whenever it gets older
+ * than the cache age and applies only the differences.
+ * 
  * @author Project Group 5
  * @version 1.0
  */
 public class StockRepository {
 
-    private final Gson gson;
     private final Path stocksFilePath;
-    private final List<StockReference> allAvailableStocks;
-    private final Map<String, Double> lastKnownPrices;
+    private final Path catalogSnapshotPath;
+    private final UpstreamBudget upstreamBudget;
+    private final CircuitBreaker circuitBreaker;
+    private final PriceRequestBatcher priceBatcher;
+    private final SymbolCatalogProvider catalogProvider;
+    private final ScheduledExecutorService catalogRefresher;
+    private volatile StockCatalog catalog;
+    private volatile boolean catalogReady;
+    private final TickStore tickStore;
+    private final PriceHistoryFile priceHistory;
+    private final PriceCache priceCache;
+    private final List<PriceListener> priceListeners = new CopyOnWriteArrayList<>();
 
     /**
      * Constructs a new StockRepository.
      * 
-     * @param gson           the Gson instance for JSON
-     *                       serialization/deserialization
-     * @param stocksFilePath the file path where stock data is cached
+     * @param stocksFilePath      the JSON file where stock data is exported
+     *                            (and imported from when there is no snapshot)
+     * @param catalogSnapshotPath the binary snapshot of the stock list and
+     *                            its search index
+     * @param priceHistoryPath    the file path where every price tick is recorded
+     * @param priceProvider       the source of live stock prices
+     * @param catalogProvider     the source of the stock master list
      */
-    public StockRepository(Gson gson, Path stocksFilePath) {
-        this.gson = gson;
+    public StockRepository(Path stocksFilePath, Path catalogSnapshotPath, Path priceHistoryPath,
+            PriceProvider priceProvider, SymbolCatalogProvider catalogProvider) {
         this.stocksFilePath = stocksFilePath;
-        this.allAvailableStocks = new ArrayList<>();
-        this.lastKnownPrices = new HashMap<>(AppConfig.getDefaultStockPrices());
-        initializeStockMasterList();
+        this.catalogSnapshotPath = catalogSnapshotPath;
+        this.upstreamBudget = new UpstreamBudget(AppConfig.UPSTREAM_CREDITS_PER_MINUTE);
+        this.circuitBreaker = new CircuitBreaker(
+                AppConfig.CIRCUIT_BREAKER_WINDOW,
+                AppConfig.CIRCUIT_BREAKER_MIN_CALLS,
+                AppConfig.CIRCUIT_BREAKER_FAILURE_RATE,
+                AppConfig.CIRCUIT_BREAKER_SLOW_CALL_MILLIS,
+                AppConfig.CIRCUIT_BREAKER_OPEN_MILLIS,
+                () -> probeUpstream(priceProvider));
+        this.priceBatcher = new PriceRequestBatcher(
+                new CircuitBreakingPriceProvider(priceProvider, circuitBreaker),
+                upstreamBudget,
+                AppConfig.PRICE_BATCH_WINDOW_MILLIS,
+                AppConfig.PRICE_BATCH_MAX_SYMBOLS);
+        this.catalogProvider = catalogProvider;
+        this.catalog = new StockCatalog(degradedStockList(), "degraded", System.currentTimeMillis());
+        SymbolTable symbolTable = new SymbolTable(AppConfig.TICK_STORE_MAX_SYMBOLS);
+        this.priceHistory = openPriceHistory(priceHistoryPath, symbolTable);
+        this.tickStore = new TickStore(symbolTable, AppConfig.TICK_STORE_TICKS_PER_SYMBOL);
+        this.priceCache = new PriceCache(
+                this::fetchLivePrices,
+                AppConfig.PRICE_CACHE_TTL_MILLIS,
+                AppConfig.PRICE_CACHE_STALE_WINDOW_MILLIS,
+                AppConfig.PRICE_CACHE_LOAD_TIMEOUT_MILLIS);
+        restorePriceHistory();
+
+        this.catalogRefresher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "catalog-refresh");
+            t.setDaemon(true);
+            return t;
+        });
+        catalogRefresher.execute(this::initializeStockMasterList);
+        catalogRefresher.scheduleWithFixedDelay(this::refreshStockListIfStale,
+                AppConfig.CATALOG_REFRESH_CHECK_SECONDS,
+                AppConfig.CATALOG_REFRESH_CHECK_SECONDS,
+                TimeUnit.SECONDS);
     }
 
     /**
-     * Initializes the master list of available stocks from NASDAQ.
+     * Builds the stock list served before the master list is loaded: the
+     * symbols that have a configured default price.
      * 
-     * This method implements a smart caching strategy:
-     * 1. Checks if a local cache file exists and is less than 24 hours old
-     * 2. If cache is valid, loads from file
-     * 3. If cache is stale or missing, downloads fresh data from Twelve Data API
-     * 4. Saves downloaded data to cache file for future use
+     * @return list of stock references named after their symbols
+     */
+    private static List<StockReference> degradedStockList() {
+        return AppConfig.getDefaultStockPrices().keySet().stream()
+                .sorted()
+                .map(symbol -> new StockReference(symbol, symbol))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Opens the price history file, interning its symbols into the table.
      * 
-     * This approach minimizes API calls while keeping stock data reasonably
-     * current.
+     * @param priceHistoryPath the price history file path
+     * @param symbolTable      the empty symbol table shared with the tick store
+     * @return the open file, or null if it cannot be used (prices are then
+     *         kept in memory only)
      */
-    private void initializeStockMasterList() {
+    private static PriceHistoryFile openPriceHistory(Path priceHistoryPath, SymbolTable symbolTable) {
         try {
-            boolean needDownload = true;
+            return new PriceHistoryFile(priceHistoryPath, symbolTable, AppConfig.PRICE_HISTORY_BLOCK_ROWS,
+                    AppConfig.PRICE_HISTORY_MAX_BLOCKS);
+        } catch (IOException e) {
+            System.err.println("Error opening price history, prices will not be kept across restarts: " +
+                    e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Replays the recorded price history into the tick store and seeds the
+     * price cache with the last recorded price of every symbol, keeping its
+     * original fetch time so only prices that are still fresh are served
+     * without a new fetch.
+     */
+    private void restorePriceHistory() {
+        if (priceHistory == null) {
+            return;
+        }
 
-            if (Files.exists(stocksFilePath)) {
-                Instant lastModified = Files.getLastModifiedTime(stocksFilePath).toInstant();
-                long secondsOld = Duration.between(lastModified, Instant.now()).getSeconds();
+        long start = System.currentTimeMillis();
+        SymbolTable symbolTable = tickStore.getSymbolTable();
+        int replayed = priceHistory.replayInto(tickStore,
+                (long) symbolTable.capacity() * AppConfig.TICK_STORE_TICKS_PER_SYMBOL);
 
+        for (int id = 0; id < symbolTable.size(); id++) {
+            double price = tickStore.latestPrice(id);
+            if (!Double.isNaN(price)) {
+                String symbol = symbolTable.symbolOf(id);
+                priceCache.put(symbol, price, tickStore.latestTimestamp(symbol));
+            }
+        }
+
+        System.out.println("Restored " + replayed + " price ticks for " + symbolTable.size() +
+                " symbols in " + (System.currentTimeMillis() - start) + " ms.");
+    }
+
+    /**
+     * Builds a catalog (list and search index).
+     * 
+     * @param stocks         the stock master list
+     * @param source         where the list came from
+     * @param loadedAtMillis when the list was fetched from the provider
+     * @return the new catalog
+     */
+    private static StockCatalog buildCatalog(List<StockReference> stocks, String source, long loadedAtMillis) {
+        long start = System.currentTimeMillis();
+        StockCatalog built = new StockCatalog(stocks, source, loadedAtMillis);
+        System.out.println("Indexed " + built.getStocks().size() + " stocks for search in " +
+                (System.currentTimeMillis() - start) + " ms.");
+        return built;
+    }
+
+    /**
+     * Initializes the master list of available stocks (all US exchanges).
+     * 
+     * Runs on the catalog refresh thread with a smart caching strategy:
+     * 1. Loads the local catalog (binary snapshot, or stocks.json if there
+     *    is no valid snapshot) and publishes it, whatever its age
+     * 2. If the list is less than 24 hours old, stops there
+     * 3. If it is stale or missing, downloads fresh data from the catalog provider
+     * 4. Applies the differences to the published list and saves it as a
+     *    snapshot and as JSON
+     * 
+     * A new catalog is published with a single reference swap, so searches
+     * already running keep the catalog they started with. The catalog is
+     * marked ready when this finishes, even if the download failed and an
+     * older list (or the degraded list) is still served.
+     */
+    private void initializeStockMasterList() {
+        long start = System.currentTimeMillis();
+        try {
+            StockCatalog local = loadLocalCatalog();
+            if (local != null) {
+                this.catalog = local;
+
+                long secondsOld = (System.currentTimeMillis() - local.getLoadedAtMillis()) / 1000;
                 if (secondsOld < AppConfig.STOCK_CACHE_MAX_AGE_SECONDS) {
-                    needDownload = false;
-                    System.out.println("Loading stocks from local file (Cache age: " +
-                            secondsOld / 3600 + " hours).");
-
-                    String content = Files.readString(stocksFilePath);
-                    Type listType = new TypeToken<List<StockReference>>() {
-                    }.getType();
-                    List<StockReference> loaded = gson.fromJson(content, listType);
-
-                    if (loaded != null && !loaded.isEmpty()) {
-                        allAvailableStocks.addAll(loaded);
-                        return;
-                    }
-                } else {
-                    System.out.println("Local stock file is outdated (>24h). Refetching...");
+                    System.out.println("Loaded stocks from local " + local.getSource() +
+                            " (Cache age: " + secondsOld / 3600 + " hours).");
+                    return;
                 }
+                System.out.println("Local stock list is outdated (>24h). Serving it while refetching...");
             }
 
-            if (needDownload) {
-                downloadStockList();
-            }
+            downloadStockList();
         } catch (Exception e) {
             System.err.println("Error initializing stock list: " + e.getMessage());
+        } finally {
+            catalogReady = true;
+            StockCatalog current = catalog;
+            System.out.println("Stock list ready: " + current.getStocks().size() + " stocks (" +
+                    current.getSource() + ") after " + (System.currentTimeMillis() - start) + " ms.");
         }
     }
 
     /**
-     * Downloads the stock list from Twelve Data API.
+     * Loads the catalog saved by a previous run.
+     * 
+     * The binary snapshot is preferred: it is memory-mapped and validated,
+     * and its search index is used as is. If it is missing or invalid, the
+     * JSON stock file is imported (its modification time counts as the
+     * download time) and a new snapshot is written from it.
+     * 
+     * @return the local catalog, or null if there is none
      */
-    private void downloadStockList() {
+    private StockCatalog loadLocalCatalog() {
+        if (Files.exists(catalogSnapshotPath)) {
+            try {
+                long start = System.currentTimeMillis();
+                StockCatalog snapshot = CatalogSnapshotFile.read(catalogSnapshotPath, "snapshot");
+                System.out.println("Loaded catalog snapshot with " + snapshot.getStocks().size() +
+                        " stocks in " + (System.currentTimeMillis() - start) + " ms.");
+                return snapshot;
+            } catch (IOException e) {
+                System.err.println("Error reading catalog snapshot, importing " +
+                        stocksFilePath.getFileName() + " instead: " + e.getMessage());
+            }
+        }
+
+        if (!Files.exists(stocksFilePath)) {
+            return null;
+        }
         try {
-            System.out.println("Downloading fresh stock list from Twelve Data API...");
-
-            String url = AppConfig.TWELVE_DATA_BASE_URL +
-                    "/stocks?country=United%20States&exchange=NASDAQ&type=Common%20Stock";
-
-            HttpClient client = HttpClient.newHttpClient();
-            HttpRequest request = HttpRequest.newBuilder()
-                    .uri(URI.create(url))
-                    .GET()
-                    .build();
-
-            HttpResponse<String> response = client.send(request,
-                    HttpResponse.BodyHandlers.ofString());
-
-            if (response.statusCode() == 200) {
-                JsonObject json = gson.fromJson(response.body(), JsonObject.class);
-
-                if (json.has("data")) {
-                    JsonArray data = json.getAsJsonArray("data");
-                    List<StockReference> fetchedStocks = new ArrayList<>();
-
-                    for (JsonElement el : data) {
-                        JsonObject obj = el.getAsJsonObject();
-                        fetchedStocks.add(new StockReference(
-                                obj.get("symbol").getAsString(),
-                                obj.get("name").getAsString()));
-                    }
-
-                    allAvailableStocks.clear();
-                    allAvailableStocks.addAll(fetchedStocks);
-                    Files.writeString(stocksFilePath, gson.toJson(allAvailableStocks));
-                    System.out.println("Downloaded and saved " + fetchedStocks.size() + " stocks.");
-                }
-            } else {
-                System.err.println("Failed to download stock list. API Status: " +
-                        response.statusCode());
-                loadFromCacheAsFallback();
+            long lastModified = Files.getLastModifiedTime(stocksFilePath).toMillis();
+            List<StockReference> imported = MarketDataJson.readStockList(
+                    Files.newBufferedReader(stocksFilePath));
+            if (imported == null || imported.isEmpty()) {
+                return null;
             }
-        } catch (Exception e) {
-            System.err.println("Error downloading stock list: " + e.getMessage());
-            loadFromCacheAsFallback();
+
+            StockCatalog catalog = buildCatalog(imported, "json", lastModified);
+            saveCatalogSnapshot(catalog);
+            return catalog;
+        } catch (IOException e) {
+            System.err.println("Error importing " + stocksFilePath.getFileName() + ": " + e.getMessage());
+            return null;
         }
     }
 
     /**
-     * Loads stock list from cache file as fallback.
+     * Writes the binary snapshot of a catalog. Failures are logged; the
+     * next start then falls back to the JSON file.
+     * 
+     * @param catalog the catalog to save
      */
-    private void loadFromCacheAsFallback() {
+    private void saveCatalogSnapshot(StockCatalog catalog) {
         try {
-            if (Files.exists(stocksFilePath)) {
-                String content = Files.readString(stocksFilePath);
-                Type listType = new TypeToken<List<StockReference>>() {
-                }.getType();
-                List<StockReference> loaded = gson.fromJson(content, listType);
-
-                if (loaded != null) {
-                    allAvailableStocks.addAll(loaded);
-                }
-            }
+            CatalogSnapshotFile.write(catalogSnapshotPath, catalog);
         } catch (IOException e) {
-            System.err.println("Error loading from cache: " + e.getMessage());
+            System.err.println("Error writing catalog snapshot: " + e.getMessage());
         }
     }
 
+    /**
+     * Re-downloads the stock list if it is older than the cache age.
+     * Runs periodically on the catalog refresh thread.
+     */
+    private void refreshStockListIfStale() {
+        long secondsOld = (System.currentTimeMillis() - catalog.getLoadedAtMillis()) / 1000;
+        if (secondsOld >= AppConfig.STOCK_CACHE_MAX_AGE_SECONDS) {
+            System.out.println("Stock list is " + secondsOld / 3600 + " hours old. Refreshing...");
+            downloadStockList();
+        }
+    }
+
+    /**
+     * Downloads the stock list from the catalog provider and publishes it
+     * as a new catalog version.
+     * 
+     * The new listing is diffed against the published list by symbol, and
+     * only the added, removed and renamed stocks are applied (see
+     * {@link StockCatalog#withChanges}). Once the changes outgrow
+     * {@link AppConfig#CATALOG_MAX_DELTA_RATIO} of the list, the catalog
+     * is compacted into a single rebuilt index. The catalog is only
+     * changed on this thread, so no refresh can overwrite another.
+     */
+    private void downloadStockList() {
+        try {
+            if (upstreamBudget.tryAcquire(1, RequestPriority.BACKGROUND) == 0) {
+                System.err.println("No API credits left to download the stock list, keeping the current list.");
+                return;
+            }
+
+            System.out.println("Downloading fresh stock list...");
+
+            List<StockReference> fetchedStocks = catalogProvider.fetchCatalog();
+            if (fetchedStocks.isEmpty()) {
+                System.err.println("Downloaded stock list is empty, keeping the current list.");
+                return;
+            }
+
+            long start = System.currentTimeMillis();
+            StockCatalog current = catalog;
+            CatalogDiff diff = CatalogDiff.between(current.getStocks(), fetchedStocks);
+            StockCatalog downloaded = current.withChanges(diff, "download", start);
+            boolean compact = downloaded.getDeltaSize() >
+                    downloaded.getStocks().size() * AppConfig.CATALOG_MAX_DELTA_RATIO;
+            if (compact) {
+                downloaded = downloaded.compacted();
+            }
+            this.catalog = downloaded;
+            System.out.println("Applied stock list changes (" + diff + ") as catalog version " +
+                    downloaded.getVersion() + (compact ? ", compacted," : "") + " in " +
+                    (System.currentTimeMillis() - start) + " ms.");
+
+            saveCatalogSnapshot(downloaded);
+            MarketDataJson.writeStockList(Files.newBufferedWriter(stocksFilePath), fetchedStocks);
+            System.out.println("Downloaded and saved " + fetchedStocks.size() + " stocks.");
+        } catch (Exception e) {
+            System.err.println("Error downloading stock list, keeping the current list: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Checks whether loading the stock master list has finished.
+     * 
+     * @return true once the local snapshot and (if needed) the download
+     *         have been tried; false while search still runs on an older
+     *         or degraded list that is about to be replaced
+     */
+    public boolean isCatalogReady() {
+        return catalogReady;
+    }
+
     /**
      * Gets all available stocks.
      * 
      * @return list of all stock references
      */
     public List<StockReference> getAllStocks() {
-        return new ArrayList<>(allAvailableStocks);
+        return new ArrayList<>(catalog.getStocks());
+    }
+
+    /**
+     * Finds a stock in the master list by its symbol.
+     * 
+     * @param symbol the stock symbol (any case)
+     * @return the stock reference, or null if the symbol is not listed
+     */
+    public StockReference findStock(String symbol) {
+        return catalog.find(symbol);
     }
 
     /**
      * Searches for stocks by query string.
      * 
+     * Uses the search index, so the cost depends on the number of
+     * candidates rather than the size of the master list. Results are
+     * ranked by relevance and tolerate small typos. While the master list
+     * is loading, the previous snapshot or the degraded list is searched.
+     * 
      * @param query the search query (matches symbol or name)
      * @param limit maximum number of results
      * @return list of matching stock references
      */
     public List<StockReference> searchStocks(String query, int limit) {
+        StockCatalog current = catalog;
         if (query == null || query.isBlank()) {
-            return allAvailableStocks.stream()
+            return current.getStocks().stream()
                     .filter(s -> List.of("AAPL", "MSFT", "TSLA", "GOOG", "AMZN", "NVDA")
                             .contains(s.symbol))
                     .collect(Collectors.toList());
         }
 
-        String qLower = query.toLowerCase();
-        return allAvailableStocks.stream()
-                .filter(s -> s.symbol.toLowerCase().contains(qLower) ||
-                        s.name.toLowerCase().contains(qLower))
-                .limit(limit)
-                .collect(Collectors.toList());
+        return current.search(query, limit);
     }
 
     /**
-     * Fetches current stock prices from Twelve Data API with intelligent fallback.
+     * Gets current stock prices with intelligent fallback.
      * 
      * Strategy:
-     * 1. Attempts to fetch live prices from Twelve Data API
-     * 2. If successful, updates the lastKnownPrices cache
-     * 3. If API fails or is rate-limited, falls back to cached prices
+     * 1. Serves prices from the shared price cache when they are fresh
+     * 2. Loads missing prices from Twelve Data API (one shared fetch per symbol)
+     * 3. If API fails or is rate-limited, falls back to last known prices
      * 4. Returns 0.0 for completely unknown stocks
      * 
-     * @param symbols list of stock symbols to fetch prices for
+     * @param symbols  list of stock symbols to fetch prices for
+     * @param priority the priority class of the caller
      * @return map of stock symbols to their current prices
      */
-    public Map<String, Double> fetchCurrentPrices(List<String> symbols) {
+    public Map<String, Double> fetchCurrentPrices(List<String> symbols, RequestPriority priority) {
         Map<String, Double> results = new HashMap<>();
 
         if (symbols == null || symbols.isEmpty()) {
@@ -225,79 +436,314 @@ public class StockRepository {
 
         List<String> validSymbols = symbols.stream()
                 .filter(s -> s != null && !s.isEmpty())
+                .distinct()
                 .collect(Collectors.toList());
 
         if (validSymbols.isEmpty()) {
             return results;
         }
 
-        try {
-            // Attempt to fetch live data
-            String symbolsParam = String.join(",", validSymbols);
-            String url = AppConfig.TWELVE_DATA_BASE_URL + "/price?symbol=" +
-                    symbolsParam + "&apikey=" + AppConfig.TWELVE_DATA_API_KEY;
-
-            HttpClient client = HttpClient.newHttpClient();
-            HttpRequest request = HttpRequest.newBuilder()
-                    .uri(URI.create(url))
-                    .GET()
-                    .build();
-
-            HttpResponse<String> response = client.send(request,
-                    HttpResponse.BodyHandlers.ofString());
-
-            if (response.statusCode() == 200) {
-                JsonObject json = gson.fromJson(response.body(), JsonObject.class);
-
-                // Check for API errors
-                if (json.has("code") && json.get("code").getAsInt() != 200) {
-                    System.err.println("⚠️ API Error: " + json.get("message").getAsString());
-                } else {
-                    // Parse and update cache
-                    if (validSymbols.size() == 1) {
-                        if (json.has("price")) {
-                            double price = json.get("price").getAsDouble();
-                            String symbol = validSymbols.get(0);
-                            lastKnownPrices.put(symbol, price);
-                            results.put(symbol, price);
-                        }
-                    } else {
-                        for (String sym : validSymbols) {
-                            if (json.has(sym)) {
-                                JsonObject stockObj = json.getAsJsonObject(sym);
-                                if (stockObj.has("price")) {
-                                    double price = stockObj.get("price").getAsDouble();
-                                    lastKnownPrices.put(sym, price);
-                                    results.put(sym, price);
-                                }
-                            }
-                        }
-                    }
-                }
-            } else {
-                System.err.println("⚠️ HTTP Error " + response.statusCode());
+        results.putAll(priceCache.getPrices(validSymbols, priority));
+
+        // Fill gaps with last known prices
+        for (String sym : validSymbols) {
+            if (!results.containsKey(sym)) {
+                results.put(sym, getLastKnownPrice(sym));
             }
-        } catch (Exception e) {
-            System.err.println("Error fetching prices: " + e.getMessage());
         }
 
-        // Fill gaps with cached prices
+        return results;
+    }
+
+    /**
+     * Gets stock prices from memory without waiting on the network.
+     * 
+     * Cached prices are returned regardless of age; missing or expired
+     * symbols are refreshed in the background. Symbols with no cached or
+     * last known price are left out so the caller can apply its own fallback.
+     * 
+     * @param symbols  list of stock symbols
+     * @param priority the priority class of the background refreshes
+     * @return map of stock symbols to their most recent prices
+     */
+    public Map<String, Double> getCachedPrices(List<String> symbols, RequestPriority priority) {
+        Map<String, Double> results = new HashMap<>();
+
+        if (symbols == null || symbols.isEmpty()) {
+            return results;
+        }
+
+        List<String> validSymbols = symbols.stream()
+                .filter(s -> s != null && !s.isEmpty())
+                .distinct()
+                .collect(Collectors.toList());
+
+        results.putAll(priceCache.getCachedPrices(validSymbols, priority));
+
         for (String sym : validSymbols) {
-            if (!results.containsKey(sym)) {
-                results.put(sym, lastKnownPrices.getOrDefault(sym, 0.0));
+            double lastKnown = getLastKnownPrice(sym);
+            if (!results.containsKey(sym) && lastKnown > 0) {
+                results.put(sym, lastKnown);
             }
         }
 
         return results;
     }
 
+    /**
+     * Refreshes prices for the given symbols from upstream in one batched call.
+     * 
+     * Called by the background price refresh scheduler.
+     * 
+     * @param symbols list of stock symbols to refresh
+     */
+    public void refreshPrices(List<String> symbols) {
+        if (symbols != null && !symbols.isEmpty()) {
+            priceCache.refresh(symbols, RequestPriority.BACKGROUND);
+        }
+    }
+
+    /**
+     * Fetches live stock prices from the price provider.
+     * 
+     * The request goes through the micro-batcher, so concurrent requests
+     * for different symbols share one upstream call. Waiting is bounded by
+     * the HTTP request timeout, and nothing is requested while the circuit
+     * breaker is open. Successful prices also update the
+     * tick store and the price history file. Symbols the provider did not return a price
+     * for are left out of the result.
+     * 
+     * @param validSymbols non-empty list of stock symbols
+     * @param priority     the priority class of the caller
+     * @return map of stock symbols to their live prices
+     */
+    private Map<String, Double> fetchLivePrices(List<String> validSymbols, RequestPriority priority) {
+        if (!circuitBreaker.allowRequest()) {
+            return Map.of();
+        }
+
+        try {
+            Map<String, Double> results = priceBatcher.submit(validSymbols, priority)
+                    .get(AppConfig.HTTP_REQUEST_TIMEOUT_MILLIS + AppConfig.PRICE_BATCH_WINDOW_MILLIS,
+                            TimeUnit.MILLISECONDS);
+            long now = System.currentTimeMillis();
+            for (Map.Entry<String, Double> price : results.entrySet()) {
+                recordTick(price.getKey(), now, price.getValue());
+            }
+            return results;
+        } catch (Exception e) {
+            System.err.println("⚠️ Error fetching prices: " + e.getMessage());
+            return Map.of();
+        }
+    }
+
+    /**
+     * Registers a listener that is told about every new price.
+     * 
+     * @param listener the listener
+     */
+    public void addPriceListener(PriceListener listener) {
+        priceListeners.add(listener);
+    }
+
+    /**
+     * Records a price tick in the price history file and the tick store,
+     * then notifies the price listeners.
+     * 
+     * The price history file keeps its rows in time order, so a tick from a
+     * fetch that finished after a newer one is stored with the newer time;
+     * the tick store and the listeners get the same time.
+     * 
+     * @param symbol      the stock symbol
+     * @param epochMillis the time of the tick
+     * @param price       the price
+     */
+    private void recordTick(String symbol, long epochMillis, double price) {
+        int id = tickStore.getSymbolTable().intern(symbol);
+        if (id < 0) {
+            return;
+        }
+
+        if (priceHistory != null) {
+            try {
+                epochMillis = priceHistory.append(id, epochMillis, price);
+            } catch (IOException e) {
+                System.err.println("Error writing price history: " + e.getMessage());
+            }
+        }
+        tickStore.append(id, epochMillis, price);
+
+        for (PriceListener listener : priceListeners) {
+            listener.onPrice(symbol, epochMillis, price);
+        }
+    }
+
+    /**
+     * Health probe used by the circuit breaker while it is half-open.
+     * 
+     * Skipped (reported as unhealthy) when no API credits are available.
+     * 
+     * @param priceProvider the unguarded price provider
+     * @return true if upstream returned a price for the probe symbol
+     */
+    private boolean probeUpstream(PriceProvider priceProvider) {
+        if (upstreamBudget.tryAcquire(1, RequestPriority.BACKGROUND) == 0) {
+            return false;
+        }
+        try {
+            String symbol = AppConfig.CIRCUIT_BREAKER_PROBE_SYMBOL;
+            Map<String, Double> prices = priceProvider.fetchPricesAsync(List.of(symbol))
+                    .get(AppConfig.HTTP_REQUEST_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            return prices.containsKey(symbol);
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    /**
+     * Gets the price history of a symbol as OHLC bars.
+     * 
+     * Ticks are streamed from the price history file (or the in-memory tick
+     * store when prices are not persisted) straight into a fixed number of
+     * OHLC buckets, which are then reduced to the requested number of
+     * points with LTTB. Memory use depends on the number of points, not on
+     * the number of ticks in the range.
+     * 
+     * @param symbol     the stock symbol
+     * @param fromMillis start of the range (inclusive)
+     * @param toMillis   end of the range (inclusive)
+     * @param points     maximum number of bars to return
+     * @return list of bars, oldest first (empty if the symbol has no history)
+     */
+    public List<PriceBar> getPriceHistory(String symbol, long fromMillis, long toMillis, int points) {
+        int id = tickStore.getSymbolTable().idOf(symbol);
+        if (id < 0 || toMillis < fromMillis) {
+            return new ArrayList<>();
+        }
+
+        OhlcAggregator aggregator = new OhlcAggregator(fromMillis, toMillis,
+                points * AppConfig.PRICE_HISTORY_BUCKETS_PER_POINT);
+        if (priceHistory != null) {
+            priceHistory.forEachTick(id, fromMillis, toMillis, aggregator);
+        } else {
+            tickStore.forEachTick(id, fromMillis, toMillis, aggregator);
+        }
+        return PriceBarDownsampler.lttb(aggregator.toBars(), points);
+    }
+
+    /**
+     * Gets the symbols whose price is not fresh (served from an older cached
+     * value or the last known fallback).
+     * 
+     * @param symbols list of stock symbols
+     * @return set of symbols with stale prices
+     */
+    public Set<String> getStaleSymbols(List<String> symbols) {
+        Set<String> stale = new HashSet<>();
+        for (String sym : symbols) {
+            if (!priceCache.isFresh(sym)) {
+                stale.add(sym);
+            }
+        }
+        return stale;
+    }
+
+    /**
+     * Gets the price cache counters (hits, misses, coalesced loads).
+     * 
+     * @return map of counter names to values
+     */
+    public Map<String, Object> getPriceCacheStats() {
+        return priceCache.getStats();
+    }
+
+    /**
+     * Gets the micro-batching counters (requests vs. upstream calls).
+     * 
+     * @return map of counter names to values
+     */
+    public Map<String, Object> getPriceBatcherStats() {
+        return priceBatcher.getStats();
+    }
+
+    /**
+     * Gets the API credit budget usage.
+     * 
+     * @return map of budget figures
+     */
+    public Map<String, Object> getUpstreamBudgetStats() {
+        return upstreamBudget.getStats();
+    }
+
+    /**
+     * Gets the market data circuit breaker state and counters.
+     * 
+     * @return map of circuit breaker figures
+     */
+    public Map<String, Object> getCircuitBreakerStats() {
+        return circuitBreaker.getStats();
+    }
+
+    /**
+     * Gets the search index figures and the state of the stock master list.
+     * 
+     * @return map of catalog version, index and segment sizes, catalog
+     *         source, age and readiness
+     */
+    public Map<String, Object> getSearchIndexStats() {
+        StockCatalog current = catalog;
+        Map<String, Object> stats = new LinkedHashMap<>(current.getStats());
+        stats.put("source", current.getSource());
+        stats.put("ageSeconds", (System.currentTimeMillis() - current.getLoadedAtMillis()) / 1000);
+        stats.put("ready", catalogReady);
+        return stats;
+    }
+
+    /**
+     * Gets the tick store that holds the recent price history of every symbol.
+     * 
+     * @return the tick store
+     */
+    public TickStore getTickStore() {
+        return tickStore;
+    }
+
     /**
      * Gets the last known price for a stock symbol.
      * 
+     * Reads the latest tick from the tick store and falls back to the
+     * configured default price when the symbol has never been fetched.
+     * 
      * @param symbol the stock symbol
      * @return the last known price, or 0.0 if not found
      */
     public double getLastKnownPrice(String symbol) {
-        return lastKnownPrices.getOrDefault(symbol, 0.0);
+        double latest = tickStore.latestPrice(symbol);
+        return Double.isNaN(latest) ? AppConfig.getDefaultPrice(symbol) : latest;
+    }
+
+    /**
+     * Gets the price history file, or null if prices are not persisted.
+     * 
+     * @return the price history file
+     */
+    public PriceHistoryFile getPriceHistory() {
+        return priceHistory;
+    }
+
+    /**
+     * Stops the catalog refresher and flushes the price history to disk.
+     * Called on shutdown.
+     */
+    public void close() {
+        catalogRefresher.shutdownNow();
+        if (priceHistory == null) {
+            return;
+        }
+        try {
+            priceHistory.close();
+        } catch (IOException e) {
+            System.err.println("Error closing price history: " + e.getMessage());
+        }
     }
 }
@@ -3,14 +3,20 @@ package org.global.academy.repository;
 import com.google.gson.Gson;
 import com.google.gson.JsonObject;
 import com.google.gson.reflect.TypeToken;
+import org.global.academy.config.AppConfig;
 import org.global.academy.model.User;
+import org.global.academy.persistence.BatchSink;
+import org.global.academy.persistence.DurabilityMode;
+import org.global.academy.persistence.GroupCommitWriter;
+import org.global.academy.persistence.SnapshotStore;
 
 import java.io.IOException;
 import java.lang.reflect.Type;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Repository class for User data persistence.
@@ -19,41 +25,76 @@ import java.util.List;
  * Implements the Repository pattern to separate data access logic
  * from business logic.
  * 
+ * New users are saved by a {@link GroupCommitWriter}: sign-ups that
+ * arrive while the file is being written are saved together with the
+ * next single snapshot of the user list. Snapshots are checksummed
+ * generations next to users.json written by a {@link SnapshotStore}, so a
+ * crash while saving never damages the users saved before.
+ * 
  * @author Project Group 5
  * @version 1.0
  */
 public class UserRepository {
 
     private final Gson gson;
-    private final Path usersFilePath;
+    private final SnapshotStore snapshots;
     private final List<User> users;
+    private final GroupCommitWriter<User> writer;
 
     /**
      * Constructs a new UserRepository.
      * 
      * @param gson          the Gson instance for JSON serialization/deserialization
-     * @param usersFilePath the file path where user data is stored
+     * @param usersFilePath the file path of the legacy user file; its
+     *                      snapshot generations are stored next to it
+     * @param durability    when saved users are forced to disk
+     * @throws IllegalStateException if the saved users cannot be read
      */
-    public UserRepository(Gson gson, Path usersFilePath) {
+    public UserRepository(Gson gson, Path usersFilePath, DurabilityMode durability) {
         this.gson = gson;
-        this.usersFilePath = usersFilePath;
-        this.users = new ArrayList<>();
+        this.snapshots = new SnapshotStore(usersFilePath);
+        this.users = new CopyOnWriteArrayList<>();
         loadUsers();
+        this.writer = new GroupCommitWriter<>("user-store-writer", new UsersFileSink(), durability,
+                AppConfig.PERSISTENCE_SYNC_INTERVAL_MILLIS, AppConfig.PERSISTENCE_MAX_BATCH);
     }
 
     /**
-     * Loads all users from the JSON file.
-     * 
-     * If the file doesn't exist, starts with an empty user list.
+     * Saves the user list for the group-commit writer. Every batch is saved
+     * by writing the whole current user list once, which already contains
+     * the users of the batch. The snapshot is forced to disk when the writer
+     * syncs, so the durability mode applies to users as it does to trades.
      */
-    private void loadUsers() {
-        if (!Files.exists(usersFilePath)) {
-            return;
+    private class UsersFileSink implements BatchSink<User> {
+
+        @Override
+        public void write(List<User> batch) throws IOException {
+            saveUsers();
         }
 
+        @Override
+        public void sync() throws IOException {
+            snapshots.sync();
+        }
+    }
+
+    /**
+     * Loads all users from the newest valid snapshot (or, before the
+     * first one, from users.json).
+     * 
+     * If there is neither, starts with an empty user list. A user file
+     * that exists but cannot be read stops the startup: carrying on with
+     * fewer users would overwrite it with the next save.
+     *
+     * @throws IllegalStateException if the users cannot be read
+     */
+    private void loadUsers() {
         try {
-            String content = Files.readString(usersFilePath);
-            JsonObject root = gson.fromJson(content, JsonObject.class);
+            SnapshotStore.Snapshot snapshot = snapshots.readLatest();
+            if (snapshot == null) {
+                return;
+            }
+            JsonObject root = gson.fromJson(snapshot.content(), JsonObject.class);
 
             if (root != null && root.has("users")) {
                 Type listType = new TypeToken<List<User>>() {
@@ -63,22 +104,20 @@ public class UserRepository {
                     users.addAll(loaded);
                 }
             }
-        } catch (IOException e) {
-            System.err.println("Error loading users: " + e.getMessage());
+        } catch (IOException | RuntimeException e) {
+            throw new IllegalStateException("Cannot load users: " + e.getMessage(), e);
         }
     }
 
     /**
-     * Saves all users to the JSON file.
+     * Saves all users as a new snapshot, forced to disk by the next sync.
+     * 
+     * @throws IOException if the file cannot be written
      */
-    private void saveUsers() {
-        try {
-            JsonObject root = new JsonObject();
-            root.add("users", gson.toJsonTree(users));
-            Files.writeString(usersFilePath, gson.toJson(root));
-        } catch (IOException e) {
-            System.err.println("Error saving users: " + e.getMessage());
-        }
+    private void saveUsers() throws IOException {
+        JsonObject root = new JsonObject();
+        root.add("users", gson.toJsonTree(users));
+        snapshots.write(gson.toJson(root), false);
     }
 
     /**
@@ -117,16 +156,36 @@ public class UserRepository {
     /**
      * Saves a new user to the repository.
      * 
+     * The user is added to the list before it is written, since the
+     * snapshot is written from the list. If the write fails, it is taken
+     * out again, so a retried sign-up is not told the name is taken.
+     * 
      * @param user the user to save
-     * @return true if saved successfully, false if user already exists
+     * @return future completed with true once the user is saved, with
+     *         false at once if the user already exists, or exceptionally
+     *         if the user could not be saved
      */
-    public boolean save(User user) {
+    public synchronized CompletableFuture<Boolean> save(User user) {
         if (existsByUsername(user.getUsername())) {
-            return false;
+            return CompletableFuture.completedFuture(false);
         }
         users.add(user);
-        saveUsers();
-        return true;
+        return writer.submit(user)
+                .whenComplete((ignored, error) -> {
+                    if (error != null) {
+                        removeUnsaved(user);
+                    }
+                })
+                .thenApply(ignored -> true);
+    }
+
+    /**
+     * Takes a user whose save failed out of the list.
+     * 
+     * @param user the user that was not saved
+     */
+    private synchronized void removeUnsaved(User user) {
+        users.removeIf(u -> u == user);
     }
 
     /**
@@ -141,4 +200,11 @@ public class UserRepository {
                 .anyMatch(u -> u.getUsername().equals(username) &&
                         u.getPassword().equals(password));
     }
+
+    /**
+     * Saves the users still queued and stops the writer.
+     */
+    public void close() {
+        writer.close();
+    }
 }
@@ -0,0 +1,128 @@
+package org.global.academy.search;
+
+import org.global.academy.dto.response.StockReference;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Differences between two versions of the stock master list, keyed by
+ * symbol: stocks that were listed, delisted, or renamed.
+ *
+ * @author Project Group 5
+ * @version 1.0
+ */
+public class CatalogDiff {
+
+    private final List<StockReference> added;
+    private final List<String> removed;
+    private final List<StockReference> renamed;
+
+    /**
+     * Constructs a new CatalogDiff.
+     *
+     * @param added   stocks that are new in the listing
+     * @param removed symbols that are no longer listed
+     * @param renamed stocks whose name changed (with the new name)
+     */
+    public CatalogDiff(List<StockReference> added, List<String> removed, List<StockReference> renamed) {
+        this.added = added;
+        this.removed = removed;
+        this.renamed = renamed;
+    }
+
+    /**
+     * Compares the current list with a newly downloaded one. If a symbol
+     * appears more than once, its first entry counts.
+     *
+     * @param current the list being served
+     * @param fetched the new listing
+     * @return the changes that turn the current list into the new one
+     */
+    public static CatalogDiff between(List<StockReference> current, List<StockReference> fetched) {
+        Map<String, StockReference> before = bySymbol(current);
+        Map<String, StockReference> after = bySymbol(fetched);
+
+        List<StockReference> added = new ArrayList<>();
+        List<StockReference> renamed = new ArrayList<>();
+        for (StockReference stock : after.values()) {
+            StockReference old = before.get(stock.symbol);
+            if (old == null) {
+                added.add(stock);
+            } else if (!Objects.equals(old.name, stock.name)) {
+                renamed.add(stock);
+            }
+        }
+
+        List<String> removed = new ArrayList<>();
+        for (String symbol : before.keySet()) {
+            if (!after.containsKey(symbol)) {
+                removed.add(symbol);
+            }
+        }
+        return new CatalogDiff(added, removed, renamed);
+    }
+
+    /**
+     * Indexes a stock list by symbol, keeping the first entry of each symbol.
+     *
+     * @param stocks the stock list
+     * @return map of symbols to stocks, in list order
+     */
+    private static Map<String, StockReference> bySymbol(List<StockReference> stocks) {
+        Map<String, StockReference> map = new LinkedHashMap<>();
+        for (StockReference stock : stocks) {
+            map.putIfAbsent(stock.symbol, stock);
+        }
+        return map;
+    }
+
+    /**
+     * Gets the stocks that are new in the listing.
+     *
+     * @return list of added stocks
+     */
+    public List<StockReference> getAdded() {
+        return added;
+    }
+
+    /**
+     * Gets the symbols that are no longer listed.
+     *
+     * @return list of removed symbols
+     */
+    public List<String> getRemoved() {
+        return removed;
+    }
+
+    /**
+     * Gets the stocks whose name changed.
+     *
+     * @return list of renamed stocks, with their new names
+     */
+    public List<StockReference> getRenamed() {
+        return renamed;
+    }
+
+    /**
+     * Checks whether the two lists are the same.
+     *
+     * @return true if nothing was added, removed or renamed
+     */
+    public boolean isEmpty() {
+        return added.isEmpty() && removed.isEmpty() && renamed.isEmpty();
+    }
+
+    /**
+     * Gets a one-line summary for the log.
+     *
+     * @return the counts of added, removed and renamed stocks
+     */
+    @Override
+    public String toString() {
+        return "+" + added.size() + " added, -" + removed.size() + " removed, ~" + renamed.size() + " renamed";
+    }
+}
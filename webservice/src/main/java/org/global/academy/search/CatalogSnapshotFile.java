@@ -0,0 +1,359 @@
+package org.global.academy.search;
+
+import org.global.academy.dto.response.StockReference;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Versioned binary snapshot of a {@link StockCatalog}: the stock list and
+ * its prebuilt search index.
+ *
+ * Layout: a 64-byte header followed by the payload.
+ *
+ * <pre>
+ * header:  magic(int) version(int) stockCount(int) stringCount(int)
+ *          createdAtMillis(long) payloadLength(long) payloadCrc32(long)
+ *          catalogVersion(long)
+ * payload: strings | base stocks | delta stocks | tombstones
+ *          | base index | delta index (if there are delta stocks)
+ * index:   symbol trie | trigram index | word trie | word postings
+ * </pre>
+ *
+ * Strings are dictionary-encoded: every distinct symbol and name is stored
+ * once as UTF-8 in one blob, and each stock is a pair of string ids. The
+ * segments of the catalog are stored as they are (see {@link StockCatalog}),
+ * so a refreshed catalog is saved without compacting it first. The index
+ * sections are the raw arrays of {@link SymbolTrie}, {@link TrigramIndex}
+ * and {@link StockSearchIndex}, each written as a length followed by the
+ * values.
+ *
+ * Reading maps the file, checks the header and the payload checksum, and
+ * copies each section into an array in bulk, so no index is rebuilt and
+ * nothing is parsed field by field. Writes go to a temporary file that is
+ * renamed over the old snapshot, so a reader never sees a partial file.
+ * Any change to the layout or to how the index is built must bump
+ * {@link #VERSION}; older snapshots are then rejected and rebuilt.
+ *
+ * @author Project Group 5
+ * @version 1.0
+ */
+public final class CatalogSnapshotFile {
+
+    private static final int MAGIC = 0x53434154; // "SCAT"
+    private static final int VERSION = 2;
+    private static final int HEADER_BYTES = 64;
+
+    /**
+     * Utility class; not instantiated.
+     */
+    private CatalogSnapshotFile() {
+    }
+
+    /**
+     * Writes a catalog snapshot, replacing any existing file atomically.
+     *
+     * @param path    the snapshot file path
+     * @param catalog the catalog to write
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(Path path, StockCatalog catalog) throws IOException {
+        // Dictionary-encode symbols and names
+        Map<String, Integer> stringIds = new HashMap<>();
+        List<String> strings = new ArrayList<>();
+        int[] baseTable = encodeStocks(catalog.getBaseStocks(), stringIds, strings);
+        int[] deltaTable = encodeStocks(catalog.getDeltaStocks(), stringIds, strings);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(bytes));
+
+        ByteArrayOutputStream blob = new ByteArrayOutputStream();
+        int[] stringOffsets = new int[strings.size() + 1];
+        for (int i = 0; i < strings.size(); i++) {
+            blob.write(strings.get(i).getBytes(StandardCharsets.UTF_8));
+            stringOffsets[i + 1] = blob.size();
+        }
+        writeInts(out, stringOffsets, stringOffsets.length);
+        out.writeInt(blob.size());
+        blob.writeTo(out);
+
+        writeInts(out, baseTable, baseTable.length);
+        writeInts(out, deltaTable, deltaTable.length);
+        writeLongs(out, catalog.getRemoved().toLongArray());
+        catalog.getBaseIndex().writeTo(out);
+        if (catalog.getDeltaIndex() != null) {
+            catalog.getDeltaIndex().writeTo(out);
+        }
+        out.flush();
+
+        byte[] payload = bytes.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        header.putInt(MAGIC);
+        header.putInt(VERSION);
+        header.putInt((baseTable.length + deltaTable.length) / 2);
+        header.putInt(strings.size());
+        header.putLong(catalog.getLoadedAtMillis());
+        header.putLong(payload.length);
+        header.putLong(crc.getValue());
+        header.putLong(catalog.getVersion());
+        header.clear();
+
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            channel.write(header);
+            ByteBuffer body = ByteBuffer.wrap(payload);
+            while (body.hasRemaining()) {
+                channel.write(body);
+            }
+            channel.force(true);
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reads a catalog snapshot.
+     *
+     * @param path   the snapshot file path
+     * @param source the source name of the returned catalog
+     * @return the catalog, with the creation time stored in the snapshot
+     * @throws IOException if the file cannot be read, is from another
+     *                     version or fails validation
+     */
+    public static StockCatalog read(Path path, String source) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES) {
+                throw new IOException("Catalog snapshot is truncated: " + path);
+            }
+            MappedByteBuffer file = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+
+            if (file.getInt(0) != MAGIC || file.getInt(4) != VERSION) {
+                throw new IOException("Not a catalog snapshot (version " + VERSION + "): " + path);
+            }
+            int stockCount = file.getInt(8);
+            int stringCount = file.getInt(12);
+            long createdAtMillis = file.getLong(16);
+            long payloadLength = file.getLong(24);
+            long payloadCrc = file.getLong(32);
+            long catalogVersion = file.getLong(40);
+            if (stockCount < 0 || stringCount < 0 || payloadLength != size - HEADER_BYTES ||
+                    payloadLength > Integer.MAX_VALUE) {
+                throw new IOException("Catalog snapshot header does not match the file size: " + path);
+            }
+
+            ByteBuffer payload = file.slice(HEADER_BYTES, (int) payloadLength);
+            CRC32 crc = new CRC32();
+            crc.update(payload.duplicate());
+            if (crc.getValue() != payloadCrc) {
+                throw new IOException("Catalog snapshot checksum mismatch: " + path);
+            }
+
+            return readPayload(payload, stockCount, stringCount, catalogVersion, createdAtMillis, source);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | NegativeArraySizeException e) {
+            throw new IOException("Catalog snapshot is corrupt: " + path, e);
+        }
+    }
+
+    /**
+     * Decodes the payload sections.
+     *
+     * @param in              the payload, positioned at its start
+     * @param stockCount      the number of stocks from the header
+     * @param stringCount     the number of dictionary strings from the header
+     * @param catalogVersion  the catalog version from the header
+     * @param createdAtMillis the catalog creation time from the header
+     * @param source          the source name of the returned catalog
+     * @return the catalog
+     * @throws IOException if a section does not match the header
+     */
+    private static StockCatalog readPayload(ByteBuffer in, int stockCount, int stringCount,
+            long catalogVersion, long createdAtMillis, String source) throws IOException {
+        int[] stringOffsets = readInts(in);
+        byte[] blob = new byte[in.getInt()];
+        in.get(blob);
+        if (stringOffsets.length != stringCount + 1) {
+            throw new IOException("Catalog snapshot string table does not match the header");
+        }
+        String[] strings = new String[stringCount];
+        for (int i = 0; i < stringCount; i++) {
+            strings[i] = new String(blob, stringOffsets[i], stringOffsets[i + 1] - stringOffsets[i],
+                    StandardCharsets.UTF_8);
+        }
+
+        List<StockReference> baseStocks = decodeStocks(readInts(in), strings);
+        List<StockReference> deltaStocks = decodeStocks(readInts(in), strings);
+        if (baseStocks.size() + deltaStocks.size() != stockCount) {
+            throw new IOException("Catalog snapshot stock tables do not match the header");
+        }
+        BitSet removed = BitSet.valueOf(readLongs(in));
+        if (removed.length() > baseStocks.size()) {
+            throw new IOException("Catalog snapshot tombstones do not match the stock table");
+        }
+
+        StockSearchIndex baseIndex = StockSearchIndex.readFrom(in, baseStocks);
+        StockSearchIndex deltaIndex = deltaStocks.isEmpty() ? null : StockSearchIndex.readFrom(in, deltaStocks);
+        return new StockCatalog(catalogVersion, baseStocks, baseIndex, removed, deltaStocks, deltaIndex,
+                source, createdAtMillis);
+    }
+
+    /**
+     * Encodes stocks as pairs of dictionary string ids (-1 for no name).
+     *
+     * @param stocks    the stocks
+     * @param stringIds ids of the strings added so far
+     * @param strings   the strings in id order
+     * @return the stock table
+     */
+    private static int[] encodeStocks(List<StockReference> stocks, Map<String, Integer> stringIds,
+            List<String> strings) {
+        int[] table = new int[stocks.size() * 2];
+        for (int id = 0; id < stocks.size(); id++) {
+            StockReference stock = stocks.get(id);
+            table[id * 2] = stringId(stock.symbol, stringIds, strings);
+            table[id * 2 + 1] = stock.name == null ? -1 : stringId(stock.name, stringIds, strings);
+        }
+        return table;
+    }
+
+    /**
+     * Decodes a stock table written by {@link #encodeStocks}.
+     *
+     * @param table   the stock table
+     * @param strings the dictionary strings
+     * @return the stocks
+     * @throws IOException if the table has an odd length
+     */
+    private static List<StockReference> decodeStocks(int[] table, String[] strings) throws IOException {
+        if (table.length % 2 != 0) {
+            throw new IOException("Catalog snapshot stock table is corrupt");
+        }
+        List<StockReference> stocks = new ArrayList<>(table.length / 2);
+        for (int id = 0; id < table.length / 2; id++) {
+            int nameId = table[id * 2 + 1];
+            stocks.add(new StockReference(strings[table[id * 2]], nameId < 0 ? null : strings[nameId]));
+        }
+        return stocks;
+    }
+
+    /**
+     * Gets the dictionary id of a string, adding it if it is new.
+     *
+     * @param value     the string
+     * @param stringIds ids of the strings added so far
+     * @param strings   the strings in id order
+     * @return the string id
+     */
+    private static int stringId(String value, Map<String, Integer> stringIds, List<String> strings) {
+        Integer id = stringIds.get(value);
+        if (id == null) {
+            id = strings.size();
+            stringIds.put(value, id);
+            strings.add(value);
+        }
+        return id;
+    }
+
+    /**
+     * Writes the first values of an int array, preceded by their count.
+     *
+     * @param out    the output
+     * @param values the array
+     * @param length the number of values to write
+     * @throws IOException if writing fails
+     */
+    static void writeInts(DataOutputStream out, int[] values, int length) throws IOException {
+        out.writeInt(length);
+        for (int i = 0; i < length; i++) {
+            out.writeInt(values[i]);
+        }
+    }
+
+    /**
+     * Writes the first values of a char array, preceded by their count.
+     *
+     * @param out    the output
+     * @param values the array
+     * @param length the number of values to write
+     * @throws IOException if writing fails
+     */
+    static void writeChars(DataOutputStream out, char[] values, int length) throws IOException {
+        out.writeInt(length);
+        for (int i = 0; i < length; i++) {
+            out.writeChar(values[i]);
+        }
+    }
+
+    /**
+     * Writes a long array, preceded by its length.
+     *
+     * @param out    the output
+     * @param values the array
+     * @throws IOException if writing fails
+     */
+    static void writeLongs(DataOutputStream out, long[] values) throws IOException {
+        out.writeInt(values.length);
+        for (long value : values) {
+            out.writeLong(value);
+        }
+    }
+
+    /**
+     * Reads an int array written by {@link #writeInts}.
+     *
+     * @param in the input, positioned at the count
+     * @return the array
+     */
+    static int[] readInts(ByteBuffer in) {
+        int[] values = new int[in.getInt()];
+        in.asIntBuffer().get(values);
+        in.position(in.position() + values.length * 4);
+        return values;
+    }
+
+    /**
+     * Reads a char array written by {@link #writeChars}.
+     *
+     * @param in the input, positioned at the count
+     * @return the array
+     */
+    static char[] readChars(ByteBuffer in) {
+        char[] values = new char[in.getInt()];
+        in.asCharBuffer().get(values);
+        in.position(in.position() + values.length * 2);
+        return values;
+    }
+
+    /**
+     * Reads a long array written by {@link #writeLongs}.
+     *
+     * @param in the input, positioned at the count
+     * @return the array
+     */
+    static long[] readLongs(ByteBuffer in) {
+        long[] values = new long[in.getInt()];
+        in.asLongBuffer().get(values);
+        in.position(in.position() + values.length * 8);
+        return values;
+    }
+}
@@ -0,0 +1,300 @@
+package org.global.academy.search;
+
+import org.global.academy.dto.response.StockReference;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable, versioned snapshot of the stock master list together with its
+ * search index.
+ *
+ * The list and the index are built together and published as one object,
+ * so a reader that holds a catalog always sees an index that matches its
+ * list. Replacing the master list means building a new catalog and
+ * swapping a single reference.
+ *
+ * A catalog is made of segments, so a refresh does not rebuild the whole
+ * index:
+ *
+ * - a base segment (the list and index of the last full build)
+ * - a set of tombstoned base ids (delisted or renamed stocks)
+ * - a small delta segment with its own index (listed or renamed stocks)
+ *
+ * {@link #withChanges} applies a {@link CatalogDiff} by copying the
+ * tombstones and rebuilding only the delta index; {@link #compacted()}
+ * folds everything back into a new base segment. Search runs over both
+ * segments into one {@link TopKHeap}, so every stock gets the same score
+ * as it would in a single index.
+ *
+ * @author Project Group 5
+ * @version 1.0
+ */
+public class StockCatalog {
+
+    private final long version;
+    private final List<StockReference> baseStocks;
+    private final StockSearchIndex baseIndex;
+    private final BitSet removed;
+    private final List<StockReference> deltaStocks;
+    private final StockSearchIndex deltaIndex;
+    private final List<StockReference> stocks;
+    private final String source;
+    private final long loadedAtMillis;
+
+    /**
+     * Builds a catalog and its search index as a single base segment.
+     *
+     * @param stocks         the stock master list (copied)
+     * @param source         where the list came from, for monitoring
+     *                       (for example "snapshot" or "download")
+     * @param loadedAtMillis when the list was fetched from the provider
+     */
+    public StockCatalog(List<StockReference> stocks, String source, long loadedAtMillis) {
+        this(1, new ArrayList<>(stocks), null, new BitSet(), new ArrayList<>(), null, source, loadedAtMillis);
+    }
+
+    /**
+     * Wraps catalog segments. Indexes that are null are built here.
+     *
+     * @param version        the catalog version
+     * @param baseStocks     the base segment list (not copied)
+     * @param baseIndex      the index over the base list, or null
+     * @param removed        tombstoned base ids (not copied)
+     * @param deltaStocks    the delta segment list (not copied)
+     * @param deltaIndex     the index over the delta list, or null
+     * @param source         where the list came from
+     * @param loadedAtMillis when the list was fetched from the provider
+     */
+    StockCatalog(long version, List<StockReference> baseStocks, StockSearchIndex baseIndex, BitSet removed,
+            List<StockReference> deltaStocks, StockSearchIndex deltaIndex, String source, long loadedAtMillis) {
+        this.version = version;
+        this.baseStocks = Collections.unmodifiableList(baseStocks);
+        this.baseIndex = baseIndex != null ? baseIndex : new StockSearchIndex(this.baseStocks);
+        this.removed = removed;
+        this.deltaStocks = Collections.unmodifiableList(deltaStocks);
+        this.deltaIndex = deltaIndex != null || deltaStocks.isEmpty()
+                ? deltaIndex
+                : new StockSearchIndex(this.deltaStocks);
+        this.source = source;
+        this.loadedAtMillis = loadedAtMillis;
+
+        List<StockReference> live = new ArrayList<>(baseStocks.size() - removed.cardinality() + deltaStocks.size());
+        for (int id = 0; id < baseStocks.size(); id++) {
+            if (!removed.get(id)) {
+                live.add(baseStocks.get(id));
+            }
+        }
+        live.addAll(deltaStocks);
+        this.stocks = Collections.unmodifiableList(live);
+    }
+
+    /**
+     * Creates the next version of the catalog with a set of changes
+     * applied. The base segment and its index are shared; only the
+     * tombstones are copied and the delta index is rebuilt (it is small).
+     *
+     * @param diff           the changes to apply
+     * @param source         where the new list came from
+     * @param loadedAtMillis when the new list was fetched from the provider
+     * @return the new catalog
+     */
+    public StockCatalog withChanges(CatalogDiff diff, String source, long loadedAtMillis) {
+        if (diff.isEmpty()) {
+            return new StockCatalog(version + 1, baseStocks, baseIndex, removed, deltaStocks, deltaIndex,
+                    source, loadedAtMillis);
+        }
+
+        Set<String> replaced = new HashSet<>(diff.getRemoved());
+        for (StockReference stock : diff.getRenamed()) {
+            replaced.add(stock.symbol);
+        }
+
+        BitSet nextRemoved = (BitSet) removed.clone();
+        for (int id = 0; id < baseStocks.size(); id++) {
+            if (replaced.contains(baseStocks.get(id).symbol)) {
+                nextRemoved.set(id);
+            }
+        }
+
+        List<StockReference> nextDelta = new ArrayList<>();
+        for (StockReference stock : deltaStocks) {
+            if (!replaced.contains(stock.symbol)) {
+                nextDelta.add(stock);
+            }
+        }
+        nextDelta.addAll(diff.getAdded());
+        nextDelta.addAll(diff.getRenamed());
+
+        return new StockCatalog(version + 1, baseStocks, baseIndex, nextRemoved, nextDelta, null,
+                source, loadedAtMillis);
+    }
+
+    /**
+     * Folds all segments into a new base segment with a fully rebuilt
+     * index. The stocks do not change, so neither does the version.
+     *
+     * @return the compacted catalog (same stocks, version, source and load time)
+     */
+    public StockCatalog compacted() {
+        return new StockCatalog(version, new ArrayList<>(stocks), null, new BitSet(), new ArrayList<>(), null,
+                source, loadedAtMillis);
+    }
+
+    /**
+     * Finds the stocks that best match the query across all segments.
+     *
+     * @param query the search query (not blank)
+     * @param limit maximum number of results
+     * @return list of matching stock references, best match first
+     */
+    public List<StockReference> search(String query, int limit) {
+        String q = StockSearchIndex.normalize(query);
+        if (q.isEmpty() || limit <= 0) {
+            return new ArrayList<>();
+        }
+
+        TopKHeap heap = new TopKHeap(limit);
+        baseIndex.collect(q, heap, 0, removed.isEmpty() ? null : removed);
+        if (deltaIndex != null) {
+            deltaIndex.collect(q, heap, baseStocks.size(), null);
+        }
+
+        int[] ids = heap.drainBestFirst();
+        List<StockReference> results = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            results.add(id < baseStocks.size() ? baseStocks.get(id) : deltaStocks.get(id - baseStocks.size()));
+        }
+        return results;
+    }
+
+    /**
+     * Finds the stock with a symbol, using the symbol tries of the segments.
+     *
+     * @param symbol the stock symbol (any case)
+     * @return the stock, or null if the catalog does not list the symbol
+     */
+    public StockReference find(String symbol) {
+        if (deltaIndex != null) {
+            int id = deltaIndex.findSymbol(symbol);
+            if (id >= 0) {
+                return deltaStocks.get(id);
+            }
+        }
+        int id = baseIndex.findSymbol(symbol);
+        return id < 0 || removed.get(id) ? null : baseStocks.get(id);
+    }
+
+    /**
+     * Gets the stock master list (base stocks that are not tombstoned,
+     * then the delta stocks).
+     *
+     * @return unmodifiable list of stock references
+     */
+    public List<StockReference> getStocks() {
+        return stocks;
+    }
+
+    /**
+     * Gets the number of changes held outside the base segment.
+     *
+     * @return tombstoned base stocks plus delta stocks
+     */
+    public int getDeltaSize() {
+        return removed.cardinality() + deltaStocks.size();
+    }
+
+    /**
+     * Gets the catalog version, which goes up by one with every change.
+     *
+     * @return the version
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Gets where the list came from.
+     *
+     * @return the source name
+     */
+    public String getSource() {
+        return source;
+    }
+
+    /**
+     * Gets the time the list was fetched from the provider.
+     *
+     * @return epoch milliseconds
+     */
+    public long getLoadedAtMillis() {
+        return loadedAtMillis;
+    }
+
+    /**
+     * Gets the catalog and index figures for monitoring.
+     *
+     * @return map with the version, the base index figures and the
+     *         segment sizes
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("version", version);
+        stats.putAll(baseIndex.getStats());
+        stats.put("stocks", stocks.size());
+        stats.put("removedStocks", removed.cardinality());
+        stats.put("deltaStocks", deltaStocks.size());
+        return stats;
+    }
+
+    /**
+     * Gets the base segment list, for the snapshot writer.
+     *
+     * @return the base stocks, including tombstoned ones
+     */
+    List<StockReference> getBaseStocks() {
+        return baseStocks;
+    }
+
+    /**
+     * Gets the base segment index, for the snapshot writer.
+     *
+     * @return the base index
+     */
+    StockSearchIndex getBaseIndex() {
+        return baseIndex;
+    }
+
+    /**
+     * Gets the tombstoned base ids, for the snapshot writer.
+     *
+     * @return the removed ids (not to be modified)
+     */
+    BitSet getRemoved() {
+        return removed;
+    }
+
+    /**
+     * Gets the delta segment list, for the snapshot writer.
+     *
+     * @return the delta stocks
+     */
+    List<StockReference> getDeltaStocks() {
+        return deltaStocks;
+    }
+
+    /**
+     * Gets the delta segment index, for the snapshot writer.
+     *
+     * @return the delta index, or null if the delta is empty
+     */
+    StockSearchIndex getDeltaIndex() {
+        return deltaIndex;
+    }
+}
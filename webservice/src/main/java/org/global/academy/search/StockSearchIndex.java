@@ -0,0 +1,466 @@
+package org.global.academy.search;
+
+import org.global.academy.dto.response.StockReference;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Immutable, relevance-ranked search index over the stock master list.
+ *
+ * Built once whenever the master list is loaded. Symbols and names are
+ * lowercased at build time. Candidates come from:
+ *
+ * - a {@link SymbolTrie} over symbols (exact and prefix matches)
+ * - a {@link TrigramIndex} over "symbol\nname" (substring matches)
+ * - a bounded edit distance walk over the symbol trie and a trie of the
+ *   words in company names (typos such as "microsft" or "nvdia")
+ *
+ * Every candidate is scored and offered to a {@link TopKHeap}, so only the
+ * best results are kept and the candidate set is never sorted. Phases run
+ * from the best possible score down and are skipped once the heap is full
+ * of results they cannot beat.
+ *
+ * @author Project Group 5
+ * @version 1.0
+ */
+public class StockSearchIndex {
+
+    // === SCORES (higher ranks first) ===
+    private static final int EXACT_SYMBOL = 1000;
+    private static final int SYMBOL_PREFIX = 800;
+    private static final int NAME_PREFIX = 700;
+    private static final int NAME_WORD_PREFIX = 600;
+    private static final int SYMBOL_SUBSTRING = 400;
+    private static final int NAME_SUBSTRING = 300;
+    private static final int FUZZY_SYMBOL = 250;
+    private static final int FUZZY_NAME_WORD = 200;
+    private static final int PENALTY_PER_EDIT = 75;
+
+    /** Shortest query for which typo-tolerant matching is attempted */
+    private static final int MIN_FUZZY_QUERY_LENGTH = 3;
+
+    /** Largest edit distance for symbols (tickers are short, so one typo) */
+    private static final int MAX_SYMBOL_EDITS = 1;
+
+    private final List<StockReference> stocks;
+    private final String[] lowerSymbols;
+    private final String[] lowerTexts;
+    private final SymbolTrie symbolTrie;
+    private final TrigramIndex trigramIndex;
+    private final SymbolTrie wordTrie;
+    private final int[] wordOffsets;
+    private final int[] wordPostings;
+
+    /**
+     * Builds the index.
+     *
+     * @param stocks the stock master list (not modified or copied)
+     */
+    public StockSearchIndex(List<StockReference> stocks) {
+        this.stocks = stocks;
+        this.lowerSymbols = lowerSymbols(stocks);
+        this.lowerTexts = lowerTexts(stocks, lowerSymbols);
+        this.symbolTrie = new SymbolTrie(lowerSymbols);
+        this.trigramIndex = new TrigramIndex(lowerTexts);
+
+        // Distinct name words with the stocks containing them (CSR)
+        Map<String, List<Integer>> stocksByWord = new HashMap<>();
+        for (int id = 0; id < lowerTexts.length; id++) {
+            String text = lowerTexts[id];
+            int start = -1;
+            for (int i = lowerSymbols[id].length() + 1; i <= text.length(); i++) {
+                boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+                if (wordChar && start < 0) {
+                    start = i;
+                } else if (!wordChar && start >= 0) {
+                    List<Integer> ids = stocksByWord.computeIfAbsent(text.substring(start, i),
+                            k -> new ArrayList<>());
+                    if (ids.isEmpty() || ids.get(ids.size() - 1) != id) {
+                        ids.add(id);
+                    }
+                    start = -1;
+                }
+            }
+        }
+        String[] words = stocksByWord.keySet().toArray(new String[0]);
+        this.wordOffsets = new int[words.length + 1];
+        for (int w = 0; w < words.length; w++) {
+            wordOffsets[w + 1] = wordOffsets[w] + stocksByWord.get(words[w]).size();
+        }
+        this.wordPostings = new int[wordOffsets[words.length]];
+        for (int w = 0; w < words.length; w++) {
+            int pos = wordOffsets[w];
+            for (int id : stocksByWord.get(words[w])) {
+                wordPostings[pos++] = id;
+            }
+        }
+        this.wordTrie = new SymbolTrie(words);
+    }
+
+    /**
+     * Wraps index structures read back from a catalog snapshot. Only the
+     * lowercased texts are recomputed.
+     *
+     * @param stocks       the stock master list the index was built for
+     * @param symbolTrie   the symbol trie
+     * @param trigramIndex the trigram index
+     * @param wordTrie     the name word trie
+     * @param wordOffsets  offsets of each word's stock list
+     * @param wordPostings the stock lists of all words
+     */
+    private StockSearchIndex(List<StockReference> stocks, SymbolTrie symbolTrie, TrigramIndex trigramIndex,
+            SymbolTrie wordTrie, int[] wordOffsets, int[] wordPostings) {
+        this.stocks = stocks;
+        this.lowerSymbols = lowerSymbols(stocks);
+        this.lowerTexts = lowerTexts(stocks, lowerSymbols);
+        this.symbolTrie = symbolTrie;
+        this.trigramIndex = trigramIndex;
+        this.wordTrie = wordTrie;
+        this.wordOffsets = wordOffsets;
+        this.wordPostings = wordPostings;
+    }
+
+    /**
+     * Lowercases the symbols of a stock list.
+     *
+     * @param stocks the stock master list
+     * @return lowercased symbols, indexed by stock id
+     */
+    private static String[] lowerSymbols(List<StockReference> stocks) {
+        String[] lower = new String[stocks.size()];
+        for (int id = 0; id < stocks.size(); id++) {
+            lower[id] = stocks.get(id).symbol.toLowerCase(Locale.ROOT);
+        }
+        return lower;
+    }
+
+    /**
+     * Builds the lowercased "symbol\nname" texts of a stock list.
+     *
+     * @param stocks       the stock master list
+     * @param lowerSymbols lowercased symbols, indexed by stock id
+     * @return lowercased texts, indexed by stock id
+     */
+    private static String[] lowerTexts(List<StockReference> stocks, String[] lowerSymbols) {
+        String[] lower = new String[stocks.size()];
+        for (int id = 0; id < stocks.size(); id++) {
+            String name = stocks.get(id).name;
+            lower[id] = lowerSymbols[id] + "\n" + (name == null ? "" : name.toLowerCase(Locale.ROOT));
+        }
+        return lower;
+    }
+
+    /**
+     * Writes the index structures to a catalog snapshot.
+     *
+     * @param out the snapshot output
+     * @throws IOException if writing fails
+     */
+    void writeTo(DataOutputStream out) throws IOException {
+        symbolTrie.writeTo(out);
+        trigramIndex.writeTo(out);
+        wordTrie.writeTo(out);
+        CatalogSnapshotFile.writeInts(out, wordOffsets, wordOffsets.length);
+        CatalogSnapshotFile.writeInts(out, wordPostings, wordPostings.length);
+    }
+
+    /**
+     * Reads index structures written by {@link #writeTo(DataOutputStream)}.
+     *
+     * @param in     the snapshot payload, positioned at the index
+     * @param stocks the stock list the index was built for
+     * @return the index
+     * @throws IOException if the index does not match the stock list
+     */
+    static StockSearchIndex readFrom(ByteBuffer in, List<StockReference> stocks) throws IOException {
+        SymbolTrie symbolTrie = SymbolTrie.readFrom(in);
+        TrigramIndex trigramIndex = TrigramIndex.readFrom(in);
+        SymbolTrie wordTrie = SymbolTrie.readFrom(in);
+        int[] wordOffsets = CatalogSnapshotFile.readInts(in);
+        int[] wordPostings = CatalogSnapshotFile.readInts(in);
+        if (symbolTrie.keyCount() != stocks.size() || wordOffsets.length != wordTrie.keyCount() + 1) {
+            throw new IOException("Catalog snapshot index does not match the stock list");
+        }
+        return new StockSearchIndex(stocks, symbolTrie, trigramIndex, wordTrie, wordOffsets, wordPostings);
+    }
+
+    /**
+     * Finds the stocks that best match the query.
+     *
+     * @param query the search query (not blank)
+     * @param limit maximum number of results
+     * @return list of matching stock references, best match first
+     */
+    public List<StockReference> search(String query, int limit) {
+        String q = normalize(query);
+        if (q.isEmpty() || limit <= 0) {
+            return new ArrayList<>();
+        }
+        TopKHeap heap = new TopKHeap(limit);
+        collect(q, heap, 0, null);
+        return toResults(heap);
+    }
+
+    /**
+     * Finds the stock with a symbol.
+     *
+     * @param symbol the stock symbol (any case)
+     * @return the stock id, or -1 if no stock has the symbol
+     */
+    int findSymbol(String symbol) {
+        int node = symbolTrie.find(symbol.toLowerCase(Locale.ROOT));
+        return node < 0 ? -1 : symbolTrie.terminalId(node);
+    }
+
+    /**
+     * Normalizes a query the way the index texts are normalized.
+     *
+     * @param query the raw query
+     * @return the trimmed, lowercased query
+     */
+    static String normalize(String query) {
+        return query.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Scores the matches of a query into a heap that may be shared with
+     * other indexes (the segments of a {@link StockCatalog}).
+     *
+     * Phases are skipped when the heap is already full of results they
+     * cannot beat, including results offered by earlier segments.
+     *
+     * @param q        the normalized, non-empty query
+     * @param heap     the result heap
+     * @param idOffset added to every stock id offered to the heap
+     * @param removed  stock ids to leave out, or null
+     */
+    void collect(String q, TopKHeap heap, int idOffset, BitSet removed) {
+        // Exact and prefix symbol matches
+        int node = symbolTrie.find(q);
+        if (node >= 0) {
+            for (int pos = symbolTrie.rangeStart(node); pos < symbolTrie.rangeEnd(node); pos++) {
+                offerScored(symbolTrie.idAt(pos), q, heap, idOffset, removed);
+            }
+        }
+
+        // Substring matches (symbol or name)
+        if (heap.threshold() >= NAME_PREFIX) {
+            return;
+        } else if (q.length() >= 3) {
+            int trigram = trigramIndex.rarestTrigram(q);
+            if (trigram >= 0) {
+                for (int pos = trigramIndex.postingStart(trigram); pos < trigramIndex.postingEnd(trigram); pos++) {
+                    offerScored(trigramIndex.postingAt(pos), q, heap, idOffset, removed);
+                }
+            }
+        } else {
+            // Too short for trigrams; the pre-lowercased texts are scanned instead
+            for (int id = 0; id < lowerTexts.length; id++) {
+                offerScored(id, q, heap, idOffset, removed);
+            }
+        }
+
+        // Typo-tolerant matches for single-word queries
+        if (q.length() >= MIN_FUZZY_QUERY_LENGTH && q.indexOf(' ') < 0) {
+            if (heap.threshold() < FUZZY_SYMBOL - PENALTY_PER_EDIT &&
+                    q.length() - MAX_SYMBOL_EDITS <= symbolTrie.maxLength()) {
+                fuzzyWalk(symbolTrie, q, MAX_SYMBOL_EDITS, (id, edits) ->
+                        offer(id, FUZZY_SYMBOL - edits * PENALTY_PER_EDIT, heap, idOffset, removed));
+            }
+            int maxEdits = q.length() >= 6 ? 2 : 1;
+            if (heap.threshold() < FUZZY_NAME_WORD - PENALTY_PER_EDIT) {
+                fuzzyWalk(wordTrie, q, maxEdits, (word, edits) -> {
+                    for (int pos = wordOffsets[word]; pos < wordOffsets[word + 1]; pos++) {
+                        offer(wordPostings[pos], FUZZY_NAME_WORD - edits * PENALTY_PER_EDIT, heap, idOffset, removed);
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+     * Converts the heap contents to stock references.
+     *
+     * @param heap the result heap
+     * @return the stocks, best match first
+     */
+    private List<StockReference> toResults(TopKHeap heap) {
+        int[] ids = heap.drainBestFirst();
+        List<StockReference> results = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            results.add(stocks.get(id));
+        }
+        return results;
+    }
+
+    /**
+     * Scores a candidate against the query and offers it to the heap.
+     *
+     * @param id       the stock id
+     * @param q        the lowercased query
+     * @param heap     the result heap
+     * @param idOffset added to the id offered to the heap
+     * @param removed  stock ids to leave out, or null
+     */
+    private void offerScored(int id, String q, TopKHeap heap, int idOffset, BitSet removed) {
+        if (removed != null && removed.get(id)) {
+            return;
+        }
+        int score = score(id, q);
+        if (score > 0) {
+            heap.offer(id + idOffset, score);
+        }
+    }
+
+    /**
+     * Offers a scored candidate to the heap unless it has been removed.
+     *
+     * @param id       the stock id
+     * @param score    the score
+     * @param heap     the result heap
+     * @param idOffset added to the id offered to the heap
+     * @param removed  stock ids to leave out, or null
+     */
+    private static void offer(int id, int score, TopKHeap heap, int idOffset, BitSet removed) {
+        if (removed == null || !removed.get(id)) {
+            heap.offer(id + idOffset, score);
+        }
+    }
+
+    /**
+     * Scores how well a stock matches the query without typos.
+     *
+     * Shorter symbols and earlier name positions are preferred within
+     * each class, so "AAPL" ranks above "AAPLW" for "aap".
+     *
+     * @param id the stock id
+     * @param q  the lowercased query
+     * @return the score, or 0 if the stock does not contain the query
+     */
+    private int score(int id, String q) {
+        String symbol = lowerSymbols[id];
+        String text = lowerTexts[id];
+
+        if (symbol.equals(q)) {
+            return EXACT_SYMBOL;
+        }
+        if (symbol.startsWith(q)) {
+            return SYMBOL_PREFIX - Math.min(99, symbol.length() - q.length());
+        }
+
+        int nameStart = symbol.length() + 1;
+        if (text.startsWith(q, nameStart)) {
+            return NAME_PREFIX - Math.min(99, text.length() - nameStart - q.length()) / 4;
+        }
+
+        int first = text.indexOf(q, nameStart);
+        for (int at = first; at >= 0; at = text.indexOf(q, at + 1)) {
+            if (!Character.isLetterOrDigit(text.charAt(at - 1))) {
+                return NAME_WORD_PREFIX - Math.min(99, at - nameStart);
+            }
+        }
+        if (symbol.contains(q)) {
+            return SYMBOL_SUBSTRING;
+        }
+        if (first >= 0) {
+            return NAME_SUBSTRING - Math.min(99, first - nameStart);
+        }
+        return 0;
+    }
+
+    /** Receives the terminal entries reached by a fuzzy trie walk */
+    @FunctionalInterface
+    private interface FuzzyMatch {
+        void accept(int terminalId, int edits);
+    }
+
+    /**
+     * Finds every trie entry within a bounded Levenshtein distance of the
+     * query, pruning branches whose best possible distance is already too
+     * large.
+     *
+     * @param trie     the trie to walk
+     * @param q        the lowercased query
+     * @param maxEdits the largest allowed edit distance
+     * @param match    receives each entry with its distance
+     */
+    private static void fuzzyWalk(SymbolTrie trie, String q, int maxEdits, FuzzyMatch match) {
+        int maxDepth = q.length() + maxEdits;
+        int[][] rows = new int[maxDepth + 1][q.length() + 1];
+        for (int j = 0; j <= q.length(); j++) {
+            rows[0][j] = j;
+        }
+        fuzzyWalk(trie, 0, 0, q, maxEdits, rows, match);
+    }
+
+    /**
+     * Walks the children of one trie node, extending the edit distance
+     * table by one row per character.
+     *
+     * @param trie     the trie to walk
+     * @param node     the current node
+     * @param depth    the depth of the node
+     * @param q        the lowercased query
+     * @param maxEdits the largest allowed edit distance
+     * @param rows     the edit distance table (one row per depth)
+     * @param match    receives each entry with its distance
+     */
+    private static void fuzzyWalk(SymbolTrie trie, int node, int depth, String q, int maxEdits,
+            int[][] rows, FuzzyMatch match) {
+        int[] previous = rows[depth];
+        int[] current = rows[depth + 1];
+        int m = q.length();
+
+        for (int child = trie.firstChild(node); child != 0; child = trie.nextSibling(child)) {
+            char c = trie.charOf(child);
+            current[0] = depth + 1;
+            int rowMin = current[0];
+            for (int j = 1; j <= m; j++) {
+                int cost = q.charAt(j - 1) == c ? 0 : 1;
+                current[j] = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+
+            int terminal = trie.terminalId(child);
+            if (terminal >= 0 && current[m] <= maxEdits && current[m] > 0) {
+                match.accept(terminal, current[m]);
+            }
+            if (rowMin <= maxEdits && depth + 1 < rows.length - 1) {
+                fuzzyWalk(trie, child, depth + 1, q, maxEdits, rows, match);
+            }
+        }
+    }
+
+    /**
+     * Gets the number of indexed stocks.
+     *
+     * @return the stock count
+     */
+    public int size() {
+        return stocks.size();
+    }
+
+    /**
+     * Gets the index figures for monitoring.
+     *
+     * @return map with stock, trie node, trigram, posting and word counts
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("stocks", stocks.size());
+        stats.put("trieNodes", symbolTrie.nodeCount());
+        stats.put("trigrams", trigramIndex.trigramCount());
+        stats.put("postings", trigramIndex.postingCount());
+        stats.put("nameWords", wordOffsets.length - 1);
+        return stats;
+    }
+}
@@ -0,0 +1,305 @@
+package org.global.academy.search;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.stream.IntStream;
+
+/**
+ * Array-based trie over lowercased stock symbols.
+ *
+ * Nodes live in parallel int/char arrays (first child, next sibling) so the
+ * trie is a handful of flat arrays instead of one object per node. Symbols
+ * are inserted in sorted order, which means the stocks below any node form
+ * one contiguous range of the sorted id array: a prefix lookup walks at
+ * most one node per query character and then returns that range, without
+ * allocating anything.
+ *
+ * @author Project Group 5
+ * @version 1.0
+ */
+public class SymbolTrie {
+
+    private static final int ROOT = 0;
+
+    private char[] chars;
+    private int[] firstChild;
+    private int[] nextSibling;
+    private int[] rangeStart;
+    private int[] rangeEnd;
+    private int[] terminal;
+    private int nodeCount;
+    private int maxLength;
+
+    private final int[] sortedIds;
+
+    /**
+     * Builds the trie.
+     *
+     * @param lowerSymbols lowercased symbols, indexed by stock id
+     */
+    public SymbolTrie(String[] lowerSymbols) {
+        this.sortedIds = IntStream.range(0, lowerSymbols.length).boxed()
+                .sorted(Comparator.comparing(id -> lowerSymbols[id]))
+                .mapToInt(Integer::intValue)
+                .toArray();
+
+        int initial = Math.max(16, lowerSymbols.length * 2);
+        chars = new char[initial];
+        firstChild = new int[initial];
+        nextSibling = new int[initial];
+        rangeStart = new int[initial];
+        rangeEnd = new int[initial];
+        terminal = new int[initial];
+        int[] lastChild = new int[initial];
+        newNode('\0');
+
+        for (int pos = 0; pos < sortedIds.length; pos++) {
+            String symbol = lowerSymbols[sortedIds[pos]];
+            maxLength = Math.max(maxLength, symbol.length());
+            int node = ROOT;
+            rangeEnd[ROOT] = pos + 1;
+            for (int i = 0; i < symbol.length(); i++) {
+                char c = symbol.charAt(i);
+                int last = lastChild[node];
+                int child;
+                if (last != 0 && chars[last] == c) {
+                    child = last;
+                } else {
+                    // Sorted insertion: a new child always goes after the existing ones
+                    child = newNode(c);
+                    if (child >= lastChild.length) {
+                        lastChild = Arrays.copyOf(lastChild, chars.length);
+                    }
+                    rangeStart[child] = pos;
+                    if (last == 0) {
+                        firstChild[node] = child;
+                    } else {
+                        nextSibling[last] = child;
+                    }
+                    lastChild[node] = child;
+                }
+                rangeEnd[child] = pos + 1;
+                node = child;
+            }
+            if (terminal[node] < 0) {
+                terminal[node] = sortedIds[pos];
+            }
+        }
+    }
+
+    /**
+     * Wraps node arrays read back from a catalog snapshot.
+     *
+     * @param chars       edge characters
+     * @param firstChild  first child of each node
+     * @param nextSibling next sibling of each node
+     * @param rangeStart  start of each node's sorted id range
+     * @param rangeEnd    end of each node's sorted id range
+     * @param terminal    id ending at each node, or -1
+     * @param sortedIds   ids in key order
+     * @param maxLength   length of the longest key
+     */
+    private SymbolTrie(char[] chars, int[] firstChild, int[] nextSibling, int[] rangeStart,
+            int[] rangeEnd, int[] terminal, int[] sortedIds, int maxLength) {
+        this.chars = chars;
+        this.firstChild = firstChild;
+        this.nextSibling = nextSibling;
+        this.rangeStart = rangeStart;
+        this.rangeEnd = rangeEnd;
+        this.terminal = terminal;
+        this.sortedIds = sortedIds;
+        this.nodeCount = chars.length;
+        this.maxLength = maxLength;
+    }
+
+    /**
+     * Writes the trie to a catalog snapshot.
+     *
+     * @param out the snapshot output
+     * @throws IOException if writing fails
+     */
+    void writeTo(DataOutputStream out) throws IOException {
+        CatalogSnapshotFile.writeChars(out, chars, nodeCount);
+        CatalogSnapshotFile.writeInts(out, firstChild, nodeCount);
+        CatalogSnapshotFile.writeInts(out, nextSibling, nodeCount);
+        CatalogSnapshotFile.writeInts(out, rangeStart, nodeCount);
+        CatalogSnapshotFile.writeInts(out, rangeEnd, nodeCount);
+        CatalogSnapshotFile.writeInts(out, terminal, nodeCount);
+        CatalogSnapshotFile.writeInts(out, sortedIds, sortedIds.length);
+        out.writeInt(maxLength);
+    }
+
+    /**
+     * Reads a trie written by {@link #writeTo(DataOutputStream)}.
+     *
+     * @param in the snapshot payload, positioned at the trie
+     * @return the trie
+     */
+    static SymbolTrie readFrom(ByteBuffer in) {
+        char[] chars = CatalogSnapshotFile.readChars(in);
+        int[] firstChild = CatalogSnapshotFile.readInts(in);
+        int[] nextSibling = CatalogSnapshotFile.readInts(in);
+        int[] rangeStart = CatalogSnapshotFile.readInts(in);
+        int[] rangeEnd = CatalogSnapshotFile.readInts(in);
+        int[] terminal = CatalogSnapshotFile.readInts(in);
+        int[] sortedIds = CatalogSnapshotFile.readInts(in);
+        int maxLength = in.getInt();
+        return new SymbolTrie(chars, firstChild, nextSibling, rangeStart, rangeEnd, terminal,
+                sortedIds, maxLength);
+    }
+
+    /**
+     * Gets the number of keys in the trie.
+     *
+     * @return the key count
+     */
+    int keyCount() {
+        return sortedIds.length;
+    }
+
+    /**
+     * Appends a node, growing the arrays when needed.
+     *
+     * @param c the character on the edge into the node
+     * @return the node index
+     */
+    private int newNode(char c) {
+        if (nodeCount == chars.length) {
+            int size = nodeCount * 2;
+            chars = Arrays.copyOf(chars, size);
+            firstChild = Arrays.copyOf(firstChild, size);
+            nextSibling = Arrays.copyOf(nextSibling, size);
+            rangeStart = Arrays.copyOf(rangeStart, size);
+            rangeEnd = Arrays.copyOf(rangeEnd, size);
+            terminal = Arrays.copyOf(terminal, size);
+        }
+        int node = nodeCount++;
+        chars[node] = c;
+        terminal[node] = -1;
+        return node;
+    }
+
+    /**
+     * Finds the node reached by a prefix.
+     *
+     * @param lowerPrefix the lowercased prefix
+     * @return the node, or -1 if no symbol starts with the prefix
+     */
+    public int find(String lowerPrefix) {
+        int node = ROOT;
+        for (int i = 0; i < lowerPrefix.length() && node >= 0; i++) {
+            node = child(node, lowerPrefix.charAt(i));
+        }
+        return node;
+    }
+
+    /**
+     * Finds the child of a node for a character.
+     *
+     * @param node the parent node
+     * @param c    the character
+     * @return the child node, or -1 if there is none
+     */
+    public int child(int node, char c) {
+        for (int child = firstChild[node]; child != 0; child = nextSibling[child]) {
+            if (chars[child] == c) {
+                return child;
+            }
+            if (chars[child] > c) {
+                break;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Gets the first child of a node.
+     *
+     * @param node the node
+     * @return the first child, or 0 if the node is a leaf
+     */
+    public int firstChild(int node) {
+        return firstChild[node];
+    }
+
+    /**
+     * Gets the next sibling of a node.
+     *
+     * @param node the node
+     * @return the next sibling, or 0 if there is none
+     */
+    public int nextSibling(int node) {
+        return nextSibling[node];
+    }
+
+    /**
+     * Gets the character on the edge into a node.
+     *
+     * @param node the node
+     * @return the character
+     */
+    public char charOf(int node) {
+        return chars[node];
+    }
+
+    /**
+     * Gets the stock whose symbol ends at a node.
+     *
+     * @param node the node
+     * @return the stock id, or -1 if no symbol ends here
+     */
+    public int terminalId(int node) {
+        return terminal[node];
+    }
+
+    /**
+     * Gets the start of the sorted range of stocks below a node.
+     *
+     * @param node the node
+     * @return the first position (inclusive) for {@link #idAt(int)}
+     */
+    public int rangeStart(int node) {
+        return rangeStart[node];
+    }
+
+    /**
+     * Gets the end of the sorted range of stocks below a node.
+     *
+     * @param node the node
+     * @return the last position (exclusive) for {@link #idAt(int)}
+     */
+    public int rangeEnd(int node) {
+        return rangeEnd[node];
+    }
+
+    /**
+     * Gets the stock id at a position in symbol order.
+     *
+     * @param position the position
+     * @return the stock id
+     */
+    public int idAt(int position) {
+        return sortedIds[position];
+    }
+
+    /**
+     * Gets the length of the longest key in the trie.
+     *
+     * @return the maximum key length
+     */
+    public int maxLength() {
+        return maxLength;
+    }
+
+    /**
+     * Gets the number of trie nodes.
+     *
+     * @return the node count
+     */
+    public int nodeCount() {
+        return nodeCount;
+    }
+}
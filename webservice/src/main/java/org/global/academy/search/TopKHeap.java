@@ -0,0 +1,221 @@
+package org.global.academy.search;
+
+import java.util.Arrays;
+
+/**
+ * Bounded min-heap that keeps the k best scored ids.
+ *
+ * Score and id are packed into one long (score in the high bits, inverted
+ * id in the low bits) so a larger key is a better result and equal scores
+ * prefer the lower id. Offering n candidates costs O(n log k) and never
+ * sorts the full candidate set.
+ *
+ * An id offered again (the search phases can find the same stock more
+ * than once) is found through a small open-addressing table from id to
+ * heap slot, so the duplicate check does not scan the heap.
+ *
+ * @author Project Group 5
+ * @version 1.0
+ */
+public class TopKHeap {
+
+    private final long[] keys;
+    /** Table slot of each heap entry */
+    private final int[] tableSlots;
+    /** Id + 1 per table slot, 0 for an empty slot */
+    private final int[] tableIds;
+    /** Heap index per table slot */
+    private final int[] heapIndexes;
+    private final int mask;
+    private int size;
+
+    /**
+     * Constructs a new TopKHeap.
+     *
+     * @param k the number of results to keep
+     */
+    public TopKHeap(int k) {
+        this.keys = new long[Math.max(1, k)];
+        this.tableSlots = new int[keys.length];
+        int tableSize = Integer.highestOneBit(2 * keys.length - 1) << 1;
+        this.tableIds = new int[tableSize];
+        this.heapIndexes = new int[tableSize];
+        this.mask = tableSize - 1;
+    }
+
+    /**
+     * Offers a scored id. If the id is already in the heap, it keeps the
+     * better of the two scores.
+     *
+     * @param id    the id (non-negative)
+     * @param score the score (non-negative; higher is better)
+     */
+    public void offer(int id, int score) {
+        long key = ((long) score << 32) | (0xFFFFFFFFL - id);
+        if (size == keys.length && key <= keys[0]) {
+            return;
+        }
+
+        int slot = home(id);
+        while (tableIds[slot] != 0) {
+            if (tableIds[slot] == id + 1) {
+                int i = heapIndexes[slot];
+                if (key > keys[i]) {
+                    keys[i] = key;
+                    siftDown(i);
+                }
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        if (size < keys.length) {
+            tableIds[slot] = id + 1;
+            place(size, key, slot);
+            siftUp(size++);
+        } else {
+            // Removing the evicted id can move entries back, so the free slot is probed again
+            removeFromTable(tableSlots[0]);
+            slot = home(id);
+            while (tableIds[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            tableIds[slot] = id + 1;
+            place(0, key, slot);
+            siftDown(0);
+        }
+    }
+
+    /**
+     * Gets the lowest score a new entry must beat to get into the heap.
+     *
+     * @return the minimum score of a full heap, or -1 while it has room
+     */
+    public int threshold() {
+        return size < keys.length ? -1 : (int) (keys[0] >>> 32);
+    }
+
+    /**
+     * Removes all entries and returns the ids, best first.
+     *
+     * @return the ids ordered by descending score
+     */
+    public int[] drainBestFirst() {
+        int[] ids = new int[size];
+        for (int i = size - 1; i >= 0; i--) {
+            ids[i] = idOf(keys[0]);
+            size--;
+            place(0, keys[size], tableSlots[size]);
+            siftDown(0);
+        }
+        Arrays.fill(tableIds, 0);
+        return ids;
+    }
+
+    /**
+     * Extracts the id from a packed key.
+     *
+     * @param key the key
+     * @return the id
+     */
+    private static int idOf(long key) {
+        return (int) (0xFFFFFFFFL - (key & 0xFFFFFFFFL));
+    }
+
+    /**
+     * Gets the first table slot probed for an id.
+     *
+     * @param id the id
+     * @return the table slot
+     */
+    private int home(int id) {
+        int h = id * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    /**
+     * Stores a heap entry and points its table slot at it.
+     *
+     * @param i    the heap index
+     * @param key  the packed key
+     * @param slot the table slot of the entry's id
+     */
+    private void place(int i, long key, int slot) {
+        keys[i] = key;
+        tableSlots[i] = slot;
+        heapIndexes[slot] = i;
+    }
+
+    /**
+     * Removes an id from the table, moving later entries of its probe run
+     * back so lookups need no tombstones.
+     *
+     * @param slot the table slot to clear
+     */
+    private void removeFromTable(int slot) {
+        int hole = slot;
+        for (int j = (slot + 1) & mask; tableIds[j] != 0; j = (j + 1) & mask) {
+            int home = home(tableIds[j] - 1);
+            if (((j - home) & mask) >= ((j - hole) & mask)) {
+                tableIds[hole] = tableIds[j];
+                heapIndexes[hole] = heapIndexes[j];
+                tableSlots[heapIndexes[hole]] = hole;
+                hole = j;
+            }
+        }
+        tableIds[hole] = 0;
+    }
+
+    /**
+     * Moves an entry up to restore heap order.
+     *
+     * @param i the entry index
+     */
+    private void siftUp(int i) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (keys[parent] <= keys[i]) {
+                break;
+            }
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    /**
+     * Moves an entry down to restore heap order.
+     *
+     * @param i the entry index
+     */
+    private void siftDown(int i) {
+        while (true) {
+            int smallest = i;
+            int left = 2 * i + 1;
+            int right = left + 1;
+            if (left < size && keys[left] < keys[smallest]) {
+                smallest = left;
+            }
+            if (right < size && keys[right] < keys[smallest]) {
+                smallest = right;
+            }
+            if (smallest == i) {
+                return;
+            }
+            swap(i, smallest);
+            i = smallest;
+        }
+    }
+
+    /**
+     * Swaps two entries.
+     *
+     * @param a first index
+     * @param b second index
+     */
+    private void swap(int a, int b) {
+        long key = keys[a];
+        int slot = tableSlots[a];
+        place(a, keys[b], tableSlots[b]);
+        place(b, key, slot);
+    }
+}
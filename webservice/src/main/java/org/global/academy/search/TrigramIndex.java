@@ -0,0 +1,202 @@
+package org.global.academy.search;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Trigram index over lowercased texts, stored in compressed sparse row form.
+ *
+ * Every distinct three-character sequence of a text is encoded as a long
+ * key. The keys are kept sorted in one array; the posting list of key i
+ * (the ascending ids of all texts containing it) is
+ * postings[offsets[i] .. offsets[i + 1]). Looking up a trigram is a binary
+ * search, and posting lists are read in place.
+ *
+ * Any text containing a query of three or more characters contains every
+ * trigram of the query, so scanning the shortest of those posting lists
+ * and checking each candidate finds all matches.
+ *
+ * @author Project Group 5
+ * @version 1.0
+ */
+public class TrigramIndex {
+
+    private final long[] keys;
+    private final int[] offsets;
+    private final int[] postings;
+
+    /**
+     * Builds the index.
+     *
+     * @param lowerTexts lowercased texts, indexed by id
+     */
+    public TrigramIndex(String[] lowerTexts) {
+        // Pass 1: document frequency of every trigram
+        Map<Long, Integer> counts = new HashMap<>();
+        Set<Long> seen = new HashSet<>();
+        for (String text : lowerTexts) {
+            seen.clear();
+            for (int i = 0; i + 3 <= text.length(); i++) {
+                long key = key(text, i);
+                if (seen.add(key)) {
+                    counts.merge(key, 1, Integer::sum);
+                }
+            }
+        }
+
+        keys = new long[counts.size()];
+        int k = 0;
+        for (long key : counts.keySet()) {
+            keys[k++] = key;
+        }
+        Arrays.sort(keys);
+
+        offsets = new int[keys.length + 1];
+        for (int i = 0; i < keys.length; i++) {
+            offsets[i + 1] = offsets[i] + counts.get(keys[i]);
+        }
+
+        // Pass 2: fill the posting lists in id order
+        postings = new int[offsets[keys.length]];
+        int[] fill = Arrays.copyOf(offsets, keys.length);
+        for (int id = 0; id < lowerTexts.length; id++) {
+            String text = lowerTexts[id];
+            for (int i = 0; i + 3 <= text.length(); i++) {
+                int index = Arrays.binarySearch(keys, key(text, i));
+                int last = fill[index] - 1;
+                if (last < offsets[index] || postings[last] != id) {
+                    postings[fill[index]++] = id;
+                }
+            }
+        }
+    }
+
+    /**
+     * Wraps arrays read back from a catalog snapshot.
+     *
+     * @param keys     sorted trigram keys
+     * @param offsets  posting list offsets (one more than the keys)
+     * @param postings the posting lists
+     */
+    private TrigramIndex(long[] keys, int[] offsets, int[] postings) {
+        this.keys = keys;
+        this.offsets = offsets;
+        this.postings = postings;
+    }
+
+    /**
+     * Writes the index to a catalog snapshot.
+     *
+     * @param out the snapshot output
+     * @throws IOException if writing fails
+     */
+    void writeTo(DataOutputStream out) throws IOException {
+        CatalogSnapshotFile.writeLongs(out, keys);
+        CatalogSnapshotFile.writeInts(out, offsets, offsets.length);
+        CatalogSnapshotFile.writeInts(out, postings, postings.length);
+    }
+
+    /**
+     * Reads an index written by {@link #writeTo(DataOutputStream)}.
+     *
+     * @param in the snapshot payload, positioned at the index
+     * @return the index
+     */
+    static TrigramIndex readFrom(ByteBuffer in) {
+        long[] keys = CatalogSnapshotFile.readLongs(in);
+        int[] offsets = CatalogSnapshotFile.readInts(in);
+        int[] postings = CatalogSnapshotFile.readInts(in);
+        return new TrigramIndex(keys, offsets, postings);
+    }
+
+    /**
+     * Encodes the trigram starting at a position.
+     *
+     * @param text  the text
+     * @param start the position of the first character
+     * @return the trigram key
+     */
+    private static long key(String text, int start) {
+        return ((long) text.charAt(start) << 32) |
+                ((long) text.charAt(start + 1) << 16) |
+                text.charAt(start + 2);
+    }
+
+    /**
+     * Finds the trigram of a query with the shortest posting list.
+     *
+     * @param lowerQuery the lowercased query (at least three characters)
+     * @return the trigram index, or -1 if some trigram of the query does
+     *         not occur in any text (so nothing can match)
+     */
+    public int rarestTrigram(String lowerQuery) {
+        int rarest = -1;
+        int rarestLength = Integer.MAX_VALUE;
+        for (int i = 0; i + 3 <= lowerQuery.length(); i++) {
+            int index = Arrays.binarySearch(keys, key(lowerQuery, i));
+            if (index < 0) {
+                return -1;
+            }
+            int length = offsets[index + 1] - offsets[index];
+            if (length < rarestLength) {
+                rarest = index;
+                rarestLength = length;
+            }
+        }
+        return rarest;
+    }
+
+    /**
+     * Gets the start of a trigram's posting list.
+     *
+     * @param trigram the trigram index
+     * @return the first position (inclusive) for {@link #postingAt(int)}
+     */
+    public int postingStart(int trigram) {
+        return offsets[trigram];
+    }
+
+    /**
+     * Gets the end of a trigram's posting list.
+     *
+     * @param trigram the trigram index
+     * @return the last position (exclusive) for {@link #postingAt(int)}
+     */
+    public int postingEnd(int trigram) {
+        return offsets[trigram + 1];
+    }
+
+    /**
+     * Gets a text id from the posting lists.
+     *
+     * @param position the position
+     * @return the text id
+     */
+    public int postingAt(int position) {
+        return postings[position];
+    }
+
+    /**
+     * Gets the number of distinct trigrams.
+     *
+     * @return the trigram count
+     */
+    public int trigramCount() {
+        return keys.length;
+    }
+
+    /**
+     * Gets the total length of all posting lists.
+     *
+     * @return the posting count
+     */
+    public int postingCount() {
+        return postings.length;
+    }
+}
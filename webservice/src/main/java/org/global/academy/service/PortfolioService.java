@@ -1,22 +1,35 @@
 package org.global.academy.service;
 
+import org.global.academy.config.AppConfig;
 import org.global.academy.dto.request.BuyStockRequest;
+import org.global.academy.dto.request.SellStockRequest;
+import org.global.academy.dto.response.ExposureView;
+import org.global.academy.dto.response.PortfolioView;
+import org.global.academy.dto.response.StockReference;
+import org.global.academy.market.RequestPriority;
+import org.global.academy.model.LotReliefMethod;
 import org.global.academy.model.Portfolio;
+import org.global.academy.model.PositionSummary;
+import org.global.academy.model.Sale;
 import org.global.academy.model.Stock;
 import org.global.academy.repository.PortfolioRepository;
 import org.global.academy.repository.StockRepository;
+import org.global.academy.valuation.PortfolioValuation;
+import org.global.academy.valuation.ValuationEngine;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * Service class for portfolio-related business logic.
  * 
  * Handles portfolio operations including viewing holdings,
- * buying stocks, and calculating portfolio values with current prices.
+ * buying and selling stocks, and calculating portfolio values with current prices.
  * 
  * @author Project Group 5
  * @version 1.0
@@ -25,93 +38,225 @@ public class PortfolioService {
 
     private final PortfolioRepository portfolioRepository;
     private final StockRepository stockRepository;
+    private final ValuationEngine valuationEngine;
 
     /**
      * Constructs a new PortfolioService.
      * 
      * @param portfolioRepository the portfolio repository for data access
      * @param stockRepository     the stock repository for price data
+     * @param valuationEngine     keeps every portfolio valued at current prices
      */
     public PortfolioService(PortfolioRepository portfolioRepository,
-            StockRepository stockRepository) {
+            StockRepository stockRepository,
+            ValuationEngine valuationEngine) {
         this.portfolioRepository = portfolioRepository;
         this.stockRepository = stockRepository;
+        this.valuationEngine = valuationEngine;
     }
 
     /**
      * Gets the portfolio data for a user with current prices.
      * 
+     * Values and totals come from the valuation engine, which keeps them
+     * current as prices arrive, so nothing is fetched or recomputed here.
+     * Holdings whose price is not fresh (for example while the market data
+     * API is unavailable) are marked with "stale": true, and the response
+     * carries "stale": true if any holding is stale; their prices are
+     * refreshed in the background.
+     * 
      * @param username the username
-     * @return map containing portfolio data (holdings, totalValue, totalGain)
+     * @return the portfolio valued at current prices
      */
-    public Map<String, Object> getPortfolioData(String username) {
-        Portfolio portfolio = portfolioRepository.getPortfolio(username);
-
-        Map<String, Map<String, Object>> aggregatedMap = portfolio.getAggregatedHoldings();
-        List<Map<String, Object>> holdings = new ArrayList<>(aggregatedMap.values());
-
-        // Get live prices
-        List<String> symbols = holdings.stream()
-                .map(h -> h.get("symbol").toString())
-                .collect(Collectors.toList());
-
-        Map<String, Double> currentPrices = stockRepository.fetchCurrentPrices(symbols);
-
-        // Calculate current values and gains
-        for (Map<String, Object> holding : holdings) {
-            String symbol = holding.get("symbol").toString();
-            double currentPrice = currentPrices.getOrDefault(symbol,
-                    ((Number) holding.get("price")).doubleValue());
-            double purchasePrice = ((Number) holding.get("purchasePrice")).doubleValue();
-            int quantity = ((Number) holding.get("quantity")).intValue();
-
-            double gain = (currentPrice - purchasePrice) * quantity;
-            double currentValue = currentPrice * quantity;
+    public PortfolioView getPortfolioData(String username) {
+        PortfolioValuation valuation = valuationEngine.getValuation(username);
+        if (valuation == null) {
+            valuation = valuationEngine.updatePortfolio(username, portfolioRepository.getPortfolio(username));
+        }
 
-            holding.put("currentPrice", currentPrice);
-            holding.put("gain", gain);
-            holding.put("currentValue", currentValue);
+        List<String> symbols = valuation.getSymbols();
+        Set<String> staleSymbols = stockRepository.getStaleSymbols(symbols);
+        if (!staleSymbols.isEmpty()) {
+            // New prices reach the valuation engine as ticks
+            stockRepository.getCachedPrices(new ArrayList<>(staleSymbols), RequestPriority.INTERACTIVE);
         }
 
-        double totalValue = holdings.stream()
-                .mapToDouble(h -> ((Number) h.get("currentValue")).doubleValue())
-                .sum();
+        return valuation.toView(username, staleSymbols);
+    }
 
-        double totalGain = holdings.stream()
-                .mapToDouble(h -> ((Number) h.get("gain")).doubleValue())
-                .sum();
+    /**
+     * Gets the firm-wide exposure across all portfolios.
+     * 
+     * The repository keeps the holdings per symbol for every user, loaded
+     * or not; the valuation engine prices them.
+     * 
+     * @return the exposure per symbol with totals
+     */
+    public ExposureView getExposure() {
+        boolean complete = portfolioRepository.isScanComplete();
+        ExposureView view = valuationEngine.getExposure(portfolioRepository.getSymbolHoldings());
+        view.portfolios = portfolioRepository.getPortfoliosWithPositions();
+        view.complete = complete;
+        return view;
+    }
 
-        Map<String, Object> result = new HashMap<>();
-        result.put("username", username);
-        result.put("holdings", holdings);
-        result.put("totalValue", totalValue);
-        result.put("totalGain", totalGain);
+    /**
+     * Gets the trade log figures for monitoring.
+     * 
+     * @return map with the trade log figures
+     */
+    public Map<String, Object> getLedgerStats() {
+        return portfolioRepository.getLedgerStats();
+    }
 
-        return result;
+    /**
+     * Gets the figures of the portfolios kept in memory for monitoring.
+     * 
+     * @return map with the portfolio cache figures
+     */
+    public Map<String, Object> getPortfolioCacheStats() {
+        return portfolioRepository.getCacheStats();
     }
 
     /**
      * Buys stocks for a user.
      * 
+     * Only stocks in the master list can be bought. The shares are bought
+     * at the server's current price (from the price cache, fetched if it is
+     * missing or expired) under the company name of the master list; the
+     * price and name sent by the client are ignored.
+     * 
      * @param username the username
      * @param request  the buy stock request
      * @return true if purchase successful
+     * @throws IllegalArgumentException if the symbol or quantity is invalid,
+     *                                  the stock is not listed, or no price
+     *                                  is available for it
      */
     public boolean buyStock(String username, BuyStockRequest request) {
-        Portfolio portfolio = portfolioRepository.getPortfolio(username);
+        if (request == null || request.symbol == null || request.symbol.isBlank()) {
+            throw new IllegalArgumentException("symbol is required");
+        }
+        if (request.quantity <= 0) {
+            throw new IllegalArgumentException("quantity must be positive");
+        }
+
+        String symbol = request.symbol.trim().toUpperCase();
+        if (symbol.length() > AppConfig.MAX_SYMBOL_LENGTH) {
+            throw new IllegalArgumentException(
+                    "symbol must be at most " + AppConfig.MAX_SYMBOL_LENGTH + " characters");
+        }
+        StockReference listed = stockRepository.findStock(symbol);
+        if (listed == null) {
+            throw new IllegalArgumentException(stockRepository.isCatalogReady()
+                    ? "Unknown stock symbol " + symbol
+                    : "Unknown stock symbol " + symbol + " (the stock list is still loading)");
+        }
+
+        double price = stockRepository.fetchCurrentPrices(List.of(listed.symbol), RequestPriority.INTERACTIVE)
+                .getOrDefault(listed.symbol, 0.0);
+        if (!(price > 0) || !Double.isFinite(price)) {
+            throw new IllegalArgumentException("No price is available for " + listed.symbol + "; try again later");
+        }
 
         Stock newStock = new Stock(
-                request.name,
-                request.symbol,
+                listed.name,
+                listed.symbol,
                 "US",
-                request.price);
+                price);
 
-        portfolio.addStock(newStock, request.quantity);
-        portfolioRepository.saveAllHoldings();
+        CompletableFuture<Void> committed = portfolioRepository.recordPurchase(username, newStock, request.quantity);
+        valuationEngine.updatePortfolio(username, portfolioRepository.getPortfolio(username));
 
+        awaitCommit(committed);
         return true;
     }
 
+    /**
+     * Sells stocks for a user and records the sale.
+     * 
+     * The shares are sold at the current price (from memory, kept fresh by
+     * the background refresh), or at the position's last known price if no
+     * current price is available.
+     * 
+     * @param username the username
+     * @param request  the sell stock request
+     * @return the sale with its cost basis and realized gain
+     * @throws IllegalArgumentException if the symbol, quantity or method is
+     *                                  invalid, or the user does not own
+     *                                  enough shares
+     */
+    public Sale sellStock(String username, SellStockRequest request) {
+        if (request == null || request.symbol == null || request.symbol.isBlank()) {
+            throw new IllegalArgumentException("symbol is required");
+        }
+        if (request.quantity <= 0) {
+            throw new IllegalArgumentException("quantity must be positive");
+        }
+
+        String symbol = request.symbol.trim().toUpperCase();
+        LotReliefMethod method = parseReliefMethod(request.method);
+        Portfolio portfolio = portfolioRepository.getPortfolio(username);
+
+        PositionSummary position = portfolio.getSummary(symbol);
+        if (position == null) {
+            throw new IllegalArgumentException("You do not own any shares of " + symbol);
+        }
+
+        double price = stockRepository.getCachedPrices(List.of(symbol), RequestPriority.INTERACTIVE)
+                .getOrDefault(symbol, position.lastPrice());
+
+        CompletableFuture<Sale> committed = portfolioRepository.recordSale(username, symbol, request.quantity,
+                price, method);
+        // The portfolio may have been dropped from memory and loaded again meanwhile
+        valuationEngine.updatePortfolio(username, portfolioRepository.getPortfolio(username));
+
+        return awaitCommit(committed);
+    }
+
+    /**
+     * Waits until a trade is committed to the trade log, so the caller is
+     * only answered once the trade is saved as the durability mode requires.
+     * 
+     * @param committed the future of the trade
+     * @param <T>       the result type
+     * @return the result of the trade
+     * @throws RuntimeException the failure of the commit, unwrapped
+     */
+    private static <T> T awaitCommit(CompletableFuture<T> committed) {
+        try {
+            return committed.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Parses a lot relief method name, accepting any case and dashes
+     * (for example "fifo" or "average-cost").
+     * 
+     * @param name the method name, or null or blank for the position's
+     *             default
+     * @return the lot relief method, or null for the position's default
+     *         (FIFO, or AVERAGE_COST once the position has been sold at
+     *         average cost)
+     * @throws IllegalArgumentException if the name is not a known method
+     */
+    private static LotReliefMethod parseReliefMethod(String name) {
+        if (name == null || name.isBlank()) {
+            return null;
+        }
+        try {
+            return LotReliefMethod.valueOf(name.trim().toUpperCase().replace('-', '_'));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(
+                    "method must be one of " + Arrays.toString(LotReliefMethod.values()));
+        }
+    }
+
     /**
      * Gets the portfolio for a user (creates if doesn't exist).
      * 
@@ -1,6 +1,9 @@
 package org.global.academy.service;
 
+import org.global.academy.config.AppConfig;
+import org.global.academy.dto.response.PriceBar;
 import org.global.academy.dto.response.StockReference;
+import org.global.academy.market.RequestPriority;
 import org.global.academy.repository.StockRepository;
 
 import java.util.ArrayList;
@@ -34,17 +37,26 @@ public class StockService {
     /**
      * Searches for stocks matching the query.
      * 
+     * Results are ranked by relevance: exact symbol, symbol prefix, name
+     * prefix, name word prefix, substring and finally close spellings.
+     * 
+     * Only prices already in memory are included, so a search never waits
+     * on the market data API. Results without a price are marked
+     * "Unavailable" and their prices are loaded in the background; the
+     * client fetches them with {@link #getSearchResultPrices(List)}.
+     * 
      * @param query the search query (can be null for default stocks)
      * @return list of maps containing stock data with prices
      */
     public List<Map<String, Object>> searchStocks(String query) {
-        List<StockReference> results = stockRepository.searchStocks(query, 20);
+        List<StockReference> results = stockRepository.searchStocks(query, AppConfig.SEARCH_RESULT_LIMIT);
 
         List<String> symbols = results.stream()
                 .map(s -> s.symbol)
                 .collect(Collectors.toList());
 
-        Map<String, Double> prices = stockRepository.fetchCurrentPrices(symbols);
+        Map<String, Double> prices = stockRepository.getCachedPrices(symbols,
+                RequestPriority.ENRICHMENT);
 
         List<Map<String, Object>> responseList = new ArrayList<>();
         for (StockReference stock : results) {
@@ -72,7 +84,60 @@ public class StockService {
      * @return map of symbols to prices
      */
     public Map<String, Double> getCurrentPrices(List<String> symbols) {
-        return stockRepository.fetchCurrentPrices(symbols);
+        return stockRepository.fetchCurrentPrices(symbols, RequestPriority.INTERACTIVE);
+    }
+
+    /**
+     * Gets prices for search results that were returned without one.
+     * 
+     * Joins the background loads started by the search and charges any new
+     * upstream requests to the enrichment budget. Symbols that are not in
+     * the stock master list are never fetched, and symbols that still have
+     * no price are left out.
+     * 
+     * @param symbols list of stock symbols
+     * @return map of symbols to prices
+     */
+    public Map<String, Double> getSearchResultPrices(List<String> symbols) {
+        List<String> listed = symbols.stream()
+                .filter(symbol -> stockRepository.findStock(symbol) != null)
+                .collect(Collectors.toList());
+        Map<String, Double> prices = new HashMap<>(
+                stockRepository.fetchCurrentPrices(listed, RequestPriority.ENRICHMENT));
+        prices.values().removeIf(price -> price == null || price <= 0);
+        return prices;
+    }
+
+    /**
+     * Gets the price chart of a stock.
+     * 
+     * Missing parameters default to the last 24 hours and
+     * {@link AppConfig#PRICE_HISTORY_DEFAULT_POINTS} points; the number of
+     * points is capped at {@link AppConfig#PRICE_HISTORY_MAX_POINTS}.
+     * 
+     * @param symbol     the stock symbol
+     * @param fromMillis start of the range in epoch millis (may be null)
+     * @param toMillis   end of the range in epoch millis (may be null)
+     * @param points     maximum number of bars (may be null)
+     * @return list of OHLC bars, oldest first
+     */
+    public List<PriceBar> getPriceHistory(String symbol, Long fromMillis, Long toMillis, Integer points) {
+        long to = toMillis != null ? toMillis : System.currentTimeMillis();
+        long from = fromMillis != null ? fromMillis : to - AppConfig.PRICE_HISTORY_DEFAULT_RANGE_MILLIS;
+        int limit = points != null ? points : AppConfig.PRICE_HISTORY_DEFAULT_POINTS;
+        limit = Math.max(1, Math.min(limit, AppConfig.PRICE_HISTORY_MAX_POINTS));
+
+        return stockRepository.getPriceHistory(symbol.toUpperCase(), from, to, limit);
+    }
+
+    /**
+     * Checks whether the stock master list has finished loading.
+     * 
+     * @return true once search runs on the loaded list, false while it
+     *         still runs on a previous snapshot or the default symbols
+     */
+    public boolean isCatalogReady() {
+        return stockRepository.isCatalogReady();
     }
 
     /**
@@ -83,4 +148,24 @@ public class StockService {
     public List<StockReference> getAllStocks() {
         return stockRepository.getAllStocks();
     }
+
+    /**
+     * Gets market data statistics for monitoring.
+     * 
+     * @return map containing the price cache, batching, budget, circuit
+     *         breaker, tick store, search index and price history figures
+     */
+    public Map<String, Object> getMarketDataStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("priceCache", stockRepository.getPriceCacheStats());
+        stats.put("priceBatcher", stockRepository.getPriceBatcherStats());
+        stats.put("upstreamBudget", stockRepository.getUpstreamBudgetStats());
+        stats.put("circuitBreaker", stockRepository.getCircuitBreakerStats());
+        stats.put("tickStore", stockRepository.getTickStore().getStats());
+        stats.put("searchIndex", stockRepository.getSearchIndexStats());
+        if (stockRepository.getPriceHistory() != null) {
+            stats.put("priceHistory", stockRepository.getPriceHistory().getStats());
+        }
+        return stats;
+    }
 }
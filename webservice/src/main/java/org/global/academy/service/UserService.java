@@ -6,6 +6,8 @@ import org.global.academy.dto.response.LoginResponse;
 import org.global.academy.model.User;
 import org.global.academy.repository.UserRepository;
 
+import java.util.concurrent.CompletionException;
+
 /**
  * Service class for user-related business logic.
  * 
@@ -50,11 +52,20 @@ public class UserService {
      * Registers a new user account.
      * 
      * @param request the signup request containing username and password
-     * @return true if registration successful, false if user already exists
+     * @return true once the new user is saved, false if user already exists
+     * @throws RuntimeException if the user could not be saved (the failure
+     *                          of the save, unwrapped)
      */
     public boolean registerUser(LoginRequest request) {
         User newUser = new User(request.username, request.password);
-        return userRepository.save(newUser);
+        try {
+            return userRepository.save(newUser).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
     }
 
     /**
@@ -0,0 +1,92 @@
+package org.global.academy.store;
+
+import org.global.academy.dto.response.PriceBar;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streams price ticks into a fixed number of equal-width OHLC buckets.
+ *
+ * Memory use depends only on the number of buckets, so any range can be
+ * aggregated straight from a price store scan without collecting the raw
+ * ticks first.
+ *
+ * @author Project Group 5
+ * @version 1.0
+ */
+public class OhlcAggregator implements TickConsumer {
+
+    private final long fromMillis;
+    private final double bucketMillis;
+    private final int bucketCount;
+    private final double[] open;
+    private final double[] high;
+    private final double[] low;
+    private final double[] close;
+    private final long[] lastTime;
+    private final int[] ticks;
+
+    /**
+     * Constructs a new OhlcAggregator.
+     *
+     * @param fromMillis  start of the range (inclusive)
+     * @param toMillis    end of the range (inclusive)
+     * @param bucketCount number of buckets the range is divided into
+     */
+    public OhlcAggregator(long fromMillis, long toMillis, int bucketCount) {
+        this.fromMillis = fromMillis;
+        this.bucketCount = bucketCount;
+        this.bucketMillis = (double) (toMillis - fromMillis + 1) / bucketCount;
+        this.open = new double[bucketCount];
+        this.high = new double[bucketCount];
+        this.low = new double[bucketCount];
+        this.close = new double[bucketCount];
+        this.lastTime = new long[bucketCount];
+        this.ticks = new int[bucketCount];
+    }
+
+    /**
+     * Adds one tick to its bucket. Ticks outside the range are ignored.
+     *
+     * @param epochMillis the time of the tick
+     * @param price       the price
+     */
+    @Override
+    public void accept(long epochMillis, double price) {
+        int bucket = (int) ((epochMillis - fromMillis) / bucketMillis);
+        if (epochMillis < fromMillis || bucket >= bucketCount) {
+            return;
+        }
+
+        if (ticks[bucket] == 0) {
+            open[bucket] = price;
+            high[bucket] = price;
+            low[bucket] = price;
+        } else {
+            high[bucket] = Math.max(high[bucket], price);
+            low[bucket] = Math.min(low[bucket], price);
+        }
+        if (ticks[bucket] == 0 || epochMillis >= lastTime[bucket]) {
+            close[bucket] = price;
+            lastTime[bucket] = epochMillis;
+        }
+        ticks[bucket]++;
+    }
+
+    /**
+     * Gets the non-empty buckets as bars, oldest first.
+     *
+     * @return list of OHLC bars
+     */
+    public List<PriceBar> toBars() {
+        List<PriceBar> bars = new ArrayList<>();
+        for (int i = 0; i < bucketCount; i++) {
+            if (ticks[i] > 0) {
+                bars.add(new PriceBar(fromMillis + (long) (i * bucketMillis),
+                        open[i], high[i], low[i], close[i], ticks[i]));
+            }
+        }
+        return bars;
+    }
+}
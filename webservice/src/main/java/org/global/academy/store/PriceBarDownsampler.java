@@ -0,0 +1,125 @@
+package org.global.academy.store;
+
+import org.global.academy.dto.response.PriceBar;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reduces a series of price bars to a target number of points with the
+ * Largest-Triangle-Three-Buckets (LTTB) algorithm.
+ *
+ * LTTB keeps the first and last bar and, for every bucket in between, the
+ * bar whose close forms the largest triangle with the previously kept bar
+ * and the average of the next bucket. This keeps the visible shape of the
+ * chart (peaks, dips, trend changes) far better than taking every n-th bar.
+ *
+ * Kept bars take over the high and low of the bars dropped from their
+ * bucket, so extremes are not lost from the chart. LTTB needs at least
+ * three points; for one or two, the bars are merged into that many bars
+ * covering equal shares of the series.
+ *
+ * @author Project Group 5
+ * @version 1.0
+ */
+public final class PriceBarDownsampler {
+
+    private PriceBarDownsampler() {
+    }
+
+    /**
+     * Downsamples bars to at most the given number of points.
+     *
+     * @param bars   the bars, oldest first
+     * @param points the maximum number of bars to return
+     * @return the downsampled bars, oldest first
+     */
+    public static List<PriceBar> lttb(List<PriceBar> bars, int points) {
+        int n = bars.size();
+        if (points >= n) {
+            return bars;
+        }
+        if (points < 3) {
+            return merge(bars, Math.max(points, 0));
+        }
+
+        List<PriceBar> sampled = new ArrayList<>(points);
+        sampled.add(bars.get(0));
+
+        double every = (double) (n - 2) / (points - 2);
+        int previous = 0;
+
+        for (int i = 0; i < points - 2; i++) {
+            int start = (int) Math.floor(i * every) + 1;
+            int end = (int) Math.floor((i + 1) * every) + 1;
+
+            // Average of the next bucket (the last bar for the final bucket)
+            int nextStart = end;
+            int nextEnd = Math.min((int) Math.floor((i + 2) * every) + 1, n);
+            double avgTime = 0;
+            double avgClose = 0;
+            for (int j = nextStart; j < nextEnd; j++) {
+                avgTime += bars.get(j).time;
+                avgClose += bars.get(j).close;
+            }
+            avgTime /= nextEnd - nextStart;
+            avgClose /= nextEnd - nextStart;
+
+            PriceBar a = bars.get(previous);
+            int chosen = start;
+            double maxArea = -1;
+            double high = Double.NEGATIVE_INFINITY;
+            double low = Double.POSITIVE_INFINITY;
+            int ticks = 0;
+            for (int j = start; j < end; j++) {
+                PriceBar b = bars.get(j);
+                double area = Math.abs((a.time - avgTime) * (b.close - a.close) -
+                        (a.time - b.time) * (avgClose - a.close));
+                if (area > maxArea) {
+                    maxArea = area;
+                    chosen = j;
+                }
+                high = Math.max(high, b.high);
+                low = Math.min(low, b.low);
+                ticks += b.ticks;
+            }
+
+            PriceBar kept = bars.get(chosen);
+            sampled.add(new PriceBar(kept.time, kept.open, high, low, kept.close, ticks));
+            previous = chosen;
+        }
+
+        sampled.add(bars.get(n - 1));
+        return sampled;
+    }
+
+    /**
+     * Merges consecutive bars into the given number of bars, each covering
+     * an equal share of the series: the open and time of its first bar,
+     * the close of its last, and the high, low and tick count of all.
+     *
+     * @param bars   the bars, oldest first
+     * @param points the number of bars to return (fewer than bars.size())
+     * @return the merged bars, oldest first
+     */
+    private static List<PriceBar> merge(List<PriceBar> bars, int points) {
+        int n = bars.size();
+        List<PriceBar> merged = new ArrayList<>(points);
+        for (int i = 0; i < points; i++) {
+            int start = (int) ((long) i * n / points);
+            int end = (int) ((long) (i + 1) * n / points);
+
+            PriceBar first = bars.get(start);
+            double high = Double.NEGATIVE_INFINITY;
+            double low = Double.POSITIVE_INFINITY;
+            int ticks = 0;
+            for (int j = start; j < end; j++) {
+                high = Math.max(high, bars.get(j).high);
+                low = Math.min(low, bars.get(j).low);
+                ticks += bars.get(j).ticks;
+            }
+            merged.add(new PriceBar(first.time, first.open, high, low, bars.get(end - 1).close, ticks));
+        }
+        return merged;
+    }
+}
@@ -0,0 +1,462 @@
+package org.global.academy.store;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.invoke.VarHandle;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Memory-mapped file of recorded price ticks, keeping the most recent ones
+ * up to a fixed number of blocks.
+ *
+ * Layout: a 64-byte header followed by fixed-size blocks. Each block stores
+ * its rows column by column (all symbol ids, then all epoch millis, then all
+ * prices), so a scan over one column touches contiguous memory:
+ *
+ * <pre>
+ * header: magic(int) version(int) blockRows(int) maxBlocks(int) rowCount(long)
+ * block:  int ids[blockRows] | long epochs[blockRows] | double prices[blockRows]
+ * </pre>
+ *
+ * Rows are numbered from the first row ever written. The blocks form a
+ * ring: once the file holds maxBlocks blocks, the next block reuses the
+ * space of the oldest one, so the file and the mapped memory never grow
+ * beyond maxBlocks blocks. The number of blocks is fixed when the file is
+ * created (files written before the limit existed keep the larger of their
+ * size and the configured limit).
+ *
+ * Rows are stored in time order: a tick older than the last stored one is
+ * stored with the last stored time, so a range query can find its first
+ * block with a binary search.
+ *
+ * The row count in the header is written after the row itself, so it acts
+ * as the commit marker: rows beyond it are ignored on reopen. Readers do
+ * not lock; like the {@link TickStore}, they check the row count again
+ * after reading a row and drop rows whose block the writer may have started
+ * to reuse meanwhile.
+ *
+ * Symbol ids are the ids of a {@link SymbolTable}; the symbols themselves
+ * are kept in a side file (one symbol per line, line number = id) that is
+ * read back into the table on open so ids stay stable across restarts.
+ *
+ * Writes go to the mapped pages and are written back by the operating
+ * system; {@link #close()} forces them to disk on shutdown.
+ *
+ * @author Project Group 5
+ * @version 1.0
+ */
+public class PriceHistoryFile implements Closeable {
+
+    private static final int MAGIC = 0x50484953; // "PHIS"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 64;
+    private static final int MAX_BLOCKS_OFFSET = 12;
+    private static final int ROW_COUNT_OFFSET = 16;
+
+    /** Bytes per row: 4 for the symbol id, 8 for the epoch, 8 for the price */
+    private static final int ROW_BYTES = 20;
+
+    private final Path symbolsPath;
+    private final SymbolTable symbols;
+    private final FileChannel channel;
+    private final MappedByteBuffer header;
+    private final int blockRows;
+    private final int maxBlocks;
+    private final List<MappedByteBuffer> blocks = new ArrayList<>();
+
+    private volatile long rowCount;
+    private long lastEpochMillis;
+    private int persistedSymbols;
+
+    /**
+     * Opens (or creates) a price history file.
+     *
+     * The symbols of an existing file are interned into the given table in
+     * id order, so the table should be empty when passed in.
+     *
+     * @param path      the data file path; the symbol dictionary is stored
+     *                  next to it with a ".symbols" suffix
+     * @param symbols   the symbol table shared with the tick store
+     * @param blockRows number of rows per block (used for new files only)
+     * @param maxBlocks number of blocks kept before the oldest is reused
+     *                  (used for new files only)
+     * @throws IOException if the file cannot be opened or is not a valid
+     *                     price history file
+     */
+    public PriceHistoryFile(Path path, SymbolTable symbols, int blockRows, int maxBlocks) throws IOException {
+        this.symbolsPath = path.resolveSibling(path.getFileName() + ".symbols");
+        this.symbols = symbols;
+        this.channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        boolean isNew = channel.size() < HEADER_BYTES;
+        this.header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+
+        if (isNew) {
+            header.putInt(0, MAGIC);
+            header.putInt(4, VERSION);
+            header.putInt(8, blockRows);
+            header.putInt(MAX_BLOCKS_OFFSET, maxBlocks);
+            header.putLong(ROW_COUNT_OFFSET, 0);
+            this.blockRows = blockRows;
+            this.maxBlocks = maxBlocks;
+            this.rowCount = 0;
+        } else {
+            if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+                channel.close();
+                throw new IOException("Not a price history file (version " + VERSION + "): " + path);
+            }
+            this.blockRows = header.getInt(8);
+            long committed = header.getLong(ROW_COUNT_OFFSET);
+            long available = (channel.size() - HEADER_BYTES) / ((long) this.blockRows * ROW_BYTES)
+                    * this.blockRows;
+            int storedMaxBlocks = header.getInt(MAX_BLOCKS_OFFSET);
+            if (storedMaxBlocks > 0) {
+                this.maxBlocks = storedMaxBlocks;
+            } else {
+                // Written before the block limit; its blocks are in row order
+                this.maxBlocks = (int) Math.max(maxBlocks, (Math.min(committed, available) + this.blockRows - 1)
+                        / this.blockRows);
+                header.putInt(MAX_BLOCKS_OFFSET, this.maxBlocks);
+            }
+            if (available < Math.min(committed, (long) this.maxBlocks * this.blockRows)) {
+                // Rows beyond the end of the file were never written back
+                this.rowCount = available;
+                header.putLong(ROW_COUNT_OFFSET, available);
+            } else {
+                this.rowCount = committed;
+            }
+        }
+
+        loadSymbols();
+        long usedBlocks = Math.min(this.maxBlocks, (rowCount + this.blockRows - 1) / this.blockRows);
+        for (int block = 0; block < usedBlocks; block++) {
+            mapBlock(block);
+        }
+        if (rowCount > 0) {
+            long last = rowCount - 1;
+            lastEpochMillis = blockOf(last).getLong(this.blockRows * 4 + slotOf(last) * 8);
+        }
+    }
+
+    /**
+     * Reads the symbol dictionary into the symbol table.
+     *
+     * @throws IOException if the dictionary cannot be read
+     */
+    private void loadSymbols() throws IOException {
+        if (!Files.exists(symbolsPath)) {
+            return;
+        }
+        for (String symbol : Files.readAllLines(symbolsPath, StandardCharsets.UTF_8)) {
+            if (symbol.isEmpty()) {
+                continue;
+            }
+            int id = symbols.intern(symbol);
+            if (id != persistedSymbols) {
+                throw new IOException("Symbol table out of sync with " + symbolsPath + " at " + symbol);
+            }
+            persistedSymbols++;
+        }
+    }
+
+    /**
+     * Appends one tick, reusing the oldest block when the file is full.
+     *
+     * A tick older than the last stored one (for example from a fetch that
+     * took longer than a later one) is stored with the last stored time, so
+     * rows stay in time order.
+     *
+     * @param id          the symbol id (from the shared symbol table)
+     * @param epochMillis the time of the tick
+     * @param price       the price
+     * @return the time the tick was stored with
+     * @throws IOException if the file cannot be extended
+     */
+    public synchronized long append(int id, long epochMillis, double price) throws IOException {
+        persistSymbolsUpTo(id);
+
+        long row = rowCount;
+        int physical = (int) (row / blockRows % maxBlocks);
+        int slot = slotOf(row);
+        MappedByteBuffer block = physical < blocks.size() ? blocks.get(physical) : mapBlock(physical);
+        long stored = Math.max(epochMillis, lastEpochMillis);
+
+        block.putInt(slot * 4, id);
+        block.putLong(blockRows * 4 + slot * 8, stored);
+        block.putDouble(blockRows * 12 + slot * 8, price);
+
+        lastEpochMillis = stored;
+        rowCount = row + 1;
+        header.putLong(ROW_COUNT_OFFSET, row + 1);
+        return stored;
+    }
+
+    /**
+     * Appends dictionary lines for every symbol id up to and including the
+     * given one that is not yet on disk.
+     *
+     * @param id the highest symbol id about to be written
+     * @throws IOException if the dictionary cannot be written
+     */
+    private void persistSymbolsUpTo(int id) throws IOException {
+        if (id < persistedSymbols) {
+            return;
+        }
+        StringBuilder lines = new StringBuilder();
+        for (int next = persistedSymbols; next <= id; next++) {
+            lines.append(symbols.symbolOf(next)).append('\n');
+        }
+        Files.writeString(symbolsPath, lines, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        persistedSymbols = id + 1;
+    }
+
+    /**
+     * Maps a block, extending the file if needed.
+     *
+     * @param blockIndex the block number
+     * @return the mapped block
+     * @throws IOException if mapping fails
+     */
+    private MappedByteBuffer mapBlock(int blockIndex) throws IOException {
+        long blockBytes = (long) blockRows * ROW_BYTES;
+        MappedByteBuffer block = channel.map(FileChannel.MapMode.READ_WRITE,
+                HEADER_BYTES + blockIndex * blockBytes, blockBytes);
+        blocks.add(block);
+        return block;
+    }
+
+    /**
+     * Passes the recorded ticks of one symbol within a time range to a
+     * consumer, oldest first. Nothing is copied or boxed.
+     *
+     * @param id         the symbol id
+     * @param fromMillis start of the range (inclusive)
+     * @param toMillis   end of the range (inclusive)
+     * @param consumer   receives each tick
+     * @return the number of ticks passed to the consumer
+     */
+    public int forEachTick(int id, long fromMillis, long toMillis, TickConsumer consumer) {
+        long rows = rowCount;
+        int delivered = 0;
+
+        for (long b = firstBlockEndingAtOrAfter(fromMillis, rows); b * blockRows < rows; b++) {
+            MappedByteBuffer block = physicalBlock(b);
+            int rowsInBlock = (int) Math.min(blockRows, rows - b * blockRows);
+            if (block.getLong(blockRows * 4) > toMillis && isRetained(b)) {
+                break;
+            }
+            for (int slot = 0; slot < rowsInBlock; slot++) {
+                if (block.getInt(slot * 4) != id) {
+                    continue;
+                }
+                long epochMillis = block.getLong(blockRows * 4 + slot * 8);
+                double price = block.getDouble(blockRows * 12 + slot * 8);
+                VarHandle.loadLoadFence();
+                if (!isRetained(b)) {
+                    break; // the writer is reusing this block
+                }
+                if (epochMillis >= fromMillis && epochMillis <= toMillis) {
+                    consumer.accept(epochMillis, price);
+                    delivered++;
+                }
+            }
+        }
+        return delivered;
+    }
+
+    /**
+     * Finds the first retained block whose last row is at or after a time,
+     * using the fact that rows are stored in time order.
+     *
+     * @param fromMillis the time
+     * @param rows       the number of committed rows
+     * @return the block number to start scanning from
+     */
+    private long firstBlockEndingAtOrAfter(long fromMillis, long rows) {
+        long low = firstRetainedBlock(rows);
+        long high = (rows + blockRows - 1) / blockRows - 1;
+        while (low < high) {
+            long mid = (low + high) >>> 1;
+            int lastSlot = (int) Math.min(blockRows, rows - mid * blockRows) - 1;
+            if (physicalBlock(mid).getLong(blockRows * 4 + lastSlot * 8) < fromMillis) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Gets the first block still held for a row count.
+     *
+     * @param rows the number of committed rows
+     * @return the block number of the oldest retained block
+     */
+    private long firstRetainedBlock(long rows) {
+        return Math.max(0, (rows + blockRows - 1) / blockRows - maxBlocks);
+    }
+
+    /**
+     * Checks that a block has not been reused, counting the block the
+     * writer may be filling right now as reused.
+     *
+     * @param block the block number
+     * @return true if the block still holds its own rows
+     */
+    private boolean isRetained(long block) {
+        return rowCount < (block + maxBlocks) * blockRows;
+    }
+
+    /**
+     * Gets the mapped buffer holding a block.
+     *
+     * @param block the block number
+     * @return the mapped buffer
+     */
+    private MappedByteBuffer physicalBlock(long block) {
+        synchronized (this) {
+            return blocks.get((int) (block % maxBlocks));
+        }
+    }
+
+    /**
+     * Loads recent history into a tick store after a restart.
+     *
+     * The newest rows (as many as the tick store could hold in total) are
+     * replayed in order. Symbols that do not appear in those rows get their
+     * latest older tick, found by scanning backwards, so every symbol ever
+     * seen has a last known price.
+     *
+     * @param tickStore the tick store sharing this file's symbol table
+     * @param windowRows how many of the newest rows to replay in full
+     * @return the number of ticks replayed
+     */
+    public int replayInto(TickStore tickStore, long windowRows) {
+        long rows = rowCount;
+        long first = firstRetainedBlock(rows) * blockRows;
+        long start = Math.max(first, rows - windowRows);
+        BitSet seen = new BitSet(symbols.size());
+        int replayed = 0;
+
+        // Latest older tick for symbols missing from the window, newest first
+        List<Long> older = new ArrayList<>();
+        int missing = symbols.size();
+        for (long row = rows - 1; row >= first && missing > 0; row--) {
+            int id = idAt(row);
+            if (!seen.get(id)) {
+                seen.set(id);
+                missing--;
+                if (row < start) {
+                    older.add(row);
+                }
+            }
+        }
+
+        for (int i = older.size() - 1; i >= 0; i--) {
+            replayRow(tickStore, older.get(i));
+            replayed++;
+        }
+        for (long row = start; row < rows; row++) {
+            replayRow(tickStore, row);
+            replayed++;
+        }
+        return replayed;
+    }
+
+    /**
+     * Appends one stored row to the tick store.
+     *
+     * @param tickStore the tick store
+     * @param row       the row number
+     */
+    private void replayRow(TickStore tickStore, long row) {
+        MappedByteBuffer block = blockOf(row);
+        int slot = slotOf(row);
+        tickStore.append(block.getInt(slot * 4),
+                block.getLong(blockRows * 4 + slot * 8),
+                block.getDouble(blockRows * 12 + slot * 8));
+    }
+
+    /**
+     * Gets the symbol id stored in a row.
+     *
+     * @param row the row number
+     * @return the symbol id
+     */
+    private int idAt(long row) {
+        return blockOf(row).getInt(slotOf(row) * 4);
+    }
+
+    /**
+     * Gets the mapped buffer holding a row.
+     *
+     * @param row the row number
+     * @return the mapped buffer
+     */
+    private MappedByteBuffer blockOf(long row) {
+        return blocks.get((int) (row / blockRows % maxBlocks));
+    }
+
+    /**
+     * Gets the position of a row within its block.
+     *
+     * @param row the row number
+     * @return the slot
+     */
+    private int slotOf(long row) {
+        return (int) (row % blockRows);
+    }
+
+    /**
+     * Gets the number of committed rows.
+     *
+     * @return the row count
+     */
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Gets the file figures for monitoring.
+     *
+     * @return map with row, retained row, block and symbol counts and the
+     *         file size
+     */
+    public synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("rows", rowCount);
+        stats.put("retainedRows", rowCount - firstRetainedBlock(rowCount) * blockRows);
+        stats.put("blocks", blocks.size());
+        stats.put("maxBlocks", maxBlocks);
+        stats.put("symbols", persistedSymbols);
+        stats.put("bytes", HEADER_BYTES + (long) blocks.size() * blockRows * ROW_BYTES);
+        return stats;
+    }
+
+    /**
+     * Forces all mapped changes to disk and closes the file.
+     *
+     * @throws IOException if closing fails
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        for (MappedByteBuffer block : blocks) {
+            block.force();
+        }
+        header.force();
+        channel.close();
+    }
+}
@@ -0,0 +1,105 @@
+package org.global.academy.store;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Interns stock symbols as small integer ids.
+ * 
+ * Ids are assigned in order starting at 0 and never change, so they can be
+ * used as array indexes by the price stores. Lookups are lock-free; only
+ * assigning a new id takes a lock.
+ * 
+ * @author Project Group 5
+ * @version 1.0
+ */
+public class SymbolTable {
+
+    private final int maxSymbols;
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private volatile String[] symbols = new String[16];
+    private volatile int size;
+
+    /**
+     * Constructs a new SymbolTable.
+     * 
+     * @param maxSymbols the maximum number of symbols that can be interned
+     */
+    public SymbolTable(int maxSymbols) {
+        this.maxSymbols = maxSymbols;
+    }
+
+    /**
+     * Gets the id of a symbol, assigning the next free id if it is new.
+     * 
+     * @param symbol the stock symbol
+     * @return the symbol id, or -1 if the table is full
+     */
+    public int intern(String symbol) {
+        Integer id = ids.get(symbol);
+        if (id != null) {
+            return id;
+        }
+
+        synchronized (this) {
+            id = ids.get(symbol);
+            if (id != null) {
+                return id;
+            }
+            if (size >= maxSymbols) {
+                return -1;
+            }
+            if (size == symbols.length) {
+                symbols = Arrays.copyOf(symbols, Math.min(maxSymbols, symbols.length * 2));
+            }
+            int newId = size;
+            symbols[newId] = symbol;
+            size = newId + 1;
+            ids.put(symbol, newId);
+            return newId;
+        }
+    }
+
+    /**
+     * Gets the id of a symbol without assigning one.
+     * 
+     * @param symbol the stock symbol
+     * @return the symbol id, or -1 if the symbol is unknown
+     */
+    public int idOf(String symbol) {
+        Integer id = ids.get(symbol);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * Gets the symbol for an id.
+     * 
+     * @param id the symbol id
+     * @return the stock symbol, or null if the id is not assigned
+     */
+    public String symbolOf(int id) {
+        // Read size before the array so the array seen is at least as new
+        int currentSize = size;
+        String[] current = symbols;
+        return id >= 0 && id < currentSize ? current[id] : null;
+    }
+
+    /**
+     * Gets the number of interned symbols.
+     * 
+     * @return the number of symbols
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the maximum number of symbols this table can hold.
+     * 
+     * @return the capacity
+     */
+    public int capacity() {
+        return maxSymbols;
+    }
+}
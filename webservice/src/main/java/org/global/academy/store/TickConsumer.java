@@ -0,0 +1,19 @@
+package org.global.academy.store;
+
+/**
+ * Receives price ticks from a price store without boxing.
+ * 
+ * @author Project Group 5
+ * @version 1.0
+ */
+@FunctionalInterface
+public interface TickConsumer {
+
+    /**
+     * Accepts one tick.
+     * 
+     * @param epochMillis the time of the tick in epoch milliseconds
+     * @param price       the price at that time
+     */
+    void accept(long epochMillis, double price);
+}
@@ -0,0 +1,212 @@
+package org.global.academy.store;
+
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-size, off-heap store of recent price ticks per symbol.
+ * 
+ * Each symbol id owns a ring buffer of (epoch millis, price) pairs held as
+ * primitive longs and doubles in one direct ByteBuffer. The whole store is
+ * allocated up front (max symbols x ticks per symbol x 16 bytes), so its
+ * memory use never grows and ticks never create garbage.
+ * 
+ * Writers are serialized (one writer at a time); readers never lock. A
+ * writer fills the slot first and then publishes it by bumping the
+ * symbol's write count with a volatile store. Readers check the count again
+ * after reading a slot (seqlock style) and drop any tick that the writer
+ * may have started overwriting meanwhile.
+ * 
+ * @author Project Group 5
+ * @version 1.0
+ */
+public class TickStore {
+
+    /** Bytes per tick: 8 for the timestamp and 8 for the price */
+    private static final int TICK_BYTES = 16;
+
+    private final SymbolTable symbols;
+    private final int ticksPerSymbol;
+    private final int mask;
+    private final ByteBuffer data;
+    private final AtomicLongArray writeCounts;
+
+    /**
+     * Constructs a new TickStore.
+     * 
+     * @param symbols        the symbol table that assigns symbol ids (its
+     *                       capacity sets the number of ring buffers)
+     * @param ticksPerSymbol ring buffer size per symbol, rounded up to a power
+     *                       of two
+     */
+    public TickStore(SymbolTable symbols, int ticksPerSymbol) {
+        this.symbols = symbols;
+        this.ticksPerSymbol = Integer.highestOneBit(Math.max(2, ticksPerSymbol) - 1) << 1;
+        this.mask = this.ticksPerSymbol - 1;
+        this.data = ByteBuffer.allocateDirect(
+                Math.multiplyExact(Math.multiplyExact(symbols.capacity(), this.ticksPerSymbol), TICK_BYTES));
+        this.writeCounts = new AtomicLongArray(symbols.capacity());
+    }
+
+    /**
+     * Appends a tick for a symbol, interning the symbol if needed.
+     * 
+     * @param symbol      the stock symbol
+     * @param epochMillis the time of the tick
+     * @param price       the price
+     * @return true if stored, false if the symbol table is full
+     */
+    public boolean append(String symbol, long epochMillis, double price) {
+        int id = symbols.intern(symbol);
+        if (id < 0) {
+            return false;
+        }
+        append(id, epochMillis, price);
+        return true;
+    }
+
+    /**
+     * Appends a tick for a symbol id, overwriting the oldest tick when the
+     * ring buffer is full.
+     * 
+     * @param id          the symbol id
+     * @param epochMillis the time of the tick
+     * @param price       the price
+     */
+    public synchronized void append(int id, long epochMillis, double price) {
+        long count = writeCounts.get(id);
+        int offset = slotOffset(id, count);
+        data.putLong(offset, epochMillis);
+        data.putDouble(offset + 8, price);
+        writeCounts.set(id, count + 1);
+    }
+
+    /**
+     * Gets the most recent price of a symbol.
+     * 
+     * @param symbol the stock symbol
+     * @return the latest price, or NaN if there is none
+     */
+    public double latestPrice(String symbol) {
+        int id = symbols.idOf(symbol);
+        return id < 0 ? Double.NaN : latestPrice(id);
+    }
+
+    /**
+     * Gets the most recent price of a symbol id.
+     * 
+     * @param id the symbol id
+     * @return the latest price, or NaN if there is none
+     */
+    public double latestPrice(int id) {
+        while (true) {
+            long count = writeCounts.get(id);
+            if (count == 0) {
+                return Double.NaN;
+            }
+            double price = data.getDouble(slotOffset(id, count - 1) + 8);
+            VarHandle.loadLoadFence();
+            if (writeCounts.get(id) - ticksPerSymbol < count - 1) {
+                return price;
+            }
+            // The slot was overwritten while reading; retry with the newer count
+        }
+    }
+
+    /**
+     * Gets the time of the most recent tick of a symbol.
+     * 
+     * @param symbol the stock symbol
+     * @return the epoch millis of the latest tick, or 0 if there is none
+     */
+    public long latestTimestamp(String symbol) {
+        int id = symbols.idOf(symbol);
+        if (id < 0) {
+            return 0;
+        }
+        while (true) {
+            long count = writeCounts.get(id);
+            if (count == 0) {
+                return 0;
+            }
+            long epochMillis = data.getLong(slotOffset(id, count - 1));
+            VarHandle.loadLoadFence();
+            if (writeCounts.get(id) - ticksPerSymbol < count - 1) {
+                return epochMillis;
+            }
+        }
+    }
+
+    /**
+     * Passes the buffered ticks of a symbol within a time range to a
+     * consumer, oldest first.
+     * 
+     * @param id         the symbol id
+     * @param fromMillis start of the range (inclusive)
+     * @param toMillis   end of the range (inclusive)
+     * @param consumer   receives each tick
+     * @return the number of ticks passed to the consumer
+     */
+    public int forEachTick(int id, long fromMillis, long toMillis, TickConsumer consumer) {
+        long end = writeCounts.get(id);
+        long start = Math.max(0, end - ticksPerSymbol);
+        int delivered = 0;
+
+        for (long seq = start; seq < end; seq++) {
+            int offset = slotOffset(id, seq);
+            long epochMillis = data.getLong(offset);
+            double price = data.getDouble(offset + 8);
+            VarHandle.loadLoadFence();
+            if (writeCounts.get(id) - ticksPerSymbol >= seq) {
+                continue; // overwritten while reading
+            }
+            if (epochMillis >= fromMillis && epochMillis <= toMillis) {
+                consumer.accept(epochMillis, price);
+                delivered++;
+            }
+        }
+        return delivered;
+    }
+
+    /**
+     * Gets the symbol table used by this store.
+     * 
+     * @return the symbol table
+     */
+    public SymbolTable getSymbolTable() {
+        return symbols;
+    }
+
+    /**
+     * Computes the byte offset of a ring buffer slot.
+     * 
+     * @param id  the symbol id
+     * @param seq the tick sequence number for that symbol
+     * @return the offset into the data buffer
+     */
+    private int slotOffset(int id, long seq) {
+        return (id * ticksPerSymbol + (int) (seq & mask)) * TICK_BYTES;
+    }
+
+    /**
+     * Gets the store figures for monitoring.
+     * 
+     * @return map with symbol counts, ring size and memory budget
+     */
+    public Map<String, Object> getStats() {
+        long ticks = 0;
+        for (int id = 0; id < symbols.size(); id++) {
+            ticks += writeCounts.get(id);
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("symbols", symbols.size());
+        stats.put("maxSymbols", symbols.capacity());
+        stats.put("ticksPerSymbol", ticksPerSymbol);
+        stats.put("memoryBytes", data.capacity());
+        stats.put("ticksWritten", ticks);
+        return stats;
+    }
+}
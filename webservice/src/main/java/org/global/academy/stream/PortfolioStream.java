@@ -0,0 +1,299 @@
+package org.global.academy.stream;
+
+import com.google.gson.Gson;
+import org.global.academy.dto.response.HoldingView;
+import org.global.academy.dto.response.PortfolioView;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * One open Server-Sent Events stream of a user's portfolio.
+ *
+ * The stream starts with a "portfolio" event carrying the same data as
+ * GET /api/portfolio. After that, every batch of new prices for the
+ * user's symbols becomes one "prices" event with only the holdings whose
+ * price changed, plus the new totals:
+ *
+ * <pre>
+ * event: prices
+ * data: {"holdings":[{"symbol":"AAPL","currentPrice":..,"currentValue":..,"gain":..,"stale":false}],
+ *        "totalValue":..,"totalGain":..,"stale":false}
+ * </pre>
+ *
+ * Totals are kept up to date from the per-holding values, so an update
+ * costs time proportional to the number of changed holdings. When the
+ * portfolio itself changes (a buy or sell), the stream reloads it and
+ * sends a fresh "portfolio" event, which the client displays in place of
+ * the previous one.
+ *
+ * After the initial snapshot the response is written in non-blocking mode:
+ * events are appended to a per-stream buffer and written whenever the
+ * connection can take them (the container calls back when a write that
+ * could not finish has drained). The hub's dispatch thread therefore never
+ * waits for a client. A client that does not read lets its buffer grow;
+ * once it holds more than {@code maxPendingBytes}, the stream is closed.
+ *
+ * @author Project Group 5
+ * @version 1.0
+ */
+public class PortfolioStream implements PriceSubscriber {
+
+    /** The per-holding figures the stream keeps current */
+    private static class Holding {
+        int quantity;
+        double purchasePrice;
+        double currentPrice;
+        boolean stale;
+    }
+
+    private final AsyncContext context;
+    private final ServletOutputStream out;
+    private final Gson gson;
+    private final Supplier<PortfolioView> portfolioSource;
+    private final int maxPendingBytes;
+    private final ByteArrayOutputStream pending = new ByteArrayOutputStream();
+    private boolean flushNeeded;
+    private boolean closed;
+    private final Map<String, Holding> holdings = new HashMap<>();
+    private double totalValue;
+    private double totalGain;
+    private int staleHoldings;
+
+    /**
+     * Opens a stream and sends the initial portfolio snapshot.
+     *
+     * @param context         the async context of the streaming request
+     * @param gson            the Gson instance for JSON serialization
+     * @param portfolioData   the portfolio data as returned by
+     *                        PortfolioService.getPortfolioData
+     * @param portfolioSource loads the portfolio data again after a trade
+     * @param maxPendingBytes unsent event bytes after which the client is
+     *                        considered gone and the stream is closed
+     * @throws IOException if the snapshot cannot be sent
+     */
+    public PortfolioStream(AsyncContext context, Gson gson, PortfolioView portfolioData,
+            Supplier<PortfolioView> portfolioSource, int maxPendingBytes) throws IOException {
+        this.context = context;
+        this.out = context.getResponse().getOutputStream();
+        this.gson = gson;
+        this.portfolioSource = portfolioSource;
+        this.maxPendingBytes = maxPendingBytes;
+
+        load(portfolioData);
+
+        // Written on the request thread, which also commits the response
+        out.write(event("portfolio", gson.toJson(portfolioData)));
+        out.flush();
+
+        out.setWriteListener(new WriteListener() {
+            @Override
+            public void onWritePossible() {
+                synchronized (PortfolioStream.this) {
+                    try {
+                        drain();
+                    } catch (IOException e) {
+                        close();
+                    }
+                }
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                close();
+            }
+        });
+    }
+
+    /**
+     * Gets the symbols held in the streamed portfolio.
+     *
+     * @return set of stock symbols
+     */
+    public synchronized Set<String> getSymbols() {
+        return new HashSet<>(holdings.keySet());
+    }
+
+    /**
+     * Replaces the streamed holdings and totals.
+     *
+     * @param portfolioData the portfolio data as returned by
+     *                      PortfolioService.getPortfolioData
+     */
+    private void load(PortfolioView portfolioData) {
+        holdings.clear();
+        staleHoldings = 0;
+        for (HoldingView data : portfolioData.holdings) {
+            Holding holding = new Holding();
+            holding.quantity = data.quantity;
+            holding.purchasePrice = data.purchasePrice;
+            holding.currentPrice = data.currentPrice;
+            holding.stale = data.stale;
+            holdings.put(data.symbol, holding);
+            if (holding.stale) {
+                staleHoldings++;
+            }
+        }
+        totalValue = portfolioData.totalValue;
+        totalGain = portfolioData.totalGain;
+    }
+
+    /**
+     * Reloads the portfolio after a trade and sends it as a new "portfolio"
+     * event.
+     *
+     * @return the symbols held now
+     */
+    @Override
+    public synchronized Collection<String> onPortfolioChanged() {
+        if (closed) {
+            throw new IllegalStateException("Stream closed");
+        }
+        PortfolioView portfolioData = portfolioSource.get();
+        load(portfolioData);
+        send(event("portfolio", gson.toJson(portfolioData)));
+        return new HashSet<>(holdings.keySet());
+    }
+
+    /**
+     * Applies new prices and sends the changed holdings and totals.
+     *
+     * @param changedPrices map of symbols to their latest prices
+     */
+    @Override
+    public synchronized void onPrices(Map<String, Double> changedPrices) {
+        List<Map<String, Object>> changed = new ArrayList<>();
+
+        for (Map.Entry<String, Double> entry : changedPrices.entrySet()) {
+            Holding holding = holdings.get(entry.getKey());
+            double price = entry.getValue();
+            if (holding == null || (price == holding.currentPrice && !holding.stale)) {
+                continue;
+            }
+
+            totalValue += (price - holding.currentPrice) * holding.quantity;
+            totalGain += (price - holding.currentPrice) * holding.quantity;
+            holding.currentPrice = price;
+            if (holding.stale) {
+                holding.stale = false;
+                staleHoldings--;
+            }
+
+            Map<String, Object> update = new LinkedHashMap<>();
+            update.put("symbol", entry.getKey());
+            update.put("currentPrice", price);
+            update.put("currentValue", price * holding.quantity);
+            update.put("gain", (price - holding.purchasePrice) * holding.quantity);
+            update.put("stale", false);
+            changed.add(update);
+        }
+
+        if (changed.isEmpty()) {
+            return;
+        }
+
+        Map<String, Object> event = new LinkedHashMap<>();
+        event.put("holdings", changed);
+        event.put("totalValue", totalValue);
+        event.put("totalGain", totalGain);
+        event.put("stale", staleHoldings > 0);
+        send(event("prices", gson.toJson(event)));
+    }
+
+    /**
+     * Sends an SSE comment line to keep the connection open, unless events
+     * are still waiting to be written.
+     */
+    @Override
+    public synchronized void heartbeat() {
+        if (pending.size() == 0) {
+            send(": heartbeat\n\n".getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * Formats one SSE event.
+     *
+     * @param event the event name
+     * @param json  the event data (a single line of JSON)
+     * @return the event bytes
+     */
+    private static byte[] event(String event, String json) {
+        return ("event: " + event + "\ndata: " + json + "\n\n").getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Queues data for the client and writes as much as the connection takes
+     * without blocking. Closes the stream if the client has gone away or
+     * has fallen too far behind.
+     *
+     * @param data the bytes to send
+     * @throws IllegalStateException if the stream is closed
+     */
+    private void send(byte[] data) {
+        if (closed) {
+            throw new IllegalStateException("Stream closed");
+        }
+        pending.write(data, 0, data.length);
+        int unsent = pending.size();
+        if (unsent > maxPendingBytes) {
+            close();
+            throw new IllegalStateException("Client is not reading, " + unsent + " bytes unsent");
+        }
+        try {
+            drain();
+        } catch (IOException e) {
+            close();
+            throw new IllegalStateException("Stream closed", e);
+        }
+    }
+
+    /**
+     * Writes queued data and flushes it while the connection is ready. When
+     * it is not, the container calls back once it is. Called with the stream
+     * locked.
+     *
+     * @throws IOException if the client has gone away
+     */
+    private void drain() throws IOException {
+        if (closed) {
+            return;
+        }
+        while (pending.size() > 0 && out.isReady()) {
+            byte[] data = pending.toByteArray();
+            pending.reset();
+            out.write(data);
+            flushNeeded = true;
+        }
+        if (flushNeeded && out.isReady()) {
+            flushNeeded = false;
+            out.flush();
+        }
+    }
+
+    /**
+     * Ends the streaming request.
+     */
+    public synchronized void close() {
+        closed = true;
+        pending.reset();
+        try {
+            context.complete();
+        } catch (IllegalStateException ignored) {
+            // Already completed
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package org.global.academy.stream;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * A client of the {@link PriceUpdateHub}, usually one open browser stream.
+ *
+ * @author Project Group 5
+ * @version 1.0
+ */
+public interface PriceSubscriber {
+
+    /**
+     * Receives the new prices of subscribed symbols that changed since the
+     * previous call.
+     *
+     * @param changedPrices map of symbols to their latest prices
+     */
+    void onPrices(Map<String, Double> changedPrices);
+
+    /**
+     * Reloads the subscriber's portfolio after it changed, e.g. because of
+     * a trade.
+     *
+     * @return the symbols the subscriber wants updates for from now on
+     */
+    Collection<String> onPortfolioChanged();
+
+    /**
+     * Called periodically so idle connections are kept open and dead ones
+     * are detected.
+     */
+    void heartbeat();
+}
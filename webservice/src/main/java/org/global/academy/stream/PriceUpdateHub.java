@@ -0,0 +1,258 @@
+package org.global.academy.stream;
+
+import org.global.academy.market.PriceListener;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * Fans new prices out to the open price streams.
+ *
+ * Every symbol has one subscriber set shared by all streams that hold it,
+ * so a tick is routed with a single lookup no matter how many clients are
+ * connected. Ticks are not pushed on the fetching thread: the latest price
+ * per symbol is parked and a single dispatch thread delivers everything
+ * that changed since its last run, one call per subscriber. Bursts of
+ * ticks (e.g. a batched refresh of fifty symbols) therefore become one
+ * message per client.
+ *
+ * Subscribers are also grouped by user. When a user's portfolio changes
+ * ({@link #portfolioChanged}), the dispatch thread has each of the user's
+ * subscribers reload it and moves them to the symbols they hold now.
+ *
+ * @author Project Group 5
+ * @version 1.0
+ */
+public class PriceUpdateHub implements PriceListener {
+
+    private final Map<String, Set<PriceSubscriber>> subscribersBySymbol = new ConcurrentHashMap<>();
+    private final Map<String, Set<PriceSubscriber>> subscribersByUser = new ConcurrentHashMap<>();
+    private final Set<PriceSubscriber> allSubscribers = new CopyOnWriteArraySet<>();
+    private final Map<String, Double> pendingPrices = new ConcurrentHashMap<>();
+    private final AtomicBoolean dispatchScheduled = new AtomicBoolean();
+    private final ScheduledExecutorService dispatcher;
+
+    private final LongAdder ticksReceived = new LongAdder();
+    private final LongAdder messagesSent = new LongAdder();
+    private final LongAdder portfolioReloads = new LongAdder();
+    private final LongAdder subscribersDropped = new LongAdder();
+
+    /**
+     * Constructs a new PriceUpdateHub and starts its heartbeat.
+     *
+     * @param heartbeatSeconds how often idle subscribers get a heartbeat
+     */
+    public PriceUpdateHub(long heartbeatSeconds) {
+        this.dispatcher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "price-stream");
+            t.setDaemon(true);
+            return t;
+        });
+        dispatcher.scheduleWithFixedDelay(this::sendHeartbeats,
+                heartbeatSeconds, heartbeatSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Subscribes to price updates for the given symbols and to changes of
+     * the user's portfolio.
+     *
+     * @param subscriber the subscriber
+     * @param username   the owner of the streamed portfolio
+     * @param symbols    the symbols it wants updates for
+     */
+    public void subscribe(PriceSubscriber subscriber, String username, Collection<String> symbols) {
+        allSubscribers.add(subscriber);
+        subscribersByUser.compute(username, (k, subscribers) -> {
+            Set<PriceSubscriber> set = subscribers != null ? subscribers : new CopyOnWriteArraySet<>();
+            set.add(subscriber);
+            return set;
+        });
+        addSymbols(subscriber, symbols);
+    }
+
+    /**
+     * Removes a subscriber from every symbol and user.
+     *
+     * @param subscriber the subscriber
+     */
+    public void unsubscribe(PriceSubscriber subscriber) {
+        if (!allSubscribers.remove(subscriber)) {
+            return;
+        }
+        removeSymbols(subscriber, symbol -> true);
+        for (String username : subscribersByUser.keySet()) {
+            subscribersByUser.computeIfPresent(username, (k, subscribers) -> {
+                subscribers.remove(subscriber);
+                return subscribers.isEmpty() ? null : subscribers;
+            });
+        }
+    }
+
+    /**
+     * Adds a subscriber to the subscriber sets of the given symbols.
+     *
+     * @param subscriber the subscriber
+     * @param symbols    the symbols
+     */
+    private void addSymbols(PriceSubscriber subscriber, Collection<String> symbols) {
+        for (String symbol : symbols) {
+            subscribersBySymbol.compute(symbol, (k, subscribers) -> {
+                Set<PriceSubscriber> set = subscribers != null ? subscribers : new CopyOnWriteArraySet<>();
+                set.add(subscriber);
+                return set;
+            });
+        }
+    }
+
+    /**
+     * Removes a subscriber from the subscriber sets of the matching symbols.
+     *
+     * @param subscriber the subscriber
+     * @param symbols    selects the symbols to remove it from
+     */
+    private void removeSymbols(PriceSubscriber subscriber, Predicate<String> symbols) {
+        for (String symbol : subscribersBySymbol.keySet()) {
+            if (!symbols.test(symbol)) {
+                continue;
+            }
+            subscribersBySymbol.computeIfPresent(symbol, (k, subscribers) -> {
+                subscribers.remove(subscriber);
+                return subscribers.isEmpty() ? null : subscribers;
+            });
+        }
+    }
+
+    /**
+     * Has the subscribers of a user reload the portfolio, for example after
+     * a trade. Does nothing if the user has no open stream.
+     *
+     * @param username the owner of the changed portfolio
+     */
+    public void portfolioChanged(String username) {
+        if (subscribersByUser.containsKey(username)) {
+            dispatcher.execute(() -> reloadPortfolio(username));
+        }
+    }
+
+    /**
+     * Reloads the portfolio of every subscriber of a user and moves each
+     * to the symbols it holds now. Runs on the dispatch thread, so no
+     * prices are delivered in between.
+     *
+     * @param username the owner of the changed portfolio
+     */
+    private void reloadPortfolio(String username) {
+        Set<PriceSubscriber> subscribers = subscribersByUser.get(username);
+        if (subscribers == null) {
+            return;
+        }
+        for (PriceSubscriber subscriber : subscribers) {
+            try {
+                Set<String> symbols = Set.copyOf(subscriber.onPortfolioChanged());
+                // Add before removing, so ticks of symbols still held are not dropped
+                addSymbols(subscriber, symbols);
+                removeSymbols(subscriber, symbol -> !symbols.contains(symbol));
+                portfolioReloads.increment();
+            } catch (Exception e) {
+                unsubscribe(subscriber);
+                subscribersDropped.increment();
+            }
+            if (!allSubscribers.contains(subscriber)) {
+                // Unsubscribed while it was being moved
+                removeSymbols(subscriber, symbol -> true);
+            }
+        }
+    }
+
+    /**
+     * Parks a new price for delivery. Prices of symbols nobody is
+     * subscribed to are dropped immediately.
+     *
+     * @param symbol      the stock symbol
+     * @param epochMillis the time of the price
+     * @param price       the price
+     */
+    @Override
+    public void onPrice(String symbol, long epochMillis, double price) {
+        if (!subscribersBySymbol.containsKey(symbol)) {
+            return;
+        }
+        ticksReceived.increment();
+        pendingPrices.put(symbol, price);
+        if (dispatchScheduled.compareAndSet(false, true)) {
+            dispatcher.execute(this::dispatch);
+        }
+    }
+
+    /**
+     * Delivers all parked prices, grouped per subscriber.
+     */
+    private void dispatch() {
+        dispatchScheduled.set(false);
+
+        Map<PriceSubscriber, Map<String, Double>> changesBySubscriber = new HashMap<>();
+        for (String symbol : pendingPrices.keySet()) {
+            Double price = pendingPrices.remove(symbol);
+            Set<PriceSubscriber> subscribers = subscribersBySymbol.get(symbol);
+            if (price == null || subscribers == null) {
+                continue;
+            }
+            for (PriceSubscriber subscriber : subscribers) {
+                changesBySubscriber.computeIfAbsent(subscriber, k -> new HashMap<>()).put(symbol, price);
+            }
+        }
+
+        for (Map.Entry<PriceSubscriber, Map<String, Double>> entry : changesBySubscriber.entrySet()) {
+            try {
+                entry.getKey().onPrices(entry.getValue());
+                messagesSent.increment();
+            } catch (Exception e) {
+                unsubscribe(entry.getKey());
+                subscribersDropped.increment();
+            }
+        }
+    }
+
+    /**
+     * Sends a heartbeat to every subscriber.
+     */
+    private void sendHeartbeats() {
+        for (PriceSubscriber subscriber : allSubscribers) {
+            try {
+                subscriber.heartbeat();
+            } catch (Exception e) {
+                unsubscribe(subscriber);
+                subscribersDropped.increment();
+            }
+        }
+    }
+
+    /**
+     * Gets the hub figures for monitoring.
+     *
+     * @return map with subscriber and symbol counts, message and reload
+     *         counters and the number of subscribers dropped after a
+     *         failed send
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("subscribers", allSubscribers.size());
+        stats.put("symbols", subscribersBySymbol.size());
+        stats.put("ticksReceived", ticksReceived.sum());
+        stats.put("messagesSent", messagesSent.sum());
+        stats.put("portfolioReloads", portfolioReloads.sum());
+        stats.put("subscribersDropped", subscribersDropped.sum());
+        return stats;
+    }
+}
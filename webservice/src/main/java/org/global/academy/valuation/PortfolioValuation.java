@@ -0,0 +1,167 @@
+package org.global.academy.valuation;
+
+import org.global.academy.dto.response.HoldingView;
+import org.global.academy.dto.response.PortfolioView;
+import org.global.academy.model.PositionSummary;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * The market value of one user's portfolio, kept current as prices move.
+ *
+ * The positions are fixed when the valuation is built; a buy or sell
+ * replaces the whole valuation. A new price for one symbol changes the
+ * totals by (new price - old price) x quantity, so applying a tick and
+ * reading the totals take constant time.
+ *
+ * @author Project Group 5
+ * @version 1.0
+ */
+public class PortfolioValuation {
+
+    /** One valued position */
+    private static class Holding {
+        final PositionSummary position;
+        double currentPrice;
+
+        Holding(PositionSummary position, double currentPrice) {
+            this.position = position;
+            this.currentPrice = currentPrice;
+        }
+    }
+
+    private final List<PositionSummary> positions;
+    private final Map<String, Holding> holdings;
+    private final double totalCost;
+    private double totalValue;
+
+    /**
+     * Values a portfolio at the given prices.
+     *
+     * @param positions the positions of the portfolio (not copied)
+     * @param priceOf   gives the current price of a position
+     */
+    PortfolioValuation(List<PositionSummary> positions, ToDoubleFunction<PositionSummary> priceOf) {
+        this.positions = positions;
+        this.holdings = new LinkedHashMap<>();
+
+        double cost = 0.0;
+        for (PositionSummary position : positions) {
+            holdings.put(position.symbol(), new Holding(position, priceOf.applyAsDouble(position)));
+            cost += position.totalCost();
+        }
+        this.totalCost = cost;
+        recomputeValue();
+    }
+
+    /**
+     * Applies a new price to the position in one symbol.
+     *
+     * @param symbol the stock symbol
+     * @param price  the new price
+     * @return true if the price changed the valuation
+     */
+    synchronized boolean applyPrice(String symbol, double price) {
+        Holding holding = holdings.get(symbol);
+        if (holding == null || holding.currentPrice == price) {
+            return false;
+        }
+        totalValue += (price - holding.currentPrice) * holding.position.quantity();
+        holding.currentPrice = price;
+        return true;
+    }
+
+    /**
+     * Revalues every position from scratch, which also clears any rounding
+     * drift of the per-tick updates.
+     *
+     * @param priceOf gives the current price of a position
+     */
+    synchronized void revalue(ToDoubleFunction<PositionSummary> priceOf) {
+        for (Holding holding : holdings.values()) {
+            holding.currentPrice = priceOf.applyAsDouble(holding.position);
+        }
+        recomputeValue();
+    }
+
+    /**
+     * Sums the current values of all positions.
+     */
+    private void recomputeValue() {
+        double value = 0.0;
+        for (Holding holding : holdings.values()) {
+            value += holding.currentPrice * holding.position.quantity();
+        }
+        totalValue = value;
+    }
+
+    /**
+     * Gets the positions this valuation was built from.
+     *
+     * @return unmodified list of position summaries
+     */
+    public List<PositionSummary> getPositions() {
+        return positions;
+    }
+
+    /**
+     * Gets the symbols of the positions.
+     *
+     * @return list of stock symbols
+     */
+    public List<String> getSymbols() {
+        return new ArrayList<>(holdings.keySet());
+    }
+
+    /**
+     * Gets the current market value of the portfolio.
+     *
+     * @return the sum of price times quantity over all positions
+     */
+    public synchronized double getTotalValue() {
+        return totalValue;
+    }
+
+    /**
+     * Gets the unrealized gain of the portfolio.
+     *
+     * @return market value minus cost basis
+     */
+    public synchronized double getTotalGain() {
+        return totalValue - totalCost;
+    }
+
+    /**
+     * Builds the portfolio response from the current values.
+     *
+     * @param username     the owner of the portfolio
+     * @param staleSymbols the symbols whose price is not fresh
+     * @return the portfolio view
+     */
+    public synchronized PortfolioView toView(String username, Set<String> staleSymbols) {
+        List<HoldingView> views = new ArrayList<>(holdings.size());
+        for (Holding holding : holdings.values()) {
+            PositionSummary position = holding.position;
+
+            HoldingView view = new HoldingView();
+            view.symbol = position.symbol();
+            view.name = position.companyName();
+            view.quantity = position.quantity();
+            view.price = position.lastPrice();
+            view.purchasePrice = position.averageCost();
+            view.totalPrice = position.lastPrice() * position.quantity();
+            view.totalPurchasePrice = position.totalCost();
+            view.currentPrice = holding.currentPrice;
+            view.currentValue = holding.currentPrice * position.quantity();
+            view.gain = view.currentValue - position.totalCost();
+            view.stale = staleSymbols.contains(position.symbol());
+            views.add(view);
+        }
+        return new PortfolioView(username, views, totalValue, totalValue - totalCost, !staleSymbols.isEmpty());
+    }
+}
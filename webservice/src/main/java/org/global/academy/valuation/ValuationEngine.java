@@ -0,0 +1,351 @@
+package org.global.academy.valuation;
+
+import org.global.academy.dto.response.ExposureView;
+import org.global.academy.dto.response.SymbolExposure;
+import org.global.academy.market.PriceListener;
+import org.global.academy.model.Portfolio;
+import org.global.academy.model.PositionSummary;
+import org.global.academy.model.SymbolHoldings;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Marks every portfolio to market as prices arrive.
+ *
+ * The engine keeps one {@link PortfolioValuation} per user and a reverse
+ * index from each symbol to the valuations of the portfolios holding it.
+ * A new price is applied only to the portfolios in its index entry, each
+ * in constant time, so reading a user's totals never fetches or
+ * recomputes anything. Like the price streams, prices are parked and
+ * applied on the engine's own thread, latest price per symbol, so the
+ * fetching thread is not held up and bursts are applied once.
+ *
+ * Only portfolios in memory are valued: the repository tells the engine
+ * when it drops one ({@link #removePortfolio}), and it is valued again on
+ * its next request. The firm-wide exposure is computed from the
+ * repository's per-symbol totals (holders, shares and cost basis), one
+ * entry per symbol, so it covers every user whether loaded or not.
+ *
+ * A full revaluation of all portfolios runs periodically on the fork-join
+ * pool, split into tasks of {@code taskPortfolios} portfolios. It picks up
+ * prices that arrived while a valuation was being replaced and clears the
+ * rounding drift of the per-tick updates.
+ *
+ * Change listeners are told the username whenever a valuation is
+ * replaced, e.g. after a trade, so open streams can resend the holdings.
+ *
+ * @author Project Group 5
+ * @version 1.0
+ */
+public class ValuationEngine implements PriceListener {
+
+    private final ToDoubleFunction<String> lastKnownPrice;
+    private final int taskPortfolios;
+    private final Map<String, Double> latestPrices = new ConcurrentHashMap<>();
+    private final Map<String, PortfolioValuation> valuations = new ConcurrentHashMap<>();
+    private final Map<String, Set<PortfolioValuation>> holdersBySymbol = new ConcurrentHashMap<>();
+    private final Map<String, Double> pendingPrices = new ConcurrentHashMap<>();
+    private final AtomicBoolean applyScheduled = new AtomicBoolean();
+    private final ScheduledExecutorService scheduler;
+    private final List<Consumer<String>> changeListeners = new CopyOnWriteArrayList<>();
+
+    private final LongAdder ticksReceived = new LongAdder();
+    private final LongAdder valuationsUpdated = new LongAdder();
+    private final LongAdder portfolioChanges = new LongAdder();
+    private volatile long lastRevalueMillis;
+    private volatile long lastRevalueDurationMillis;
+
+    /**
+     * Constructs a new ValuationEngine.
+     *
+     * @param lastKnownPrice gives the last known price of a symbol (0.0 if
+     *                       unknown), used until a tick arrives
+     * @param taskPortfolios number of portfolios a revaluation task values
+     *                       itself instead of splitting
+     */
+    public ValuationEngine(ToDoubleFunction<String> lastKnownPrice, int taskPortfolios) {
+        this.lastKnownPrice = lastKnownPrice;
+        this.taskPortfolios = taskPortfolios;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "valuation");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Starts revaluing all portfolios at a fixed interval (on the same
+     * thread that applies new prices).
+     *
+     * @param intervalSeconds seconds between full revaluations
+     */
+    public void start(long intervalSeconds) {
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                revalueAll();
+            } catch (Exception e) {
+                System.err.println("Error revaluing portfolios: " + e.getMessage());
+            }
+        }, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Stops the periodic revaluation.
+     */
+    public void stop() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Replaces the valuation of a user's portfolio after it changed (or
+     * when it is first seen), and updates the reverse index.
+     *
+     * @param username  the owner of the portfolio
+     * @param portfolio the portfolio
+     * @return the new valuation
+     */
+    public synchronized PortfolioValuation updatePortfolio(String username, Portfolio portfolio) {
+        PortfolioValuation next = new PortfolioValuation(portfolio.getSummaries(), this::priceOf);
+        PortfolioValuation previous = valuations.put(username, next);
+        portfolioChanges.increment();
+
+        unindex(previous);
+
+        for (PositionSummary position : next.getPositions()) {
+            holdersBySymbol.computeIfAbsent(position.symbol(), symbol -> ConcurrentHashMap.newKeySet())
+                    .add(next);
+        }
+
+        // Ticks that arrived while the valuation was not yet indexed
+        for (PositionSummary position : next.getPositions()) {
+            Double price = latestPrices.get(position.symbol());
+            if (price != null) {
+                next.applyPrice(position.symbol(), price);
+            }
+        }
+
+        for (Consumer<String> listener : changeListeners) {
+            listener.accept(username);
+        }
+        return next;
+    }
+
+    /**
+     * Registers a listener told the username of every portfolio whose
+     * valuation was replaced. It is called with the engine locked, so it
+     * must only hand the work off.
+     *
+     * @param listener the listener
+     */
+    public void addChangeListener(Consumer<String> listener) {
+        changeListeners.add(listener);
+    }
+
+    /**
+     * Stops valuing a user's portfolio, for example because it was dropped
+     * from memory.
+     *
+     * @param username the owner of the portfolio
+     */
+    public synchronized void removePortfolio(String username) {
+        unindex(valuations.remove(username));
+    }
+
+    /**
+     * Removes a valuation from the reverse index.
+     *
+     * @param valuation the valuation, or null
+     */
+    private void unindex(PortfolioValuation valuation) {
+        if (valuation == null) {
+            return;
+        }
+        for (PositionSummary position : valuation.getPositions()) {
+            holdersBySymbol.computeIfPresent(position.symbol(), (symbol, holders) -> {
+                holders.remove(valuation);
+                return holders.isEmpty() ? null : holders;
+            });
+        }
+    }
+
+    /**
+     * Gets the current valuation of a user's portfolio.
+     *
+     * @param username the username
+     * @return the valuation, or null if the portfolio was never added
+     */
+    public PortfolioValuation getValuation(String username) {
+        return valuations.get(username);
+    }
+
+    /**
+     * Parks a new price; the valuation thread applies it to every
+     * portfolio holding the symbol.
+     *
+     * @param symbol      the stock symbol
+     * @param epochMillis the time of the price
+     * @param price       the price
+     */
+    @Override
+    public void onPrice(String symbol, long epochMillis, double price) {
+        ticksReceived.increment();
+        pendingPrices.put(symbol, price);
+        if (applyScheduled.compareAndSet(false, true)) {
+            scheduler.execute(this::applyPendingPrices);
+        }
+    }
+
+    /**
+     * Applies all parked prices to the portfolios holding their symbols.
+     */
+    private void applyPendingPrices() {
+        applyScheduled.set(false);
+
+        long updated = 0;
+        for (String symbol : pendingPrices.keySet()) {
+            Double price = pendingPrices.remove(symbol);
+            if (price == null) {
+                continue;
+            }
+            latestPrices.put(symbol, price);
+
+            Set<PortfolioValuation> holders = holdersBySymbol.get(symbol);
+            if (holders == null) {
+                continue;
+            }
+            for (PortfolioValuation valuation : holders) {
+                if (valuation.applyPrice(symbol, price)) {
+                    updated++;
+                }
+            }
+        }
+        valuationsUpdated.add(updated);
+    }
+
+    /**
+     * Revalues every portfolio from scratch, in parallel on the fork-join
+     * pool.
+     */
+    public void revalueAll() {
+        long start = System.currentTimeMillis();
+        PortfolioValuation[] all = valuations.values().toArray(new PortfolioValuation[0]);
+        ForkJoinPool.commonPool().invoke(new RevalueTask(all, 0, all.length));
+        lastRevalueMillis = System.currentTimeMillis();
+        lastRevalueDurationMillis = lastRevalueMillis - start;
+    }
+
+    /**
+     * Revalues a range of portfolios, splitting it in halves while it is
+     * larger than the task size.
+     */
+    private class RevalueTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        /** Only ever run in this JVM, so the portfolios are not serialized */
+        private final transient PortfolioValuation[] valuations;
+        private final int from;
+        private final int to;
+
+        RevalueTask(PortfolioValuation[] valuations, int from, int to) {
+            this.valuations = valuations;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= taskPortfolios) {
+                for (int i = from; i < to; i++) {
+                    valuations[i].revalue(ValuationEngine.this::priceOf);
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new RevalueTask(valuations, from, mid), new RevalueTask(valuations, mid, to));
+        }
+    }
+
+    /**
+     * Gets the current price of a position: the latest tick, else the last
+     * known price, else the price the position was stored with.
+     *
+     * @param position the position
+     * @return the price
+     */
+    private double priceOf(PositionSummary position) {
+        Double latest = latestPrices.get(position.symbol());
+        if (latest != null) {
+            return latest;
+        }
+        double known = lastKnownPrice.applyAsDouble(position.symbol());
+        return known > 0 ? known : position.lastPrice();
+    }
+
+    /**
+     * Values firm-wide holdings per symbol at the latest prices.
+     *
+     * @param holdings the holders, shares and cost basis of every symbol
+     * @return the exposure, largest market value first
+     */
+    public ExposureView getExposure(Collection<SymbolHoldings> holdings) {
+        ExposureView view = new ExposureView();
+        view.symbols = new ArrayList<>(holdings.size());
+
+        for (SymbolHoldings totals : holdings) {
+            Double latest = latestPrices.get(totals.symbol());
+            double price = latest != null ? latest : lastKnownPrice.applyAsDouble(totals.symbol());
+
+            SymbolExposure exposure = new SymbolExposure();
+            exposure.symbol = totals.symbol();
+            exposure.holders = totals.holders();
+            exposure.quantity = totals.quantity();
+            exposure.price = price;
+            exposure.marketValue = price * totals.quantity();
+            exposure.costBasis = totals.costBasis();
+            exposure.unrealizedGain = exposure.marketValue - totals.costBasis();
+            view.symbols.add(exposure);
+
+            view.totalMarketValue += exposure.marketValue;
+            view.totalCostBasis += exposure.costBasis;
+        }
+
+        view.symbols.sort(Comparator.comparingDouble((SymbolExposure e) -> e.marketValue).reversed());
+        view.totalUnrealizedGain = view.totalMarketValue - view.totalCostBasis;
+        return view;
+    }
+
+    /**
+     * Gets the engine figures for monitoring.
+     *
+     * @return map with portfolio and symbol counts, update counters and
+     *         the last full revaluation
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("portfolios", valuations.size());
+        stats.put("symbols", holdersBySymbol.size());
+        stats.put("ticksReceived", ticksReceived.sum());
+        stats.put("valuationsUpdated", valuationsUpdated.sum());
+        stats.put("portfolioChanges", portfolioChanges.sum());
+        stats.put("lastRevalueMillis", lastRevalueMillis);
+        stats.put("lastRevalueDurationMillis", lastRevalueDurationMillis);
+        return stats;
+    }
+}
@@ -0,0 +1,222 @@
+package org.global.academy.market;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import org.global.academy.dto.response.StockReference;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Measures the memory allocated per parse of upstream market data
+ * responses, for the tree-based parsing the providers used before
+ * (response String, then a JsonObject tree) and for the streaming
+ * {@link MarketDataJson} readers.
+ *
+ * The responses are synthetic but follow the Twelve Data field layout:
+ * a /stocks listing and a batched /price response. Allocation is read
+ * from the thread allocation counter of the HotSpot ThreadMXBean, so the
+ * figures count every byte allocated while parsing, whether or not it is
+ * still reachable afterwards.
+ *
+ * Run with:
+ *
+ * <pre>
+ * mvn -q test-compile
+ * java -cp target/classes:target/test-classes:$(mvn -q dependency:build-classpath -Dmdep.outputFile=/dev/stdout) \
+ *     org.global.academy.market.MarketDataJsonBenchmark [listingEntries] [iterations]
+ * </pre>
+ *
+ * @author Project Group 5
+ * @version 1.0
+ */
+public final class MarketDataJsonBenchmark {
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private static final Gson GSON = new Gson();
+
+    /** A parser under test */
+    private interface Parser {
+        int parse(byte[] body) throws IOException;
+    }
+
+    private MarketDataJsonBenchmark() {
+    }
+
+    /**
+     * Runs the benchmark and prints the allocation per parse.
+     *
+     * @param args optional listing size (default 20000) and number of
+     *             measured iterations (default 20)
+     * @throws IOException if a response cannot be parsed
+     */
+    public static void main(String[] args) throws IOException {
+        int entries = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+
+        byte[] listing = catalogResponse(entries);
+        List<String> symbols = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            symbols.add(symbol(i));
+        }
+        byte[] prices = priceResponse(symbols);
+
+        System.out.printf("Stock list: %d entries, %.1f MB; price batch: %d symbols, %d bytes%n",
+                entries, listing.length / 1e6, symbols.size(), prices.length);
+        System.out.printf("%-24s %14s %14s %10s%n", "response", "tree (B/parse)", "stream (B/parse)", "ratio");
+
+        report("stock list", iterations, listing,
+                MarketDataJsonBenchmark::treeCatalog,
+                body -> MarketDataJson.readCatalog(new ByteArrayInputStream(body)).size());
+        report("price batch", iterations * 50, prices,
+                body -> treePrices(body, symbols).size(),
+                body -> MarketDataJson.readPrices(new ByteArrayInputStream(body), symbols).size());
+    }
+
+    /**
+     * Measures both parsers on one response and prints a result line.
+     *
+     * @param name       the response name
+     * @param iterations the number of measured parses
+     * @param body       the response body
+     * @param tree       the tree-based parser
+     * @param stream     the streaming parser
+     * @throws IOException if the response cannot be parsed
+     */
+    private static void report(String name, int iterations, byte[] body, Parser tree, Parser stream)
+            throws IOException {
+        int expected = tree.parse(body);
+        if (stream.parse(body) != expected) {
+            throw new IllegalStateException("Parsers disagree on " + name);
+        }
+        long treeBytes = allocatedPerParse(tree, body, iterations);
+        long streamBytes = allocatedPerParse(stream, body, iterations);
+        System.out.printf("%-24s %14d %14d %9.1fx%n", name, treeBytes, streamBytes,
+                (double) treeBytes / streamBytes);
+    }
+
+    /**
+     * Measures the average allocation of one parse, after a warm-up.
+     *
+     * @param parser     the parser
+     * @param body       the response body
+     * @param iterations the number of measured parses
+     * @return bytes allocated per parse
+     * @throws IOException if the response cannot be parsed
+     */
+    private static long allocatedPerParse(Parser parser, byte[] body, int iterations) throws IOException {
+        for (int i = 0; i < iterations; i++) {
+            parser.parse(body);
+        }
+        long thread = Thread.currentThread().getId();
+        long before = THREADS.getThreadAllocatedBytes(thread);
+        for (int i = 0; i < iterations; i++) {
+            parser.parse(body);
+        }
+        return (THREADS.getThreadAllocatedBytes(thread) - before) / iterations;
+    }
+
+    /**
+     * Parses a /stocks response the way the provider did before streaming:
+     * the body as a String, then a JsonObject tree.
+     *
+     * @param body the response body
+     * @return the number of stocks read
+     */
+    private static int treeCatalog(byte[] body) {
+        JsonObject json = GSON.fromJson(new String(body, StandardCharsets.UTF_8), JsonObject.class);
+        List<StockReference> stocks = new ArrayList<>();
+        for (JsonElement element : json.getAsJsonArray("data")) {
+            JsonObject obj = element.getAsJsonObject();
+            stocks.add(new StockReference(obj.get("symbol").getAsString(), obj.get("name").getAsString()));
+        }
+        return stocks.size();
+    }
+
+    /**
+     * Parses a batched /price response the way the provider did before
+     * streaming.
+     *
+     * @param body    the response body
+     * @param symbols the requested symbols
+     * @return map of symbols to prices
+     */
+    private static Map<String, Double> treePrices(byte[] body, List<String> symbols) {
+        JsonObject json = GSON.fromJson(new String(body, StandardCharsets.UTF_8), JsonObject.class);
+        Map<String, Double> results = new HashMap<>();
+        for (String symbol : symbols) {
+            if (json.has(symbol) && json.getAsJsonObject(symbol).has("price")) {
+                results.put(symbol, json.getAsJsonObject(symbol).get("price").getAsDouble());
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Builds a /stocks response with the Twelve Data fields.
+     *
+     * @param entries the number of stocks
+     * @return the response body
+     */
+    private static byte[] catalogResponse(int entries) {
+        JsonArray data = new JsonArray();
+        for (int i = 0; i < entries; i++) {
+            JsonObject stock = new JsonObject();
+            stock.addProperty("symbol", symbol(i));
+            stock.addProperty("name", "Company Number " + i + " Holdings Inc");
+            stock.addProperty("currency", "USD");
+            stock.addProperty("exchange", i % 2 == 0 ? "NASDAQ" : "NYSE");
+            stock.addProperty("mic_code", i % 2 == 0 ? "XNGS" : "XNYS");
+            stock.addProperty("country", "United States");
+            stock.addProperty("type", "Common Stock");
+            stock.addProperty("figi_code", String.format("BBG%09d", i));
+            data.add(stock);
+        }
+        JsonObject root = new JsonObject();
+        root.add("data", data);
+        root.addProperty("status", "ok");
+        return GSON.toJson(root).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Builds a batched /price response, prices encoded as strings as the
+     * API does.
+     *
+     * @param symbols the symbols
+     * @return the response body
+     */
+    private static byte[] priceResponse(List<String> symbols) {
+        JsonObject root = new JsonObject();
+        for (int i = 0; i < symbols.size(); i++) {
+            JsonObject price = new JsonObject();
+            price.addProperty("price", String.format("%.5f", 10 + i * 1.25));
+            root.add(symbols.get(i), price);
+        }
+        return GSON.toJson(root).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Gets a synthetic ticker symbol.
+     *
+     * @param i the stock number
+     * @return a symbol of up to five letters
+     */
+    private static String symbol(int i) {
+        StringBuilder symbol = new StringBuilder();
+        do {
+            symbol.append((char) ('A' + i % 26));
+            i /= 26;
+        } while (i > 0);
+        return symbol.toString();
+    }
+}
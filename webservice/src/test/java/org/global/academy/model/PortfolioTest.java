@@ -0,0 +1,64 @@
+package org.global.academy.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Checks of sales through {@link Portfolio}: rejected sales change
+ * nothing, and a sale without a method uses the position's default.
+ *
+ * @author Project Group 5
+ * @version 1.0
+ */
+class PortfolioTest {
+
+    private static final double DELTA = 1e-9;
+
+    @Test
+    void overSellIsRejectedWithoutChanges() {
+        Portfolio portfolio = new Portfolio();
+        portfolio.addStock(new Stock("Apple Inc.", "AAPL", "US", 100.0), 10, 1_000L);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> portfolio.removeStock("AAPL", 11, 150.0, LotReliefMethod.FIFO));
+        assertThrows(IllegalArgumentException.class,
+                () -> portfolio.removeStock("AAPL", 0, 150.0, LotReliefMethod.FIFO));
+        assertThrows(IllegalArgumentException.class,
+                () -> portfolio.removeStock("MSFT", 1, 150.0, null));
+        assertEquals(10, portfolio.getSummary("AAPL").quantity());
+        assertEquals(1_000.0, portfolio.getSummary("AAPL").totalCost(), DELTA);
+    }
+
+    @Test
+    void saleWithoutMethodUsesThePositionDefault() {
+        Portfolio portfolio = new Portfolio();
+        portfolio.addStock(new Stock("Apple Inc.", "AAPL", "US", 100.0), 10, 1_000L);
+        portfolio.addStock(new Stock("Apple Inc.", "AAPL", "US", 130.0), 10, 2_000L);
+
+        Sale fifo = portfolio.removeStock("AAPL", 5, 150.0, null);
+        assertEquals(LotReliefMethod.FIFO, fifo.method());
+        assertEquals(500.0, fifo.costBasis(), DELTA);
+
+        portfolio.removeStock("AAPL", 5, 150.0, LotReliefMethod.AVERAGE_COST);
+        portfolio.checkSale("AAPL", 5, null);
+        assertThrows(IllegalArgumentException.class, () -> portfolio.checkSale("AAPL", 5, LotReliefMethod.LIFO));
+
+        Sale pooled = portfolio.removeStock("AAPL", 5, 150.0, null);
+        assertEquals(LotReliefMethod.AVERAGE_COST, pooled.method());
+        // 5 @ 100 and 10 @ 130 left after the FIFO sale average 120
+        assertEquals(5 * 120.0, pooled.costBasis(), DELTA);
+        assertEquals(5, portfolio.getSummary("AAPL").quantity());
+    }
+
+    @Test
+    void sellingEveryShareRemovesThePosition() {
+        Portfolio portfolio = new Portfolio();
+        portfolio.addStock(new Stock("Apple Inc.", "AAPL", "US", 100.0), 10, 1_000L);
+
+        portfolio.removeStock("AAPL", 10, 150.0, LotReliefMethod.LIFO);
+        assertNull(portfolio.getSummary("AAPL"));
+    }
+}
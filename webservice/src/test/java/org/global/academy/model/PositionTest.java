@@ -0,0 +1,142 @@
+package org.global.academy.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks of lot relief in {@link Position}: which lots shares are taken
+ * from, how partly sold lots are split, and the pooled cost basis after an
+ * average cost election.
+ *
+ * @author Project Group 5
+ * @version 1.0
+ */
+class PositionTest {
+
+    private static final double DELTA = 1e-9;
+
+    @Test
+    void fifoTakesOldestLotsFirst() {
+        Position position = threeLots();
+
+        assertEquals(10 * 100.0 + 5 * 110.0, position.removeShares(15, LotReliefMethod.FIFO), DELTA);
+        assertLots(position, "5 @ 110.0", "10 @ 120.0");
+        assertEquals(15, position.getQuantity());
+        assertEquals(5 * 110.0 + 10 * 120.0, position.getTotalCost(), DELTA);
+    }
+
+    @Test
+    void lifoTakesNewestLotsFirst() {
+        Position position = threeLots();
+
+        assertEquals(10 * 120.0 + 5 * 110.0, position.removeShares(15, LotReliefMethod.LIFO), DELTA);
+        assertLots(position, "10 @ 100.0", "5 @ 110.0");
+        assertEquals(10 * 100.0 + 5 * 110.0, position.getTotalCost(), DELTA);
+    }
+
+    @Test
+    void partlySoldLotKeepsItsCostAndPurchaseTime() {
+        Position position = threeLots();
+
+        position.removeShares(4, LotReliefMethod.FIFO);
+        Lot rest = position.getLots().get(0);
+        assertEquals(6, rest.getQuantity());
+        assertEquals(100.0, rest.getCostPerShare(), DELTA);
+        assertEquals(1_000L, rest.getAcquiredAtMillis());
+        assertEquals(3, position.getLotCount());
+    }
+
+    @Test
+    void averageCostPoolsTheBasisAndKeepsLotCosts() {
+        Position position = threeLots();
+        double average = position.getAverageCost();
+        assertEquals(110.0, average, DELTA);
+
+        assertEquals(12 * average, position.removeShares(12, LotReliefMethod.AVERAGE_COST), DELTA);
+        assertTrue(position.isAverageCostElected());
+        assertEquals(LotReliefMethod.AVERAGE_COST, position.getDefaultReliefMethod());
+        assertEquals(18, position.getQuantity());
+        assertEquals(18 * average, position.getTotalCost(), DELTA);
+        // The lots are relieved oldest first at their own cost
+        assertLots(position, "8 @ 110.0", "10 @ 120.0");
+
+        // Later purchases add to the pooled basis
+        position.addLot(new Lot(2, 200.0, 4_000L));
+        assertEquals(18 * average + 2 * 200.0, position.getTotalCost(), DELTA);
+        assertEquals(5 * position.getAverageCost(), position.removeShares(5, LotReliefMethod.AVERAGE_COST), DELTA);
+    }
+
+    @Test
+    void electionRejectsOtherMethods() {
+        Position position = threeLots();
+        assertEquals(LotReliefMethod.FIFO, position.getDefaultReliefMethod());
+        position.checkReliefMethod(LotReliefMethod.LIFO);
+
+        position.removeShares(1, LotReliefMethod.AVERAGE_COST);
+        assertThrows(IllegalArgumentException.class, () -> position.removeShares(1, LotReliefMethod.FIFO));
+        assertThrows(IllegalArgumentException.class, () -> position.checkReliefMethod(LotReliefMethod.LIFO));
+        assertEquals(29, position.getQuantity());
+    }
+
+    @Test
+    void restoredBasisIsKeptAfterReload() {
+        Position position = threeLots();
+        position.removeShares(12, LotReliefMethod.AVERAGE_COST);
+
+        Position reloaded = new Position("AAPL", "Apple Inc.");
+        for (Lot lot : position.getLots()) {
+            reloaded.addLot(lot);
+        }
+        reloaded.restoreAverageCostBasis(position.getTotalCost());
+        assertEquals(position.getTotalCost(), reloaded.getTotalCost(), DELTA);
+        assertTrue(reloaded.isAverageCostElected());
+        assertEquals(position.removeShares(3, LotReliefMethod.AVERAGE_COST),
+                reloaded.removeShares(3, LotReliefMethod.AVERAGE_COST), DELTA);
+    }
+
+    @Test
+    void sellingEverythingEmptiesThePosition() {
+        Position position = threeLots();
+
+        assertEquals(3_300.0, position.removeShares(30, LotReliefMethod.LIFO), DELTA);
+        assertTrue(position.isEmpty());
+        assertEquals(0, position.getQuantity());
+        assertEquals(0.0, position.getTotalCost(), DELTA);
+    }
+
+    @Test
+    void copyDoesNotShareLots() {
+        Position position = threeLots();
+        Position copy = new Position(position);
+
+        copy.removeShares(10, LotReliefMethod.FIFO);
+        assertEquals(30, position.getQuantity());
+        assertEquals(3, position.getLotCount());
+        assertFalse(copy.isAverageCostElected());
+    }
+
+    /**
+     * Creates a position of 10 shares at 100, 10 at 110 and 10 at 120,
+     * bought in that order.
+     */
+    private static Position threeLots() {
+        Position position = new Position("AAPL", "Apple Inc.");
+        position.addLot(new Lot(10, 100.0, 1_000L));
+        position.addLot(new Lot(10, 110.0, 2_000L));
+        position.addLot(new Lot(10, 120.0, 3_000L));
+        return position;
+    }
+
+    /**
+     * Checks the open lots, oldest first, as "quantity @ cost".
+     */
+    private static void assertLots(Position position, String... expected) {
+        assertEquals(List.of(expected), position.getLots().stream().map(Lot::toString).toList());
+    }
+}
@@ -0,0 +1,191 @@
+package org.global.academy.persistence;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks of {@link GroupCommitWriter}: batching, when each durability mode
+ * forces writes to disk, and how a failed batch reaches its callers.
+ *
+ * @author Project Group 5
+ * @version 1.0
+ */
+class GroupCommitWriterTest {
+
+    /**
+     * Records what the writer does. A write can be held until released,
+     * so items queue up behind it, and writes or syncs can be made to fail.
+     */
+    private static final class RecordingSink implements BatchSink<String> {
+
+        final List<String> calls = Collections.synchronizedList(new ArrayList<>());
+        final CountDownLatch writing = new CountDownLatch(1);
+        volatile CountDownLatch hold = new CountDownLatch(0);
+        volatile Predicate<List<String>> failWrite = batch -> false;
+        volatile boolean failSync;
+
+        @Override
+        public void write(List<String> batch) throws IOException {
+            writing.countDown();
+            try {
+                hold.await();
+            } catch (InterruptedException e) {
+                throw new IOException(e);
+            }
+            if (failWrite.test(batch)) {
+                throw new IOException("disk full");
+            }
+            calls.add("write " + batch);
+        }
+
+        @Override
+        public void sync() throws IOException {
+            if (failSync) {
+                throw new IOException("sync failed");
+            }
+            calls.add("sync");
+        }
+
+        /**
+         * Counts the syncs recorded so far.
+         */
+        long syncs() {
+            synchronized (calls) {
+                return calls.stream().filter("sync"::equals).count();
+            }
+        }
+    }
+
+    private final RecordingSink sink = new RecordingSink();
+    private GroupCommitWriter<String> writer;
+
+    @AfterEach
+    void closeWriter() {
+        sink.hold.countDown();
+        sink.failSync = false;
+        writer.close();
+    }
+
+    @Test
+    void everyCommitIsSyncedBeforeItCompletes() {
+        writer = open(DurabilityMode.FSYNC_EACH_COMMIT, 60_000);
+
+        writer.submit("a").join();
+        assertEquals(List.of("write [a]", "sync"), sink.calls);
+        writer.submit("b").join();
+        assertEquals(List.of("write [a]", "sync", "write [b]", "sync"), sink.calls);
+    }
+
+    @Test
+    void itemsQueuedDuringAWriteAreCommittedTogether() throws InterruptedException {
+        writer = open(DurabilityMode.FSYNC_EACH_COMMIT, 60_000);
+        sink.hold = new CountDownLatch(1);
+
+        CompletableFuture<Void> first = writer.submit("a");
+        assertTrue(sink.writing.await(5, TimeUnit.SECONDS));
+        List<CompletableFuture<Void>> queued = List.of(writer.submit("b"), writer.submit("c"), writer.submit("d"));
+        sink.hold.countDown();
+
+        first.join();
+        queued.forEach(CompletableFuture::join);
+        assertEquals(List.of("write [a]", "sync", "write [b, c, d]", "sync"), sink.calls);
+        assertEquals(3, writer.getStats().get("largestBatch"));
+    }
+
+    @Test
+    void intervalModeCompletesBeforeTheSync() throws InterruptedException {
+        writer = open(DurabilityMode.FSYNC_INTERVAL, 1_000);
+        sink.failSync = true;
+
+        // Completes although syncing fails: the sync is not waited for
+        writer.submit("a").join();
+        assertEquals(List.of("write [a]"), sink.calls);
+
+        sink.failSync = false;
+        for (int i = 0; i < 500 && sink.syncs() == 0; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(List.of("write [a]", "sync"), sink.calls);
+    }
+
+    @Test
+    void asyncModeOnlySyncsOnFlush() throws InterruptedException {
+        writer = open(DurabilityMode.ASYNC, 10);
+
+        writer.submit("a").join();
+        writer.submit("b").join();
+        Thread.sleep(50);
+        assertEquals(0, sink.syncs());
+
+        writer.flush().join();
+        assertEquals(List.of("write [a]", "write [b]", "sync"), sink.calls);
+    }
+
+    @Test
+    void failedBatchFailsAllItsItemsOnly() throws InterruptedException {
+        writer = open(DurabilityMode.FSYNC_EACH_COMMIT, 60_000);
+        sink.hold = new CountDownLatch(1);
+        sink.failWrite = batch -> batch.contains("bad");
+
+        CompletableFuture<Void> first = writer.submit("a");
+        assertTrue(sink.writing.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Void> bad = writer.submit("bad");
+        CompletableFuture<Void> sameBatch = writer.submit("b");
+        sink.hold.countDown();
+
+        first.join();
+        assertInstanceOf(UncheckedIOException.class, assertThrows(CompletionException.class, bad::join).getCause());
+        assertInstanceOf(UncheckedIOException.class,
+                assertThrows(CompletionException.class, sameBatch::join).getCause());
+
+        writer.submit("c").join();
+        assertEquals(List.of("write [a]", "sync", "write [c]", "sync"), sink.calls);
+        assertEquals(1L, writer.getStats().get("failures"));
+    }
+
+    @Test
+    void failedSyncFailsTheCommit() {
+        writer = open(DurabilityMode.FSYNC_EACH_COMMIT, 60_000);
+        sink.failSync = true;
+
+        CompletionException failure = assertThrows(CompletionException.class, () -> writer.submit("a").join());
+        assertInstanceOf(UncheckedIOException.class, failure.getCause());
+    }
+
+    @Test
+    void closeFlushesAndRejectsLaterItems() {
+        writer = open(DurabilityMode.ASYNC, 60_000);
+        CompletableFuture<Void> pending = writer.submit("a");
+
+        writer.close();
+        assertTrue(pending.isDone());
+        assertFalse(pending.isCompletedExceptionally());
+        assertEquals(List.of("write [a]", "sync"), sink.calls);
+        CompletionException failure = assertThrows(CompletionException.class, () -> writer.submit("b").join());
+        assertInstanceOf(IllegalStateException.class, failure.getCause());
+    }
+
+    /**
+     * Starts a writer on the recording sink.
+     */
+    private GroupCommitWriter<String> open(DurabilityMode mode, long syncIntervalMillis) {
+        return new GroupCommitWriter<>("test-writer", sink, mode, syncIntervalMillis, 512);
+    }
+}
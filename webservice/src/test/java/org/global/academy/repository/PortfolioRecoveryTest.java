@@ -0,0 +1,231 @@
+package org.global.academy.repository;
+
+import com.google.gson.Gson;
+import org.global.academy.model.LotReliefMethod;
+import org.global.academy.model.PositionSummary;
+import org.global.academy.model.Stock;
+import org.global.academy.persistence.DurabilityMode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Crash-recovery checks for {@link PortfolioRepository}: trades are made,
+ * the repository is abandoned without {@link PortfolioRepository#close()}
+ * (as after a crash), files are damaged the way a crash or a bad disk
+ * would, and a new repository opened on the same files must hold the same
+ * positions, or refuse to load what it cannot restore.
+ *
+ * @author Project Group 5
+ * @version 1.0
+ */
+class PortfolioRecoveryTest {
+
+    @TempDir
+    Path dataDir;
+
+    private final List<PortfolioRepository> opened = new ArrayList<>();
+
+    @AfterEach
+    void closeRepositories() {
+        for (PortfolioRepository repository : opened) {
+            repository.close();
+        }
+    }
+
+    @Test
+    void tornRecordAtEndOfTradeLogIsDropped() throws IOException {
+        PortfolioRepository before = open(1L << 30);
+        buy(before, "alice", "AAPL", 10, 190.0);
+        buy(before, "alice", "MSFT", 3, 420.0);
+        sell(before, "alice", "AAPL", 4);
+        buy(before, "bob", "AAPL", 7, 191.5);
+        Map<String, PositionSummary> alice = positions(before, "alice");
+        Map<String, PositionSummary> bob = positions(before, "bob");
+
+        // A record cut off by the crash: its header promises more bytes than were written
+        try (var log = Files.newByteChannel(newest("trades.wal", dataDir), StandardOpenOption.APPEND)) {
+            log.write(ByteBuffer.allocate(12).putInt(200).putInt(0x1234).putInt(42).flip());
+        }
+
+        PortfolioRepository after = open(1L << 30);
+        assertEquals(alice, positions(after, "alice"));
+        assertEquals(bob, positions(after, "bob"));
+
+        // Trades logged after the dropped record survive the next crash
+        buy(after, "alice", "AAPL", 1, 192.0);
+        assertEquals(7, positions(open(1L << 30), "alice").get("AAPL").quantity());
+    }
+
+    @Test
+    void tradeTooLargeToLogIsRejectedAlone() {
+        PortfolioRepository before = open(1L << 30);
+        buy(before, "alice", "AAPL", 10, 190.0);
+        Stock huge = new Stock("x".repeat(70_000), "HUGE", "US", 1.0);
+        assertThrows(IllegalArgumentException.class, () -> before.recordPurchase("alice", huge, 1));
+        // Every field fits, but the record is longer than the log reads back
+        Stock large = new Stock("x".repeat(60_000), "LARGE", "US", 1.0);
+        assertThrows(IllegalArgumentException.class, () -> before.recordPurchase("b".repeat(6_000), large, 1));
+        buy(before, "alice", "MSFT", 3, 420.0);
+        Map<String, PositionSummary> alice = positions(before, "alice");
+        assertEquals(2, alice.size());
+
+        assertEquals(alice, positions(open(1L << 30), "alice"));
+    }
+
+    @Test
+    void damagedPortfolioFileIsRestoredFromPreviousFileAndTradeLog() throws IOException {
+        PortfolioRepository before = open(1L << 30);
+        buy(before, "alice", "AAPL", 10, 190.0);
+        before.checkpoint();
+        buy(before, "alice", "AAPL", 5, 195.0);
+        before.checkpoint();
+        sell(before, "alice", "AAPL", 2);
+        buy(before, "bob", "MSFT", 2, 420.0);
+        before.checkpoint();
+        Map<String, PositionSummary> alice = positions(before, "alice");
+
+        corrupt(newest("portfolio.json", userDir("alice")));
+
+        PortfolioRepository after = open(1L << 30);
+        assertEquals(alice, positions(after, "alice"));
+        assertEquals(2, positions(after, "bob").get("MSFT").quantity());
+    }
+
+    @Test
+    void portfolioFileOlderThanTradeLogIsNotServed() throws IOException {
+        PortfolioRepository before = open(1L << 30);
+        buy(before, "carol", "AAPL", 10, 190.0);
+        before.checkpoint();
+        buy(before, "carol", "AAPL", 5, 195.0);
+        before.checkpoint();
+        buy(before, "dave", "MSFT", 1, 420.0);
+        before.checkpoint();
+        buy(before, "dave", "MSFT", 1, 421.0);
+        before.checkpoint();
+
+        corrupt(newest("portfolio.json", userDir("carol")));
+
+        PortfolioRepository after = open(1L << 30);
+        assertThrows(UncheckedIOException.class, () -> after.getPortfolio("carol"));
+        assertEquals(2, positions(after, "dave").get("MSFT").quantity());
+    }
+
+    @Test
+    void portfoliosDroppedFromMemoryAreWrittenBackFirst() throws IOException {
+        // Room for only a few portfolios, so most are dropped after each checkpoint
+        PortfolioRepository before = open(2048);
+        Map<String, Map<String, PositionSummary>> expected = new LinkedHashMap<>();
+        for (int round = 0; round < 3; round++) {
+            for (int user = 0; user < 20; user++) {
+                buy(before, "user" + user, "AAPL", round + 1, 190.0 + user);
+            }
+            before.checkpoint();
+        }
+        for (int user = 0; user < 20; user++) {
+            expected.put("user" + user, positions(before, "user" + user));
+        }
+        assertTrue((long) before.getCacheStats().get("evictions") > 0, "no portfolio was dropped");
+
+        PortfolioRepository after = open(2048);
+        for (Map.Entry<String, Map<String, PositionSummary>> entry : expected.entrySet()) {
+            assertEquals(entry.getValue(), positions(after, entry.getKey()), entry.getKey());
+        }
+    }
+
+    /**
+     * Opens a repository on the test data directory.
+     *
+     * @param maxResidentBytes estimated memory loaded portfolios may use
+     * @return the repository
+     */
+    private PortfolioRepository open(long maxResidentBytes) {
+        PortfolioRepository repository = new PortfolioRepository(new Gson(), dataDir.resolve("holdings.json"),
+                dataDir.resolve("portfolios"), dataDir.resolve("trades.wal"), 1_000_000,
+                DurabilityMode.FSYNC_EACH_COMMIT, maxResidentBytes);
+        opened.add(repository);
+        return repository;
+    }
+
+    /**
+     * Buys shares and waits until the trade is logged.
+     */
+    private static void buy(PortfolioRepository repository, String username, String symbol, int quantity,
+            double price) {
+        repository.recordPurchase(username, new Stock(symbol + " Inc", symbol, "US", price), quantity).join();
+    }
+
+    /**
+     * Sells shares (oldest lots first) and waits until the trade is logged.
+     */
+    private static void sell(PortfolioRepository repository, String username, String symbol, int quantity) {
+        repository.recordSale(username, symbol, quantity, 200.0, LotReliefMethod.FIFO).join();
+    }
+
+    /**
+     * Gets a user's positions by symbol.
+     *
+     * @param repository the repository
+     * @param username   the username
+     * @return the position summaries
+     */
+    private static Map<String, PositionSummary> positions(PortfolioRepository repository, String username) {
+        Map<String, PositionSummary> positions = new LinkedHashMap<>();
+        for (PositionSummary summary : repository.getPortfolio(username).getSummaries()) {
+            positions.put(summary.symbol(), summary);
+        }
+        return positions;
+    }
+
+    /**
+     * Gets the directory of a user's portfolio files.
+     */
+    private Path userDir(String username) {
+        return dataDir.resolve("portfolios").resolve(username);
+    }
+
+    /**
+     * Finds the newest numbered file ("name.N") in a directory.
+     *
+     * @param name      the base file name
+     * @param directory the directory
+     * @return the file with the highest number
+     */
+    private static Path newest(String name, Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                    .filter(file -> file.getFileName().toString().matches(name.replace(".", "\\.") + "\\.\\d+"))
+                    .max(Comparator.comparingLong(file -> Long.parseLong(
+                            file.getFileName().toString().substring(name.length() + 1))))
+                    .orElseThrow();
+        }
+    }
+
+    /**
+     * Flips bits near the end of a file, so its checksum no longer matches.
+     *
+     * @param file the file
+     */
+    private static void corrupt(Path file) throws IOException {
+        byte[] data = Files.readAllBytes(file);
+        data[data.length - 3] ^= 0x55;
+        Files.write(file, data);
+    }
+}
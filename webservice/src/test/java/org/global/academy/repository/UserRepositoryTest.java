@@ -0,0 +1,68 @@
+package org.global.academy.repository;
+
+import com.google.gson.Gson;
+import org.global.academy.model.User;
+import org.global.academy.persistence.DurabilityMode;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks of {@link UserRepository} sign-ups against a user file in a
+ * temporary directory.
+ *
+ * @author Project Group 5
+ * @version 1.0
+ */
+class UserRepositoryTest {
+
+    @TempDir
+    Path dataDir;
+
+    @Test
+    void savedUsersAreLoadedAgain() {
+        Path usersFile = dataDir.resolve("users.json");
+        UserRepository before = new UserRepository(new Gson(), usersFile, DurabilityMode.FSYNC_EACH_COMMIT);
+        assertTrue(before.save(new User("alice", "secret")).join());
+        assertFalse(before.save(new User("alice", "other")).join());
+        before.close();
+
+        UserRepository after = new UserRepository(new Gson(), usersFile, DurabilityMode.ASYNC);
+        assertTrue(after.authenticate("alice", "secret"));
+        assertFalse(after.authenticate("alice", "other"));
+        after.close();
+    }
+
+    @Test
+    void userWhoseSaveFailedCanSignUpAgain() throws Exception {
+        // A file where the user directory should be makes every write fail
+        Path blocked = dataDir.resolve("store");
+        Path usersFile = blocked.resolve("users.json");
+        UserRepository repository = new UserRepository(new Gson(), usersFile, DurabilityMode.FSYNC_EACH_COMMIT);
+        Files.writeString(blocked, "not a directory");
+
+        CompletionException failure = assertThrows(CompletionException.class,
+                () -> repository.save(new User("alice", "secret")).join());
+        assertInstanceOf(UncheckedIOException.class, failure.getCause());
+        assertFalse(repository.existsByUsername("alice"));
+        assertFalse(repository.authenticate("alice", "secret"));
+
+        Files.delete(blocked);
+        Files.createDirectory(blocked);
+        assertTrue(repository.save(new User("alice", "secret")).join());
+        repository.close();
+
+        UserRepository reloaded = new UserRepository(new Gson(), usersFile, DurabilityMode.FSYNC_EACH_COMMIT);
+        assertTrue(reloaded.authenticate("alice", "secret"));
+        reloaded.close();
+    }
+}
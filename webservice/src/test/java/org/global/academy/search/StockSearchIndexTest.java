@@ -0,0 +1,85 @@
+package org.global.academy.search;
+
+import org.global.academy.dto.response.StockReference;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks of the ranking of {@link StockSearchIndex}: exact symbol, symbol
+ * prefix, name prefix, name word, substring and typo matches, in that
+ * order.
+ *
+ * @author Project Group 5
+ * @version 1.0
+ */
+class StockSearchIndexTest {
+
+    private static final StockSearchIndex INDEX = new StockSearchIndex(List.of(
+            new StockReference("TECK", "Teck Resources"),
+            new StockReference("BIO", "Biotech Labs"),
+            new StockReference("XTECH", "Something Else"),
+            new StockReference("ABC", "Global Tech Partners"),
+            new StockReference("TEC1", "Tech Holdings"),
+            new StockReference("TECHX", "Other Corp"),
+            new StockReference("TECH", "Plain Name Inc"),
+            new StockReference("AAPL", "Apple Inc."),
+            new StockReference("AAPLW", "Apple Warrants"),
+            new StockReference("APLE", "Apple Hospitality REIT"),
+            new StockReference("GAPL", "Green Apple Labs"),
+            new StockReference("PINE", "Pineapple Holdings"),
+            new StockReference("MSFT", "Microsoft Corporation"),
+            new StockReference("NVDA", "NVIDIA Corporation")));
+
+    @Test
+    void ranksEveryMatchClass() {
+        // exact symbol, symbol prefix, name prefix, name word, symbol
+        // substring, name substring, then symbol typo
+        assertEquals(List.of("TECH", "TECHX", "TEC1", "ABC", "XTECH", "BIO", "TECK"), search("tech", 20));
+    }
+
+    @Test
+    void keepsOnlyTheBestMatches() {
+        assertEquals(List.of("TECH", "TECHX"), search("tech", 2));
+        assertEquals(List.of("TECH"), search(" TECH ", 1));
+    }
+
+    @Test
+    void prefersShorterSymbolsAndEarlierNameMatches() {
+        assertEquals(List.of("AAPL", "AAPLW", "GAPL"), search("aapl", 20));
+        // APLE is also one typo away from "apple", which must not lower its name prefix score
+        assertEquals(List.of("AAPL", "AAPLW", "APLE", "GAPL", "PINE"), search("apple", 20));
+    }
+
+    @Test
+    void toleratesTypos() {
+        assertEquals(List.of("MSFT"), search("microsft", 20));
+        assertEquals("NVDA", search("nvdia", 20).get(0));
+        assertTrue(search("xyzzy", 20).isEmpty());
+    }
+
+    @Test
+    void shortQueriesScanTheNames() {
+        assertEquals("MSFT", search("ms", 20).get(0));
+        assertEquals(List.of("TECHX", "NVDA", "MSFT"), search("rp", 20));
+    }
+
+    @Test
+    void findsExactSymbols() {
+        assertEquals(7, INDEX.findSymbol("aapl"));
+        assertEquals(-1, INDEX.findSymbol("AAP"));
+        assertEquals(-1, INDEX.findSymbol("ZZZZ"));
+    }
+
+    /**
+     * Searches the index.
+     *
+     * @return the symbols found, best match first
+     */
+    private static List<String> search(String query, int limit) {
+        return INDEX.search(query, limit).stream().map(stock -> stock.symbol).toList();
+    }
+}
@@ -0,0 +1,98 @@
+package org.global.academy.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks of {@link TopKHeap}: best-first order, eviction when full, and
+ * duplicate ids keeping their best score.
+ *
+ * @author Project Group 5
+ * @version 1.0
+ */
+class TopKHeapTest {
+
+    @Test
+    void drainsBestFirstWithLowerIdsWinningTies() {
+        TopKHeap heap = new TopKHeap(5);
+        heap.offer(7, 300);
+        heap.offer(3, 500);
+        heap.offer(9, 300);
+        heap.offer(1, 100);
+
+        assertArrayEquals(new int[] { 3, 7, 9, 1 }, heap.drainBestFirst());
+    }
+
+    @Test
+    void fullHeapEvictsTheWorstEntry() {
+        TopKHeap heap = new TopKHeap(2);
+        heap.offer(1, 10);
+        assertEquals(-1, heap.threshold());
+        heap.offer(2, 20);
+        assertEquals(10, heap.threshold());
+
+        heap.offer(3, 30);
+        assertEquals(20, heap.threshold());
+        // Not better than the worst entry kept
+        heap.offer(4, 5);
+        heap.offer(5, 20);
+
+        assertArrayEquals(new int[] { 3, 2 }, heap.drainBestFirst());
+    }
+
+    @Test
+    void duplicateKeepsItsBestScore() {
+        TopKHeap heap = new TopKHeap(3);
+        heap.offer(1, 500);
+        heap.offer(2, 400);
+        heap.offer(1, 100);
+        heap.offer(2, 600);
+        heap.offer(3, 450);
+
+        assertArrayEquals(new int[] { 2, 1, 3 }, heap.drainBestFirst());
+    }
+
+    @Test
+    void evictedIdCanComeBack() {
+        TopKHeap heap = new TopKHeap(1);
+        heap.offer(1, 10);
+        heap.offer(2, 20);
+        heap.offer(1, 30);
+        heap.offer(2, 25);
+
+        assertArrayEquals(new int[] { 1 }, heap.drainBestFirst());
+    }
+
+    @Test
+    void matchesSortingEveryBestScore() {
+        Random random = new Random(7);
+        for (int round = 0; round < 200; round++) {
+            int k = 1 + random.nextInt(20);
+            TopKHeap heap = new TopKHeap(k);
+            Map<Integer, Integer> best = new HashMap<>();
+            for (int i = 0; i < 300; i++) {
+                // Few distinct ids and scores, so duplicates and ties are common
+                int id = random.nextInt(60);
+                int score = random.nextInt(50);
+                heap.offer(id, score);
+                best.merge(id, score, Math::max);
+            }
+
+            List<Integer> expected = new ArrayList<>(best.keySet());
+            expected.sort((a, b) -> best.get(a).equals(best.get(b))
+                    ? Integer.compare(a, b)
+                    : Integer.compare(best.get(b), best.get(a)));
+            int[] expectedIds = expected.subList(0, Math.min(k, expected.size())).stream()
+                    .mapToInt(Integer::intValue).toArray();
+            assertArrayEquals(expectedIds, heap.drainBestFirst(), "round " + round);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package org.global.academy.service;
+
+import com.google.gson.Gson;
+import org.global.academy.config.AppConfig;
+import org.global.academy.dto.request.BuyStockRequest;
+import org.global.academy.dto.request.SellStockRequest;
+import org.global.academy.market.SimulatedMarketDataProvider;
+import org.global.academy.model.LotReliefMethod;
+import org.global.academy.model.PositionSummary;
+import org.global.academy.model.Sale;
+import org.global.academy.persistence.DurabilityMode;
+import org.global.academy.repository.PortfolioRepository;
+import org.global.academy.repository.StockRepository;
+import org.global.academy.valuation.ValuationEngine;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Checks of {@link PortfolioService} trades against a simulated market
+ * and a portfolio store in a temporary directory.
+ *
+ * @author Project Group 5
+ * @version 1.0
+ */
+class PortfolioServiceTest {
+
+    @TempDir
+    Path dataDir;
+
+    private StockRepository stockRepository;
+    private PortfolioRepository portfolioRepository;
+    private PortfolioService portfolioService;
+
+    @BeforeEach
+    void openService() throws InterruptedException {
+        SimulatedMarketDataProvider provider = new SimulatedMarketDataProvider(null, 0, 20, 42);
+        stockRepository = new StockRepository(dataDir.resolve("stocks.json"), dataDir.resolve("stock-catalog.dat"),
+                dataDir.resolve("price-history.dat"), provider, provider);
+        portfolioRepository = new PortfolioRepository(new Gson(), dataDir.resolve("holdings.json"),
+                dataDir.resolve("portfolios"), dataDir.resolve("trades.wal"), 1_000_000,
+                DurabilityMode.FSYNC_EACH_COMMIT, AppConfig.PORTFOLIO_CACHE_MAX_BYTES);
+        ValuationEngine valuationEngine = new ValuationEngine(stockRepository::getLastKnownPrice,
+                AppConfig.VALUATION_TASK_PORTFOLIOS);
+        portfolioService = new PortfolioService(portfolioRepository, stockRepository, valuationEngine);
+
+        for (int i = 0; i < 500 && !stockRepository.isCatalogReady(); i++) {
+            Thread.sleep(10);
+        }
+    }
+
+    @AfterEach
+    void closeService() {
+        portfolioRepository.close();
+        stockRepository.close();
+    }
+
+    @Test
+    void purchaseIsPricedAndNamedByTheServer() {
+        buy(" msft ", 2);
+
+        PositionSummary position = portfolioService.getPortfolio("alice").getSummary("MSFT");
+        assertEquals("MSFT Simulated Inc.", position.companyName());
+        assertEquals(stockRepository.getLastKnownPrice("MSFT") * 2, position.totalCost(), 1e-9);
+        assertNotEquals(200.0, position.totalCost(), "the client's price was paid");
+    }
+
+    @Test
+    void purchaseOfUnlistedSymbolIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> buy("NOPE", 1));
+        assertThrows(IllegalArgumentException.class, () -> buy("X".repeat(AppConfig.MAX_SYMBOL_LENGTH + 1), 1));
+        assertNull(portfolioService.getPortfolio("alice").getSummary("NOPE"));
+    }
+
+    @Test
+    void saleWithoutMethodUsesAverageCostOnceElected() {
+        buy("AAPL", 10);
+        buy("AAPL", 10);
+        assertEquals(LotReliefMethod.FIFO, sell("AAPL", 2, null).method());
+
+        assertEquals(LotReliefMethod.AVERAGE_COST, sell("AAPL", 3, "average-cost").method());
+        assertEquals(LotReliefMethod.AVERAGE_COST, sell("AAPL", 5, null).method());
+        assertEquals(LotReliefMethod.AVERAGE_COST, sell("AAPL", 1, " ").method());
+        assertThrows(IllegalArgumentException.class, () -> sell("AAPL", 1, "FIFO"));
+        assertEquals(9, portfolioService.getPortfolio("alice").getSummary("AAPL").quantity());
+    }
+
+    /**
+     * Buys shares for alice.
+     */
+    private void buy(String symbol, int quantity) {
+        BuyStockRequest request = new BuyStockRequest();
+        request.symbol = symbol;
+        request.name = symbol + " Inc";
+        request.price = 100.0;
+        request.quantity = quantity;
+        portfolioService.buyStock("alice", request);
+    }
+
+    /**
+     * Sells shares for alice.
+     *
+     * @param method the method name sent by the client, or null for none
+     * @return the sale
+     */
+    private Sale sell(String symbol, int quantity, String method) {
+        SellStockRequest request = new SellStockRequest();
+        request.symbol = symbol;
+        request.quantity = quantity;
+        request.method = method;
+        return portfolioService.sellStock("alice", request);
+    }
+}
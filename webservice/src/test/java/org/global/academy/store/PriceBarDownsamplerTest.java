@@ -0,0 +1,140 @@
+package org.global.academy.store;
+
+import org.global.academy.dto.response.PriceBar;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks of {@link PriceBarDownsampler}: the number of bars returned, the
+ * first and last bars, and the highs, lows and tick counts of dropped bars.
+ *
+ * @author Project Group 5
+ * @version 1.0
+ */
+class PriceBarDownsamplerTest {
+
+    private static final double DELTA = 1e-9;
+
+    @Test
+    void noPointsGiveNoBars() {
+        assertTrue(PriceBarDownsampler.lttb(randomBars(10), 0).isEmpty());
+        assertTrue(PriceBarDownsampler.lttb(randomBars(10), -1).isEmpty());
+    }
+
+    @Test
+    void onePointMergesTheWholeSeries() {
+        List<PriceBar> bars = randomBars(10);
+
+        List<PriceBar> sampled = PriceBarDownsampler.lttb(bars, 1);
+        assertEquals(1, sampled.size());
+        PriceBar bar = sampled.get(0);
+        assertEquals(bars.get(0).time, bar.time);
+        assertEquals(bars.get(0).open, bar.open, DELTA);
+        assertEquals(bars.get(9).close, bar.close, DELTA);
+        assertEquals(maxHigh(bars), bar.high, DELTA);
+        assertEquals(minLow(bars), bar.low, DELTA);
+        assertEquals(ticks(bars), bar.ticks);
+    }
+
+    @Test
+    void twoPointsMergeEachHalf() {
+        List<PriceBar> bars = randomBars(10);
+
+        List<PriceBar> sampled = PriceBarDownsampler.lttb(bars, 2);
+        assertEquals(2, sampled.size());
+        assertEquals(bars.get(0).time, sampled.get(0).time);
+        assertEquals(bars.get(4).close, sampled.get(0).close, DELTA);
+        assertEquals(maxHigh(bars.subList(0, 5)), sampled.get(0).high, DELTA);
+        assertEquals(bars.get(5).time, sampled.get(1).time);
+        assertEquals(bars.get(9).close, sampled.get(1).close, DELTA);
+        assertEquals(minLow(bars.subList(5, 10)), sampled.get(1).low, DELTA);
+        assertEquals(ticks(bars), ticks(sampled));
+    }
+
+    @Test
+    void threePointsKeepFirstAndLastAroundOneBucket() {
+        List<PriceBar> bars = randomBars(10);
+
+        List<PriceBar> sampled = PriceBarDownsampler.lttb(bars, 3);
+        assertEquals(3, sampled.size());
+        assertSame(bars.get(0), sampled.get(0));
+        assertSame(bars.get(9), sampled.get(2));
+        assertEquals(maxHigh(bars.subList(1, 9)), sampled.get(1).high, DELTA);
+        assertEquals(minLow(bars.subList(1, 9)), sampled.get(1).low, DELTA);
+        assertEquals(ticks(bars), ticks(sampled));
+    }
+
+    @Test
+    void enoughPointsReturnTheBarsUnchanged() {
+        List<PriceBar> bars = randomBars(10);
+
+        assertSame(bars, PriceBarDownsampler.lttb(bars, 10));
+        assertSame(bars, PriceBarDownsampler.lttb(bars, 11));
+        assertTrue(PriceBarDownsampler.lttb(new ArrayList<>(), 5).isEmpty());
+    }
+
+    @Test
+    void keepsShapeAndExtremesOfLongSeries() {
+        List<PriceBar> bars = randomBars(1000);
+        // A spike in the middle of the chart must stay visible
+        bars.get(500).close = 1_000.0;
+        bars.get(500).high = 1_000.0;
+
+        List<PriceBar> sampled = PriceBarDownsampler.lttb(bars, 50);
+        assertEquals(50, sampled.size());
+        assertSame(bars.get(0), sampled.get(0));
+        assertSame(bars.get(999), sampled.get(49));
+        assertTrue(sampled.stream().anyMatch(bar -> bar.close == 1_000.0), "the spike was dropped");
+        assertEquals(maxHigh(bars), maxHigh(sampled), DELTA);
+        assertEquals(minLow(bars), minLow(sampled), DELTA);
+        assertEquals(ticks(bars), ticks(sampled));
+        for (int i = 1; i < sampled.size(); i++) {
+            assertTrue(sampled.get(i).time > sampled.get(i - 1).time, "bars out of order at " + i);
+        }
+    }
+
+    /**
+     * Creates a random walk of one-minute bars.
+     */
+    private static List<PriceBar> randomBars(int n) {
+        Random random = new Random(n);
+        List<PriceBar> bars = new ArrayList<>(n);
+        double price = 100.0;
+        for (int i = 0; i < n; i++) {
+            double open = price;
+            price += random.nextGaussian();
+            double high = Math.max(open, price) + random.nextDouble();
+            double low = Math.min(open, price) - random.nextDouble();
+            bars.add(new PriceBar(i * 60_000L, open, high, low, price, 1 + random.nextInt(5)));
+        }
+        return bars;
+    }
+
+    /**
+     * Gets the highest high of a list of bars.
+     */
+    private static double maxHigh(List<PriceBar> bars) {
+        return bars.stream().mapToDouble(bar -> bar.high).max().orElseThrow();
+    }
+
+    /**
+     * Gets the lowest low of a list of bars.
+     */
+    private static double minLow(List<PriceBar> bars) {
+        return bars.stream().mapToDouble(bar -> bar.low).min().orElseThrow();
+    }
+
+    /**
+     * Gets the number of ticks in a list of bars.
+     */
+    private static int ticks(List<PriceBar> bars) {
+        return bars.stream().mapToInt(bar -> bar.ticks).sum();
+    }
+}
@@ -0,0 +1,107 @@
+package org.global.academy.stream;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Checks of {@link PriceUpdateHub}: prices reach only the subscribers of
+ * their symbol, and a portfolio change moves a user's subscribers to the
+ * symbols they hold after it.
+ *
+ * @author Project Group 5
+ * @version 1.0
+ */
+class PriceUpdateHubTest {
+
+    /**
+     * Records the calls of the hub. The symbols it returns after a
+     * portfolio change can be set beforehand.
+     */
+    private static final class RecordingSubscriber implements PriceSubscriber {
+
+        final BlockingQueue<Object> calls = new LinkedBlockingQueue<>();
+        volatile Set<String> heldAfterChange = Set.of();
+
+        @Override
+        public void onPrices(Map<String, Double> changedPrices) {
+            calls.add(changedPrices);
+        }
+
+        @Override
+        public Collection<String> onPortfolioChanged() {
+            calls.add("portfolio");
+            return heldAfterChange;
+        }
+
+        @Override
+        public void heartbeat() {
+        }
+
+        /**
+         * Waits for the next call.
+         */
+        Object next() throws InterruptedException {
+            return calls.poll(5, TimeUnit.SECONDS);
+        }
+    }
+
+    private final PriceUpdateHub hub = new PriceUpdateHub(3600);
+
+    @Test
+    void pricesReachOnlyTheirSubscribers() throws InterruptedException {
+        RecordingSubscriber alice = new RecordingSubscriber();
+        RecordingSubscriber bob = new RecordingSubscriber();
+        hub.subscribe(alice, "alice", List.of("AAPL"));
+        hub.subscribe(bob, "bob", List.of("MSFT"));
+
+        hub.onPrice("AAPL", 0L, 190.0);
+        assertEquals(Map.of("AAPL", 190.0), alice.next());
+        hub.onPrice("NVDA", 0L, 900.0);
+        hub.onPrice("MSFT", 0L, 410.0);
+        assertEquals(Map.of("MSFT", 410.0), bob.next());
+        assertNull(alice.calls.poll(100, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void portfolioChangeMovesTheUsersSubscribers() throws InterruptedException {
+        RecordingSubscriber alice = new RecordingSubscriber();
+        RecordingSubscriber bob = new RecordingSubscriber();
+        hub.subscribe(alice, "alice", List.of("AAPL"));
+        hub.subscribe(bob, "bob", List.of("AAPL"));
+
+        // Alice sold AAPL and bought MSFT
+        alice.heldAfterChange = Set.of("MSFT");
+        hub.portfolioChanged("alice");
+        assertEquals("portfolio", alice.next());
+
+        hub.onPrice("AAPL", 0L, 191.0);
+        assertEquals(Map.of("AAPL", 191.0), bob.next());
+        hub.onPrice("MSFT", 0L, 411.0);
+        assertEquals(Map.of("MSFT", 411.0), alice.next());
+        assertNull(alice.calls.poll(100, TimeUnit.MILLISECONDS));
+        assertNull(bob.calls.poll(100, TimeUnit.MILLISECONDS));
+        assertEquals(1L, hub.getStats().get("portfolioReloads"));
+    }
+
+    @Test
+    void unsubscribedStreamIsNotReloaded() throws InterruptedException {
+        RecordingSubscriber alice = new RecordingSubscriber();
+        hub.subscribe(alice, "alice", List.of("AAPL"));
+        hub.unsubscribe(alice);
+
+        hub.portfolioChanged("alice");
+        hub.onPrice("AAPL", 0L, 192.0);
+        assertNull(alice.calls.poll(100, TimeUnit.MILLISECONDS));
+        assertEquals(0, hub.getStats().get("symbols"));
+    }
+}